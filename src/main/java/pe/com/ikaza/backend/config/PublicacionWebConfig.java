@@ -0,0 +1,39 @@
+package pe.com.ikaza.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import static pe.com.ikaza.backend.service.exportacion.PublicacionCatalogoService.DIRECTORIO_FEEDS;
+import static pe.com.ikaza.backend.service.exportacion.PublicacionCatalogoService.DIRECTORIO_SITEMAPS;
+import static pe.com.ikaza.backend.service.exportacion.PublicacionCatalogoService.SITEMAP;
+
+/**
+ * Sirve como recursos estáticos el sitemap y el feed generados por PublicacionCatalogoService.
+ * Spring agrega Last-Modified y responde 304 a If-Modified-Since a partir de la fecha del archivo.
+ */
+@Configuration
+public class PublicacionWebConfig implements WebMvcConfigurer {
+
+    @Value("${publicacion.directorio:publicacion/}")
+    private String directorio;
+
+    @Value("${publicacion.cache-segundos:3600}")
+    private long cacheSegundos;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        String ubicacion = Paths.get(directorio).toAbsolutePath().toUri().toString();
+        if (!ubicacion.endsWith("/")) {
+            ubicacion += "/";
+        }
+        registry.addResourceHandler("/" + SITEMAP, "/" + DIRECTORIO_SITEMAPS + "/**", "/" + DIRECTORIO_FEEDS + "/**")
+                .addResourceLocations(ubicacion)
+                .setCacheControl(CacheControl.maxAge(cacheSegundos, TimeUnit.SECONDS).cachePublic());
+    }
+}
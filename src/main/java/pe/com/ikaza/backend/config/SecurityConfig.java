@@ -84,9 +84,20 @@ public class SecurityConfig {
                                                 .requestMatchers("/api/contacto/**").permitAll()
                                                 .requestMatchers("/api/verification/**").authenticated()
 
+                                                // Sitemap y feed de productos (archivos estáticos generados)
+                                                .requestMatchers(HttpMethod.GET, "/sitemap.xml", "/sitemaps/**",
+                                                                "/feeds/**")
+                                                .permitAll()
+
                                                 // Rutas públicas de Producto (lectura/consulta)
                                                 .requestMatchers(HttpMethod.GET, "/api/productos", "/api/productos/**")
                                                 .permitAll()
+                                                // Búsqueda de varios SKU (es una lectura, va por POST por el tamaño)
+                                                .requestMatchers(HttpMethod.POST, "/api/productos/sku/lote")
+                                                .permitAll()
+                                                // Agregado al carrito (suma a la popularidad una vez por cliente)
+                                                .requestMatchers(HttpMethod.POST, "/api/productos/*/carrito")
+                                                .authenticated()
 
                                                 // Rutas de Producto (administrador)
                                                 .requestMatchers(HttpMethod.POST, "/api/productos")
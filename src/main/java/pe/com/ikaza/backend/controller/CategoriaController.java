@@ -6,10 +6,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import pe.com.ikaza.backend.dto.request.CategoriaRequest;
 import pe.com.ikaza.backend.dto.response.CategoriaResponse;
 import pe.com.ikaza.backend.dto.response.MessageResponse;
 import pe.com.ikaza.backend.service.CategoriaService;
+import pe.com.ikaza.backend.utils.RespuestaCondicional;
 
 import java.util.List;
 
@@ -24,14 +26,19 @@ public class CategoriaController {
     @Autowired
     private CategoriaService categoriaService;
 
+    @Autowired
+    private RespuestaCondicional respuestaCondicional;
+
     /**
      * GET /api/categorias
      * Obtiene todas las categorías activas (público)
      */
     @GetMapping
-    public ResponseEntity<List<CategoriaResponse>> obtenerCategoriasActivas() {
-        List<CategoriaResponse> categorias = categoriaService.obtenerCategoriasActivas();
-        return ResponseEntity.ok(categorias);
+    public ResponseEntity<?> obtenerCategoriasActivas(WebRequest request) {
+        return respuestaCondicional.categorias(request, () -> {
+            List<CategoriaResponse> categorias = categoriaService.obtenerCategoriasActivas();
+            return ResponseEntity.ok(categorias);
+        });
     }
 
     /**
@@ -39,11 +46,14 @@ public class CategoriaController {
      * Busca categorías por nombre (público)
      */
     @GetMapping("/buscar")
-    public ResponseEntity<List<CategoriaResponse>> buscarCategorias(
-            @RequestParam String texto) {
+    public ResponseEntity<?> buscarCategorias(
+            @RequestParam String texto,
+            WebRequest request) {
         // @RequestParam: captura parámetros de la URL (?texto=...)
-        List<CategoriaResponse> categorias = categoriaService.buscarCategorias(texto);
-        return ResponseEntity.ok(categorias);
+        return respuestaCondicional.categorias(request, () -> {
+            List<CategoriaResponse> categorias = categoriaService.buscarCategorias(texto);
+            return ResponseEntity.ok(categorias);
+        });
     }
 
     /**
@@ -51,16 +61,18 @@ public class CategoriaController {
      * Obtiene una categoría por ID (público)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenerCategoriaPorId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerCategoriaPorId(@PathVariable Long id, WebRequest request) {
         // @PathVariable: captura el {id} de la URL
-        try {
-            CategoriaResponse categoria = categoriaService.obtenerCategoriaPorId(id);
-            return ResponseEntity.ok(categoria);
-        } catch (RuntimeException e) {
-            return ResponseEntity
-                    .status(HttpStatus.NOT_FOUND)
-                    .body(new MessageResponse(e.getMessage(), false));
-        }
+        return respuestaCondicional.categorias(request, () -> {
+            try {
+                CategoriaResponse categoria = categoriaService.obtenerCategoriaPorId(id);
+                return ResponseEntity.ok(categoria);
+            } catch (RuntimeException e) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .body(new MessageResponse(e.getMessage(), false));
+            }
+        });
     }
 
     // ========== ENDPOINTS PARA ADMINISTRADORES ==========
@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,10 +14,14 @@ import pe.com.ikaza.backend.dto.request.AjusteStockRequest;
 import pe.com.ikaza.backend.dto.response.InventarioResponse;
 import pe.com.ikaza.backend.dto.response.MessageResponse;
 import pe.com.ikaza.backend.dto.response.MovimientoInventarioResponse;
+import pe.com.ikaza.backend.dto.response.PaginaCursorResponse;
+import pe.com.ikaza.backend.dto.response.ResumenMovimientosResponse;
 import pe.com.ikaza.backend.service.InventarioAdminService;
+import pe.com.ikaza.backend.service.InventarioService;
 import pe.com.ikaza.backend.service.UsuarioService;
 import pe.com.ikaza.backend.utils.SecurityUtils;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -29,6 +34,7 @@ import java.util.List;
 public class InventarioController {
 
     private final InventarioAdminService inventarioAdminService;
+    private final InventarioService inventarioService;
 
     @Autowired
     private UsuarioService usuarioService;
@@ -106,9 +112,33 @@ public class InventarioController {
         }
     }
 
+    /**
+     * GET /api/inventario/movimientos
+     * Obtiene el historial de movimientos del inventario, del más reciente al más
+     * antiguo, paginado por cursor (?cursor= con el "siguienteCursor" de la página
+     * anterior) y filtrado por ?desde=&hasta= (yyyy-MM-dd, ambas inclusive)
+     */
+    @GetMapping("/movimientos")
+    public ResponseEntity<?> obtenerMovimientos(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            PaginaCursorResponse<MovimientoInventarioResponse> pagina = inventarioAdminService
+                    .obtenerMovimientos(desde, hasta, cursor, size);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
     /**
      * GET /api/inventario/movimientos/producto/{idProducto}
-     * Obtiene el historial de movimientos de un producto
+     * Obtiene los últimos 200 movimientos de un producto. Para el historial
+     * completo usar GET /api/inventario/movimientos/producto/{idProducto}/pagina
      */
     @GetMapping("/movimientos/producto/{idProducto}")
     public ResponseEntity<List<MovimientoInventarioResponse>> obtenerMovimientosPorProducto(
@@ -118,6 +148,50 @@ public class InventarioController {
         return ResponseEntity.ok(movimientos);
     }
 
+    /**
+     * GET /api/inventario/movimientos/producto/{idProducto}/pagina
+     * Historial de movimientos de un producto paginado por cursor (mismos
+     * parámetros que GET /api/inventario/movimientos)
+     */
+    @GetMapping("/movimientos/producto/{idProducto}/pagina")
+    public ResponseEntity<?> obtenerPaginaMovimientosPorProducto(
+            @PathVariable Long idProducto,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            PaginaCursorResponse<MovimientoInventarioResponse> pagina = inventarioAdminService
+                    .obtenerPaginaMovimientosPorProducto(idProducto, desde, hasta, cursor, size);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * GET /api/inventario/movimientos/resumen?desde=&hasta=
+     * Totales de movimientos por día y tipo (de un producto con ?idProducto=),
+     * leídos del resumen diario
+     */
+    @GetMapping("/movimientos/resumen")
+    public ResponseEntity<?> obtenerResumenMovimientos(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long idProducto) {
+        try {
+            List<ResumenMovimientosResponse> resumen = inventarioAdminService
+                    .obtenerResumenMovimientos(idProducto, desde, hasta);
+            return ResponseEntity.ok(resumen);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
     /**
      * GET /api/inventario/movimientos/ultimos
      * Obtiene los últimos movimientos del sistema
@@ -148,4 +222,22 @@ public class InventarioController {
         List<InventarioResponse> inventarios = inventarioAdminService.obtenerInventariosSinStock();
         return ResponseEntity.ok(inventarios);
     }
+
+    /**
+     * POST /api/inventario/reservas/reconciliar
+     * Recalcula stock_reservado de todos los inventarios desde el libro de reservas.
+     * Paso manual (por ejemplo una vez al introducir el libro, con los pedidos
+     * pendientes anteriores ya resueltos): lo reservado fuera del libro se pierde.
+     */
+    @PostMapping("/reservas/reconciliar")
+    public ResponseEntity<?> reconciliarReservas() {
+        try {
+            int corregidos = inventarioService.reconciliarReservas();
+            return ResponseEntity.ok(new MessageResponse("Inventarios corregidos: " + corregidos, true));
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Error al reconciliar las reservas: " + e.getMessage(), false));
+        }
+    }
 }
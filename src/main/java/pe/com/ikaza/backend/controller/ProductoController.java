@@ -6,18 +6,51 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+import pe.com.ikaza.backend.dto.projection.StockProducto;
 import pe.com.ikaza.backend.dto.request.ProductoRequest;
 import pe.com.ikaza.backend.dto.request.ProductoUpdateRequest;
+import pe.com.ikaza.backend.dto.response.BusquedaSkuResponse;
+import pe.com.ikaza.backend.dto.response.EstadisticasCacheResponse;
+import pe.com.ikaza.backend.dto.response.FiltradoProductosResponse;
+import pe.com.ikaza.backend.dto.response.ImportacionProductosResponse;
 import pe.com.ikaza.backend.dto.response.MessageResponse;
+import pe.com.ikaza.backend.dto.response.PaginaCursorResponse;
+import pe.com.ikaza.backend.dto.response.PublicacionCatalogoResponse;
 import pe.com.ikaza.backend.dto.response.ProductoDetalleResponse;
 import pe.com.ikaza.backend.dto.response.ProductoResponse;
+import pe.com.ikaza.backend.dto.response.ProductoVendidoResponse;
+import pe.com.ikaza.backend.dto.response.SugerenciaResponse;
+import pe.com.ikaza.backend.dto.response.VarianteSkuResponse;
+import pe.com.ikaza.backend.enums.FormatoArchivo;
+import pe.com.ikaza.backend.exception.IndiceNoDisponibleException;
 import pe.com.ikaza.backend.service.ProductoService;
+import pe.com.ikaza.backend.service.catalogo.ColeccionesInicioService;
+import pe.com.ikaza.backend.service.catalogo.CursorCatalogo;
+import pe.com.ikaza.backend.service.catalogo.RankingVentasService;
+import pe.com.ikaza.backend.service.catalogo.ResolucionSlug;
+import pe.com.ikaza.backend.service.catalogo.SlugProductoService;
+import pe.com.ikaza.backend.service.catalogo.VentanaVentas;
+import pe.com.ikaza.backend.service.exportacion.ExportacionProductosService;
+import pe.com.ikaza.backend.service.exportacion.PublicacionCatalogoService;
+import pe.com.ikaza.backend.service.importacion.ImportacionProductosService;
+import pe.com.ikaza.backend.utils.RespuestaCondicional;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador REST para gestión de productos
@@ -30,43 +63,85 @@ public class ProductoController {
     @Autowired
     private ProductoService productoService;
 
+    @Autowired
+    private RespuestaCondicional respuestaCondicional;
+
+    @Autowired
+    private ImportacionProductosService importacionProductosService;
+
+    @Autowired
+    private ExportacionProductosService exportacionProductosService;
+
+    @Autowired
+    private PublicacionCatalogoService publicacionCatalogoService;
+
+    @Autowired
+    private SlugProductoService slugProductoService;
+
     /**
      * GET /api/productos
-     * Obtiene productos con paginación (público)
+     * Obtiene productos con paginación (público).
+     * Con ?cursor= (vacío en la primera página) usa paginación por cursor, sin
+     * total de elementos; ordena por idProducto, precio o fechaCreacion.
+     * En ese modo size va de 1 a ProductoService.MAX_PRODUCTOS_POR_PAGINA.
      */
     @GetMapping
-    public ResponseEntity<Page<ProductoResponse>> obtenerProductos(
+    public ResponseEntity<?> obtenerProductos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "nombreProducto") String sort,
-            @RequestParam(defaultValue = "ASC") String direction) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
 
-        Sort.Direction sortDirection = direction.equalsIgnoreCase("DESC")
-                ? Sort.Direction.DESC
-                : Sort.Direction.ASC;
+        return respuestaCondicional.catalogo(request, () -> {
+            if (cursor != null) {
+                return obtenerConCursor(null, cursor, sort, direction, size);
+            }
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
-        Page<ProductoResponse> productos = productoService.obtenerProductosPaginados(pageable);
+            Sort.Direction sortDirection = direction.equalsIgnoreCase("DESC")
+                    ? Sort.Direction.DESC
+                    : Sort.Direction.ASC;
 
-        return ResponseEntity.ok(productos);
+            Pageable pageable = PageRequest.of(page, size,
+                    Sort.by(sortDirection, sort != null ? sort : "nombreProducto"));
+            Page<ProductoResponse> productos = productoService.obtenerProductosPaginados(pageable);
+
+            return ResponseEntity.ok(productos);
+        });
     }
 
     /**
      * GET /api/productos/categoria/{idCategoria}
-     * Obtiene productos de una categoría con paginación (público)
+     * Obtiene productos de una categoría con paginación (público).
+     * Admite ?cursor= igual que GET /api/productos
      */
     @GetMapping("/categoria/{idCategoria}")
-    public ResponseEntity<Page<ProductoResponse>> obtenerProductosPorCategoria(
+    public ResponseEntity<?> obtenerProductosPorCategoria(
             @PathVariable Long idCategoria,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            @RequestParam(defaultValue = "nombreProducto") String sort) {
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "ASC") String direction,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sort));
-        Page<ProductoResponse> productos = productoService.obtenerProductosPorCategoria(
-                idCategoria, pageable);
+        return respuestaCondicional.catalogo(request, () -> {
+            if (cursor != null) {
+                return obtenerConCursor(idCategoria, cursor, sort, direction, size);
+            }
 
-        return ResponseEntity.ok(productos);
+            Sort.Direction sortDirection = direction.equalsIgnoreCase("DESC")
+                    ? Sort.Direction.DESC
+                    : Sort.Direction.ASC;
+
+            Pageable pageable = PageRequest.of(page, size,
+                    Sort.by(sortDirection, sort != null ? sort : "nombreProducto"));
+            Page<ProductoResponse> productos = productoService.obtenerProductosPorCategoria(
+                    idCategoria, pageable);
+
+            return ResponseEntity.ok(productos);
+        });
     }
 
     /**
@@ -74,15 +149,17 @@ public class ProductoController {
      * Obtiene un producto por ID (público)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenerProductoPorId(@PathVariable Long id) {
-        try {
-            ProductoResponse producto = productoService.obtenerProductoPorId(id);
-            return ResponseEntity.ok(producto);
-        } catch (RuntimeException e) {
-            return ResponseEntity
-                    .status(HttpStatus.NOT_FOUND)
-                    .body(new MessageResponse(e.getMessage(), false));
-        }
+    public ResponseEntity<?> obtenerProductoPorId(@PathVariable Long id, WebRequest request) {
+        return respuestaCondicional.producto(request, id, () -> {
+            try {
+                ProductoResponse producto = productoService.obtenerProductoPorId(id);
+                return ResponseEntity.ok(producto);
+            } catch (RuntimeException e) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .body(new MessageResponse(e.getMessage(), false));
+            }
+        });
     }
 
     /**
@@ -90,31 +167,222 @@ public class ProductoController {
      * Obtiene el detalle completo de un producto (público)
      */
     @GetMapping("/{id}/detalle")
-    public ResponseEntity<?> obtenerDetalleProducto(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerDetalleProducto(@PathVariable Long id, WebRequest request) {
+        // También cuenta si el cliente ya la tiene en caché (304)
+        productoService.registrarVista(id);
+        // Un solo SELECT de stock para el validador y el cuerpo
+        StockProducto stock = productoService.obtenerStockDetalle(id).orElse(null);
+        return respuestaCondicional.validada(request, productoService.validadorDetalle(id, stock), () -> {
+            try {
+                ProductoDetalleResponse detalle = productoService.obtenerDetalleProducto(id, stock);
+                return ResponseEntity.ok(detalle);
+            } catch (RuntimeException e) {
+                return ResponseEntity
+                        .status(HttpStatus.NOT_FOUND)
+                        .body(new MessageResponse(e.getMessage(), false));
+            }
+        });
+    }
+
+    /**
+     * GET /api/productos/slug/{slug}
+     * Detalle de un producto por su slug (público). Un slug anterior responde
+     * 301 hacia el vigente (o hacia /{id}/detalle si el producto ya no tiene slug).
+     */
+    @GetMapping("/slug/{slug}")
+    public ResponseEntity<?> obtenerDetallePorSlug(@PathVariable String slug, WebRequest request) {
+        ResolucionSlug resolucion;
         try {
-            ProductoDetalleResponse detalle = productoService.obtenerDetalleProducto(id);
-            return ResponseEntity.ok(detalle);
+            resolucion = productoService.resolverSlug(slug);
         } catch (RuntimeException e) {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
                     .body(new MessageResponse(e.getMessage(), false));
         }
+        if (resolucion.redireccion()) {
+            URI destino = resolucion.slug() != null
+                    ? UriComponentsBuilder.fromPath("/api/productos/slug/{slug}")
+                            .buildAndExpand(resolucion.slug()).encode().toUri()
+                    : UriComponentsBuilder.fromPath("/api/productos/{id}/detalle")
+                            .buildAndExpand(resolucion.idProducto()).toUri();
+            return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY).location(destino).build();
+        }
+        return obtenerDetalleProducto(resolucion.idProducto(), request);
+    }
+
+    /**
+     * POST /api/productos/{id}/carrito
+     * Registra que el producto se agregó al carrito, para la popularidad (requiere sesión).
+     * Se cuenta una vez por cliente y producto en cada ventana, con un tope por cliente.
+     */
+    @PostMapping("/{id}/carrito")
+    public ResponseEntity<Void> registrarAgregadoCarrito(@PathVariable Long id, Authentication authentication) {
+        productoService.registrarAgregadoCarrito(authentication.getName(), id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * GET /api/productos/{id}/relacionados?limite=6
+     * Productos comprados frecuentemente junto con este (público)
+     */
+    @GetMapping("/{id}/relacionados")
+    public ResponseEntity<List<ProductoResponse>> obtenerRelacionados(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "6") int limite) {
+        List<ProductoResponse> productos = productoService.obtenerRelacionados(
+                id, Math.max(1, Math.min(limite, 12)));
+        return ResponseEntity.ok(productos);
+    }
+
+    /**
+     * GET /api/productos/{id}/similares?limite=6
+     * Productos parecidos por contenido (público)
+     */
+    @GetMapping("/{id}/similares")
+    public ResponseEntity<List<ProductoResponse>> obtenerSimilares(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "6") int limite) {
+        List<ProductoResponse> productos = productoService.obtenerSimilares(
+                id, Math.max(1, Math.min(limite, 20)));
+        return ResponseEntity.ok(productos);
     }
 
     /**
      * GET /api/productos/buscar?texto=nombre
-     * Busca productos por texto con paginación (público)
+     * Busca productos por texto con paginación, ordenados por relevancia (público)
      */
     @GetMapping("/buscar")
-    public ResponseEntity<Page<ProductoResponse>> buscarProductos(
+    public ResponseEntity<?> buscarProductos(
             @RequestParam String texto,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request) {
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<ProductoResponse> productos = productoService.buscarProductos(texto, pageable);
+        return respuestaCondicional.catalogo(request, () -> {
+            Pageable pageable = PageRequest.of(page, size);
+            Page<ProductoResponse> productos = productoService.buscarProductos(texto, pageable);
 
-        return ResponseEntity.ok(productos);
+            return ResponseEntity.ok(productos);
+        });
+    }
+
+    /**
+     * GET /api/productos/filtrar?marca=Nike&color=rojo&talla=M&precio=50-100&atributo=material:algodon
+     * Filtra productos por facetas y devuelve la página más los conteos por valor (público).
+     * Se pueden repetir parámetros: los valores de una misma faceta se combinan con OR.
+     * Responde 503 mientras el índice de facetas no está cargado.
+     */
+    @GetMapping("/filtrar")
+    public ResponseEntity<?> filtrarProductos(
+            @RequestParam(required = false) List<String> marca,
+            @RequestParam(required = false) List<String> categoria,
+            @RequestParam(required = false) List<String> color,
+            @RequestParam(required = false) List<String> talla,
+            @RequestParam(required = false) List<String> precio,
+            @RequestParam(required = false) List<String> atributo,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "idProducto") String sort,
+            @RequestParam(defaultValue = "ASC") String direction,
+            WebRequest request) {
+
+        Map<String, List<String>> seleccion = new HashMap<>();
+        agregarFiltro(seleccion, "marca", marca);
+        agregarFiltro(seleccion, "categoria", categoria);
+        agregarFiltro(seleccion, "color", color);
+        agregarFiltro(seleccion, "talla", talla);
+        agregarFiltro(seleccion, "precio", precio);
+        if (atributo != null) {
+            for (String filtro : atributo) {
+                int separador = filtro.indexOf(':');
+                if (separador > 0) {
+                    String clave = "atributo." + filtro.substring(0, separador).trim();
+                    seleccion.computeIfAbsent(clave, k -> new ArrayList<>()).add(filtro.substring(separador + 1));
+                }
+            }
+        }
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("DESC")
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
+
+        return respuestaCondicional.catalogo(request, () -> {
+            try {
+                FiltradoProductosResponse resultado = productoService.filtrarProductos(seleccion, pageable);
+                return ResponseEntity.ok(resultado);
+            } catch (IndiceNoDisponibleException e) {
+                return ResponseEntity
+                        .status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "10")
+                        .body(new MessageResponse(e.getMessage(), false));
+            }
+        });
+    }
+
+    /**
+     * GET /api/productos/sugerencias?q=pol
+     * Autocompletado del buscador: productos, marcas y categorías (público)
+     */
+    @GetMapping("/sugerencias")
+    public ResponseEntity<?> obtenerSugerencias(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limite,
+            WebRequest request) {
+
+        return respuestaCondicional.validada(request, productoService.validadorSugerencias(), () -> {
+            List<SugerenciaResponse> sugerencias = productoService.obtenerSugerencias(q, Math.min(limite, 20));
+            return ResponseEntity.ok(sugerencias);
+        });
+    }
+
+    /**
+     * GET /api/productos/sku/{sku}
+     * Variante y producto de un SKU (público)
+     */
+    @GetMapping("/sku/{sku}")
+    public ResponseEntity<?> obtenerPorSku(@PathVariable String sku) {
+        try {
+            VarianteSkuResponse variante = productoService.obtenerPorSku(sku);
+            return ResponseEntity.ok(variante);
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * POST /api/productos/sku/lote
+     * Varios SKU en una sola llamada (body: ["SKU-1", "SKU-2", ...]) (público)
+     */
+    @PostMapping("/sku/lote")
+    public ResponseEntity<?> buscarPorSkus(@RequestBody List<String> skus) {
+        try {
+            BusquedaSkuResponse resultado = productoService.buscarPorSkus(skus);
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * GET /api/productos/home
+     * Colecciones de la página de inicio en una sola respuesta (público).
+     * Si ya están armadas, If-None-Match se valida antes de tocar nada.
+     */
+    @GetMapping("/home")
+    public ResponseEntity<?> obtenerInicio(WebRequest request) {
+        ColeccionesInicioService.Colecciones vigentes = productoService.obtenerInicioVigente();
+        if (vigentes != null) {
+            return respuestaCondicional.validada(request, vigentes.validador(),
+                    () -> ResponseEntity.ok(vigentes.respuesta()));
+        }
+        ColeccionesInicioService.Colecciones colecciones = productoService.obtenerInicio();
+        return respuestaCondicional.validada(request, colecciones.validador(),
+                () -> ResponseEntity.ok(colecciones.respuesta()));
     }
 
     /**
@@ -132,16 +400,54 @@ public class ProductoController {
         return ResponseEntity.ok(producto);
     }
 
+    /**
+     * GET /api/productos/top-vendidos?categoria=1&ventana=7d
+     * Ranking de más vendidos por unidades: ventana total, 7d o 30d (público)
+     */
+    @GetMapping("/top-vendidos")
+    public ResponseEntity<?> obtenerTopVendidos(
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "total") String ventana,
+            @RequestParam(defaultValue = "10") int limite) {
+
+        try {
+            VentanaVentas ventanaVentas = VentanaVentas.desdeParametro(ventana);
+            List<ProductoVendidoResponse> productos = productoService.obtenerTopVendidos(
+                    categoria, ventanaVentas, Math.max(1, Math.min(limite, RankingVentasService.TOP_N)));
+            return ResponseEntity.ok(productos);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * GET /api/productos/populares?categoria=1&limite=10
+     * Más populares por vistas, búsquedas y agregados al carrito recientes (público)
+     */
+    @GetMapping("/populares")
+    public ResponseEntity<List<ProductoResponse>> obtenerPopulares(
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "10") int limite) {
+        List<ProductoResponse> productos = productoService.obtenerPopulares(
+                categoria, Math.max(1, Math.min(limite, 50)));
+        return ResponseEntity.ok(productos);
+    }
+
     /**
      * GET /api/productos/mas-baratos
      * Obtiene los productos más baratos (público)
      */
     @GetMapping("/mas-baratos")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosMasBaratos(
-            @RequestParam(defaultValue = "12") int limite) {
+    public ResponseEntity<?> obtenerProductosMasBaratos(
+            @RequestParam(defaultValue = "12") int limite,
+            WebRequest request) {
 
-        List<ProductoResponse> productos = productoService.obtenerProductosMasBaratos(limite);
-        return ResponseEntity.ok(productos);
+        return respuestaCondicional.catalogo(request, () -> {
+            List<ProductoResponse> productos = productoService.obtenerProductosMasBaratos(limite);
+            return ResponseEntity.ok(productos);
+        });
     }
 
     /**
@@ -149,11 +455,14 @@ public class ProductoController {
      * Obtiene los productos más recientes (público)
      */
     @GetMapping("/mas-recientes")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosMasRecientes(
-            @RequestParam(defaultValue = "12") int limite) {
+    public ResponseEntity<?> obtenerProductosMasRecientes(
+            @RequestParam(defaultValue = "12") int limite,
+            WebRequest request) {
 
-        List<ProductoResponse> productos = productoService.obtenerProductosMasRecientes(limite);
-        return ResponseEntity.ok(productos);
+        return respuestaCondicional.catalogo(request, () -> {
+            List<ProductoResponse> productos = productoService.obtenerProductosMasRecientes(limite);
+            return ResponseEntity.ok(productos);
+        });
     }
 
     /**
@@ -161,11 +470,14 @@ public class ProductoController {
      * Obtiene productos con stock entre 5 y 10 (público)
      */
     @GetMapping("/por-agotarse")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosPorAgotarse(
-            @RequestParam(defaultValue = "12") int limite) {
+    public ResponseEntity<?> obtenerProductosPorAgotarse(
+            @RequestParam(defaultValue = "12") int limite,
+            WebRequest request) {
 
-        List<ProductoResponse> productos = productoService.obtenerProductosPorAgotarse(limite);
-        return ResponseEntity.ok(productos);
+        return respuestaCondicional.catalogo(request, () -> {
+            List<ProductoResponse> productos = productoService.obtenerProductosPorAgotarse(limite);
+            return ResponseEntity.ok(productos);
+        });
     }
 
     // ========== ENDPOINTS PARA ADMINISTRADORES ==========
@@ -189,6 +501,102 @@ public class ProductoController {
         }
     }
 
+    /**
+     * POST /api/productos/importar
+     * Importación masiva desde CSV (text/csv) o NDJSON (application/x-ndjson).
+     * El cuerpo se procesa en streaming; responde con los totales y los errores por fila.
+     */
+    @PostMapping(value = "/importar", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<?> importarProductos(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream cuerpo) {
+        FormatoArchivo formato = contentType.toLowerCase().contains("csv")
+                ? FormatoArchivo.CSV
+                : FormatoArchivo.NDJSON;
+        try {
+            ImportacionProductosResponse resultado = importacionProductosService.importar(cuerpo, formato);
+            return ResponseEntity.ok(resultado);
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+
+    /**
+     * GET /api/productos/exportar?formato=csv&categoria=1&detalle=true
+     * Exporta el catálogo completo en CSV o NDJSON, escrito en streaming
+     */
+    @GetMapping("/exportar")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<?> exportarProductos(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(defaultValue = "true") boolean detalle) {
+        FormatoArchivo formatoArchivo;
+        try {
+            formatoArchivo = FormatoArchivo.desdeParametro(formato);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+
+        StreamingResponseBody cuerpo = salida ->
+                exportacionProductosService.exportar(salida, formatoArchivo, categoria, detalle);
+        String archivo = "catalogo-" + LocalDate.now() + "." + formatoArchivo.getExtension();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, formatoArchivo.getContentType() + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archivo + "\"")
+                .body(cuerpo);
+    }
+
+    /**
+     * POST /api/productos/publicacion/regenerar?completo=false
+     * Regenera ya el sitemap y el feed de productos (solo lo que cambió, salvo completo=true)
+     */
+    @PostMapping("/publicacion/regenerar")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<?> regenerarPublicacion(@RequestParam(defaultValue = "false") boolean completo) {
+        try {
+            PublicacionCatalogoResponse resultado = publicacionCatalogoService.regenerar(completo);
+            return ResponseEntity.ok(resultado);
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Error al generar el sitemap y el feed: " + e.getMessage(), false));
+        }
+    }
+
+    /**
+     * POST /api/productos/slugs/sincronizar
+     * Aplica a la columna slug el seo.slug editado fuera de la aplicación
+     * (al guardar un producto su slug ya se aplica)
+     */
+    @PostMapping("/slugs/sincronizar")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<?> sincronizarSlugs() {
+        try {
+            int cambiados = slugProductoService.sincronizarTodos();
+            return ResponseEntity.ok(new MessageResponse("Slugs actualizados: " + cambiados, true));
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MessageResponse("Error al sincronizar los slugs: " + e.getMessage(), false));
+        }
+    }
+
+    /**
+     * GET /api/productos/cache-detalle/estadisticas
+     * Métricas de la caché de detalle de productos
+     */
+    @GetMapping("/cache-detalle/estadisticas")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<EstadisticasCacheResponse> obtenerEstadisticasCacheDetalle() {
+        return ResponseEntity.ok(productoService.obtenerEstadisticasCacheDetalle());
+    }
+
     /**
      * PUT /api/productos/{id}
      * Actualiza un producto existente
@@ -225,4 +633,32 @@ public class ProductoController {
                     .body(new MessageResponse(e.getMessage(), false));
         }
     }
-}
\ No newline at end of file
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void agregarFiltro(Map<String, List<String>> seleccion, String faceta, List<String> valores) {
+        if (valores != null && !valores.isEmpty()) {
+            seleccion.put(faceta, valores);
+        }
+    }
+
+    /**
+     * Paginación por cursor: sin cursor (vacío) empieza por el orden pedido;
+     * con cursor el orden viaja dentro del token
+     */
+    private ResponseEntity<?> obtenerConCursor(Long idCategoria, String cursor, String sort,
+            String direction, int size) {
+        try {
+            CursorCatalogo posicion = cursor.isBlank()
+                    ? CursorCatalogo.inicial(sort != null ? sort : "idProducto", direction.equalsIgnoreCase("DESC"))
+                    : CursorCatalogo.decodificar(cursor);
+            PaginaCursorResponse<ProductoResponse> pagina = productoService.obtenerProductosConCursor(
+                    idCategoria, posicion, size);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(new MessageResponse(e.getMessage(), false));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Cantidad de productos de una categoría (una fila del GROUP BY)
+ */
+@Getter
+@AllArgsConstructor
+public class ConteoCategoria {
+
+    private final Long idCategoria;
+    private final Long cantidad;
+}
@@ -0,0 +1,43 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.Getter;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Proyección con la que se alimentan los índices del catálogo en memoria:
+ * los campos de listado más los datos de producto_detalle que necesitan
+ * la búsqueda y los demás índices. Se construye en una sola consulta JPQL.
+ */
+@Getter
+public class ProductoDocumento {
+
+    private final ProductoListado listado;
+    private final Map<String, String> atributos;
+    private final List<ProductoDetalle.VarianteDto> variantes;
+    private final List<ProductoDetalle.EspecificacionDto> especificaciones;
+
+    public ProductoDocumento(Long idProducto, String nombreProducto, String descripcionProducto,
+            BigDecimal precio, Integer stock, Integer stockMinimo, BigDecimal calificacionPromedio,
+            Long idCategoria, String nombreCategoria,
+            LocalDateTime fechaCreacion, LocalDateTime fechaActualizacion,
+            String marca, String modelo, String imagenPrincipal,
+            Map<String, String> atributos, List<ProductoDetalle.VarianteDto> variantes,
+            List<ProductoDetalle.EspecificacionDto> especificaciones) {
+        this.listado = new ProductoListado(idProducto, nombreProducto, descripcionProducto,
+                precio, stock, stockMinimo, calificacionPromedio, idCategoria, nombreCategoria,
+                fechaCreacion, fechaActualizacion, marca, modelo, imagenPrincipal);
+        this.atributos = atributos != null ? atributos : Collections.emptyMap();
+        this.variantes = variantes != null ? variantes : Collections.emptyList();
+        this.especificaciones = especificaciones != null ? especificaciones : Collections.emptyList();
+    }
+
+    public Long getIdProducto() {
+        return listado.getIdProducto();
+    }
+}
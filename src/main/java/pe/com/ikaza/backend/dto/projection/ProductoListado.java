@@ -0,0 +1,81 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura para los listados del catálogo.
+ * Se construye directamente desde JPQL (SELECT new ...) en una sola consulta,
+ * sin hidratar las entidades Producto, Categoria ni ProductoDetalle.
+ */
+@Getter
+public class ProductoListado {
+
+    private final Long idProducto;
+    private final String nombreProducto;
+    private final String descripcionProducto;
+    private final BigDecimal precio;
+    private final Integer stock;
+    private final Integer stockMinimo;
+    private final BigDecimal calificacionPromedio;
+    private final Long idCategoria;
+    private final String nombreCategoria;
+    private final LocalDateTime fechaCreacion;
+    private final LocalDateTime fechaActualizacion;
+
+    // Campos de producto_detalle (null si el producto no tiene detalle)
+    private final String marca;
+    private final String modelo;
+    private final String imagenPrincipal;
+
+    public ProductoListado(Long idProducto, String nombreProducto, String descripcionProducto,
+            BigDecimal precio, Integer stock, Integer stockMinimo, BigDecimal calificacionPromedio,
+            Long idCategoria, String nombreCategoria,
+            LocalDateTime fechaCreacion, LocalDateTime fechaActualizacion,
+            String marca, String modelo, String imagenPrincipal) {
+        this.idProducto = idProducto;
+        this.nombreProducto = nombreProducto;
+        this.descripcionProducto = descripcionProducto;
+        this.precio = precio;
+        this.stock = stock;
+        this.stockMinimo = stockMinimo;
+        this.calificacionPromedio = calificacionPromedio;
+        this.idCategoria = idCategoria;
+        this.nombreCategoria = nombreCategoria;
+        this.fechaCreacion = fechaCreacion;
+        this.fechaActualizacion = fechaActualizacion;
+        this.marca = marca;
+        this.modelo = modelo;
+        this.imagenPrincipal = imagenPrincipal;
+    }
+
+    /**
+     * Copia con stock y/o nombre de categoría distintos (la proyección es inmutable)
+     */
+    private ProductoListado(ProductoListado base, Integer stock, String nombreCategoria) {
+        this.idProducto = base.idProducto;
+        this.nombreProducto = base.nombreProducto;
+        this.descripcionProducto = base.descripcionProducto;
+        this.precio = base.precio;
+        this.stock = stock;
+        this.stockMinimo = base.stockMinimo;
+        this.calificacionPromedio = base.calificacionPromedio;
+        this.idCategoria = base.idCategoria;
+        this.nombreCategoria = nombreCategoria;
+        this.fechaCreacion = base.fechaCreacion;
+        this.fechaActualizacion = base.fechaActualizacion;
+        this.marca = base.marca;
+        this.modelo = base.modelo;
+        this.imagenPrincipal = base.imagenPrincipal;
+    }
+
+    public ProductoListado conStock(Integer stock) {
+        return new ProductoListado(this, stock, nombreCategoria);
+    }
+
+    public ProductoListado conNombreCategoria(String nombreCategoria) {
+        return new ProductoListado(this, stock, nombreCategoria);
+    }
+}
@@ -0,0 +1,15 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Un producto dentro de un pedido (para la co-ocurrencia de compras)
+ */
+@Getter
+@AllArgsConstructor
+public class ProductoPedido {
+
+    private final Long idPedido;
+    private final Long idProducto;
+}
@@ -0,0 +1,17 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lo que las respuestas de listado toman de producto_detalle: marca, modelo e
+ * imagen principal, sin leer las columnas jsonb
+ */
+@Getter
+@AllArgsConstructor
+public class ResumenDetalle {
+
+    private final String marca;
+    private final String modelo;
+    private final String imagenPrincipal;
+}
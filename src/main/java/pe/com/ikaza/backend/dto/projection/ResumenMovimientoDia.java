@@ -0,0 +1,22 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pe.com.ikaza.backend.entity.MovimientoInventario;
+
+import java.time.LocalDate;
+
+/**
+ * Totales de un día y tipo de movimiento leídos del resumen diario
+ */
+@Getter
+@AllArgsConstructor
+public class ResumenMovimientoDia {
+
+    private final LocalDate fecha;
+    private final MovimientoInventario.TipoMovimiento tipoMovimiento;
+    private final Long movimientos;
+    private final Long unidades;
+    private final Long neto;
+    private final Long reservado;
+}
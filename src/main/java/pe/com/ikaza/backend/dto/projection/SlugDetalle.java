@@ -0,0 +1,18 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+
+/**
+ * Slug vigente de un detalle de producto junto con el seo del que se toma el nuevo
+ */
+@Getter
+@AllArgsConstructor
+public class SlugDetalle {
+
+    private final Long idProductoDetalle;
+    private final Long idProducto;
+    private final String slug;
+    private final ProductoDetalle.SeoDto seo;
+}
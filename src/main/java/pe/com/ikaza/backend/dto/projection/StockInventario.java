@@ -0,0 +1,20 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stock actual y reservado de la fila de inventario de un producto, sin hidratar la entidad
+ */
+@Getter
+@AllArgsConstructor
+public class StockInventario {
+
+    private final Long idProducto;
+    private final Integer stockActual;
+    private final Integer stockReservado;
+
+    public int getStockDisponible() {
+        return stockActual - stockReservado;
+    }
+}
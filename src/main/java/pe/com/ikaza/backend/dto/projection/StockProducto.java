@@ -0,0 +1,16 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stock vigente de un producto (productos + inventario), sin hidratar entidades
+ */
+@Getter
+@AllArgsConstructor
+public class StockProducto {
+
+    private final Integer stock;
+    private final Integer stockDisponible;
+    private final Integer stockReservado;
+}
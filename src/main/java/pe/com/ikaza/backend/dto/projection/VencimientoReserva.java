@@ -0,0 +1,17 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vencimiento de las reservas de stock de un pedido (el más próximo de sus líneas)
+ */
+@Getter
+@AllArgsConstructor
+public class VencimientoReserva {
+
+    private final Long idPedido;
+    private final LocalDateTime fechaExpiracion;
+}
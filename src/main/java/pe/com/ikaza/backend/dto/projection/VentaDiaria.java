@@ -0,0 +1,18 @@
+package pe.com.ikaza.backend.dto.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Unidades vendidas de un producto en un día (pedidos con pago aprobado)
+ */
+@Getter
+@AllArgsConstructor
+public class VentaDiaria {
+
+    private final Long idProducto;
+    private final LocalDate dia;
+    private final Long unidades;
+}
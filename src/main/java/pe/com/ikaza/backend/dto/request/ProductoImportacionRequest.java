@@ -0,0 +1,18 @@
+package pe.com.ikaza.backend.dto.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila de la importación masiva de productos (CSV o NDJSON).
+ * Igual que ProductoRequest, pero la categoría puede indicarse por nombre.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class ProductoImportacionRequest extends ProductoRequest {
+
+    /** Alternativa a idCategoria (sin distinguir mayúsculas ni tildes) */
+    private String nombreCategoria;
+}
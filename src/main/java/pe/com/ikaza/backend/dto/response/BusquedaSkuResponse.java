@@ -0,0 +1,20 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta de la búsqueda de varios SKU en una sola llamada
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusquedaSkuResponse {
+
+    /** En el orden en que se pidieron */
+    private List<VarianteSkuResponse> encontrados;
+    private List<String> noEncontrados;
+}
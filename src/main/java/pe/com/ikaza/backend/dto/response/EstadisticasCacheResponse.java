@@ -0,0 +1,27 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta con las métricas de la caché de detalle de productos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasCacheResponse {
+    private boolean habilitada;
+    private Integer capacidad;
+    private Integer tamanio;
+    private Long ttlMs;
+    private Long aciertos;
+    private Long fallos;
+    private Double tasaAciertos;
+    private Long desalojos;
+    private Long rechazos;
+    private Long vencidas;
+    private Long invalidaciones;
+}
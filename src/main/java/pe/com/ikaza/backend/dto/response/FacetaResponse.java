@@ -0,0 +1,31 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta con los valores de una faceta y cuántos productos tiene cada uno
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetaResponse {
+
+    /** marca, categoria, color, talla, precio o atributo.{clave} */
+    private String nombre;
+    private List<ValorFaceta> valores;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ValorFaceta {
+        /** Valor a enviar como filtro (para categoria es el idCategoria) */
+        private String valor;
+        private String texto;
+        private Integer cantidad;
+        private Boolean seleccionado;
+    }
+}
@@ -0,0 +1,20 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta de /api/productos/filtrar: página de productos y conteos por faceta
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltradoProductosResponse {
+
+    private Page<ProductoResponse> productos;
+    private List<FacetaResponse> facetas;
+}
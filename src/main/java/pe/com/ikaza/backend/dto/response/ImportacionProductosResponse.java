@@ -0,0 +1,36 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de respuesta de la importación masiva de productos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionProductosResponse {
+
+    /** Filas leídas (sin contar la cabecera del CSV) */
+    private Integer procesadas;
+    private Integer importadas;
+    private Integer fallidas;
+
+    private Long duracionMs;
+    private Long filasPorSegundo;
+
+    /** Errores por fila (se devuelven como máximo los primeros 500) */
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private Integer fila;
+        private String mensaje;
+    }
+}
@@ -0,0 +1,22 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta con todas las colecciones de la página de inicio de la tienda.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InicioResponse {
+    private ProductoDetalleResponse masVendido;
+    private List<ProductoResponse> masBaratos;
+    private List<ProductoResponse> masRecientes;
+    private List<ProductoResponse> porAgotarse;
+}
@@ -0,0 +1,22 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta para la paginación por cursor (sin total de elementos).
+ * Para pedir la página siguiente se envía "siguienteCursor" como ?cursor=
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorResponse<T> {
+
+    private List<T> contenido;
+    private int tamanio;
+    private boolean hayMas;
+    private String siguienteCursor;
+}
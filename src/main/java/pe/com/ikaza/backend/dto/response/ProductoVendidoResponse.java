@@ -0,0 +1,22 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta para el ranking de productos más vendidos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoVendidoResponse {
+
+    /** Posición en el ranking (desde 1) */
+    private Integer posicion;
+
+    /** Unidades vendidas en la ventana consultada */
+    private Long unidadesVendidas;
+
+    private ProductoResponse producto;
+}
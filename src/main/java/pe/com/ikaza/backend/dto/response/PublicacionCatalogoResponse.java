@@ -0,0 +1,22 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta con el resultado de una generación del sitemap y el feed de productos.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PublicacionCatalogoResponse {
+    private Long productos;
+    private Integer fragmentos;
+    private Integer fragmentosRegenerados;
+    private Integer fragmentosEliminados;
+    private Boolean feedRegenerado;
+    private Long duracionMs;
+}
@@ -0,0 +1,29 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO de respuesta con los movimientos de inventario de un día y tipo
+ * (de un producto o de todo el inventario si idProducto es null)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResumenMovimientosResponse {
+
+    private LocalDate fecha;
+    private Long idProducto;
+    private String tipoMovimiento;
+    private Long movimientos;
+    private Long unidades;
+    /** Cambio del stock actual (sin reservas) */
+    private Long neto;
+    /** Cambio de las unidades reservadas */
+    private Long reservado;
+}
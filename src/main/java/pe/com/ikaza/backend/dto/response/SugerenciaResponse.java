@@ -0,0 +1,21 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta para el autocompletado del buscador
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugerenciaResponse {
+
+    /** PRODUCTO, MARCA o CATEGORIA */
+    private String tipo;
+    private String texto;
+
+    /** idProducto o idCategoria según el tipo (null para marcas) */
+    private Long id;
+}
@@ -0,0 +1,33 @@
+package pe.com.ikaza.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO de respuesta de la búsqueda por SKU: la variante y su producto
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VarianteSkuResponse {
+
+    private String sku;
+
+    // Producto al que pertenece la variante
+    private Long idProducto;
+    private String nombreProducto;
+    private BigDecimal precio;
+    private Integer stock;
+    private Long idCategoria;
+    private String nombreCategoria;
+
+    // Variante (producto_detalle.variantes)
+    private String color;
+    private String talla;
+    private String material;
+    private Integer stockAdicional;
+    private String imagenUrl;
+}
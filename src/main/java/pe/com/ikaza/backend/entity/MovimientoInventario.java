@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
  * Sirve para auditoría y trazabilidad
  */
 @Entity
-@Table(name = "movimientos_inventario")
+@Table(name = "movimientos_inventario", indexes = {
+        @Index(name = "idx_movimientos_producto_fecha_id", columnList = "id_producto, fecha_movimiento, id_movimiento"),
+        @Index(name = "idx_movimientos_fecha_id", columnList = "fecha_movimiento, id_movimiento")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
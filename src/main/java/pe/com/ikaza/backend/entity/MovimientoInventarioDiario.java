@@ -0,0 +1,56 @@
+package pe.com.ikaza.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Resumen diario de movimientos de inventario por producto y tipo.
+ * Lo mantiene EscritorMovimientosService con upserts en la misma transacción
+ * que inserta los movimientos, así que los reportes de meses leen unas pocas
+ * filas por día en vez de recorrer movimientos_inventario.
+ */
+@Entity
+@Table(name = "movimientos_inventario_diario",
+        uniqueConstraints = @UniqueConstraint(name = "uk_movimientos_diario_fecha_producto_tipo",
+                columnNames = {"fecha", "id_producto", "tipo_movimiento"}),
+        indexes = @Index(name = "idx_movimientos_diario_producto_fecha", columnList = "id_producto, fecha"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoInventarioDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_resumen")
+    private Long idResumen;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(name = "tipo_movimiento", nullable = false, length = 50)
+    @Enumerated(EnumType.STRING)
+    private MovimientoInventario.TipoMovimiento tipoMovimiento;
+
+    /** Cantidad de movimientos del día */
+    @Column(name = "movimientos", nullable = false)
+    private Long movimientos;
+
+    /** Suma de las cantidades de los movimientos */
+    @Column(name = "unidades", nullable = false)
+    private Long unidades;
+
+    /** Suma de (stock_nuevo - stock_anterior), sin los ajustes de reservas */
+    @Column(name = "neto", nullable = false)
+    private Long neto;
+
+    /** Cambio de las unidades reservadas (reservas menos liberaciones) */
+    @Column(name = "reservado", nullable = false)
+    private Long reservado;
+}
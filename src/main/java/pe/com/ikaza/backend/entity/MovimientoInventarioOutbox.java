@@ -0,0 +1,37 @@
+package pe.com.ikaza.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimientos de inventario de una operación, guardados en la misma transacción
+ * que el cambio de stock y pendientes de pasar a movimientos_inventario.
+ * EscritorMovimientosService borra la fila al escribir sus movimientos; si el
+ * proceso cae antes, la recuperación periódica los escribe desde aquí.
+ */
+@Entity
+@Table(name = "movimientos_inventario_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoInventarioOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_outbox")
+    private Long idOutbox;
+
+    /** Arreglo de movimientos con las columnas de movimientos_inventario */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "movimientos", columnDefinition = "jsonb", nullable = false)
+    private String movimientos;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,41 @@
+package pe.com.ikaza.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Interacciones acumuladas de un producto (vistas del detalle, apariciones en
+ * búsquedas y agregados al carrito) y su puntaje de popularidad con decaimiento.
+ * PopularidadService la escribe por lotes con upserts; el puntaje guardado vale
+ * a la fecha de actualización y se reduce a la mitad cada vida media.
+ */
+@Entity
+@Table(name = "popularidad_productos")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularidadProducto {
+
+    @Id
+    @Column(name = "id_producto")
+    private Long idProducto;
+
+    @Column(name = "vistas", nullable = false)
+    private Long vistas = 0L;
+
+    @Column(name = "impresiones", nullable = false)
+    private Long impresiones = 0L;
+
+    @Column(name = "agregados_carrito", nullable = false)
+    private Long agregadosCarrito = 0L;
+
+    @Column(name = "puntaje", nullable = false)
+    private Double puntaje = 0.0;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
@@ -51,6 +51,14 @@ public class ProductoDetalle {
     @Column(name = "imagenes", columnDefinition = "jsonb")
     private List<ImagenDto> imagenes = new ArrayList<>();
 
+    /**
+     * URL de la imagen principal, desnormalizada de imagenes para que los
+     * listados no tengan que leer ni deserializar el jsonb. Se recalcula en cada
+     * escritura; las filas previas a la columna las rellena db/migracion/001_imagen_principal.sql
+     */
+    @Column(name = "imagen_principal", length = 500)
+    private String urlImagenPrincipal;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "atributos", columnDefinition = "jsonb")
     private Map<String, String> atributos = new HashMap<>();
@@ -67,6 +75,14 @@ public class ProductoDetalle {
     @Column(name = "seo", columnDefinition = "jsonb")
     private SeoDto seo;
 
+    /**
+     * seo.slug normalizado en una columna única e indexada, para resolver URLs sin
+     * recorrer el jsonb. Solo la escribe SlugProductoService, que también guarda el
+     * slug anterior en producto_slug_historial.
+     */
+    @Column(name = "slug", length = 200, unique = true, insertable = false, updatable = false)
+    private String slug;
+
     @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
 
@@ -77,11 +93,18 @@ public class ProductoDetalle {
     protected void onCreate() {
         fechaCreacion = LocalDateTime.now();
         fechaActualizacion = LocalDateTime.now();
+        actualizarUrlImagenPrincipal();
     }
 
     @PreUpdate
     protected void onUpdate() {
         fechaActualizacion = LocalDateTime.now();
+        actualizarUrlImagenPrincipal();
+    }
+
+    private void actualizarUrlImagenPrincipal() {
+        ImagenDto principal = seleccionarImagenPrincipal(imagenes);
+        urlImagenPrincipal = principal != null ? principal.getUrl() : null;
     }
 
     // ============================================
@@ -147,6 +170,13 @@ public class ProductoDetalle {
     }
 
     public ImagenDto getImagenPrincipal() {
+        return seleccionarImagenPrincipal(imagenes);
+    }
+
+    /**
+     * Devuelve la imagen marcada como principal o, en su defecto, la primera
+     */
+    public static ImagenDto seleccionarImagenPrincipal(List<ImagenDto> imagenes) {
         if (imagenes == null || imagenes.isEmpty()) {
             return null;
         }
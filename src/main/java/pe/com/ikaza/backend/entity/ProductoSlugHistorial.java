@@ -0,0 +1,32 @@
+package pe.com.ikaza.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Slugs que un producto tuvo antes: las URLs viejas redirigen al slug vigente.
+ * Lo llena SlugProductoService al aplicar un cambio de slug.
+ */
+@Entity
+@Table(name = "producto_slug_historial", indexes = {
+        @Index(name = "idx_producto_slug_historial_producto", columnList = "id_producto")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoSlugHistorial {
+
+    @Id
+    @Column(name = "slug", length = 200)
+    private String slug;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(name = "fecha_cambio", nullable = false)
+    private LocalDateTime fechaCambio;
+}
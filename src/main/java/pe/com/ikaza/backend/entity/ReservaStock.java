@@ -0,0 +1,45 @@
+package pe.com.ikaza.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reserva de stock de una línea de pedido con su vencimiento.
+ * Es la fuente de verdad de inventario.stock_reservado: la suma de las
+ * reservas vigentes de un producto es su stock reservado.
+ * InventarioService la escribe y consume con SQL por lotes.
+ */
+@Entity
+@Table(name = "reservas_stock",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reservas_stock_pedido_producto",
+                columnNames = {"id_pedido", "id_producto"}),
+        indexes = @Index(name = "idx_reservas_stock_expiracion", columnList = "fecha_expiracion"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_reserva")
+    private Long idReserva;
+
+    @Column(name = "id_pedido", nullable = false)
+    private Long idPedido;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "fecha_expiracion", nullable = false)
+    private LocalDateTime fechaExpiracion;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+}
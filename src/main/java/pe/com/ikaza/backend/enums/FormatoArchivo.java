@@ -0,0 +1,35 @@
+package pe.com.ikaza.backend.enums;
+
+/**
+ * Formatos de archivo de la importación y exportación de productos
+ */
+public enum FormatoArchivo {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String contentType;
+
+    FormatoArchivo(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Interpreta ?formato= (csv o ndjson)
+     */
+    public static FormatoArchivo desdeParametro(String valor) {
+        for (FormatoArchivo formato : values()) {
+            if (formato.name().equalsIgnoreCase(valor != null ? valor.trim() : null)) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato no válido: " + valor + " (usar csv o ndjson)");
+    }
+}
@@ -0,0 +1,22 @@
+package pe.com.ikaza.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando un índice en memoria todavía no terminó de cargarse.
+ * Mapea a un código de estado HTTP 503 (Service Unavailable): el cliente puede reintentar.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IndiceNoDisponibleException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor que acepta un mensaje de detalle.
+     * @param message El mensaje a mostrar (ej: "El filtrado por facetas aún no está disponible").
+     */
+    public IndiceNoDisponibleException(String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,7 @@
 package pe.com.ikaza.backend.repository;
 
+import pe.com.ikaza.backend.dto.projection.ProductoPedido;
+import pe.com.ikaza.backend.dto.projection.VentaDiaria;
 import pe.com.ikaza.backend.entity.DetallePedido;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -23,6 +25,26 @@ public interface DetallePedidoRepository extends JpaRepository<DetallePedido, Lo
     @Query("SELECT COUNT(d) FROM DetallePedido d WHERE d.pedido.idPedido = :idPedido")
     Integer countByPedidoId(@Param("idPedido") Integer idPedido);
     
+    /**
+     * Unidades vendidas por producto y día, solo de pedidos con pago aprobado
+     * (los reembolsados pasan a REEMBOLSADO y dejan de contar).
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.VentaDiaria(" +
+            "d.producto.idProducto, CAST(COALESCE(p.fechaPago, p.fechaPedido) AS LocalDate), SUM(d.cantidad)) " +
+            "FROM DetallePedido d JOIN d.pedido p " +
+            "WHERE p.estadoPago = pe.com.ikaza.backend.enums.EstadoPago.APROBADO " +
+            "GROUP BY d.producto.idProducto, CAST(COALESCE(p.fechaPago, p.fechaPedido) AS LocalDate)")
+    List<VentaDiaria> findVentasDiariasAprobadas();
+
+    /**
+     * Productos de cada pedido con pago aprobado, agrupados por pedido
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.ProductoPedido(p.idPedido, d.producto.idProducto) " +
+            "FROM DetallePedido d JOIN d.pedido p " +
+            "WHERE p.estadoPago = pe.com.ikaza.backend.enums.EstadoPago.APROBADO " +
+            "ORDER BY p.idPedido")
+    List<ProductoPedido> findProductosDePedidosAprobados();
+
     /**
      * Método para eliminar un detallePedido por pedidoID.
      */
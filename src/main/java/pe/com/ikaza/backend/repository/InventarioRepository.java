@@ -2,9 +2,12 @@ package pe.com.ikaza.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.dto.projection.StockInventario;
 import pe.com.ikaza.backend.entity.Inventario;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +30,12 @@ public interface InventarioRepository extends JpaRepository<Inventario, Long> {
      */
     @Query("SELECT i FROM Inventario i WHERE i.stockDisponible = 0")
     List<Inventario> findInventariosSinStock();
-}
\ No newline at end of file
+
+    /**
+     * Stock actual y reservado de varios productos en una sola consulta (sin cargar entidades)
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.StockInventario(" +
+           "i.producto.idProducto, i.stockActual, i.stockReservado) " +
+           "FROM Inventario i WHERE i.producto.idProducto IN :ids")
+    List<StockInventario> findStockByProductoIdIn(@Param("ids") Collection<Long> ids);
+}
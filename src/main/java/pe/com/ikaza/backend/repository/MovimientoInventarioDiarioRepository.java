@@ -0,0 +1,37 @@
+package pe.com.ikaza.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.dto.projection.ResumenMovimientoDia;
+import pe.com.ikaza.backend.entity.MovimientoInventarioDiario;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MovimientoInventarioDiarioRepository extends JpaRepository<MovimientoInventarioDiario, Long> {
+
+    /**
+     * Totales por día y tipo de un producto
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.ResumenMovimientoDia(" +
+           "r.fecha, r.tipoMovimiento, r.movimientos, r.unidades, r.neto, r.reservado) " +
+           "FROM MovimientoInventarioDiario r " +
+           "WHERE r.idProducto = :idProducto AND r.fecha BETWEEN :desde AND :hasta " +
+           "ORDER BY r.fecha, r.tipoMovimiento")
+    List<ResumenMovimientoDia> findResumenProducto(@Param("idProducto") Long idProducto,
+            @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Totales por día y tipo de todo el inventario
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.ResumenMovimientoDia(" +
+           "r.fecha, r.tipoMovimiento, SUM(r.movimientos), SUM(r.unidades), SUM(r.neto), " +
+           "SUM(r.reservado)) " +
+           "FROM MovimientoInventarioDiario r " +
+           "WHERE r.fecha BETWEEN :desde AND :hasta " +
+           "GROUP BY r.fecha, r.tipoMovimiento ORDER BY r.fecha, r.tipoMovimiento")
+    List<ResumenMovimientoDia> findResumen(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
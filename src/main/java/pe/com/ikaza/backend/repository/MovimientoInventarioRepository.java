@@ -1,5 +1,6 @@
 package pe.com.ikaza.backend.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,11 +13,6 @@ import java.util.List;
 @Repository
 public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
 
-        /**
-         * Busca movimientos de un producto específico
-         */
-        List<MovimientoInventario> findByProductoIdProductoOrderByFechaMovimientoDesc(Long idProducto);
-
         /**
          * Busca movimientos por tipo
          */
@@ -38,8 +34,36 @@ public interface MovimientoInventarioRepository extends JpaRepository<Movimiento
                         @Param("fechaInicio") LocalDateTime fechaInicio,
                         @Param("fechaFin") LocalDateTime fechaFin);
 
+        // ========== HISTORIAL POR CURSOR (keyset, del más reciente al más antiguo) ==========
+        // Se pide una fila de más en el Pageable para saber si hay página siguiente.
+
+        String SELECT_HISTORIAL = "SELECT m FROM MovimientoInventario m " +
+                        "JOIN FETCH m.producto LEFT JOIN FETCH m.usuario ";
+        String ANTES_DE_CURSOR = "m.fechaMovimiento >= :desde AND (m.fechaMovimiento < :fecha OR " +
+                        "(m.fechaMovimiento = :fecha AND m.idMovimiento < :idMovimiento)) ";
+        String ORDEN_HISTORIAL = "ORDER BY m.fechaMovimiento DESC, m.idMovimiento DESC";
+
+        @Query(SELECT_HISTORIAL + "WHERE m.producto.idProducto = :idProducto AND " + ANTES_DE_CURSOR
+                        + ORDEN_HISTORIAL)
+        List<MovimientoInventario> findHistorialProducto(@Param("idProducto") Long idProducto,
+                        @Param("desde") LocalDateTime desde, @Param("fecha") LocalDateTime fecha,
+                        @Param("idMovimiento") Long idMovimiento, Pageable pageable);
+
+        @Query(SELECT_HISTORIAL + "WHERE " + ANTES_DE_CURSOR + ORDEN_HISTORIAL)
+        List<MovimientoInventario> findHistorial(@Param("desde") LocalDateTime desde,
+                        @Param("fecha") LocalDateTime fecha, @Param("idMovimiento") Long idMovimiento,
+                        Pageable pageable);
+
+        /**
+         * Últimos movimientos de un producto específico (el límite llega en el Pageable)
+         */
+        @Query(SELECT_HISTORIAL + "WHERE m.producto.idProducto = :idProducto " + ORDEN_HISTORIAL)
+        List<MovimientoInventario> findUltimosPorProducto(@Param("idProducto") Long idProducto,
+                        Pageable pageable);
+
         /**
-         * Últimos movimientos del sistema
+         * Últimos movimientos del sistema (el límite llega en el Pageable)
          */
-        List<MovimientoInventario> findTop50ByOrderByFechaMovimientoDesc();
-}
\ No newline at end of file
+        @Query(SELECT_HISTORIAL + ORDEN_HISTORIAL)
+        List<MovimientoInventario> findUltimos(Pageable pageable);
+}
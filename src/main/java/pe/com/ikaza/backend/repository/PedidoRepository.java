@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.time.LocalDateTime;
@@ -46,4 +47,11 @@ public interface PedidoRepository extends JpaRepository<Pedido, Long> {
         long contarPedidosPendientesPorUsuario(
                         @Param("idUsuario") Integer idUsuario,
                         @Param("estado") EstadoPedido estado);
-}
\ No newline at end of file
+
+        /**
+         * De los pedidos dados, los que tienen el pago aprobado
+         */
+        @Query("SELECT p.idPedido FROM Pedido p WHERE p.idPedido IN :ids " +
+                        "AND p.estadoPago = pe.com.ikaza.backend.enums.EstadoPago.APROBADO")
+        List<Long> findIdsConPagoAprobado(@Param("ids") Collection<Long> ids);
+}
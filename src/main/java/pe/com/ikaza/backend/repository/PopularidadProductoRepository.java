@@ -0,0 +1,9 @@
+package pe.com.ikaza.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.entity.PopularidadProducto;
+
+@Repository
+public interface PopularidadProductoRepository extends JpaRepository<PopularidadProducto, Long> {
+}
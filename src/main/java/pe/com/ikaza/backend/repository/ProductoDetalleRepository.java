@@ -1,9 +1,15 @@
 package pe.com.ikaza.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.dto.projection.ResumenDetalle;
+import pe.com.ikaza.backend.dto.projection.SlugDetalle;
 import pe.com.ikaza.backend.entity.ProductoDetalle;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +18,48 @@ public interface ProductoDetalleRepository extends JpaRepository<ProductoDetalle
 
     Optional<ProductoDetalle> findByProductoIdProducto(Long idProducto);
 
+    /**
+     * Marca, modelo e imagen principal de un producto, sin deserializar los jsonb
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.ResumenDetalle(d.marca, d.modelo, d.urlImagenPrincipal) " +
+            "FROM ProductoDetalle d WHERE d.producto.idProducto = :idProducto")
+    Optional<ResumenDetalle> findResumenByProductoId(@Param("idProducto") Long idProducto);
+
+    /**
+     * Producto con ese slug vigente (índice único de la columna slug)
+     */
+    @Query("SELECT d.producto.idProducto FROM ProductoDetalle d WHERE d.slug = :slug")
+    Optional<Long> findIdProductoBySlug(@Param("slug") String slug);
+
+    @Query("SELECT d.slug FROM ProductoDetalle d WHERE d.producto.idProducto = :idProducto")
+    Optional<String> findSlugByProductoId(@Param("idProducto") Long idProducto);
+
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.SlugDetalle(d.idProductoDetalle, d.producto.idProducto, " +
+            "d.slug, d.seo) FROM ProductoDetalle d WHERE d.idProductoDetalle = :idProductoDetalle")
+    Optional<SlugDetalle> findSlugDetalleById(@Param("idProductoDetalle") Long idProductoDetalle);
+
+    @Query("SELECT d.idProductoDetalle FROM ProductoDetalle d WHERE d.producto.idProducto = :idProducto")
+    Optional<Long> findIdDetalleByProductoId(@Param("idProducto") Long idProducto);
+
+    @Query("SELECT d.idProductoDetalle FROM ProductoDetalle d WHERE d.slug = :slug")
+    Optional<Long> findIdDetalleBySlug(@Param("slug") String slug);
+
+    /**
+     * Detalles con seo o con slug: los únicos cuyo slug puede estar desactualizado
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.SlugDetalle(d.idProductoDetalle, d.producto.idProducto, " +
+            "d.slug, d.seo) FROM ProductoDetalle d WHERE d.seo IS NOT NULL OR d.slug IS NOT NULL " +
+            "ORDER BY d.idProductoDetalle")
+    List<SlugDetalle> findSlugDetalles();
+
+    /**
+     * Escribe la columna slug (la entidad no la escribe; ver SlugProductoService)
+     */
+    @Modifying
+    @Query(value = "UPDATE producto_detalle SET slug = :slug, fecha_actualizacion = NOW() " +
+            "WHERE id_producto_detalle = :idProductoDetalle", nativeQuery = true)
+    int actualizarSlug(@Param("idProductoDetalle") Long idProductoDetalle, @Param("slug") String slug);
+
     Optional<ProductoDetalle> findByCodigo(String codigo);
 
     List<ProductoDetalle> findByMarca(String marca);
@@ -19,4 +67,15 @@ public interface ProductoDetalleRepository extends JpaRepository<ProductoDetalle
     boolean existsByProductoIdProducto(Long idProducto);
 
     void deleteByProductoIdProducto(Long idProducto);
+
+    /**
+     * Productos con alguna variante cuyo SKU está en la lista (recorre el jsonb;
+     * solo se usa mientras el índice de SKUs no está cargado). Los SKU guardados se
+     * comparan sin espacios en los extremos, igual que IndiceSkuService.normalizar.
+     */
+    @Query(value = "SELECT DISTINCT d.id_producto FROM producto_detalle d " +
+            "CROSS JOIN LATERAL jsonb_array_elements(CASE WHEN jsonb_typeof(d.variantes) = 'array' " +
+            "THEN d.variantes ELSE CAST('[]' AS jsonb) END) v " +
+            "WHERE btrim(v ->> 'sku') IN (:skus)", nativeQuery = true)
+    List<Long> findIdsProductoPorSkus(@Param("skus") Collection<String> skus);
 }
\ No newline at end of file
@@ -6,15 +6,32 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.dto.projection.ConteoCategoria;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.dto.projection.StockProducto;
 import pe.com.ikaza.backend.entity.Producto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
 
+       /**
+        * SELECT común de los listados del catálogo: producto, categoría, marca,
+        * modelo e imagen principal en una sola consulta, sin hidratar entidades
+        * ni leer los jsonb de producto_detalle
+        */
+       String SELECT_LISTADO = "SELECT new pe.com.ikaza.backend.dto.projection.ProductoListado(" +
+                     "p.idProducto, p.nombreProducto, p.descripcionProducto, p.precio, p.stock, " +
+                     "p.stockMinimo, p.calificacionPromedio, c.idCategoria, c.nombreCategoria, " +
+                     "p.fechaCreacion, p.fechaActualizacion, d.marca, d.modelo, d.urlImagenPrincipal) " +
+                     "FROM Producto p JOIN p.categoria c LEFT JOIN p.detalle d ";
+
        /*BUSCAR UN PRODUCTO POR SU ID */
        Producto findByIdProducto(Long idProducto);
 
@@ -47,13 +64,6 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
        @Query("SELECT p FROM Producto p WHERE p.idProducto IN :ids")
        List<Producto> findAllByIdIn(@Param("ids") List<Long> ids);
 
-       // Método para verificar y actualizar stock
-       @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad " +
-                     "WHERE p.idProducto = :idProducto AND p.stock >= :cantidad")
-       int actualizarStock(
-                     @Param("idProducto") Long idProducto,
-                     @Param("cantidad") Integer cantidad);
-
        /**
         * Busca productos que necesitan reposición
         */
@@ -126,4 +136,147 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
         */
        @Query("SELECT COUNT(p) FROM Producto p WHERE p.categoria.idCategoria = :idCategoria")
        long contarProductosPorCategoria(@Param("idCategoria") Long idCategoria);
-}
\ No newline at end of file
+
+       /**
+        * Cantidad de productos de todas las categorías en una sola consulta
+        * (las categorías sin productos no aparecen)
+        */
+       @Query("SELECT new pe.com.ikaza.backend.dto.projection.ConteoCategoria(p.categoria.idCategoria, COUNT(p)) " +
+                     "FROM Producto p GROUP BY p.categoria.idCategoria")
+       List<ConteoCategoria> contarProductosAgrupados();
+
+       // ========== LISTADOS PROYECTADOS (una consulta por página) ==========
+
+       /**
+        * Catálogo paginado proyectado
+        */
+       @Query(value = SELECT_LISTADO,
+                     countQuery = "SELECT COUNT(p) FROM Producto p")
+       Page<ProductoListado> findListado(Pageable pageable);
+
+       /**
+        * Productos de una categoría, paginados y proyectados
+        */
+       @Query(value = SELECT_LISTADO + "WHERE c.idCategoria = :idCategoria",
+                     countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.categoria.idCategoria = :idCategoria")
+       Page<ProductoListado> findListadoPorCategoria(
+                     @Param("idCategoria") Long idCategoria,
+                     Pageable pageable);
+
+       /**
+        * Búsqueda por texto con paginación, proyectada
+        */
+       @Query(value = SELECT_LISTADO + "WHERE " +
+                     "LOWER(p.nombreProducto) LIKE LOWER(CONCAT('%', :texto, '%')) OR " +
+                     "LOWER(p.descripcionProducto) LIKE LOWER(CONCAT('%', :texto, '%'))",
+                     countQuery = "SELECT COUNT(p) FROM Producto p WHERE " +
+                                   "LOWER(p.nombreProducto) LIKE LOWER(CONCAT('%', :texto, '%')) OR " +
+                                   "LOWER(p.descripcionProducto) LIKE LOWER(CONCAT('%', :texto, '%'))")
+       Page<ProductoListado> buscarListadoPorTexto(@Param("texto") String texto, Pageable pageable);
+
+       /**
+        * Un producto proyectado por su ID
+        */
+       @Query(SELECT_LISTADO + "WHERE p.idProducto = :idProducto")
+       Optional<ProductoListado> findListadoById(@Param("idProducto") Long idProducto);
+
+       /**
+        * Stock e inventario vigentes de un producto (para completar el detalle en caché)
+        */
+       @Query("SELECT new pe.com.ikaza.backend.dto.projection.StockProducto(" +
+                     "p.stock, i.stockDisponible, i.stockReservado) " +
+                     "FROM Producto p LEFT JOIN p.inventario i WHERE p.idProducto = :idProducto")
+       Optional<StockProducto> findStockById(@Param("idProducto") Long idProducto);
+
+       /**
+        * Los N productos más baratos con stock disponible (sin COUNT)
+        */
+       @Query(SELECT_LISTADO + "WHERE p.stock > 0 ORDER BY p.precio ASC")
+       List<ProductoListado> findListadoMasBaratos(Pageable pageable);
+
+       /**
+        * Los N productos más recientes (sin COUNT)
+        */
+       @Query(SELECT_LISTADO + "ORDER BY p.fechaCreacion DESC")
+       List<ProductoListado> findListadoMasRecientes(Pageable pageable);
+
+       /**
+        * Productos con stock entre 5 y 10 (sin COUNT)
+        */
+       @Query(SELECT_LISTADO + "WHERE p.stock BETWEEN 5 AND 10 ORDER BY p.stock ASC")
+       List<ProductoListado> findListadoPorAgotarse(Pageable pageable);
+
+       // ========== PAGINACIÓN POR CURSOR (keyset, sin COUNT) ==========
+       // El orden (campo + idProducto) llega en el Pageable; se pide una fila de más
+       // para saber si hay página siguiente.
+
+       String FILTRO_CATEGORIA = "(:idCategoria IS NULL OR c.idCategoria = :idCategoria) ";
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA)
+       List<ProductoListado> findListadoInicioCursor(@Param("idCategoria") Long idCategoria, Pageable pageable);
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA + "AND p.idProducto > :idProducto")
+       List<ProductoListado> findListadoDespuesDeId(@Param("idCategoria") Long idCategoria,
+                     @Param("idProducto") Long idProducto, Pageable pageable);
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA + "AND p.idProducto < :idProducto")
+       List<ProductoListado> findListadoAntesDeId(@Param("idCategoria") Long idCategoria,
+                     @Param("idProducto") Long idProducto, Pageable pageable);
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA +
+                     "AND (p.precio > :precio OR (p.precio = :precio AND p.idProducto > :idProducto))")
+       List<ProductoListado> findListadoDespuesDePrecio(@Param("idCategoria") Long idCategoria,
+                     @Param("precio") BigDecimal precio, @Param("idProducto") Long idProducto, Pageable pageable);
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA +
+                     "AND (p.precio < :precio OR (p.precio = :precio AND p.idProducto < :idProducto))")
+       List<ProductoListado> findListadoAntesDePrecio(@Param("idCategoria") Long idCategoria,
+                     @Param("precio") BigDecimal precio, @Param("idProducto") Long idProducto, Pageable pageable);
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA +
+                     "AND (p.fechaCreacion > :fecha OR (p.fechaCreacion = :fecha AND p.idProducto > :idProducto))")
+       List<ProductoListado> findListadoDespuesDeFecha(@Param("idCategoria") Long idCategoria,
+                     @Param("fecha") LocalDateTime fecha, @Param("idProducto") Long idProducto, Pageable pageable);
+
+       @Query(SELECT_LISTADO + "WHERE " + FILTRO_CATEGORIA +
+                     "AND (p.fechaCreacion < :fecha OR (p.fechaCreacion = :fecha AND p.idProducto < :idProducto))")
+       List<ProductoListado> findListadoAntesDeFecha(@Param("idCategoria") Long idCategoria,
+                     @Param("fecha") LocalDateTime fecha, @Param("idProducto") Long idProducto, Pageable pageable);
+
+       // ========== DOCUMENTOS PARA LOS ÍNDICES EN MEMORIA ==========
+
+       /**
+        * SELECT de los documentos que alimentan los índices del catálogo en memoria
+        */
+       String SELECT_DOCUMENTO = "SELECT new pe.com.ikaza.backend.dto.projection.ProductoDocumento(" +
+                     "p.idProducto, p.nombreProducto, p.descripcionProducto, p.precio, p.stock, " +
+                     "p.stockMinimo, p.calificacionPromedio, c.idCategoria, c.nombreCategoria, " +
+                     "p.fechaCreacion, p.fechaActualizacion, d.marca, d.modelo, d.urlImagenPrincipal, " +
+                     "d.atributos, d.variantes, d.especificaciones) " +
+                     "FROM Producto p JOIN p.categoria c LEFT JOIN p.detalle d ";
+
+       /**
+        * Catálogo completo (carga inicial de los índices)
+        */
+       @Query(SELECT_DOCUMENTO)
+       List<ProductoDocumento> findDocumentos();
+
+       /**
+        * Documento de un producto (delta después de una escritura)
+        */
+       @Query(SELECT_DOCUMENTO + "WHERE p.idProducto = :idProducto")
+       Optional<ProductoDocumento> findDocumentoById(@Param("idProducto") Long idProducto);
+
+       /**
+        * Documentos de varios productos (delta de un lote importado)
+        */
+       @Query(SELECT_DOCUMENTO + "WHERE p.idProducto IN :ids")
+       List<ProductoDocumento> findDocumentosByIds(@Param("ids") Collection<Long> ids);
+
+       /**
+        * Productos modificados desde una marca de tiempo, inclusive (reconciliación):
+        * una edición con la misma fecha que la marca no se pierde
+        */
+       @Query(SELECT_DOCUMENTO + "WHERE p.fechaActualizacion >= :desde")
+       List<ProductoDocumento> findDocumentosActualizadosDesde(@Param("desde") LocalDateTime desde);
+}
@@ -0,0 +1,23 @@
+package pe.com.ikaza.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.entity.ProductoSlugHistorial;
+
+@Repository
+public interface ProductoSlugHistorialRepository extends JpaRepository<ProductoSlugHistorial, String> {
+
+    void deleteByIdProducto(Long idProducto);
+
+    /**
+     * Registra un slug reemplazado; si ya estaba en el historial pasa al producto nuevo
+     */
+    @Modifying
+    @Query(value = "INSERT INTO producto_slug_historial (slug, id_producto, fecha_cambio) " +
+            "VALUES (:slug, :idProducto, NOW()) ON CONFLICT (slug) DO UPDATE SET " +
+            "id_producto = EXCLUDED.id_producto, fecha_cambio = EXCLUDED.fecha_cambio", nativeQuery = true)
+    void registrar(@Param("slug") String slug, @Param("idProducto") Long idProducto);
+}
@@ -0,0 +1,20 @@
+package pe.com.ikaza.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import pe.com.ikaza.backend.dto.projection.VencimientoReserva;
+import pe.com.ikaza.backend.entity.ReservaStock;
+
+import java.util.List;
+
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    /**
+     * Vencimiento de cada pedido con reservas vigentes (para reconstruir la rueda al arrancar)
+     */
+    @Query("SELECT new pe.com.ikaza.backend.dto.projection.VencimientoReserva(r.idPedido, MIN(r.fechaExpiracion)) " +
+           "FROM ReservaStock r GROUP BY r.idPedido")
+    List<VencimientoReserva> findVencimientosPorPedido();
+}
@@ -1,15 +1,21 @@
 package pe.com.ikaza.backend.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pe.com.ikaza.backend.dto.projection.ConteoCategoria;
 import pe.com.ikaza.backend.dto.request.CategoriaRequest;
 import pe.com.ikaza.backend.dto.response.CategoriaResponse;
 import pe.com.ikaza.backend.entity.Categoria;
 import pe.com.ikaza.backend.repository.CategoriaRepository;
 import pe.com.ikaza.backend.repository.ProductoRepository;
+import pe.com.ikaza.backend.service.catalogo.CategoriaCambiadaEvent;
+import pe.com.ikaza.backend.service.catalogo.DirectorioCategoriasService;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -24,33 +30,43 @@ public class CategoriaService {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private DirectorioCategoriasService directorioCategorias;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Las lecturas no abren transacción: si las atiende el directorio en memoria
+    // no se toma ninguna conexión del pool.
+
     /**
      * Obtiene todas las categorías activas
      */
-    @Transactional(readOnly = true)
     public List<CategoriaResponse> obtenerCategoriasActivas() {
-        return categoriaRepository.findByActivoTrueOrderByNombreCategoriaAsc()
-                .stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        if (directorioCategorias.isDisponible()) {
+            return directorioCategorias.activas();
+        }
+        return convertirConCantidades(categoriaRepository.findByActivoTrueOrderByNombreCategoriaAsc());
     }
 
     /**
      * Obtiene todas las categorías (incluyendo inactivas)
      */
-    @Transactional(readOnly = true)
     public List<CategoriaResponse> obtenerTodasLasCategorias() {
-        return categoriaRepository.findAll()
-                .stream()
-                .map(this::convertirAResponse)
-                .collect(Collectors.toList());
+        if (directorioCategorias.isDisponible()) {
+            return directorioCategorias.todas();
+        }
+        return convertirConCantidades(categoriaRepository.findAll());
     }
 
     /**
      * Obtiene una categoría por ID
      */
-    @Transactional(readOnly = true)
     public CategoriaResponse obtenerCategoriaPorId(Long id) {
+        if (directorioCategorias.isDisponible()) {
+            return directorioCategorias.buscarPorId(id)
+                    .orElseThrow(() -> new RuntimeException("Categoría no encontrada con ID: " + id));
+        }
         Categoria categoria = categoriaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada con ID: " + id));
         return convertirAResponse(categoria);
@@ -72,6 +88,8 @@ public class CategoriaService {
         categoria.setActivo(request.getActivo() != null ? request.getActivo() : true);
 
         Categoria guardada = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(
+                new CategoriaCambiadaEvent(guardada.getIdCategoria(), guardada.getNombreCategoria()));
         return convertirAResponse(guardada);
     }
 
@@ -97,6 +115,8 @@ public class CategoriaService {
         }
 
         Categoria actualizada = categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(
+                new CategoriaCambiadaEvent(actualizada.getIdCategoria(), actualizada.getNombreCategoria()));
         return convertirAResponse(actualizada);
     }
 
@@ -117,6 +137,7 @@ public class CategoriaService {
 
         categoria.setActivo(false);
         categoriaRepository.save(categoria);
+        eventPublisher.publishEvent(new CategoriaCambiadaEvent(id, categoria.getNombreCategoria()));
     }
 
     /**
@@ -135,16 +156,29 @@ public class CategoriaService {
         }
 
         categoriaRepository.delete(categoria);
+        eventPublisher.publishEvent(new CategoriaCambiadaEvent(id, categoria.getNombreCategoria()));
     }
 
     /**
      * Busca categorías por nombre
      */
-    @Transactional(readOnly = true)
     public List<CategoriaResponse> buscarCategorias(String texto) {
-        return categoriaRepository.findByNombreCategoriaContainingIgnoreCase(texto)
-                .stream()
-                .map(this::convertirAResponse)
+        if (directorioCategorias.isDisponible()) {
+            return directorioCategorias.buscar(texto);
+        }
+        return convertirConCantidades(categoriaRepository.findByNombreCategoriaContainingIgnoreCase(texto));
+    }
+
+    /**
+     * Convierte varias categorías con las cantidades de un solo GROUP BY
+     */
+    private List<CategoriaResponse> convertirConCantidades(List<Categoria> categorias) {
+        Map<Long, Long> cantidades = new HashMap<>();
+        for (ConteoCategoria conteo : productoRepository.contarProductosAgrupados()) {
+            cantidades.put(conteo.getIdCategoria(), conteo.getCantidad());
+        }
+        return categorias.stream()
+                .map(c -> convertirAResponse(c, cantidades.getOrDefault(c.getIdCategoria(), 0L)))
                 .collect(Collectors.toList());
     }
 
@@ -152,8 +186,11 @@ public class CategoriaService {
      * Convierte una entidad a DTO de respuesta
      */
     private CategoriaResponse convertirAResponse(Categoria categoria) {
-        long cantidadProductos = productoRepository.contarProductosPorCategoria(categoria.getIdCategoria());
+        return convertirAResponse(categoria,
+                productoRepository.contarProductosPorCategoria(categoria.getIdCategoria()));
+    }
 
+    private CategoriaResponse convertirAResponse(Categoria categoria, long cantidadProductos) {
         return new CategoriaResponse(
                 categoria.getIdCategoria(),
                 categoria.getNombreCategoria(),
@@ -2,11 +2,18 @@ package pe.com.ikaza.backend.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pe.com.ikaza.backend.dto.projection.ResumenMovimientoDia;
+import pe.com.ikaza.backend.dto.projection.StockInventario;
 import pe.com.ikaza.backend.dto.request.AjusteStockRequest;
 import pe.com.ikaza.backend.dto.response.InventarioResponse;
 import pe.com.ikaza.backend.dto.response.MovimientoInventarioResponse;
+import pe.com.ikaza.backend.dto.response.PaginaCursorResponse;
+import pe.com.ikaza.backend.dto.response.ResumenMovimientosResponse;
 import pe.com.ikaza.backend.entity.Cliente;
 import pe.com.ikaza.backend.entity.Inventario;
 import pe.com.ikaza.backend.entity.MovimientoInventario;
@@ -14,11 +21,20 @@ import pe.com.ikaza.backend.entity.Producto;
 import pe.com.ikaza.backend.entity.Usuario;
 import pe.com.ikaza.backend.repository.ClienteRepository;
 import pe.com.ikaza.backend.repository.InventarioRepository;
+import pe.com.ikaza.backend.repository.MovimientoInventarioDiarioRepository;
 import pe.com.ikaza.backend.repository.MovimientoInventarioRepository;
 import pe.com.ikaza.backend.repository.ProductoRepository;
 import pe.com.ikaza.backend.repository.UsuarioRepository;
+import pe.com.ikaza.backend.service.catalogo.ProductoCambiadoEvent;
+import pe.com.ikaza.backend.service.inventario.CursorMovimientos;
+import pe.com.ikaza.backend.service.inventario.EscritorMovimientosService;
+import pe.com.ikaza.backend.service.inventario.MovimientoPendiente;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -30,11 +46,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class InventarioAdminService {
 
+    /** Tope de movimientos por página del historial */
+    public static final int MAX_MOVIMIENTOS_POR_PAGINA = 200;
+
+    /** Inicio del historial cuando no se indica "desde" */
+    private static final LocalDate HISTORIAL_DESDE = LocalDate.of(2000, 1, 1);
+
     private final InventarioRepository inventarioRepository;
     private final MovimientoInventarioRepository movimientoRepository;
+    private final MovimientoInventarioDiarioRepository resumenRepository;
+    private final EscritorMovimientosService escritorMovimientos;
     private final ProductoRepository productoRepository;
     private final UsuarioRepository usuarioRepository;
     private final ClienteRepository clienteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventarioService inventarioService;
 
     /**
      * Obtiene todos los inventarios del sistema
@@ -72,97 +98,150 @@ public class InventarioAdminService {
             throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
         }
 
+        // Se bloquea la fila antes de leer nada: una reserva o venta concurrente espera
+        // a este ajuste, que solo escribe stock_actual (stock_reservado no se pisa)
+        StockInventario stock = inventarioService.bloquearStock(idProducto, true).orElseThrow();
+
         // Obtener producto
         Producto producto = productoRepository.findById(idProducto)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + idProducto));
 
-        // Obtener o crear inventario
-        Inventario inventario = inventarioRepository.findByProductoIdProducto(idProducto)
-                .orElseGet(() -> crearInventarioInicial(producto));
-
         // Obtener usuario
         Usuario usuario = idUsuario != null ? 
                 usuarioRepository.findById(idUsuario).orElse(null) : null;
 
         // Guardar stock anterior
-        int stockAnterior = inventario.getStockActual();
+        int stockAnterior = stock.getStockActual();
+        int stockNuevo;
 
         // Aplicar ajuste según el tipo
         switch (request.getTipo()) {
             case ENTRADA:
-                inventario.agregarStock(request.getCantidad());
+                stockNuevo = stockAnterior + request.getCantidad();
                 break;
                 
             case SALIDA:
-                if (inventario.getStockActual() < request.getCantidad()) {
+                if (stock.getStockDisponible() < request.getCantidad()) {
                     throw new IllegalArgumentException(
-                        String.format("Stock insuficiente. Actual: %d, Solicitado: %d", 
-                            inventario.getStockActual(), request.getCantidad())
+                        String.format("Stock insuficiente. Disponible: %d, Solicitado: %d", 
+                            stock.getStockDisponible(), request.getCantidad())
                     );
                 }
-                inventario.reducirStock(request.getCantidad());
+                stockNuevo = stockAnterior - request.getCantidad();
                 break;
                 
             case AJUSTE:
-                if (request.getCantidad() > stockAnterior) {
-                    inventario.agregarStock(request.getCantidad() - stockAnterior);
-                } else {
-                    inventario.reducirStock(stockAnterior - request.getCantidad());
-                }
+                stockNuevo = request.getCantidad();
                 break;
                 
             default:
                 throw new IllegalArgumentException("Tipo de movimiento no válido: " + request.getTipo());
         }
 
-        inventario = inventarioRepository.save(inventario);
+        inventarioService.fijarStockActual(stock, stockNuevo);
+        Inventario inventario = inventarioRepository.findByProductoIdProducto(idProducto).orElseThrow();
 
-        producto.setStock(inventario.getStockActual());
+        producto.setStock(stockNuevo);
         productoRepository.save(producto);
+        eventPublisher.publishEvent(ProductoCambiadoEvent.stock(idProducto, stockNuevo));
 
-        MovimientoInventario movimiento = new MovimientoInventario(
-                usuario,
-                producto,
+        // Se escribe en esta transacción: el ajuste aparece en el historial y en el resumen al confirmarse
+        escritorMovimientos.escribirAhora(List.of(new MovimientoPendiente(
+                usuario != null ? usuario.getIdUsuario() : null,
+                idProducto,
                 request.getTipo(),
                 request.getCantidad(),
                 stockAnterior,
-                inventario.getStockActual(),
-                request.getMotivo()
-        );
-        movimientoRepository.save(movimiento);
+                stockNuevo,
+                request.getMotivo(),
+                LocalDateTime.now()
+        )));
 
         log.info("Stock ajustado exitosamente. Stock anterior: {}, Stock nuevo: {}", 
-                stockAnterior, inventario.getStockActual());
+                stockAnterior, stockNuevo);
 
         return convertirAInventarioResponse(inventario);
     }
 
     /**
-     * Obtiene el historial de movimientos de un producto
+     * Obtiene los últimos MAX_MOVIMIENTOS_POR_PAGINA movimientos de un producto.
+     * El historial completo se recorre con obtenerPaginaMovimientosPorProducto.
      */
     public List<MovimientoInventarioResponse> obtenerMovimientosPorProducto(Long idProducto) {
         log.info("Obteniendo movimientos para producto: {}", idProducto);
-        
-        List<MovimientoInventario> movimientos = 
-                movimientoRepository.findByProductoIdProductoOrderByFechaMovimientoDesc(idProducto);
-        
+
+        List<MovimientoInventario> movimientos = movimientoRepository.findUltimosPorProducto(
+                idProducto, PageRequest.of(0, MAX_MOVIMIENTOS_POR_PAGINA));
+
+        Map<Integer, String> nombres = new HashMap<>();
         return movimientos.stream()
-                .map(this::convertirAMovimientoResponse)
+                .map(m -> convertirAMovimientoResponse(m, nombres))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Obtiene el historial de movimientos de un producto, del más reciente al
+     * más antiguo, paginado por cursor dentro del rango de fechas (ambas inclusive)
+     */
+    public PaginaCursorResponse<MovimientoInventarioResponse> obtenerPaginaMovimientosPorProducto(Long idProducto,
+            LocalDate desde, LocalDate hasta, String cursor, int tamanio) {
+        log.info("Obteniendo movimientos para producto: {} ({} - {})", idProducto, desde, hasta);
+        return paginarHistorial(desde, hasta, cursor, tamanio, (inicio, posicion, pagina) ->
+                movimientoRepository.findHistorialProducto(idProducto, inicio, posicion.fecha(),
+                        posicion.idMovimiento(), pagina));
+    }
+
+    /**
+     * Obtiene el historial de movimientos de todo el inventario, paginado por
+     * cursor dentro del rango de fechas (ambas inclusive)
+     */
+    public PaginaCursorResponse<MovimientoInventarioResponse> obtenerMovimientos(LocalDate desde, LocalDate hasta,
+            String cursor, int tamanio) {
+        log.info("Obteniendo movimientos ({} - {})", desde, hasta);
+        return paginarHistorial(desde, hasta, cursor, tamanio, (inicio, posicion, pagina) ->
+                movimientoRepository.findHistorial(inicio, posicion.fecha(), posicion.idMovimiento(), pagina));
+    }
+
     /**
      * Obtiene los últimos movimientos del sistema
      */
     public List<MovimientoInventarioResponse> obtenerUltimosMovimientos(int limite) {
         log.info("Obteniendo últimos {} movimientos", limite);
-        
-        List<MovimientoInventario> movimientos = 
-                movimientoRepository.findTop50ByOrderByFechaMovimientoDesc();
-        
+
+        List<MovimientoInventario> movimientos = movimientoRepository.findUltimos(
+                PageRequest.of(0, Math.max(1, Math.min(limite, MAX_MOVIMIENTOS_POR_PAGINA))));
+
+        Map<Integer, String> nombres = new HashMap<>();
         return movimientos.stream()
-                .limit(limite)
-                .map(this::convertirAMovimientoResponse)
+                .map(m -> convertirAMovimientoResponse(m, nombres))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Totales de movimientos por día y tipo, leídos del resumen diario (no
+     * recorre movimientos_inventario). Sin idProducto suma todo el inventario.
+     */
+    public List<ResumenMovimientosResponse> obtenerResumenMovimientos(Long idProducto, LocalDate desde,
+            LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+        log.info("Obteniendo resumen de movimientos ({} - {}) producto: {}", desde, hasta, idProducto);
+
+        List<ResumenMovimientoDia> dias = idProducto != null
+                ? resumenRepository.findResumenProducto(idProducto, desde, hasta)
+                : resumenRepository.findResumen(desde, hasta);
+
+        return dias.stream()
+                .map(d -> ResumenMovimientosResponse.builder()
+                        .fecha(d.getFecha())
+                        .idProducto(idProducto)
+                        .tipoMovimiento(d.getTipoMovimiento().name())
+                        .movimientos(d.getMovimientos())
+                        .unidades(d.getUnidades())
+                        .neto(d.getNeto())
+                        .reservado(d.getReservado())
+                        .build())
                 .collect(Collectors.toList());
     }
 
@@ -191,14 +270,38 @@ public class InventarioAdminService {
     // --- MÉTODOS PRIVADOS DE UTILIDAD ---
 
     /**
-     * Crea un inventario inicial para un producto que no lo tiene
+     * Consulta de una página del historial: (inicio del rango, posición, Pageable)
+     */
+    @FunctionalInterface
+    private interface ConsultaHistorial {
+        List<MovimientoInventario> buscar(LocalDateTime inicio, CursorMovimientos posicion, Pageable pagina);
+    }
+
+    /**
+     * Pide una fila de más para saber si hay página siguiente; sin cursor se
+     * empieza por el final del día "hasta" (mañana si no se indica)
      */
-    private Inventario crearInventarioInicial(Producto producto) {
-        Inventario nuevoInventario = new Inventario();
-        nuevoInventario.setProducto(producto);
-        nuevoInventario.setStockActual(producto.getStock() != null ? producto.getStock() : 0);
-        nuevoInventario.setStockReservado(0);
-        return inventarioRepository.save(nuevoInventario);
+    private PaginaCursorResponse<MovimientoInventarioResponse> paginarHistorial(LocalDate desde, LocalDate hasta,
+            String cursor, int tamanio, ConsultaHistorial consulta) {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+        int cantidad = Math.max(1, Math.min(tamanio, MAX_MOVIMIENTOS_POR_PAGINA));
+        LocalDateTime inicio = (desde != null ? desde : HISTORIAL_DESDE).atStartOfDay();
+        CursorMovimientos posicion = cursor != null && !cursor.isBlank()
+                ? CursorMovimientos.decodificar(cursor)
+                : CursorMovimientos.inicial((hasta != null ? hasta : LocalDate.now()).plusDays(1).atStartOfDay());
+
+        List<MovimientoInventario> filas = consulta.buscar(inicio, posicion, PageRequest.of(0, cantidad + 1));
+        boolean hayMas = filas.size() > cantidad;
+        List<MovimientoInventario> pagina = hayMas ? filas.subList(0, cantidad) : filas;
+
+        Map<Integer, String> nombres = new HashMap<>();
+        List<MovimientoInventarioResponse> contenido = pagina.stream()
+                .map(m -> convertirAMovimientoResponse(m, nombres))
+                .collect(Collectors.toList());
+        String siguiente = hayMas ? CursorMovimientos.despuesDe(pagina.get(pagina.size() - 1)).codificar() : null;
+        return new PaginaCursorResponse<>(contenido, contenido.size(), hayMas, siguiente);
     }
 
     /**
@@ -218,21 +321,20 @@ public class InventarioAdminService {
 
     /**
      * Convierte MovimientoInventario a MovimientoInventarioResponse.
-     * Obtiene el nombre completo del Cliente si el usuario existe.
+     * Obtiene el nombre completo del Cliente si el usuario existe; los nombres
+     * ya buscados en la misma página se toman de "nombres".
      */
-    private MovimientoInventarioResponse convertirAMovimientoResponse(MovimientoInventario movimiento) {
+    private MovimientoInventarioResponse convertirAMovimientoResponse(MovimientoInventario movimiento,
+            Map<Integer, String> nombres) {
         
         String nombreCompleto = "Sistema";
         
         if (movimiento.getUsuario() != null) {
             Usuario usuario = movimiento.getUsuario();
-            Cliente cliente = clienteRepository.findByUsuarioIdUsuario(usuario.getIdUsuario()).orElse(null);
-            
-            if (cliente != null) {
-                nombreCompleto = cliente.getNombreCompleto();
-            } else {
-                nombreCompleto = usuario.getEmail(); 
-            }
+            nombreCompleto = nombres.computeIfAbsent(usuario.getIdUsuario(), id -> clienteRepository
+                    .findByUsuarioIdUsuario(id)
+                    .map(Cliente::getNombreCompleto)
+                    .orElse(usuario.getEmail()));
         }
         return MovimientoInventarioResponse.builder()
                 .idMovimiento(movimiento.getIdMovimiento())
@@ -2,18 +2,40 @@ package pe.com.ikaza.backend.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pe.com.ikaza.backend.dto.projection.StockInventario;
 import pe.com.ikaza.backend.dto.request.ItemPedidoRequest;
 import pe.com.ikaza.backend.entity.Inventario;
 import pe.com.ikaza.backend.entity.MovimientoInventario;
 import pe.com.ikaza.backend.entity.Producto;
 import pe.com.ikaza.backend.entity.Usuario;
 import pe.com.ikaza.backend.repository.InventarioRepository;
-import pe.com.ikaza.backend.repository.MovimientoInventarioRepository;
 import pe.com.ikaza.backend.repository.ProductoRepository;
+import pe.com.ikaza.backend.service.catalogo.ProductoCambiadoEvent;
+import pe.com.ikaza.backend.service.catalogo.VentaConfirmadaEvent;
+import pe.com.ikaza.backend.service.inventario.EscritorMovimientosService;
+import pe.com.ikaza.backend.service.inventario.MovimientoPendiente;
+import pe.com.ikaza.backend.service.inventario.ReservaCreadaEvent;
 
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 
 /**
  * Servicio responsable de la gestión de inventario y movimientos
@@ -24,135 +46,240 @@ import java.util.List;
 public class InventarioService {
 
     private final InventarioRepository inventarioRepository;
-    private final MovimientoInventarioRepository movimientoRepository;
+    private final EscritorMovimientosService escritorMovimientos;
     private final ProductoRepository productoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Minutos que dura una reserva de stock sin pago */
+    @Value("${inventario.reserva.expiracion:60}")
+    private int minutosReserva;
+
+    private static final String SQL_BLOQUEAR = "SELECT id_producto, stock_actual, stock_reservado "
+            + "FROM inventario WHERE id_producto = ANY(?) ORDER BY id_producto FOR UPDATE";
+    private static final String SQL_RESERVAR = "UPDATE inventario SET stock_reservado = stock_reservado + ?, "
+            + "fecha_actualizacion = ? WHERE id_producto = ? AND stock_actual - stock_reservado >= ?";
+    private static final String SQL_CONFIRMAR = "UPDATE inventario SET stock_actual = stock_actual - ?, "
+            + "stock_reservado = stock_reservado - ?, fecha_actualizacion = ? "
+            + "WHERE id_producto = ? AND stock_reservado >= ? AND stock_actual - ? >= stock_reservado - ?";
+    private static final String SQL_LIBERAR = "UPDATE inventario SET stock_reservado = stock_reservado - ?, "
+            + "fecha_actualizacion = ? WHERE id_producto = ? AND stock_reservado >= ?";
+    private static final String SQL_FIJAR = "UPDATE inventario SET stock_actual = ?, fecha_actualizacion = ? "
+            + "WHERE id_producto = ? AND stock_reservado <= ?";
+    private static final String SQL_DEVOLVER = "UPDATE inventario SET stock_actual = stock_actual + ?, "
+            + "fecha_actualizacion = ? WHERE id_producto = ?";
+    private static final String SQL_RESERVA_REGISTRAR = "INSERT INTO reservas_stock (id_pedido, id_producto, "
+            + "cantidad, fecha_expiracion, fecha_creacion) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (id_pedido, id_producto) DO UPDATE SET "
+            + "cantidad = reservas_stock.cantidad + EXCLUDED.cantidad, fecha_expiracion = EXCLUDED.fecha_expiracion";
+    private static final String SQL_RESERVA_PRODUCTOS = "SELECT DISTINCT id_producto FROM reservas_stock "
+            + "WHERE id_pedido = ANY(?)";
+    private static final String SQL_RESERVA_CONSUMIR = "DELETE FROM reservas_stock "
+            + "WHERE id_pedido = ? AND id_producto = ANY(?) RETURNING id_pedido, id_producto, cantidad";
+    private static final String SQL_RESERVA_LIBERAR = "DELETE FROM reservas_stock "
+            + "WHERE id_pedido = ANY(?) AND id_producto = ANY(?) RETURNING id_pedido, id_producto, cantidad";
+    private static final String SQL_RESERVA_VENCIDAS = "DELETE FROM reservas_stock "
+            + "WHERE id_pedido = ANY(?) AND id_producto = ANY(?) AND fecha_expiracion <= ? "
+            + "RETURNING id_pedido, id_producto, cantidad";
+    private static final String SQL_RECONCILIAR = "UPDATE inventario i SET stock_reservado = r.total, "
+            + "fecha_actualizacion = ? FROM (SELECT inv.id_producto, COALESCE(SUM(rs.cantidad), 0) AS total "
+            + "FROM inventario inv LEFT JOIN reservas_stock rs ON rs.id_producto = inv.id_producto "
+            + "GROUP BY inv.id_producto) r "
+            + "WHERE i.id_producto = r.id_producto AND i.stock_reservado <> r.total";
+    private static final String SQL_STOCK_PRODUCTO = "UPDATE productos SET stock = ? WHERE id_producto = ?";
 
     /**
      * Valida que hay stock disponible para todos los items
+     * Una sola consulta IN para todo el carrito
      * @throws StockInsuficienteException si no hay stock suficiente
      */
     public void validarStockDisponible(List<ItemPedidoRequest> items) {
         log.info("Validando stock para {} items", items.size());
         
-        for (ItemPedidoRequest item : items) {
-            Producto producto = productoRepository.findById(item.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado: " + item.getIdProducto()));
-
-            Inventario inventario = inventarioRepository.findByProductoIdProducto(producto.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Inventario no encontrado para producto: " + producto.getIdProducto()));
-
-            if (!inventario.hayStockDisponible(item.getCantidad())) {
-                throw new StockInsuficienteException(
-                    String.format("Stock insuficiente para %s. Disponible: %d, Solicitado: %d",
-                        producto.getNombreProducto(), 
-                        inventario.getStockDisponibleCalculado(), 
-                        item.getCantidad())
-                );
+        Map<Long, Integer> unidades = unidadesPorProducto(items);
+        Map<Long, StockInventario> stocks = new HashMap<>();
+        inventarioRepository.findStockByProductoIdIn(unidades.keySet())
+                .forEach(s -> stocks.put(s.getIdProducto(), s));
+
+        unidades.forEach((idProducto, cantidad) -> {
+            StockInventario stock = stocks.get(idProducto);
+            if (stock == null) {
+                throw new RuntimeException("Inventario no encontrado para producto: " + idProducto);
             }
-        }
+            if (stock.getStockDisponible() < cantidad) {
+                throw stockInsuficiente(idProducto, stock.getStockDisponible(), cantidad);
+            }
+        });
         
         log.info("Validación de stock exitosa");
     }
 
     /**
      * Reserva stock para un pedido pendiente
-     * Se usa cuando se crea un pedido con MercadoPago (pago asíncrono)
+     * Se usa cuando se crea un pedido con MercadoPago (pago asíncrono).
+     * Si algún item no alcanza no se reserva ninguno (rollback).
      */
     @Transactional
     public void reservarStock(List<ItemPedidoRequest> items, Long idPedido, Usuario usuario) {
         log.info("Reservando stock para pedido: {}", idPedido);
         
-        for (ItemPedidoRequest item : items) {
-            Producto producto = productoRepository.findById(item.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        Map<Long, Integer> unidades = unidadesPorProducto(items);
+        Map<Long, StockInventario> stocks = bloquear(unidades.keySet());
+        unidades.forEach((idProducto, cantidad) -> {
+            StockInventario stock = stocks.get(idProducto);
+            if (stock == null) {
+                // Camino frío: el producto aún no tiene fila de inventario
+                stock = crearInventario(idProducto);
+                stocks.put(idProducto, stock);
+            }
+            if (stock.getStockDisponible() < cantidad) {
+                throw stockInsuficiente(idProducto, stock.getStockDisponible(), cantidad);
+            }
+        });
+
+        ejecutarLote(SQL_RESERVAR, unidades, (ps, u) -> {
+            ps.setInt(1, u.getValue());
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(3, u.getKey());
+            ps.setInt(4, u.getValue());
+        });
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime expiracion = ahora.plusMinutes(minutosReserva);
+        jdbcTemplate.batchUpdate(SQL_RESERVA_REGISTRAR, new ArrayList<>(unidades.entrySet()), unidades.size(),
+                (ps, u) -> {
+                    ps.setLong(1, idPedido);
+                    ps.setLong(2, u.getKey());
+                    ps.setInt(3, u.getValue());
+                    ps.setTimestamp(4, Timestamp.valueOf(expiracion));
+                    ps.setTimestamp(5, Timestamp.valueOf(ahora));
+                });
+        eventPublisher.publishEvent(new ReservaCreadaEvent(idPedido, expiracion));
 
-            Inventario inventario = obtenerOCrearInventario(producto);
-            
-            inventario.reservarStock(item.getCantidad());
-            inventarioRepository.save(inventario);
+        List<MovimientoPendiente> movimientos = new ArrayList<>();
+        unidades.forEach((idProducto, cantidad) -> {
+            StockInventario stock = stocks.get(idProducto);
+            // El stock actual no cambia: solo se avisa si el disponible se agota
+            // (el detalle valida con el disponible vigente, ver ProductoService.validadorDetalle)
+            if (stock.getStockDisponible() > 0 && stock.getStockDisponible() - cantidad <= 0) {
+                eventPublisher.publishEvent(ProductoCambiadoEvent.stock(idProducto, stock.getStockActual()));
+            }
 
-            registrarMovimiento(
+            movimientos.add(nuevoMovimiento(
                 usuario,
-                producto,
+                idProducto,
                 MovimientoInventario.TipoMovimiento.AJUSTE,
-                item.getCantidad(),
-                inventario.getStockReservado() - item.getCantidad(),
-                inventario.getStockReservado(),
-                "Reserva de stock para pedido #" + idPedido
-            );
-        }
+                cantidad,
+                stock.getStockReservado(),
+                stock.getStockReservado() + cantidad,
+                MovimientoPendiente.MOTIVO_RESERVA + idPedido
+            ));
+        });
+        escritorMovimientos.registrar(movimientos);
         
         log.info("Stock reservado exitosamente");
     }
 
     /**
      * Confirma la venta y reduce el stock
-     * Se usa cuando el pago es aprobado
+     * Se usa cuando el pago es aprobado: consume la reserva hecha en el checkout
+     * y, si ya venció, vende del stock disponible
      */
     @Transactional
     public void confirmarVenta(List<ItemPedidoRequest> items, Long idPedido, Usuario usuario) {
         log.info("Confirmando venta para pedido: {}", idPedido);
         
-        for (ItemPedidoRequest item : items) {
-            Producto producto = productoRepository.findById(item.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        Map<Long, Integer> unidades = unidadesPorProducto(items);
+        Map<Long, StockInventario> stocks = bloquearExistentes(unidades.keySet());
+        // Reservado por producto según el libro de reservas (fuente de verdad)
+        Map<Long, Integer> reservadas = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_RESERVA_CONSUMIR);
+            ps.setLong(1, idPedido);
+            ps.setArray(2, con.createArrayOf("bigint", unidades.keySet().toArray(Long[]::new)));
+            return ps;
+        }, (RowCallbackHandler) rs -> reservadas.merge(rs.getLong(2), rs.getInt(3), Integer::sum));
 
-            Inventario inventario = inventarioRepository.findByProductoIdProducto(producto.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
+        unidades.forEach((idProducto, cantidad) -> {
+            StockInventario stock = stocks.get(idProducto);
+            int reservada = reservadas.getOrDefault(idProducto, 0);
+            if (stock.getStockActual() - cantidad < stock.getStockReservado() - reservada) {
+                throw new IllegalStateException(
+                        "Stock insuficiente para confirmar la venta del producto: " + idProducto);
+            }
+        });
 
-            int stockAnterior = inventario.getStockActual();
-            
-            inventario.confirmarVenta(item.getCantidad());
-            inventarioRepository.save(inventario);
+        ejecutarLote(SQL_CONFIRMAR, unidades, (ps, u) -> {
+            int reservada = reservadas.getOrDefault(u.getKey(), 0);
+            ps.setInt(1, u.getValue());
+            ps.setInt(2, reservada);
+            ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(4, u.getKey());
+            ps.setInt(5, reservada);
+            ps.setInt(6, u.getValue());
+            ps.setInt(7, reservada);
+        });
+        Map<Long, Integer> nuevos = new TreeMap<>();
+        unidades.forEach((idProducto, cantidad) ->
+                nuevos.put(idProducto, stocks.get(idProducto).getStockActual() - cantidad));
+        reflejarEnProductos(nuevos);
 
-            producto.setStock(inventario.getStockActual());
-            productoRepository.save(producto);
+        List<MovimientoPendiente> movimientos = new ArrayList<>();
+        unidades.forEach((idProducto, cantidad) -> {
+            StockInventario stock = stocks.get(idProducto);
+            eventPublisher.publishEvent(ProductoCambiadoEvent.stock(idProducto, nuevos.get(idProducto)));
 
-            registrarMovimiento(
+            movimientos.add(nuevoMovimiento(
                 usuario,
-                producto,
+                idProducto,
                 MovimientoInventario.TipoMovimiento.SALIDA,
-                item.getCantidad(),
-                stockAnterior,
-                inventario.getStockActual(),
+                cantidad,
+                stock.getStockActual(),
+                nuevos.get(idProducto),
                 "Venta confirmada - Pedido #" + idPedido
-            );
-        }
+            ));
+        });
+        escritorMovimientos.registrar(movimientos);
+        eventPublisher.publishEvent(VentaConfirmadaEvent.venta(idPedido, unidades));
         
         log.info("Venta confirmada y stock actualizado");
     }
 
     /**
-     * Libera stock reservado cuando un pedido es cancelado
+     * Libera el stock reservado de un pedido cancelado (lo que quede en el libro de reservas)
      */
     @Transactional
-    public void liberarStockReservado(List<ItemPedidoRequest> items, Long idPedido, Usuario usuario) {
+    public void liberarStockReservado(Long idPedido, Usuario usuario) {
         log.info("Liberando stock reservado para pedido: {}", idPedido);
         
-        for (ItemPedidoRequest item : items) {
-            Producto producto = productoRepository.findById(item.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-            Inventario inventario = inventarioRepository.findByProductoIdProducto(producto.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
+        int lineas = liberarReservas(List.of(idPedido), null, usuario,
+                id -> MovimientoPendiente.MOTIVO_CANCELACION + id);
+        
+        log.info("Stock reservado liberado: {} líneas", lineas);
+    }
 
-            int stockReservadoAnterior = inventario.getStockReservado();
-            
-            inventario.liberarStockReservado(item.getCantidad());
-            inventarioRepository.save(inventario);
+    /**
+     * Libera en un lote las reservas vencidas de los pedidos dados
+     * @return líneas de reserva liberadas
+     */
+    @Transactional
+    public int liberarReservasVencidas(Collection<Long> idsPedido) {
+        return liberarReservas(idsPedido, LocalDateTime.now(), null,
+                id -> MovimientoPendiente.MOTIVO_VENCIMIENTO + id);
+    }
 
-            registrarMovimiento(
-                usuario,
-                producto,
-                MovimientoInventario.TipoMovimiento.AJUSTE,
-                item.getCantidad(),
-                stockReservadoAnterior,
-                inventario.getStockReservado(),
-                "Liberación de stock - Pedido cancelado #" + idPedido
-            );
-        }
-        
-        log.info("Stock reservado liberado");
+    /**
+     * Recalcula stock_reservado de todos los inventarios desde el libro de reservas.
+     * Solo por pedido del administrador: bloquea todo el inventario y descarta lo
+     * reservado fuera del libro (reservas anteriores a él), así que no corre al arrancar.
+     * @return inventarios corregidos
+     */
+    @Transactional
+    public int reconciliarReservas() {
+        // Bloquea todo el inventario (en el mismo orden que las operaciones) para
+        // que ninguna reserva se confirme mientras se recalcula
+        jdbcTemplate.query("SELECT id_producto FROM inventario ORDER BY id_producto FOR UPDATE",
+                (RowCallbackHandler) rs -> { });
+        return jdbcTemplate.update(SQL_RECONCILIAR, Timestamp.valueOf(LocalDateTime.now()));
     }
 
     /**
@@ -162,73 +289,279 @@ public class InventarioService {
     public void devolverStock(List<ItemPedidoRequest> items, Long idPedido, Usuario usuario) {
         log.info("Devolviendo stock para pedido: {}", idPedido);
         
-        for (ItemPedidoRequest item : items) {
-            Producto producto = productoRepository.findById(item.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        Map<Long, Integer> unidades = unidadesPorProducto(items);
+        Map<Long, StockInventario> stocks = bloquearExistentes(unidades.keySet());
 
-            Inventario inventario = inventarioRepository.findByProductoIdProducto(producto.getIdProducto())
-                    .orElseThrow(() -> new RuntimeException("Inventario no encontrado"));
+        ejecutarLote(SQL_DEVOLVER, unidades, (ps, u) -> {
+            ps.setInt(1, u.getValue());
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(3, u.getKey());
+        });
+        Map<Long, Integer> nuevos = new TreeMap<>();
+        unidades.forEach((idProducto, cantidad) ->
+                nuevos.put(idProducto, stocks.get(idProducto).getStockActual() + cantidad));
+        reflejarEnProductos(nuevos);
 
-            int stockAnterior = inventario.getStockActual();
-            
-            inventario.agregarStock(item.getCantidad());
-            inventarioRepository.save(inventario);
+        List<MovimientoPendiente> movimientos = new ArrayList<>();
+        unidades.forEach((idProducto, cantidad) -> {
+            eventPublisher.publishEvent(ProductoCambiadoEvent.stock(idProducto, nuevos.get(idProducto)));
 
-            producto.setStock(inventario.getStockActual());
-            productoRepository.save(producto);
-
-            registrarMovimiento(
+            movimientos.add(nuevoMovimiento(
                 usuario,
-                producto,
+                idProducto,
                 MovimientoInventario.TipoMovimiento.DEVOLUCION,
-                item.getCantidad(),
-                stockAnterior,
-                inventario.getStockActual(),
+                cantidad,
+                stocks.get(idProducto).getStockActual(),
+                nuevos.get(idProducto),
                 "Devolución - Pedido #" + idPedido
-            );
-        }
+            ));
+        });
+        escritorMovimientos.registrar(movimientos);
+        eventPublisher.publishEvent(VentaConfirmadaEvent.devolucion(idPedido, unidades));
         
         log.info("Stock devuelto exitosamente");
     }
 
     /**
-     * Obtiene o crea un inventario para un producto
+     * Bloquea (FOR UPDATE) la fila de inventario de un producto para fijar su
+     * stock actual en la misma transacción. Con crear, la crea si no existe.
      */
-    private Inventario obtenerOCrearInventario(Producto producto) {
-        return inventarioRepository.findByProductoIdProducto(producto.getIdProducto())
-                .orElseGet(() -> {
-                    Inventario nuevoInventario = new Inventario();
-                    nuevoInventario.setProducto(producto);
-                    nuevoInventario.setStockActual(producto.getStock());
-                    nuevoInventario.setStockReservado(0);
-                    return inventarioRepository.save(nuevoInventario);
+    @Transactional
+    public Optional<StockInventario> bloquearStock(Long idProducto, boolean crear) {
+        StockInventario stock = bloquear(List.of(idProducto)).get(idProducto);
+        if (stock == null && crear) {
+            crearInventario(idProducto);
+            stock = bloquear(List.of(idProducto)).get(idProducto);
+        }
+        return Optional.ofNullable(stock);
+    }
+
+    /**
+     * Fija el stock actual de una fila bloqueada con bloquearStock (ajuste del
+     * administrador o edición del producto). Solo escribe stock_actual: lo
+     * reservado lo llevan las reservas y su libro, y no puede quedar por encima.
+     * @throws IllegalArgumentException si el nuevo stock queda por debajo de lo reservado
+     */
+    @Transactional
+    public void fijarStockActual(StockInventario bloqueado, int nuevoStock) {
+        if (nuevoStock < bloqueado.getStockReservado()) {
+            throw new IllegalArgumentException(String.format(
+                    "El stock no puede quedar por debajo de lo reservado. Reservado: %d, Nuevo: %d",
+                    bloqueado.getStockReservado(), nuevoStock));
+        }
+        int filas = jdbcTemplate.update(SQL_FIJAR, nuevoStock, Timestamp.valueOf(LocalDateTime.now()),
+                bloqueado.getIdProducto(), nuevoStock);
+        if (filas == 0) {
+            throw new IllegalStateException("El inventario cambió durante la operación");
+        }
+    }
+
+    // ========== LOTES ==========
+
+    /**
+     * Bloquea (FOR UPDATE) las filas de inventario de todos los productos en una
+     * sola consulta. Las filas se bloquean en orden ascendente de producto, así
+     * dos carritos concurrentes con productos en común nunca se esperan en ciclo.
+     */
+    private Map<Long, StockInventario> bloquear(Collection<Long> idsProducto) {
+        Long[] ids = idsProducto.toArray(Long[]::new);
+        Map<Long, StockInventario> stocks = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_BLOQUEAR);
+            ps.setArray(1, con.createArrayOf("bigint", ids));
+            return ps;
+        }, (RowCallbackHandler) rs -> stocks.put(rs.getLong(1),
+                new StockInventario(rs.getLong(1), rs.getInt(2), rs.getInt(3))));
+        return stocks;
+    }
+
+    /**
+     * Como bloquear, pero todos los productos deben tener inventario
+     */
+    private Map<Long, StockInventario> bloquearExistentes(Collection<Long> idsProducto) {
+        Map<Long, StockInventario> stocks = bloquear(idsProducto);
+        for (Long idProducto : idsProducto) {
+            if (!stocks.containsKey(idProducto)) {
+                throw new RuntimeException("Inventario no encontrado para producto: " + idProducto);
+            }
+        }
+        return stocks;
+    }
+
+    /**
+     * Aplica la operación a todos los productos en un único batch JDBC, en el
+     * mismo orden ascendente del bloqueo. Las filas ya están bloqueadas y
+     * validadas; la condición del UPDATE queda como resguardo.
+     */
+    private void ejecutarLote(String sql, Map<Long, Integer> unidades,
+            ParameterizedPreparedStatementSetter<Map.Entry<Long, Integer>> parametros) {
+        List<Map.Entry<Long, Integer>> lote = new ArrayList<>(unidades.entrySet());
+        int[][] filas = jdbcTemplate.batchUpdate(sql, lote, lote.size(), parametros);
+        for (int[] resultado : filas) {
+            for (int afectadas : resultado) {
+                if (afectadas == 0) {
+                    throw new IllegalStateException("El inventario cambió durante la operación");
+                }
+            }
+        }
+    }
+
+    /**
+     * Copia el nuevo stock actual a productos.stock (un batch para todo el pedido).
+     * No toca fecha_actualizacion: una venta no es una edición del producto y los
+     * índices reciben el stock por evento, no por la reconciliación.
+     */
+    private void reflejarEnProductos(Map<Long, Integer> nuevos) {
+        jdbcTemplate.batchUpdate(SQL_STOCK_PRODUCTO, new ArrayList<>(nuevos.entrySet()), nuevos.size(),
+                (ps, n) -> {
+                    ps.setInt(1, n.getValue());
+                    ps.setLong(2, n.getKey());
                 });
     }
 
     /**
-     * Registra un movimiento de inventario
+     * Borra las reservas de los pedidos (solo las vencidas a esa fecha, si se da)
+     * y descuenta de stock_reservado exactamente lo que se borró
      */
-    private void registrarMovimiento(
+    private int liberarReservas(Collection<Long> idsPedido, LocalDateTime vencidasA, Usuario usuario,
+            Function<Long, String> motivo) {
+        Long[] pedidos = idsPedido.toArray(Long[]::new);
+        Set<Long> productos = new TreeSet<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SQL_RESERVA_PRODUCTOS);
+            ps.setArray(1, con.createArrayOf("bigint", pedidos));
+            return ps;
+        }, (RowCallbackHandler) rs -> productos.add(rs.getLong(1)));
+        if (productos.isEmpty()) {
+            return 0;
+        }
+
+        // Mismo orden que el resto de operaciones: primero inventario, luego el libro.
+        // Solo se liberan las líneas de productos bloqueados: una reserva de otro producto
+        // registrada después de la lectura anterior queda para la próxima liberación.
+        Map<Long, StockInventario> stocks = bloquear(productos);
+        if (stocks.isEmpty()) {
+            return 0;
+        }
+        Long[] bloqueados = stocks.keySet().toArray(Long[]::new);
+        List<LineaReserva> lineas = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(vencidasA != null ? SQL_RESERVA_VENCIDAS : SQL_RESERVA_LIBERAR);
+            ps.setArray(1, con.createArrayOf("bigint", pedidos));
+            ps.setArray(2, con.createArrayOf("bigint", bloqueados));
+            if (vencidasA != null) {
+                ps.setTimestamp(3, Timestamp.valueOf(vencidasA));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> lineas.add(new LineaReserva(rs.getLong(1), rs.getLong(2), rs.getInt(3))));
+        if (lineas.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> unidades = new TreeMap<>();
+        lineas.forEach(l -> unidades.merge(l.idProducto(), l.cantidad(), Integer::sum));
+        ejecutarLote(SQL_LIBERAR, unidades, (ps, u) -> {
+            ps.setInt(1, u.getValue());
+            ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            ps.setLong(3, u.getKey());
+            ps.setInt(4, u.getValue());
+        });
+
+        Map<Long, Integer> reservado = new HashMap<>();
+        unidades.keySet().forEach(id -> reservado.put(id, stocks.get(id).getStockReservado()));
+        List<MovimientoPendiente> movimientos = new ArrayList<>();
+        for (LineaReserva linea : lineas) {
+            int anterior = reservado.get(linea.idProducto());
+            reservado.put(linea.idProducto(), anterior - linea.cantidad());
+            movimientos.add(nuevoMovimiento(
+                usuario,
+                linea.idProducto(),
+                MovimientoInventario.TipoMovimiento.AJUSTE,
+                linea.cantidad(),
+                anterior,
+                anterior - linea.cantidad(),
+                motivo.apply(linea.idPedido())
+            ));
+        }
+        escritorMovimientos.registrar(movimientos);
+        // El stock actual no cambia: solo se avisa si vuelve a haber disponible
+        unidades.forEach((id, cantidad) -> {
+            StockInventario stock = stocks.get(id);
+            if (stock.getStockDisponible() <= 0 && stock.getStockDisponible() + cantidad > 0) {
+                eventPublisher.publishEvent(ProductoCambiadoEvent.stock(id, stock.getStockActual()));
+            }
+        });
+        return lineas.size();
+    }
+
+    /**
+     * Crea el inventario de un producto que aún no lo tiene (stock inicial = productos.stock)
+     */
+    private StockInventario crearInventario(Long idProducto) {
+        Producto producto = productoRepository.findById(idProducto)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+
+        Inventario nuevoInventario = new Inventario();
+        nuevoInventario.setProducto(producto);
+        nuevoInventario.setStockActual(producto.getStock());
+        nuevoInventario.setStockReservado(0);
+        // Flush: el batch JDBC que sigue debe ver la fila
+        inventarioRepository.saveAndFlush(nuevoInventario);
+        return new StockInventario(idProducto, producto.getStock(), 0);
+    }
+
+    private StockInsuficienteException stockInsuficiente(Long idProducto, int disponible, int solicitado) {
+        String nombre = productoRepository.findById(idProducto)
+                .map(Producto::getNombreProducto)
+                .orElse("producto " + idProducto);
+        return new StockInsuficienteException(
+            String.format("Stock insuficiente para %s. Disponible: %d, Solicitado: %d",
+                nombre, disponible, solicitado)
+        );
+    }
+
+    /**
+     * Unidades por producto de los items de un pedido, en orden ascendente de producto
+     */
+    private Map<Long, Integer> unidadesPorProducto(List<ItemPedidoRequest> items) {
+        Map<Long, Integer> unidades = new TreeMap<>();
+        for (ItemPedidoRequest item : items) {
+            if (item.getCantidad() == null || item.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+            }
+            unidades.merge(item.getIdProducto(), item.getCantidad(), Integer::sum);
+        }
+        return unidades;
+    }
+
+    /**
+     * Movimiento de inventario para EscritorMovimientosService (se escribe después del commit)
+     */
+    private MovimientoPendiente nuevoMovimiento(
             Usuario usuario,
-            Producto producto,
+            Long idProducto,
             MovimientoInventario.TipoMovimiento tipo,
             Integer cantidad,
             Integer stockAnterior,
             Integer stockNuevo,
             String motivo) {
         
-        MovimientoInventario movimiento = new MovimientoInventario(
-            usuario,
-            producto,
+        return new MovimientoPendiente(
+            usuario != null ? usuario.getIdUsuario() : null,
+            idProducto,
             tipo,
             cantidad,
             stockAnterior,
             stockNuevo,
-            motivo
+            motivo,
+            LocalDateTime.now()
         );
-        
-        movimientoRepository.save(movimiento);
-        log.debug("Movimiento registrado: {} - {} unidades", tipo, cantidad);
+    }
+
+    /**
+     * Línea del libro de reservas borrada al liberar
+     */
+    private record LineaReserva(Long idPedido, Long idProducto, int cantidad) {
     }
 
     /**
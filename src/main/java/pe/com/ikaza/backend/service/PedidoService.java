@@ -316,8 +316,7 @@ public class PedidoService {
 
         switch (estadoMP) {
             case "approved":
-                // Liberar stock reservado y confirmar venta
-                inventarioService.liberarStockReservado(items, pedido.getIdPedido(), usuario);
+                // Confirmar venta (consume el stock reservado en el checkout)
                 inventarioService.confirmarVenta(items, pedido.getIdPedido(), usuario);
 
                 pedido.setEstado(EstadoPedido.CONFIRMADO);
@@ -334,7 +333,7 @@ public class PedidoService {
             case "rejected":
             case "cancelled":
                 // Liberar stock reservado
-                inventarioService.liberarStockReservado(items, pedido.getIdPedido(), usuario);
+                inventarioService.liberarStockReservado(pedido.getIdPedido(), usuario);
 
                 pedido.setEstado(EstadoPedido.CANCELADO);
                 pedido.setEstadoPago(EstadoPago.RECHAZADO);
@@ -534,10 +533,9 @@ public class PedidoService {
 
         for (Pedido pedido : pedidosAntiguos) {
             try {
-                // Liberar stock reservado
-                List<ItemPedidoRequest> items = convertirDetallesAItems(pedido);
+                // Liberar lo que quede reservado (normalmente ya lo liberó su vencimiento)
                 Usuario usuario = usuarioRepository.findById(pedido.getIdUsuario()).orElse(null);
-                inventarioService.liberarStockReservado(items, pedido.getIdPedido(), usuario);
+                inventarioService.liberarStockReservado(pedido.getIdPedido(), usuario);
 
                 // Eliminar registros relacionados
                 detallePedidoRepository.deleteByPedido_IdPedido(pedido.getIdPedido());
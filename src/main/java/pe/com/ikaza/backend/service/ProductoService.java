@@ -1,27 +1,72 @@
 package pe.com.ikaza.backend.service;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.dto.projection.ResumenDetalle;
+import pe.com.ikaza.backend.dto.projection.StockInventario;
+import pe.com.ikaza.backend.dto.projection.StockProducto;
 import pe.com.ikaza.backend.dto.request.ProductoRequest;
 import pe.com.ikaza.backend.dto.request.ProductoUpdateRequest;
+import pe.com.ikaza.backend.dto.response.BusquedaSkuResponse;
+import pe.com.ikaza.backend.dto.response.EstadisticasCacheResponse;
+import pe.com.ikaza.backend.dto.response.FiltradoProductosResponse;
+import pe.com.ikaza.backend.dto.response.InicioResponse;
+import pe.com.ikaza.backend.dto.response.PaginaCursorResponse;
 import pe.com.ikaza.backend.dto.response.ProductoDetalleResponse;
 import pe.com.ikaza.backend.dto.response.ProductoResponse;
+import pe.com.ikaza.backend.dto.response.ProductoVendidoResponse;
+import pe.com.ikaza.backend.dto.response.SugerenciaResponse;
+import pe.com.ikaza.backend.dto.response.VarianteSkuResponse;
 import pe.com.ikaza.backend.entity.*;
+import pe.com.ikaza.backend.exception.IndiceNoDisponibleException;
 import pe.com.ikaza.backend.repository.CategoriaRepository;
 import pe.com.ikaza.backend.repository.InventarioRepository;
 import pe.com.ikaza.backend.repository.ProductoDetalleRepository;
 import pe.com.ikaza.backend.repository.ProductoRepository;
-
+import pe.com.ikaza.backend.repository.ProductoSlugHistorialRepository;
+import pe.com.ikaza.backend.service.catalogo.BusquedaProductoService;
+import pe.com.ikaza.backend.service.catalogo.CatalogoSnapshotService;
+import pe.com.ikaza.backend.service.catalogo.ColeccionesInicioService;
+import pe.com.ikaza.backend.service.catalogo.CompraConjuntaService;
+import pe.com.ikaza.backend.service.catalogo.CursorCatalogo;
+import pe.com.ikaza.backend.service.catalogo.DetalleProductoCache;
+import pe.com.ikaza.backend.service.catalogo.FacetasService;
+import pe.com.ikaza.backend.service.catalogo.IndiceSkuService;
+import pe.com.ikaza.backend.service.catalogo.OrdenCatalogo;
+import pe.com.ikaza.backend.service.catalogo.PopularidadService;
+import pe.com.ikaza.backend.service.catalogo.ProductoCambiadoEvent;
+import pe.com.ikaza.backend.service.catalogo.RankingVentasService;
+import pe.com.ikaza.backend.service.catalogo.ResolucionSlug;
+import pe.com.ikaza.backend.service.catalogo.SimilaresService;
+import pe.com.ikaza.backend.service.catalogo.SlugProductoService;
+import pe.com.ikaza.backend.service.catalogo.Sugerencia;
+import pe.com.ikaza.backend.service.catalogo.SugerenciasService;
+import pe.com.ikaza.backend.service.catalogo.VentanaVentas;
+import pe.com.ikaza.backend.service.catalogo.VersionCatalogoService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductoService {
 
+    /** SKUs por llamada en la búsqueda por lote */
+    public static final int MAX_SKUS_POR_CONSULTA = 500;
+
+    /** Tope de productos por página en la paginación por cursor */
+    public static final int MAX_PRODUCTOS_POR_PAGINA = 100;
+
     @Autowired
     private ProductoRepository productoRepository;
 
@@ -31,36 +76,212 @@ public class ProductoService {
     @Autowired
     private InventarioRepository inventarioRepository;
 
+    @Autowired
+    private InventarioService inventarioService;
+
     @Autowired
     private ProductoDetalleRepository productoDetalleRepository;
 
-    @Transactional(readOnly = true)
+    @Autowired
+    private ProductoSlugHistorialRepository productoSlugHistorialRepository;
+
+    @Autowired
+    private CatalogoSnapshotService catalogoSnapshotService;
+
+    @Autowired
+    private BusquedaProductoService busquedaProductoService;
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    @Autowired
+    private FacetasService facetasService;
+
+    @Autowired
+    private RankingVentasService rankingVentasService;
+
+    @Autowired
+    private DetalleProductoCache detalleProductoCache;
+
+    @Autowired
+    private IndiceSkuService indiceSkuService;
+
+    @Autowired
+    private CompraConjuntaService compraConjuntaService;
+
+    @Autowired
+    private SimilaresService similaresService;
+
+    @Autowired
+    private ColeccionesInicioService coleccionesInicioService;
+
+    @Autowired
+    private SlugProductoService slugProductoService;
+
+    @Autowired
+    private PopularidadService popularidadService;
+
+    @Autowired
+    private VersionCatalogoService versionCatalogoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Las lecturas de listado no abren transacción: si las atiende el catálogo
+    // en memoria no se toma ninguna conexión del pool.
+
     public Page<ProductoResponse> obtenerProductosPaginados(Pageable pageable) {
-        return productoRepository.findAll(pageable)
-                .map(this::convertirAResponse);
+        if (catalogoSnapshotService.puedeAtender(pageable)) {
+            return catalogoSnapshotService.paginar(null, pageable)
+                    .map(this::convertirListadoAResponse);
+        }
+        return productoRepository.findListado(pageable)
+                .map(this::convertirListadoAResponse);
     }
 
-    @Transactional(readOnly = true)
     public Page<ProductoResponse> obtenerProductosPorCategoria(Long idCategoria, Pageable pageable) {
-        return productoRepository.findByCategoriaIdCategoria(idCategoria, pageable)
-                .map(this::convertirAResponse);
+        if (catalogoSnapshotService.puedeAtender(pageable)) {
+            return catalogoSnapshotService.paginar(idCategoria, pageable)
+                    .map(this::convertirListadoAResponse);
+        }
+        return productoRepository.findListadoPorCategoria(idCategoria, pageable)
+                .map(this::convertirListadoAResponse);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Listado paginado por cursor (keyset): no ejecuta COUNT y el costo no crece
+     * con la profundidad de la página. idCategoria null = todo el catálogo.
+     * El tamaño se limita a MAX_PRODUCTOS_POR_PAGINA.
+     */
+    public PaginaCursorResponse<ProductoResponse> obtenerProductosConCursor(Long idCategoria,
+            CursorCatalogo cursor, int tamanio) {
+        if (tamanio <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
+        int cantidad = Math.min(tamanio, MAX_PRODUCTOS_POR_PAGINA);
+        List<ProductoListado> filas = catalogoSnapshotService.isDisponible()
+                ? catalogoSnapshotService.despuesDe(idCategoria, cursor, cantidad + 1)
+                : buscarDespuesDeCursor(idCategoria, cursor, cantidad + 1);
+
+        boolean hayMas = filas.size() > cantidad;
+        List<ProductoListado> pagina = hayMas ? filas.subList(0, cantidad) : filas;
+        String siguiente = hayMas ? cursor.siguiente(pagina.get(pagina.size() - 1)).codificar() : null;
+
+        List<ProductoResponse> contenido = pagina.stream()
+                .map(this::convertirListadoAResponse)
+                .collect(Collectors.toList());
+        return new PaginaCursorResponse<>(contenido, contenido.size(), hayMas, siguiente);
+    }
+
+    /**
+     * Filtrado por facetas: página de productos más conteos por valor de cada faceta.
+     * seleccion: faceta -> valores elegidos (OR dentro de una faceta, AND entre facetas).
+     * Si el índice no está habilitado o aún no terminó de cargar se lanza
+     * IndiceNoDisponibleException en vez de recorrer todo el catálogo en la petición.
+     */
+    public FiltradoProductosResponse filtrarProductos(Map<String, List<String>> seleccion, Pageable pageable) {
+        if (!facetasService.isDisponible()) {
+            throw new IndiceNoDisponibleException("El filtrado por facetas aún no está disponible, intente nuevamente");
+        }
+        FacetasService.Resultado resultado = facetasService.filtrar(seleccion, pageable);
+        return new FiltradoProductosResponse(
+                resultado.productos().map(this::convertirListadoAResponse),
+                resultado.facetas());
+    }
+
+    /**
+     * Búsqueda por texto ordenada por relevancia. Si el índice en memoria no
+     * está listo, o no puede resolver el texto completo (sin términos indexables
+     * o con un prefijo demasiado corto), se usa el LIKE en BD.
+     */
     public Page<ProductoResponse> buscarProductos(String texto, Pageable pageable) {
-        return productoRepository.buscarPorTexto(texto, pageable)
-                .map(this::convertirAResponse);
+        Page<ProductoListado> resultado = busquedaProductoService.isDisponible()
+                ? busquedaProductoService.buscar(texto, pageable)
+                : null;
+        if (resultado == null) {
+            resultado = productoRepository.buscarListadoPorTexto(texto, pageable);
+        }
+        popularidadService.registrarImpresiones(resultado.getContent().stream()
+                .map(ProductoListado::getIdProducto)
+                .toList());
+        return resultado.map(this::convertirListadoAResponse);
     }
 
-    @Transactional(readOnly = true)
     public ProductoResponse obtenerProductoPorId(Long id) {
-        Producto producto = productoRepository.findById(id)
+        Optional<ProductoListado> enMemoria = catalogoSnapshotService.isDisponible()
+                ? catalogoSnapshotService.buscarPorId(id)
+                : Optional.empty();
+        ProductoListado producto = enMemoria
+                .or(() -> productoRepository.findListadoById(id))
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
-        return convertirAResponse(producto);
+        return convertirListadoAResponse(producto);
     }
 
+    /**
+     * Detalle completo de un producto. Lo armado desde producto_detalle sale de la
+     * caché cuando está; el stock se consulta siempre para no mostrar disponibilidad vieja.
+     */
     @Transactional(readOnly = true)
     public ProductoDetalleResponse obtenerDetalleProducto(Long id) {
+        return obtenerDetalleProducto(id, null);
+    }
+
+    /**
+     * Detalle con el stock ya leído para el validador (ver obtenerStockDetalle), así
+     * la petición consulta el stock una sola vez (null: se consulta aquí)
+     */
+    @Transactional(readOnly = true)
+    public ProductoDetalleResponse obtenerDetalleProducto(Long id, StockProducto stockLeido) {
+        ProductoDetalleResponse enCache = detalleProductoCache.obtener(id);
+        if (enCache != null) {
+            StockProducto stock = stockLeido != null
+                    ? stockLeido
+                    : productoRepository.findStockById(id)
+                            .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
+            ProductoDetalleResponse response = new ProductoDetalleResponse();
+            BeanUtils.copyProperties(enCache, response);
+            response.setStock(stock.getStock());
+            response.setStockDisponible(stock.getStockDisponible() != null
+                    ? stock.getStockDisponible()
+                    : stock.getStock());
+            response.setStockReservado(stock.getStockReservado() != null ? stock.getStockReservado() : 0);
+            return response;
+        }
+
+        long generacion = detalleProductoCache.generacion();
+        ProductoDetalleResponse response = construirDetalleProducto(id);
+        detalleProductoCache.guardar(id, response, generacion);
+        return response;
+    }
+
+    /**
+     * Producto de un slug: el vigente por la columna indexada o, si es un slug
+     * anterior, el producto al que pertenecía junto con su slug actual
+     */
+    public ResolucionSlug resolverSlug(String slug) {
+        String clave = slug != null ? slug.trim().toLowerCase(Locale.ROOT) : "";
+        if (clave.isEmpty()) {
+            throw new RuntimeException("Slug vacío");
+        }
+        Optional<Long> vigente = productoDetalleRepository.findIdProductoBySlug(clave);
+        if (vigente.isPresent()) {
+            return ResolucionSlug.vigente(vigente.get(), clave);
+        }
+        return productoSlugHistorialRepository.findById(clave)
+                .filter(anterior -> productoRepository.existsById(anterior.getIdProducto()))
+                .map(anterior -> ResolucionSlug.anterior(anterior.getIdProducto(),
+                        productoDetalleRepository.findSlugByProductoId(anterior.getIdProducto()).orElse(null)))
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado con slug: " + slug));
+    }
+
+    /**
+     * Métricas de la caché de detalle (aciertos, fallos, desalojos...)
+     */
+    public EstadisticasCacheResponse obtenerEstadisticasCacheDetalle() {
+        return detalleProductoCache.estadisticas();
+    }
+
+    private ProductoDetalleResponse construirDetalleProducto(Long id) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + id));
 
@@ -129,6 +350,47 @@ public class ProductoService {
         return response;
     }
 
+    /**
+     * Variante (y su producto) por SKU
+     */
+    public VarianteSkuResponse obtenerPorSku(String sku) {
+        String clave = IndiceSkuService.normalizar(sku);
+        VarianteSkuResponse variante = clave != null ? ubicarSkus(Set.of(clave)).get(clave) : null;
+        if (variante == null) {
+            throw new RuntimeException("No existe una variante con SKU: " + sku);
+        }
+        return variante;
+    }
+
+    /**
+     * Varias variantes por SKU en una sola llamada; los no encontrados se listan aparte
+     */
+    public BusquedaSkuResponse buscarPorSkus(List<String> skus) {
+        Set<String> claves = new LinkedHashSet<>();
+        for (String sku : skus) {
+            String clave = IndiceSkuService.normalizar(sku);
+            if (clave != null) {
+                claves.add(clave);
+            }
+        }
+        if (claves.size() > MAX_SKUS_POR_CONSULTA) {
+            throw new IllegalArgumentException("Máximo " + MAX_SKUS_POR_CONSULTA + " SKUs por consulta");
+        }
+
+        Map<String, VarianteSkuResponse> ubicadas = ubicarSkus(claves);
+        List<VarianteSkuResponse> encontrados = new ArrayList<>(ubicadas.size());
+        List<String> noEncontrados = new ArrayList<>();
+        for (String clave : claves) {
+            VarianteSkuResponse variante = ubicadas.get(clave);
+            if (variante != null) {
+                encontrados.add(variante);
+            } else {
+                noEncontrados.add(clave);
+            }
+        }
+        return new BusquedaSkuResponse(encontrados, noEncontrados);
+    }
+
     @Transactional
     public ProductoResponse crearProducto(ProductoRequest request) {
         Categoria categoria = categoriaRepository.findById(request.getIdCategoria())
@@ -154,13 +416,18 @@ public class ProductoService {
         // Crear detalles si hay datos extendidos
         if (tieneDetallesExtendidos(request)) {
             crearProductoDetalle(guardado, request);
+            slugProductoService.sincronizar(guardado.getIdProducto());
         }
 
+        eventPublisher.publishEvent(ProductoCambiadoEvent.guardado(guardado.getIdProducto()));
         return convertirAResponse(guardado);
     }
 
     @Transactional
     public ProductoResponse actualizarProducto(Long id, ProductoUpdateRequest request) {
+        // El inventario se bloquea antes de leer el producto: una venta no puede
+        // confirmar entre la lectura y el guardado (que escribe productos.stock)
+        Optional<StockInventario> stock = inventarioService.bloquearStock(id, false);
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
 
@@ -183,21 +450,20 @@ public class ProductoService {
         }
 
         if (request.getStock() != null) {
+            // Solo stock_actual: lo reservado lo llevan las reservas
+            stock.ifPresent(bloqueado -> inventarioService.fijarStockActual(bloqueado, request.getStock()));
             producto.setStock(request.getStock());
-            Inventario inventario = inventarioRepository.findByProductoIdProducto(id)
-                    .orElse(null);
-
-            if (inventario != null) {
-                inventario.setStockActual(request.getStock());
-                inventarioRepository.save(inventario);
-            }
         }
 
         if (request.getStockMinimo() != null) {
             producto.setStockMinimo(request.getStockMinimo());
         }
 
+        // El slug sale solo de seo.slug de producto_detalle, que esta edición no toca:
+        // no hace falta sincronizarlo (el seo editado aparte va por sincronizarTodos)
         Producto actualizado = productoRepository.save(producto);
+        detalleProductoCache.invalidar(id);
+        eventPublisher.publishEvent(ProductoCambiadoEvent.guardado(id));
         return convertirAResponse(actualizado);
     }
 
@@ -206,45 +472,288 @@ public class ProductoService {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         productoRepository.delete(producto);
+        productoSlugHistorialRepository.deleteByIdProducto(id);
+        detalleProductoCache.invalidar(id);
+        eventPublisher.publishEvent(ProductoCambiadoEvent.eliminado(id));
     }
 
     @Transactional(readOnly = true)
     public ProductoDetalleResponse obtenerProductoMasVendido() {
+        Optional<Long> masVendido = masVendidoEnRanking();
+        if (masVendido.isPresent()) {
+            return obtenerDetalleProducto(masVendido.get());
+        }
+        // Sin ventas registradas: el mejor calificado
         Producto producto = productoRepository.findProductoMasVendido().orElse(null);
         if (producto == null)
             return null;
         return obtenerDetalleProducto(producto.getIdProducto());
     }
 
-    @Transactional(readOnly = true)
     public List<ProductoResponse> obtenerProductosMasBaratos(int limite) {
+        if (catalogoSnapshotService.isDisponible()) {
+            return catalogoSnapshotService.masBaratos(limite).stream()
+                    .map(this::convertirListadoAResponse)
+                    .collect(Collectors.toList());
+        }
         Pageable pageable = PageRequest.of(0, limite);
-        return productoRepository.findProductosMasBaratos(pageable)
-                .getContent().stream()
-                .map(this::convertirAResponse)
+        return productoRepository.findListadoMasBaratos(pageable).stream()
+                .map(this::convertirListadoAResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public List<ProductoResponse> obtenerProductosMasRecientes(int limite) {
+        if (catalogoSnapshotService.isDisponible()) {
+            return catalogoSnapshotService.masRecientes(limite).stream()
+                    .map(this::convertirListadoAResponse)
+                    .collect(Collectors.toList());
+        }
         Pageable pageable = PageRequest.of(0, limite);
-        return productoRepository.findProductosMasRecientes(pageable)
-                .getContent().stream()
-                .map(this::convertirAResponse)
+        return productoRepository.findListadoMasRecientes(pageable).stream()
+                .map(this::convertirListadoAResponse)
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
     public List<ProductoResponse> obtenerProductosPorAgotarse(int limite) {
+        if (catalogoSnapshotService.isDisponible()) {
+            return catalogoSnapshotService.porAgotarse(limite).stream()
+                    .map(this::convertirListadoAResponse)
+                    .collect(Collectors.toList());
+        }
         Pageable pageable = PageRequest.of(0, limite);
-        return productoRepository.findProductosPorAgotarse(pageable)
-                .getContent().stream()
-                .map(this::convertirAResponse)
+        return productoRepository.findListadoPorAgotarse(pageable).stream()
+                .map(this::convertirListadoAResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Colecciones de inicio ya armadas si siguen valiendo (null si hay que armarlas)
+     */
+    public ColeccionesInicioService.Colecciones obtenerInicioVigente() {
+        return coleccionesInicioService.vigentes(masVendidoEnRanking().orElse(null));
+    }
+
+    /**
+     * Todas las colecciones de la página de inicio en una respuesta. Se arman una vez
+     * y se reutilizan hasta el próximo cambio del catálogo o del más vendido.
+     */
+    public ColeccionesInicioService.Colecciones obtenerInicio() {
+        int limite = coleccionesInicioService.getLimite();
+        return coleccionesInicioService.obtener(masVendidoEnRanking().orElse(null),
+                () -> InicioResponse.builder()
+                        .masVendido(obtenerProductoMasVendido())
+                        .masBaratos(obtenerProductosMasBaratos(limite))
+                        .masRecientes(obtenerProductosMasRecientes(limite))
+                        .porAgotarse(obtenerProductosPorAgotarse(limite))
+                        .build());
+    }
+
+    /**
+     * Autocompletado del buscador (productos, marcas y categorías por popularidad).
+     * Mientras el índice no está listo se sugieren solo nombres de producto desde la BD.
+     */
+    public List<SugerenciaResponse> obtenerSugerencias(String texto, int limite) {
+        if (sugerenciasService.isDisponible()) {
+            return sugerenciasService.sugerir(texto, limite).stream()
+                    .map(s -> new SugerenciaResponse(s.getTipo().name(), s.getTexto(), s.getId()))
+                    .collect(Collectors.toList());
+        }
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        return productoRepository.buscarListadoPorTexto(texto.trim(), PageRequest.of(0, limite)).stream()
+                .map(p -> new SugerenciaResponse(Sugerencia.Tipo.PRODUCTO.name(), p.getNombreProducto(),
+                        p.getIdProducto()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Validador de las sugerencias (null mientras se responden desde la BD)
+     */
+    public VersionCatalogoService.Validador validadorSugerencias() {
+        return sugerenciasService.validador();
+    }
+
+    /**
+     * Stock vigente de un producto para una petición de detalle: se lee una vez y
+     * se pasa a validadorDetalle y a obtenerDetalleProducto
+     */
+    public Optional<StockProducto> obtenerStockDetalle(Long id) {
+        return productoRepository.findStockById(id);
+    }
+
+    /**
+     * Validador del detalle de un producto: la revisión del producto más el stock
+     * disponible y reservado vigentes, que las reservas cambian sin publicar eventos
+     * (null si no está disponible o el producto no existe)
+     */
+    public VersionCatalogoService.Validador validadorDetalle(Long id, StockProducto stock) {
+        VersionCatalogoService.Validador producto = versionCatalogoService.producto(id);
+        if (producto == null || stock == null) {
+            return null;
+        }
+        return new VersionCatalogoService.Validador(
+                producto.etag().substring(0, producto.etag().length() - 1)
+                        + "-" + stock.getStockDisponible() + "-" + stock.getStockReservado() + "\"",
+                producto.modificado());
+    }
+
+    /**
+     * Ranking de más vendidos por unidades (idCategoria null = todo el catálogo)
+     */
+    public List<ProductoVendidoResponse> obtenerTopVendidos(Long idCategoria, VentanaVentas ventana, int limite) {
+        if (!rankingVentasService.isDisponible()) {
+            return List.of();
+        }
+        List<RankingVentasService.ProductoVendido> top = rankingVentasService.top(ventana, idCategoria, limite);
+        List<ProductoVendidoResponse> respuesta = new ArrayList<>(top.size());
+        for (RankingVentasService.ProductoVendido vendido : top) {
+            respuesta.add(new ProductoVendidoResponse(respuesta.size() + 1, vendido.unidades(),
+                    convertirListadoAResponse(vendido.producto())));
+        }
+        return respuesta;
+    }
+
+    /**
+     * Los más populares por interacciones recientes (vacío mientras no se cargan)
+     */
+    public List<ProductoResponse> obtenerPopulares(Long idCategoria, int limite) {
+        if (!popularidadService.isDisponible()) {
+            return List.of();
+        }
+        return popularidadService.top(idCategoria, limite).stream()
+                .map(this::convertirListadoAResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cuenta una vista del detalle (solo en memoria; se vuelca por lotes)
+     */
+    public void registrarVista(Long idProducto) {
+        popularidadService.registrarVista(idProducto);
+    }
+
+    /**
+     * Cuenta un agregado al carrito de un cliente (solo en memoria; se vuelca por lotes)
+     */
+    public void registrarAgregadoCarrito(String cliente, Long idProducto) {
+        popularidadService.registrarAgregadoCarrito(cliente, idProducto);
+    }
+
+    /**
+     * Productos comprados frecuentemente junto con el dado (vacío mientras no
+     * se calculan o si el producto no tiene compras en común suficientes)
+     */
+    public List<ProductoResponse> obtenerRelacionados(Long idProducto, int limite) {
+        if (!compraConjuntaService.isDisponible()) {
+            return List.of();
+        }
+        return compraConjuntaService.relacionados(idProducto, limite).stream()
+                .map(this::convertirListadoAResponse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Productos parecidos por contenido (nombre, descripción, marca, atributos
+     * y especificaciones); vacío mientras el índice no está cargado
+     */
+    public List<ProductoResponse> obtenerSimilares(Long idProducto, int limite) {
+        if (!similaresService.isDisponible()) {
+            return List.of();
+        }
+        return similaresService.similares(idProducto, limite).stream()
+                .map(this::convertirListadoAResponse)
                 .collect(Collectors.toList());
     }
 
     // MÉTODOS AUXILIARES
 
+    /**
+     * El más vendido con stock según el ranking en memoria (vacío si no está disponible o no hay ventas)
+     */
+    private Optional<Long> masVendidoEnRanking() {
+        if (!rankingVentasService.isDisponible()) {
+            return Optional.empty();
+        }
+        return rankingVentasService.top(VentanaVentas.TOTAL, null, RankingVentasService.TOP_N).stream()
+                .map(RankingVentasService.ProductoVendido::producto)
+                .filter(p -> p.getStock() != null && p.getStock() > 0)
+                .map(ProductoListado::getIdProducto)
+                .findFirst();
+    }
+
+    private List<ProductoListado> buscarDespuesDeCursor(Long idCategoria, CursorCatalogo cursor, int cantidad) {
+        Sort.Direction direccion = cursor.isDescendente() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort orden = Sort.by(direccion, cursor.getOrden().getPropiedad());
+        if (cursor.getOrden() != OrdenCatalogo.ID_PRODUCTO) {
+            orden = orden.and(Sort.by(direccion, "idProducto"));
+        }
+        Pageable pageable = PageRequest.of(0, cantidad, orden);
+
+        if (cursor.esInicial()) {
+            return productoRepository.findListadoInicioCursor(idCategoria, pageable);
+        }
+        Long id = cursor.getIdProducto();
+        boolean desc = cursor.isDescendente();
+        return switch (cursor.getOrden()) {
+            case PRECIO -> {
+                BigDecimal precio = (BigDecimal) cursor.getValor();
+                yield desc
+                        ? productoRepository.findListadoAntesDePrecio(idCategoria, precio, id, pageable)
+                        : productoRepository.findListadoDespuesDePrecio(idCategoria, precio, id, pageable);
+            }
+            case FECHA_CREACION -> {
+                LocalDateTime fecha = (LocalDateTime) cursor.getValor();
+                yield desc
+                        ? productoRepository.findListadoAntesDeFecha(idCategoria, fecha, id, pageable)
+                        : productoRepository.findListadoDespuesDeFecha(idCategoria, fecha, id, pageable);
+            }
+            default -> desc
+                    ? productoRepository.findListadoAntesDeId(idCategoria, id, pageable)
+                    : productoRepository.findListadoDespuesDeId(idCategoria, id, pageable);
+        };
+    }
+
+    /**
+     * SKU -> variante desde el índice en memoria o, si no está listo, desde la BD
+     * con dos consultas fijas: una ubica los productos y otra trae sus documentos
+     */
+    private Map<String, VarianteSkuResponse> ubicarSkus(Set<String> claves) {
+        Map<String, VarianteSkuResponse> ubicadas = new HashMap<>();
+        if (claves.isEmpty()) {
+            return ubicadas;
+        }
+        if (indiceSkuService.isDisponible()) {
+            for (String clave : claves) {
+                indiceSkuService.buscar(clave).ifPresent(v ->
+                        ubicadas.put(clave, convertirVarianteSku(clave, v.producto(), v.variante())));
+            }
+            return ubicadas;
+        }
+
+        List<Long> ids = productoDetalleRepository.findIdsProductoPorSkus(claves);
+        if (ids.isEmpty()) {
+            return ubicadas;
+        }
+        for (ProductoDocumento documento : productoRepository.findDocumentosByIds(ids)) {
+            for (ProductoDetalle.VarianteDto variante : documento.getVariantes()) {
+                String clave = IndiceSkuService.normalizar(variante.getSku());
+                if (clave != null && claves.contains(clave)) {
+                    ubicadas.put(clave, convertirVarianteSku(clave, documento.getListado(), variante));
+                }
+            }
+        }
+        return ubicadas;
+    }
+
+    private VarianteSkuResponse convertirVarianteSku(String sku, ProductoListado producto,
+            ProductoDetalle.VarianteDto variante) {
+        return new VarianteSkuResponse(sku, producto.getIdProducto(), producto.getNombreProducto(),
+                producto.getPrecio(), producto.getStock(), producto.getIdCategoria(), producto.getNombreCategoria(),
+                variante.getColor(), variante.getTalla(), variante.getMaterial(),
+                variante.getStockAdicional(), variante.getImagenUrl());
+    }
+
     private boolean tieneDetallesExtendidos(ProductoRequest request) {
         return request.getCodigo() != null ||
                 request.getMarca() != null ||
@@ -280,6 +789,29 @@ public class ProductoService {
         productoDetalleRepository.save(detalle);
     }
 
+    /**
+     * Convierte la proyección de listado a DTO de respuesta (sin consultas adicionales)
+     */
+    private ProductoResponse convertirListadoAResponse(ProductoListado listado) {
+        ProductoResponse response = new ProductoResponse();
+        response.setIdProducto(listado.getIdProducto());
+        response.setNombreProducto(listado.getNombreProducto());
+        response.setDescripcionProducto(listado.getDescripcionProducto());
+        response.setPrecio(listado.getPrecio());
+        response.setStock(listado.getStock());
+        response.setStockMinimo(listado.getStockMinimo());
+        response.setCalificacionPromedio(listado.getCalificacionPromedio());
+        response.setNombreCategoria(listado.getNombreCategoria());
+        response.setIdCategoria(listado.getIdCategoria());
+        response.setFechaCreacion(listado.getFechaCreacion());
+        response.setFechaActualizacion(listado.getFechaActualizacion());
+        response.setDisponible(listado.getStock() > 0);
+        response.setImagenPrincipal(listado.getImagenPrincipal());
+        response.setMarca(listado.getMarca());
+        response.setModelo(listado.getModelo());
+        return response;
+    }
+
     private ProductoResponse convertirAResponse(Producto producto) {
         ProductoResponse response = new ProductoResponse();
         response.setIdProducto(producto.getIdProducto());
@@ -295,16 +827,13 @@ public class ProductoService {
         response.setFechaActualizacion(producto.getFechaActualizacion());
         response.setDisponible(producto.getStock() > 0);
 
-        // Cargar imagen principal y marca
+        // Cargar imagen principal y marca (sin deserializar los jsonb del detalle)
         try {
-            productoDetalleRepository.findByProductoIdProducto(producto.getIdProducto())
-                    .ifPresent(detalle -> {
-                        ProductoDetalle.ImagenDto imgPrincipal = detalle.getImagenPrincipal();
-                        if (imgPrincipal != null) {
-                            response.setImagenPrincipal(imgPrincipal.getUrl());
-                        }
-                        response.setMarca(detalle.getMarca());
-                        response.setModelo(detalle.getModelo());
+            productoDetalleRepository.findResumenByProductoId(producto.getIdProducto())
+                    .ifPresent(resumen -> {
+                        response.setImagenPrincipal(resumen.getImagenPrincipal());
+                        response.setMarca(resumen.getMarca());
+                        response.setModelo(resumen.getModelo());
                     });
         } catch (Exception e) {
             System.err.println("Error cargando detalles: " + e.getMessage());
@@ -0,0 +1,91 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto en español para los índices del catálogo:
+ * minúsculas, sin tildes, separación en palabras, stopwords y un stemmer ligero
+ * (plurales y género) para que "polo", "polos" y "pola" caigan en el mismo término.
+ */
+public final class AnalizadorTexto {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9ñ]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "que", "se", "sin", "su", "sus", "u", "un", "una",
+            "unos", "unas", "y", "e");
+
+    private AnalizadorTexto() {
+    }
+
+    /**
+     * Minúsculas y sin tildes (la ñ se conserva)
+     */
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+        String minusculas = texto.toLowerCase(Locale.ROOT).replace('ñ', '\u0001');
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(minusculas, Normalizer.Form.NFD))
+                .replaceAll("");
+        return sinTildes.replace('\u0001', 'ñ');
+    }
+
+    /**
+     * Palabras normalizadas, sin stopwords ni stemming
+     */
+    public static List<String> palabras(String texto) {
+        List<String> resultado = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(normalizar(texto))) {
+            if (!palabra.isEmpty() && !STOPWORDS.contains(palabra)) {
+                resultado.add(palabra);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Términos indexables: palabras normalizadas y reducidas a su raíz
+     */
+    public static List<String> terminos(String texto) {
+        List<String> palabras = palabras(texto);
+        List<String> resultado = new ArrayList<>(palabras.size());
+        for (String palabra : palabras) {
+            resultado.add(raiz(palabra));
+        }
+        return resultado;
+    }
+
+    /**
+     * Stemmer ligero: quita plurales y la vocal final de género/número.
+     * Solo se aplica a palabras alfabéticas de 4 letras o más.
+     */
+    static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n < 4 || !Character.isLetter(palabra.charAt(n - 1))) {
+            return palabra;
+        }
+        if (palabra.endsWith("ces") && n >= 5) {
+            return palabra.substring(0, n - 3) + "z";
+        }
+        if (palabra.endsWith("s")) {
+            char anterior = palabra.charAt(n - 2);
+            if (anterior == 'a' || anterior == 'e' || anterior == 'o') {
+                return palabra.substring(0, n - 2);
+            }
+            return palabra.substring(0, n - 1);
+        }
+        char ultima = palabra.charAt(n - 1);
+        if (ultima == 'a' || ultima == 'e' || ultima == 'o') {
+            return palabra.substring(0, n - 1);
+        }
+        return palabra;
+    }
+}
@@ -0,0 +1,146 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Búsqueda de texto del catálogo sobre un índice invertido en memoria.
+ * Reemplaza el LIKE '%texto%' (que recorre toda la tabla) por términos
+ * normalizados (tildes, plurales) y ordena los resultados por relevancia (BM25).
+ */
+@Service
+@Slf4j
+public class BusquedaProductoService implements IndiceCatalogo {
+
+    @Value("${catalogo.busqueda.habilitado:false}")
+    private boolean habilitado;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceInvertido indice = new IndiceInvertido();
+    private volatile boolean listo = false;
+
+    /**
+     * Indica si la búsqueda en memoria está habilitada y ya fue cargada
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Página de resultados ordenada por relevancia, o null si el índice no la
+     * puede resolver completa: texto sin términos indexables (solo stopwords o
+     * símbolos) o un prefijo con demasiadas expansiones. Con null se busca en BD.
+     */
+    public Page<ProductoListado> buscar(String texto, Pageable pageable) {
+        int desde = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        int cantidad = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE - desde;
+
+        IndiceInvertido.Resultado resultado;
+        Lock lectura = lock.readLock();
+        lectura.lock();
+        try {
+            resultado = indice.buscar(texto, desde, cantidad);
+        } finally {
+            lectura.unlock();
+        }
+
+        if (resultado == null) {
+            return null;
+        }
+        if (resultado.truncado()) {
+            log.debug("Búsqueda \"{}\": prefijo con más de {} expansiones, se resuelve en BD",
+                    texto, IndiceInvertido.MAX_EXPANSIONES);
+            return null;
+        }
+        return pageable.isPaged()
+                ? new PageImpl<>(resultado.productos(), pageable, resultado.total())
+                : new PageImpl<>(resultado.productos());
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> productos) {
+        if (!habilitado) {
+            return;
+        }
+        IndiceInvertido nuevo = new IndiceInvertido();
+        productos.forEach(nuevo::indexar);
+
+        Lock escritura = lock.writeLock();
+        escritura.lock();
+        try {
+            indice = nuevo;
+        } finally {
+            escritura.unlock();
+        }
+        listo = true;
+        log.info("Índice de búsqueda cargado: {} productos", nuevo.tamanio());
+    }
+
+    @Override
+    public void indexar(ProductoDocumento producto) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> indice.indexar(producto));
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> indice.eliminar(idProducto));
+    }
+
+    @Override
+    public void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> {
+            ProductoListado producto = indice.listado(idProducto);
+            if (producto != null) {
+                indice.reemplazarListado(producto.conStock(stock));
+            }
+        });
+    }
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> {
+            for (ProductoListado producto : indice.listados()) {
+                if (idCategoria.equals(producto.getIdCategoria())) {
+                    indice.reemplazarListado(producto.conNombreCategoria(nombreCategoria));
+                }
+            }
+        });
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void conEscritura(Runnable operacion) {
+        Lock escritura = lock.writeLock();
+        escritura.lock();
+        try {
+            operacion.run();
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
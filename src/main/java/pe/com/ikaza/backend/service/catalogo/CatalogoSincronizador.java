@@ -0,0 +1,287 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.repository.ProductoRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Mantiene sincronizados todos los IndiceCatalogo con la base de datos:
+ * - carga completa al arrancar la aplicación
+ * - deltas después de cada commit (eventos de ProductoService / InventarioService / CategoriaService
+ *   y de cada lote de la importación masiva)
+ * - reconciliación periódica para detectar ediciones hechas fuera de la aplicación
+ * Los deltas se aplican de a uno (bajo el monitor de esta clase). Mientras una
+ * recarga completa lee la BD y arma los índices, los deltas que llegan se
+ * guardan y se aplican después de publicarla, para que la foto recargada (más
+ * antigua que ellos) no los pise.
+ */
+@Component
+@Slf4j
+public class CatalogoSincronizador {
+
+    private final ProductoRepository productoRepository;
+    private final List<IndiceCatalogo> indices;
+
+    private final Set<Long> idsCargados = ConcurrentHashMap.newKeySet();
+    /** fecha_actualizacion de la versión indexada de cada producto (si la tiene) */
+    private final Map<Long, LocalDateTime> versiones = new ConcurrentHashMap<>();
+
+    /** Una sola recarga o reconciliación a la vez */
+    private final Object recarga = new Object();
+
+    /** Deltas recibidos durante una recarga (null si no hay recarga en curso); protegido por "this" */
+    private List<Runnable> pendientes;
+
+    private volatile LocalDateTime marcaActualizacion;
+    private volatile boolean cargado = false;
+
+    public CatalogoSincronizador(ProductoRepository productoRepository, List<IndiceCatalogo> indices) {
+        this.productoRepository = productoRepository;
+        // Las colecciones de inicio se descartan después de los índices de los que se arman,
+        // y la versión (ETag) se actualiza al final: quien la vea ya encuentra los índices al día
+        this.indices = indices.stream()
+                .sorted(Comparator.comparingInt(indice -> indice instanceof VersionCatalogoService ? 2
+                        : indice instanceof ColeccionesInicioService ? 1
+                        : 0))
+                .toList();
+    }
+
+    /**
+     * Carga inicial de todos los índices
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        reconstruirTodo();
+    }
+
+    /**
+     * Aplica el cambio de un producto una vez confirmada la transacción
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoCambiado(ProductoCambiadoEvent evento) {
+        Long idProducto = evento.getIdProducto();
+        switch (evento.getTipo()) {
+            case GUARDADO:
+                delta(() -> reindexar(idProducto));
+                break;
+            case ELIMINADO:
+                delta(() -> eliminarEnTodos(idProducto));
+                break;
+            case STOCK:
+                Integer stock = evento.getStock();
+                // Sin el valor no hay delta posible: se relee el producto
+                delta(stock != null
+                        ? () -> aplicar(indice -> indice.actualizarStock(idProducto, stock))
+                        : () -> reindexar(idProducto));
+                break;
+        }
+    }
+
+    /**
+     * Indexa un lote importado con una sola consulta
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductosImportados(ProductosImportadosEvent evento) {
+        delta(() -> productoRepository.findDocumentosByIds(evento.getIdsProducto()).forEach(this::indexarEnTodos));
+    }
+
+    /**
+     * Propaga el nuevo nombre de una categoría
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoriaCambiada(CategoriaCambiadaEvent evento) {
+        delta(() -> aplicar(indice ->
+                indice.renombrarCategoria(evento.getIdCategoria(), evento.getNombreCategoria())));
+    }
+
+    /**
+     * Reconciliación periódica: reindexa lo modificado desde la última marca y,
+     * si la cantidad de productos no coincide (altas/bajas externas), recarga todo
+     */
+    @Scheduled(initialDelayString = "${catalogo.reconciliacion.intervalo:300000}",
+            fixedDelayString = "${catalogo.reconciliacion.intervalo:300000}")
+    public void reconciliar() {
+        synchronized (recarga) {
+            if (!cargado) {
+                reconstruirTodo();
+                return;
+            }
+
+            try {
+                LocalDateTime desde = marcaActualizacion != null
+                        ? marcaActualizacion
+                        : LocalDateTime.of(1970, 1, 1, 0, 0);
+                List<ProductoDocumento> modificados = productoRepository.findDocumentosActualizadosDesde(desde);
+                // Como delta: no se mezcla con los eventos que se aplican en paralelo
+                if (!modificados.isEmpty()) {
+                    delta(() -> reindexarModificados(modificados));
+                }
+
+                long total = productoRepository.count();
+                if (total != idsCargados.size()) {
+                    log.info("Reconciliación: {} productos en BD vs {} en memoria, recargando catálogo",
+                            total, idsCargados.size());
+                    reconstruirTodo();
+                }
+            } catch (Exception e) {
+                log.error("Error en la reconciliación del catálogo: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Recarga completa de todos los índices desde la base de datos
+     */
+    public void reconstruirTodo() {
+        synchronized (recarga) {
+            synchronized (this) {
+                pendientes = new ArrayList<>();
+            }
+            try {
+                cargarDesdeBd();
+            } finally {
+                aplicarPendientes();
+            }
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void cargarDesdeBd() {
+        try {
+            List<ProductoDocumento> productos = productoRepository.findDocumentos();
+
+            idsCargados.clear();
+            versiones.clear();
+            marcaActualizacion = null;
+            productos.forEach(this::registrar);
+
+            aplicar(indice -> indice.reconstruir(productos));
+            cargado = true;
+        } catch (Exception e) {
+            log.error("Error cargando el catálogo en memoria: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica un delta ahora o, si hay una recarga en curso, al terminarla.
+     * Antes de la primera carga no hay nada que actualizar.
+     */
+    private synchronized void delta(Runnable cambio) {
+        if (pendientes != null) {
+            pendientes.add(cambio);
+        } else if (cargado) {
+            cambio.run();
+        }
+    }
+
+    /**
+     * Aplica en orden los deltas que llegaron durante la recarga y vuelve al modo directo
+     */
+    private synchronized void aplicarPendientes() {
+        List<Runnable> cambios = pendientes;
+        pendientes = null;
+        if (cambios == null || !cargado) {
+            return;
+        }
+        for (Runnable cambio : cambios) {
+            try {
+                cambio.run();
+            } catch (Exception e) {
+                log.error("Error aplicando un cambio del catálogo tras la recarga: {}", e.getMessage());
+            }
+        }
+        if (!cambios.isEmpty()) {
+            log.debug("Cambios del catálogo aplicados tras la recarga: {}", cambios.size());
+        }
+    }
+
+    private void reindexar(Long idProducto) {
+        productoRepository.findDocumentoById(idProducto).ifPresentOrElse(
+                this::indexarEnTodos,
+                () -> eliminarEnTodos(idProducto));
+    }
+
+    /**
+     * Reindexa lo que leyó la reconciliación, salvo lo que los índices ya tienen en
+     * esa versión o en una posterior (la marca se consulta con >=, así que el último
+     * producto vuelve en cada pasada). Lo demás se relee aquí: entre la consulta y
+     * este delta pudo aplicarse un evento más nuevo que lo leído.
+     */
+    private void reindexarModificados(List<ProductoDocumento> leidos) {
+        List<Long> ids = leidos.stream()
+                .filter(producto -> !yaIndexado(producto))
+                .map(ProductoDocumento::getIdProducto)
+                .toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> faltantes = new HashSet<>(ids);
+        productoRepository.findDocumentosByIds(ids).forEach(producto -> {
+            faltantes.remove(producto.getIdProducto());
+            indexarEnTodos(producto);
+        });
+        // Borrados después de la consulta
+        faltantes.forEach(this::eliminarEnTodos);
+        log.debug("Reconciliación: {} productos reindexados", ids.size());
+    }
+
+    private boolean yaIndexado(ProductoDocumento producto) {
+        LocalDateTime indexada = versiones.get(producto.getIdProducto());
+        LocalDateTime leida = producto.getListado().getFechaActualizacion();
+        return indexada != null && leida != null && !leida.isAfter(indexada);
+    }
+
+    private void indexarEnTodos(ProductoDocumento producto) {
+        registrar(producto);
+        aplicar(indice -> indice.indexar(producto));
+    }
+
+    private void eliminarEnTodos(Long idProducto) {
+        idsCargados.remove(idProducto);
+        versiones.remove(idProducto);
+        aplicar(indice -> indice.eliminar(idProducto));
+    }
+
+    private void registrar(ProductoDocumento producto) {
+        idsCargados.add(producto.getIdProducto());
+        LocalDateTime fecha = producto.getListado().getFechaActualizacion();
+        if (fecha != null) {
+            versiones.put(producto.getIdProducto(), fecha);
+        } else {
+            versiones.remove(producto.getIdProducto());
+        }
+        if (fecha != null && (marcaActualizacion == null || fecha.isAfter(marcaActualizacion))) {
+            marcaActualizacion = fecha;
+        }
+    }
+
+    /**
+     * Aplica una operación a cada índice aislando los errores de cada uno
+     */
+    private void aplicar(Consumer<IndiceCatalogo> operacion) {
+        for (IndiceCatalogo indice : indices) {
+            try {
+                operacion.accept(indice);
+            } catch (Exception e) {
+                log.error("Error actualizando índice {}: {}", indice.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
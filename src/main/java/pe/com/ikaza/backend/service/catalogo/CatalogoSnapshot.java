@@ -0,0 +1,206 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Foto inmutable y versionada del catálogo.
+ * Mantiene cada orden soportado precalculado (global y por categoría) como
+ * arreglos ordenados. Los deltas devuelven una foto nueva que comparte todo lo
+ * que no cambió; la foto anterior sigue siendo válida para los lectores en curso.
+ */
+final class CatalogoSnapshot {
+
+    private static final ProductoListado[] VACIO = new ProductoListado[0];
+
+    private final long version;
+    private final Map<Long, ProductoListado> porId;
+    private final Map<OrdenCatalogo, ProductoListado[]> vistas;
+    private final Map<Long, Map<OrdenCatalogo, ProductoListado[]>> vistasPorCategoria;
+
+    private CatalogoSnapshot(long version,
+            Map<Long, ProductoListado> porId,
+            Map<OrdenCatalogo, ProductoListado[]> vistas,
+            Map<Long, Map<OrdenCatalogo, ProductoListado[]>> vistasPorCategoria) {
+        this.version = version;
+        this.porId = porId;
+        this.vistas = vistas;
+        this.vistasPorCategoria = vistasPorCategoria;
+    }
+
+    static CatalogoSnapshot vacio() {
+        return construir(0, Collections.emptyList());
+    }
+
+    /**
+     * Construye una foto completa a partir de todos los productos
+     */
+    static CatalogoSnapshot construir(long version, Collection<ProductoListado> productos) {
+        Map<Long, ProductoListado> porId = new HashMap<>(productos.size() * 2);
+        Map<Long, List<ProductoListado>> agrupados = new HashMap<>();
+        for (ProductoListado producto : productos) {
+            porId.put(producto.getIdProducto(), producto);
+            agrupados.computeIfAbsent(producto.getIdCategoria(), k -> new ArrayList<>()).add(producto);
+        }
+
+        Map<Long, Map<OrdenCatalogo, ProductoListado[]>> vistasPorCategoria = new HashMap<>();
+        agrupados.forEach((idCategoria, lista) -> vistasPorCategoria.put(idCategoria, ordenar(lista)));
+
+        return new CatalogoSnapshot(version,
+                Collections.unmodifiableMap(porId),
+                ordenar(porId.values()),
+                Collections.unmodifiableMap(vistasPorCategoria));
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int tamanio() {
+        return porId.size();
+    }
+
+    ProductoListado buscar(Long idProducto) {
+        return porId.get(idProducto);
+    }
+
+    Collection<ProductoListado> productos() {
+        return porId.values();
+    }
+
+    /**
+     * Vista ordenada ascendente; idCategoria null = catálogo completo
+     */
+    ProductoListado[] vista(Long idCategoria, OrdenCatalogo orden) {
+        if (idCategoria == null) {
+            return vistas.get(orden);
+        }
+        Map<OrdenCatalogo, ProductoListado[]> vistasCategoria = vistasPorCategoria.get(idCategoria);
+        return vistasCategoria != null ? vistasCategoria.get(orden) : VACIO;
+    }
+
+    // ========== DELTAS (copy-on-write) ==========
+
+    /**
+     * Devuelve una foto nueva con el producto insertado o reemplazado
+     */
+    CatalogoSnapshot conProducto(ProductoListado nuevo) {
+        ProductoListado anterior = porId.get(nuevo.getIdProducto());
+
+        Map<Long, ProductoListado> nuevoPorId = new HashMap<>(porId);
+        nuevoPorId.put(nuevo.getIdProducto(), nuevo);
+
+        Map<Long, Map<OrdenCatalogo, ProductoListado[]>> nuevasPorCategoria = new HashMap<>(vistasPorCategoria);
+        if (anterior != null) {
+            quitarDeCategoria(nuevasPorCategoria, anterior);
+        }
+        Map<OrdenCatalogo, ProductoListado[]> vistasCategoria = nuevasPorCategoria.get(nuevo.getIdCategoria());
+        nuevasPorCategoria.put(nuevo.getIdCategoria(), reemplazar(vistasCategoria, null, nuevo));
+
+        return new CatalogoSnapshot(version + 1,
+                Collections.unmodifiableMap(nuevoPorId),
+                reemplazar(vistas, anterior, nuevo),
+                Collections.unmodifiableMap(nuevasPorCategoria));
+    }
+
+    /**
+     * Devuelve una foto nueva sin el producto (o esta misma si no existía)
+     */
+    CatalogoSnapshot sinProducto(Long idProducto) {
+        ProductoListado anterior = porId.get(idProducto);
+        if (anterior == null) {
+            return this;
+        }
+
+        Map<Long, ProductoListado> nuevoPorId = new HashMap<>(porId);
+        nuevoPorId.remove(idProducto);
+
+        Map<Long, Map<OrdenCatalogo, ProductoListado[]>> nuevasPorCategoria = new HashMap<>(vistasPorCategoria);
+        quitarDeCategoria(nuevasPorCategoria, anterior);
+
+        return new CatalogoSnapshot(version + 1,
+                Collections.unmodifiableMap(nuevoPorId),
+                reemplazar(vistas, anterior, null),
+                Collections.unmodifiableMap(nuevasPorCategoria));
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static void quitarDeCategoria(Map<Long, Map<OrdenCatalogo, ProductoListado[]>> vistasPorCategoria,
+            ProductoListado producto) {
+        Map<OrdenCatalogo, ProductoListado[]> vistasCategoria = vistasPorCategoria.get(producto.getIdCategoria());
+        if (vistasCategoria == null) {
+            return;
+        }
+        Map<OrdenCatalogo, ProductoListado[]> resultado = reemplazar(vistasCategoria, producto, null);
+        if (resultado.get(OrdenCatalogo.ID_PRODUCTO).length == 0) {
+            vistasPorCategoria.remove(producto.getIdCategoria());
+        } else {
+            vistasPorCategoria.put(producto.getIdCategoria(), resultado);
+        }
+    }
+
+    private static Map<OrdenCatalogo, ProductoListado[]> ordenar(Collection<ProductoListado> productos) {
+        Map<OrdenCatalogo, ProductoListado[]> resultado = new EnumMap<>(OrdenCatalogo.class);
+        for (OrdenCatalogo orden : OrdenCatalogo.values()) {
+            ProductoListado[] arreglo = productos.toArray(VACIO);
+            Arrays.sort(arreglo, orden.getComparador());
+            resultado.put(orden, arreglo);
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    /**
+     * Quita "anterior" e inserta "nuevo" en cada vista ordenada (cualquiera puede ser null)
+     */
+    private static Map<OrdenCatalogo, ProductoListado[]> reemplazar(Map<OrdenCatalogo, ProductoListado[]> vistas,
+            ProductoListado anterior, ProductoListado nuevo) {
+        Map<OrdenCatalogo, ProductoListado[]> resultado = new EnumMap<>(OrdenCatalogo.class);
+        for (OrdenCatalogo orden : OrdenCatalogo.values()) {
+            ProductoListado[] arreglo = vistas != null ? vistas.get(orden) : VACIO;
+            if (anterior != null) {
+                arreglo = quitar(arreglo, anterior, orden);
+            }
+            if (nuevo != null) {
+                arreglo = insertar(arreglo, nuevo, orden);
+            }
+            resultado.put(orden, arreglo);
+        }
+        return Collections.unmodifiableMap(resultado);
+    }
+
+    private static ProductoListado[] quitar(ProductoListado[] arreglo, ProductoListado producto, OrdenCatalogo orden) {
+        int indice = Arrays.binarySearch(arreglo, producto, orden.getComparador());
+        if (indice < 0 || !Objects.equals(arreglo[indice].getIdProducto(), producto.getIdProducto())) {
+            return arreglo;
+        }
+        ProductoListado[] resultado = new ProductoListado[arreglo.length - 1];
+        System.arraycopy(arreglo, 0, resultado, 0, indice);
+        System.arraycopy(arreglo, indice + 1, resultado, indice, arreglo.length - indice - 1);
+        return resultado;
+    }
+
+    private static ProductoListado[] insertar(ProductoListado[] arreglo, ProductoListado producto, OrdenCatalogo orden) {
+        int indice = Arrays.binarySearch(arreglo, producto, orden.getComparador());
+        if (indice >= 0) {
+            ProductoListado[] copia = arreglo.clone();
+            copia[indice] = producto;
+            return copia;
+        }
+        int punto = -(indice + 1);
+        ProductoListado[] resultado = new ProductoListado[arreglo.length + 1];
+        System.arraycopy(arreglo, 0, resultado, 0, punto);
+        resultado[punto] = producto;
+        System.arraycopy(arreglo, punto, resultado, punto + 1, arreglo.length - punto);
+        return resultado;
+    }
+}
@@ -0,0 +1,306 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo en memoria (opcional) para los GET de productos.
+ * Los lectores toman la foto vigente sin bloqueo; los escritores construyen
+ * una foto nueva a partir de la anterior y la publican de forma atómica.
+ * El stock no es clave de orden: sus cambios no generan foto nueva, se guardan
+ * por producto en stockVigente y se aplican al leer. La vista "por agotarse"
+ * (stock entre 5 y 10) sí se ordena por stock, así que se mantiene aparte con
+ * cada escritura y leerla no recorre el catálogo.
+ */
+@Service
+@Slf4j
+public class CatalogoSnapshotService implements IndiceCatalogo {
+
+    private static final int POR_AGOTARSE_DESDE = 5;
+    private static final int POR_AGOTARSE_HASTA = 10;
+
+    @Value("${catalogo.snapshot.habilitado:false}")
+    private boolean habilitado;
+
+    private final AtomicReference<CatalogoSnapshot> snapshot = new AtomicReference<>(CatalogoSnapshot.vacio());
+
+    /** Stock posterior a la foto de los productos cuyo stock cambió (se vacía al reconstruir) */
+    private final Map<Long, Integer> stockVigente = new ConcurrentHashMap<>();
+
+    /** Productos por agotarse ordenados por stock vigente e ID; se escribe bajo el monitor */
+    private final NavigableSet<StockProducto> porAgotarse = new ConcurrentSkipListSet<>();
+
+    private volatile boolean listo = false;
+
+    /**
+     * Indica si el catálogo en memoria está habilitado y ya fue cargado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Indica si la consulta paginada se puede resolver en memoria
+     * (orden simple por una de las propiedades precalculadas)
+     */
+    public boolean puedeAtender(Pageable pageable) {
+        if (!isDisponible()) {
+            return false;
+        }
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> ordenes = sort.toList();
+        return ordenes.size() == 1 && OrdenCatalogo.desdePropiedad(ordenes.get(0).getProperty()) != null;
+    }
+
+    /**
+     * Versión de la foto vigente (cambia con cada escritura aplicada)
+     */
+    public long getVersion() {
+        return snapshot.get().getVersion();
+    }
+
+    // ========== LECTURAS ==========
+
+    /**
+     * Página del catálogo completo o de una categoría (idCategoria null = todas)
+     */
+    public Page<ProductoListado> paginar(Long idCategoria, Pageable pageable) {
+        CatalogoSnapshot actual = snapshot.get();
+
+        OrdenCatalogo orden = OrdenCatalogo.ID_PRODUCTO;
+        boolean descendente = false;
+        if (pageable.getSort().isSorted()) {
+            Sort.Order order = pageable.getSort().iterator().next();
+            orden = OrdenCatalogo.desdePropiedad(order.getProperty());
+            descendente = order.isDescending();
+        }
+
+        ProductoListado[] vista = actual.vista(idCategoria, orden);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(recorrer(vista, descendente, 0, vista.length));
+        }
+
+        int desde = (int) Math.min(pageable.getOffset(), vista.length);
+        int hasta = Math.min(desde + pageable.getPageSize(), vista.length);
+        return new PageImpl<>(recorrer(vista, descendente, desde, hasta), pageable, vista.length);
+    }
+
+    /**
+     * Hasta "cantidad" productos a partir de la posición del cursor (búsqueda
+     * binaria en la vista ordenada, sin contar el total)
+     */
+    public List<ProductoListado> despuesDe(Long idCategoria, CursorCatalogo cursor, int cantidad) {
+        ProductoListado[] vista = snapshot.get().vista(idCategoria, cursor.getOrden());
+
+        // Primera posición (en orden ascendente) que va después del cursor
+        int inicio = 0;
+        if (!cursor.esInicial()) {
+            int lo = 0;
+            int hi = vista.length;
+            while (lo < hi) {
+                int medio = (lo + hi) >>> 1;
+                if (cursor.comparar(vista[medio]) <= 0) {
+                    lo = medio + 1;
+                } else {
+                    hi = medio;
+                }
+            }
+            inicio = lo;
+        }
+
+        List<ProductoListado> resultado = new ArrayList<>(Math.min(cantidad, vista.length));
+        if (cursor.isDescendente()) {
+            // En descendente se avanza hacia atrás desde la última posición anterior al cursor
+            int desde = cursor.esInicial() ? vista.length - 1 : inicio - 1;
+            if (!cursor.esInicial() && desde >= 0 && cursor.comparar(vista[desde]) == 0) {
+                desde--;
+            }
+            for (int i = desde; i >= 0 && resultado.size() < cantidad; i--) {
+                resultado.add(conStockVigente(vista[i]));
+            }
+        } else {
+            for (int i = inicio; i < vista.length && resultado.size() < cantidad; i++) {
+                resultado.add(conStockVigente(vista[i]));
+            }
+        }
+        return resultado;
+    }
+
+    public Optional<ProductoListado> buscarPorId(Long idProducto) {
+        return Optional.ofNullable(snapshot.get().buscar(idProducto)).map(this::conStockVigente);
+    }
+
+    /**
+     * Los N productos más baratos con stock disponible
+     */
+    public List<ProductoListado> masBaratos(int limite) {
+        ProductoListado[] vista = snapshot.get().vista(null, OrdenCatalogo.PRECIO);
+        List<ProductoListado> resultado = new ArrayList<>(limite);
+        for (int i = 0; i < vista.length && resultado.size() < limite; i++) {
+            ProductoListado producto = conStockVigente(vista[i]);
+            if (producto.getStock() > 0) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Los N productos más recientes
+     */
+    public List<ProductoListado> masRecientes(int limite) {
+        ProductoListado[] vista = snapshot.get().vista(null, OrdenCatalogo.FECHA_CREACION);
+        return recorrer(vista, true, 0, Math.min(limite, vista.length));
+    }
+
+    /**
+     * Productos con stock entre 5 y 10, de menor a mayor stock
+     */
+    public List<ProductoListado> porAgotarse(int limite) {
+        CatalogoSnapshot actual = snapshot.get();
+        List<ProductoListado> resultado = new ArrayList<>();
+        for (StockProducto entrada : porAgotarse) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            ProductoListado producto = actual.buscar(entrada.idProducto());
+            if (producto != null) {
+                resultado.add(conStockVigente(producto));
+            }
+        }
+        return resultado;
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public synchronized void reconstruir(Collection<ProductoDocumento> productos) {
+        if (!habilitado) {
+            return;
+        }
+        List<ProductoListado> listados = productos.stream()
+                .map(ProductoDocumento::getListado)
+                .collect(Collectors.toList());
+        CatalogoSnapshot nuevo = CatalogoSnapshot.construir(snapshot.get().getVersion() + 1, listados);
+        snapshot.set(nuevo);
+        stockVigente.clear();
+        porAgotarse.clear();
+        listados.forEach(p -> moverPorAgotarse(p.getIdProducto(), null, p.getStock()));
+        listo = true;
+        log.info("Catálogo en memoria cargado: {} productos (versión {})", nuevo.tamanio(), nuevo.getVersion());
+    }
+
+    @Override
+    public synchronized void indexar(ProductoDocumento producto) {
+        if (!habilitado) {
+            return;
+        }
+        Integer anterior = stockActual(producto.getIdProducto());
+        snapshot.set(snapshot.get().conProducto(producto.getListado()));
+        stockVigente.remove(producto.getIdProducto());
+        moverPorAgotarse(producto.getIdProducto(), anterior, producto.getListado().getStock());
+    }
+
+    @Override
+    public synchronized void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        Integer anterior = stockActual(idProducto);
+        snapshot.set(snapshot.get().sinProducto(idProducto));
+        stockVigente.remove(idProducto);
+        moverPorAgotarse(idProducto, anterior, null);
+    }
+
+    @Override
+    public synchronized void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        // Sin copiar la foto: ni el mapa ni las vistas ordenadas dependen del stock
+        Integer anterior = stockActual(idProducto);
+        if (anterior != null) {
+            stockVigente.put(idProducto, stock);
+            moverPorAgotarse(idProducto, anterior, stock);
+        }
+    }
+
+    @Override
+    public synchronized void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        CatalogoSnapshot actual = snapshot.get();
+        List<ProductoListado> productos = actual.productos().stream()
+                .map(p -> idCategoria.equals(p.getIdCategoria()) ? p.conNombreCategoria(nombreCategoria) : p)
+                .collect(Collectors.toList());
+        snapshot.set(CatalogoSnapshot.construir(actual.getVersion() + 1, productos));
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private List<ProductoListado> recorrer(ProductoListado[] vista, boolean descendente, int desde, int hasta) {
+        List<ProductoListado> resultado = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            resultado.add(conStockVigente(descendente ? vista[vista.length - 1 - i] : vista[i]));
+        }
+        return resultado;
+    }
+
+    private ProductoListado conStockVigente(ProductoListado producto) {
+        Integer stock = stockVigente.get(producto.getIdProducto());
+        return stock == null || stock.equals(producto.getStock()) ? producto : producto.conStock(stock);
+    }
+
+    /**
+     * Stock vigente de un producto de la foto (null si no está)
+     */
+    private Integer stockActual(Long idProducto) {
+        ProductoListado producto = snapshot.get().buscar(idProducto);
+        return producto != null ? conStockVigente(producto).getStock() : null;
+    }
+
+    /**
+     * Cambia la posición de un producto en la vista por agotarse; se llama con el monitor tomado
+     */
+    private void moverPorAgotarse(Long idProducto, Integer anterior, Integer nuevo) {
+        if (anterior != null) {
+            porAgotarse.remove(new StockProducto(anterior, idProducto));
+        }
+        if (nuevo != null && nuevo >= POR_AGOTARSE_DESDE && nuevo <= POR_AGOTARSE_HASTA) {
+            porAgotarse.add(new StockProducto(nuevo, idProducto));
+        }
+    }
+
+    /**
+     * Entrada de la vista por agotarse: orden por stock y luego por ID
+     */
+    private record StockProducto(int stock, long idProducto) implements Comparable<StockProducto> {
+        @Override
+        public int compareTo(StockProducto otro) {
+            int porStock = Integer.compare(stock, otro.stock);
+            return porStock != 0 ? porStock : Long.compare(idProducto, otro.idProducto);
+        }
+    }
+}
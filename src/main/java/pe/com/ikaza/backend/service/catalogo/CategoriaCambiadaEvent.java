@@ -0,0 +1,15 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento publicado cuando se modifica una categoría
+ */
+@Getter
+@AllArgsConstructor
+public class CategoriaCambiadaEvent {
+
+    private final Long idCategoria;
+    private final String nombreCategoria;
+}
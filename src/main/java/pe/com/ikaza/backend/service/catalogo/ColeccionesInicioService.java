@@ -0,0 +1,225 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.response.InicioResponse;
+import pe.com.ikaza.backend.dto.response.ProductoResponse;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Colecciones de la página de inicio (más vendido, más baratos, más recientes y
+ * por agotarse) armadas una vez y servidas juntas hasta el próximo cambio.
+ * Un cambio de producto o de categoría las descarta y la siguiente petición las
+ * vuelve a armar; si cambió el más vendido del ranking también. Un evento de
+ * stock solo las descarta si cambia qué productos entran en ellas: un producto
+ * que se agota o vuelve a tener stock, o que entra, sale o se mueve dentro del
+ * rango de por agotarse. El stock que muestran las demás listas puede quedar
+ * atrasado hasta el próximo rearmado. Mientras nada cambie, una visita no
+ * consulta la BD.
+ * El ETag es un hash del contenido: si un rearmado produce lo mismo, el cliente
+ * sigue recibiendo 304.
+ * CatalogoSincronizador le aplica los deltas después de los demás índices, así
+ * que al rearmarse ya lee los datos nuevos.
+ */
+@Service
+public class ColeccionesInicioService implements IndiceCatalogo {
+
+    /** Rango de stock de por agotarse (el mismo de CatalogoSnapshotService y ProductoRepository) */
+    private static final int POR_AGOTARSE_DESDE = 5;
+    private static final int POR_AGOTARSE_HASTA = 10;
+
+    @Value("${catalogo.inicio.habilitado:false}")
+    private boolean habilitado;
+
+    /** Productos de cada lista */
+    @Value("${catalogo.inicio.limite:12}")
+    private int limite;
+
+    private final ObjectMapper objectMapper;
+    private final Object construccion = new Object();
+
+    /** Protegidos por this */
+    private long generacion = 0;
+    private VersionCatalogoService.Validador ultimo;
+    private final Set<Long> agotados = new HashSet<>();
+    private final Set<Long> porAgotarse = new HashSet<>();
+
+    private volatile Colecciones vigentes;
+
+    /**
+     * Colecciones armadas con su validador para peticiones condicionales
+     * (null si la caché no está habilitada)
+     */
+    public record Colecciones(InicioResponse respuesta, Long idMasVendido,
+                              VersionCatalogoService.Validador validador) {
+    }
+
+    public ColeccionesInicioService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    /**
+     * Las colecciones ya armadas si siguen valiendo (null si hay que armarlas),
+     * para validar una petición condicional sin armar nada
+     */
+    public Colecciones vigentes(Long idMasVendido) {
+        Colecciones actuales = vigentes;
+        return habilitado && sirve(actuales, idMasVendido) ? actuales : null;
+    }
+
+    /**
+     * Las colecciones vigentes o, si se descartaron o cambió el más vendido,
+     * las que arma el constructor (una sola petición a la vez las arma)
+     */
+    public Colecciones obtener(Long idMasVendido, Supplier<InicioResponse> constructor) {
+        if (!habilitado) {
+            InicioResponse respuesta = constructor.get();
+            return new Colecciones(respuesta, idDe(respuesta), null);
+        }
+        Colecciones actuales = vigentes;
+        if (sirve(actuales, idMasVendido)) {
+            return actuales;
+        }
+        synchronized (construccion) {
+            actuales = vigentes;
+            if (sirve(actuales, idMasVendido)) {
+                return actuales;
+            }
+            long leida;
+            synchronized (this) {
+                leida = generacion;
+            }
+            InicioResponse respuesta = constructor.get();
+            String etag = etag(respuesta);
+            synchronized (this) {
+                VersionCatalogoService.Validador validador = null;
+                if (etag != null) {
+                    // Mismo contenido que el anterior: conserva también su fecha
+                    validador = ultimo != null && ultimo.etag().equals(etag)
+                            ? ultimo
+                            : new VersionCatalogoService.Validador(etag, System.currentTimeMillis());
+                }
+                Colecciones nuevas = new Colecciones(respuesta, idDe(respuesta), validador);
+                // Si hubo un cambio mientras se armaba, se responde pero no se guarda
+                if (leida == generacion) {
+                    vigentes = nuevas;
+                    ultimo = validador;
+                }
+                return nuevas;
+            }
+        }
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public synchronized void reconstruir(Collection<ProductoDocumento> productos) {
+        agotados.clear();
+        porAgotarse.clear();
+        productos.forEach(producto -> clasificar(producto.getIdProducto(), producto.getListado().getStock()));
+        descartar();
+    }
+
+    @Override
+    public synchronized void indexar(ProductoDocumento producto) {
+        clasificar(producto.getIdProducto(), producto.getListado().getStock());
+        descartar();
+    }
+
+    @Override
+    public synchronized void eliminar(Long idProducto) {
+        agotados.remove(idProducto);
+        porAgotarse.remove(idProducto);
+        descartar();
+    }
+
+    @Override
+    public synchronized void actualizarStock(Long idProducto, int stock) {
+        boolean estabaPorAgotarse = porAgotarse.contains(idProducto);
+        boolean cruzaUmbral = clasificar(idProducto, stock);
+        if (cruzaUmbral || (estabaPorAgotarse && cambiaPorAgotarse(idProducto, stock))) {
+            descartar();
+        }
+    }
+
+    @Override
+    public synchronized void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        descartar();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private synchronized void descartar() {
+        generacion++;
+        vigentes = null;
+    }
+
+    /**
+     * Anota si el producto está agotado o por agotarse
+     * @return true si cambió alguna de las dos cosas
+     */
+    private boolean clasificar(Long idProducto, Integer stock) {
+        int cantidad = stock != null ? stock : 0;
+        boolean cambioAgotado = cantidad <= 0 ? agotados.add(idProducto) : agotados.remove(idProducto);
+        boolean cambioPorAgotarse = cantidad >= POR_AGOTARSE_DESDE && cantidad <= POR_AGOTARSE_HASTA
+                ? porAgotarse.add(idProducto)
+                : porAgotarse.remove(idProducto);
+        return cambioAgotado || cambioPorAgotarse;
+    }
+
+    /**
+     * Un producto que sigue en el rango de por agotarse cambia la lista si está en
+     * ella (su stock define el orden) o si con el nuevo stock desplaza al último
+     */
+    private boolean cambiaPorAgotarse(Long idProducto, int stock) {
+        Colecciones actuales = vigentes;
+        if (actuales == null) {
+            return false;
+        }
+        List<ProductoResponse> lista = actuales.respuesta().getPorAgotarse();
+        if (lista == null || lista.size() < limite) {
+            return true;
+        }
+        ProductoResponse ultimoListado = lista.get(lista.size() - 1);
+        return lista.stream().anyMatch(p -> idProducto.equals(p.getIdProducto()))
+                || stock < ultimoListado.getStock()
+                || (stock == ultimoListado.getStock() && idProducto < ultimoListado.getIdProducto());
+    }
+
+    /**
+     * Hash del JSON de las colecciones (null si no se pudo serializar)
+     */
+    private String etag(InicioResponse respuesta) {
+        try {
+            return "\"h-" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(respuesta)) + "\"";
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sin ranking disponible (idMasVendido null) se mantiene el más vendido ya elegido
+     */
+    private static boolean sirve(Colecciones colecciones, Long idMasVendido) {
+        return colecciones != null
+                && (idMasVendido == null || Objects.equals(idMasVendido, colecciones.idMasVendido()));
+    }
+
+    private static Long idDe(InicioResponse respuesta) {
+        return respuesta.getMasVendido() != null ? respuesta.getMasVendido().getIdProducto() : null;
+    }
+}
@@ -0,0 +1,298 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.dto.projection.ProductoPedido;
+import pe.com.ikaza.backend.repository.DetallePedidoRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Comprados juntos frecuentemente": co-ocurrencia de productos en los pedidos
+ * con pago aprobado. La matriz se arma en paralelo (una parcial por hilo que
+ * luego se combinan) y se actualiza con cada venta confirmada; los k vecinos
+ * de cada producto se precalculan y se publican inmutables, así que una
+ * consulta es un get en un mapa. Las ventas que llegan durante una recarga se
+ * retienen y al publicarla se suman solo las de pedidos que la lectura no trajo.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CompraConjuntaService implements IndiceCatalogo {
+
+    private final DetallePedidoRepository detallePedidoRepository;
+
+    @Value("${recomendaciones.compra-conjunta.habilitado:false}")
+    private boolean habilitado;
+
+    /** Vecinos precalculados por producto */
+    @Value("${recomendaciones.compra-conjunta.vecinos:12}")
+    private int vecinosPorProducto;
+
+    /** Pedidos en común que debe tener un par para recomendarse */
+    @Value("${recomendaciones.compra-conjunta.minimo-pedidos:2}")
+    private int minimoPedidos;
+
+    /** Productos vigentes del catálogo (para responder y no recomendar eliminados) */
+    private final Map<Long, ProductoListado> productos = new ConcurrentHashMap<>();
+
+    // Protegidos por "this"
+    private MatrizCoocurrencia matriz = new MatrizCoocurrencia();
+    private final Set<Long> pendientes = new HashSet<>();
+    /** Ventas recibidas durante una recarga (null si no hay recarga) */
+    private List<VentaConfirmadaEvent> retenidas;
+
+    private volatile Map<Long, long[]> vecinos = Map.of();
+    private volatile boolean recargar = true;
+    private volatile boolean listo = false;
+
+    /**
+     * Indica si las recomendaciones están habilitadas y ya fueron calculadas
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Productos comprados junto con el dado, del más al menos afín
+     */
+    public List<ProductoListado> relacionados(Long idProducto, int limite) {
+        long[] ids = vecinos.get(idProducto);
+        if (ids == null) {
+            return List.of();
+        }
+        List<ProductoListado> resultado = new ArrayList<>(Math.min(limite, ids.length));
+        for (long id : ids) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            ProductoListado producto = productos.get(id);
+            if (producto != null) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    // ========== VENTAS ==========
+
+    /**
+     * Suma el pedido a la matriz; sus productos se recalculan en el próximo refresco.
+     * Las devoluciones fuerzan una recarga (el pedido deja de estar aprobado).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVentaConfirmada(VentaConfirmadaEvent evento) {
+        if (!habilitado) {
+            return;
+        }
+        if (evento.isDevolucion()) {
+            recargar = true;
+            return;
+        }
+        synchronized (this) {
+            if (retenidas != null) {
+                retenidas.add(evento);
+            } else {
+                sumarVenta(evento);
+            }
+        }
+    }
+
+    /**
+     * Publica los vecinos de los productos con ventas nuevas (o recarga todo si se pidió)
+     */
+    @Scheduled(initialDelayString = "${recomendaciones.compra-conjunta.refresco:30000}",
+            fixedDelayString = "${recomendaciones.compra-conjunta.refresco:30000}")
+    public void refrescar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            if (recargar) {
+                construir();
+            } else {
+                recalcularPendientes();
+            }
+        } catch (Exception e) {
+            log.error("Error actualizando las compras conjuntas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recarga completa periódica desde la BD
+     */
+    @Scheduled(initialDelayString = "${recomendaciones.compra-conjunta.recarga:21600000}",
+            fixedDelayString = "${recomendaciones.compra-conjunta.recarga:21600000}")
+    public void programarRecarga() {
+        recargar = true;
+    }
+
+    // ========== CATÁLOGO (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        productos.clear();
+        documentos.forEach(d -> productos.put(d.getIdProducto(), d.getListado()));
+    }
+
+    @Override
+    public void indexar(ProductoDocumento documento) {
+        if (habilitado) {
+            productos.put(documento.getIdProducto(), documento.getListado());
+        }
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (habilitado) {
+            productos.remove(idProducto);
+        }
+    }
+
+    @Override
+    public void actualizarStock(Long idProducto, int stock) {
+        if (habilitado) {
+            productos.computeIfPresent(idProducto, (id, p) -> p.conStock(stock));
+        }
+    }
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        productos.replaceAll((id, p) -> idCategoria.equals(p.getIdCategoria())
+                ? p.conNombreCategoria(nombreCategoria)
+                : p);
+    }
+
+    // ========== CÁLCULO ==========
+
+    /**
+     * Carga todos los pedidos aprobados, arma la matriz en paralelo y calcula
+     * los vecinos de todos los productos
+     */
+    private void construir() {
+        recargar = false;
+        synchronized (this) {
+            retenidas = new ArrayList<>();
+        }
+        try {
+            construirDesdeBd();
+        } finally {
+            synchronized (this) {
+                if (retenidas != null) {
+                    // La recarga falló: las ventas retenidas van a la matriz vigente
+                    retenidas.forEach(this::sumarVenta);
+                    retenidas = null;
+                }
+            }
+        }
+    }
+
+    private void construirDesdeBd() {
+        long inicio = System.nanoTime();
+
+        // Filas ordenadas por pedido: se cortan en canastas de productos
+        List<long[]> pedidos = new ArrayList<>();
+        List<Long> actual = new ArrayList<>();
+        long[] idsLeidos = new long[1024];
+        int leidos = 0;
+        Long idPedidoActual = null;
+        for (ProductoPedido fila : detallePedidoRepository.findProductosDePedidosAprobados()) {
+            if (!fila.getIdPedido().equals(idPedidoActual)) {
+                agregarPedido(pedidos, actual);
+                idPedidoActual = fila.getIdPedido();
+                if (leidos == idsLeidos.length) {
+                    idsLeidos = Arrays.copyOf(idsLeidos, leidos * 2);
+                }
+                idsLeidos[leidos++] = idPedidoActual;
+            }
+            actual.add(fila.getIdProducto());
+        }
+        agregarPedido(pedidos, actual);
+
+        MatrizCoocurrencia nueva = pedidos.parallelStream().collect(
+                MatrizCoocurrencia::new,
+                MatrizCoocurrencia::sumarPedido,
+                MatrizCoocurrencia::combinar);
+
+        Map<Long, long[]> calculados = new ConcurrentHashMap<>();
+        nueva.productos().parallelStream().forEach(id -> {
+            long[] ids = nueva.vecinos(id, vecinosPorProducto, minimoPedidos);
+            if (ids.length > 0) {
+                calculados.put(id, ids);
+            }
+        });
+
+        synchronized (this) {
+            matriz = nueva;
+            pendientes.clear();
+            // Los IDs llegan en orden (ORDER BY idPedido): los retenidos se buscan por bisección
+            for (VentaConfirmadaEvent evento : retenidas) {
+                if (Arrays.binarySearch(idsLeidos, 0, leidos, evento.getIdPedido()) < 0) {
+                    sumarVenta(evento);
+                }
+            }
+            retenidas = null;
+            vecinos = Map.copyOf(calculados);
+        }
+        listo = true;
+        log.info("Compras conjuntas calculadas: {} pedidos, {} productos con recomendaciones en {} ms",
+                pedidos.size(), calculados.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Suma el pedido a la matriz vigente; se llama con el monitor tomado
+     */
+    private void sumarVenta(VentaConfirmadaEvent evento) {
+        long[] pedido = evento.getUnidades().keySet().stream().mapToLong(Long::longValue).toArray();
+        matriz.sumarPedido(pedido);
+        for (long id : pedido) {
+            pendientes.add(id);
+        }
+    }
+
+    private synchronized void recalcularPendientes() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Map<Long, long[]> nuevos = new HashMap<>(vecinos);
+        for (Long id : pendientes) {
+            long[] ids = matriz.vecinos(id, vecinosPorProducto, minimoPedidos);
+            if (ids.length > 0) {
+                nuevos.put(id, ids);
+            } else {
+                nuevos.remove(id);
+            }
+        }
+        pendientes.clear();
+        vecinos = Map.copyOf(nuevos);
+    }
+
+    private static void agregarPedido(List<long[]> pedidos, List<Long> productosPedido) {
+        // Los pedidos de un solo producto también cuentan para su frecuencia
+        if (!productosPedido.isEmpty()) {
+            pedidos.add(productosPedido.stream().mapToLong(Long::longValue).toArray());
+        }
+        productosPedido.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.Getter;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición dentro de un listado paginado por cursor (keyset).
+ * Guarda el orden, la dirección y la clave del último producto entregado
+ * (valor del campo de orden + ID), así que no depende de desplazamientos y
+ * sigue siendo válido aunque se inserten o borren productos entre páginas.
+ * Viaja al cliente como un token opaco en Base64 URL-safe.
+ */
+@Getter
+public final class CursorCatalogo {
+
+    private static final String VERSION = "c1";
+
+    private final OrdenCatalogo orden;
+    private final boolean descendente;
+
+    /** Valor del campo de orden del último producto (null en la primera página o si el orden es por ID) */
+    private final Object valor;
+
+    /** ID del último producto entregado (null en la primera página) */
+    private final Long idProducto;
+
+    private CursorCatalogo(OrdenCatalogo orden, boolean descendente, Object valor, Long idProducto) {
+        this.orden = orden;
+        this.descendente = descendente;
+        this.valor = valor;
+        this.idProducto = idProducto;
+    }
+
+    /**
+     * Cursor de la primera página para un orden (idProducto, precio o fechaCreacion)
+     */
+    public static CursorCatalogo inicial(String propiedad, boolean descendente) {
+        OrdenCatalogo orden = OrdenCatalogo.desdePropiedad(propiedad);
+        if (orden == null || orden == OrdenCatalogo.NOMBRE) {
+            throw new IllegalArgumentException(
+                    "Orden no soportado para paginación por cursor: " + propiedad
+                            + " (usar idProducto, precio o fechaCreacion)");
+        }
+        return new CursorCatalogo(orden, descendente, null, null);
+    }
+
+    /**
+     * Cursor que continúa después del último producto de una página
+     */
+    public CursorCatalogo siguiente(ProductoListado ultimo) {
+        Object valorUltimo = switch (orden) {
+            case PRECIO -> ultimo.getPrecio();
+            case FECHA_CREACION -> ultimo.getFechaCreacion();
+            default -> null;
+        };
+        return new CursorCatalogo(orden, descendente, valorUltimo, ultimo.getIdProducto());
+    }
+
+    public boolean esInicial() {
+        return idProducto == null;
+    }
+
+    /**
+     * Compara un producto con la posición del cursor en orden ascendente
+     * (negativo = va antes, positivo = va después)
+     */
+    public int comparar(ProductoListado producto) {
+        int comparacion = switch (orden) {
+            case PRECIO -> producto.getPrecio().compareTo((BigDecimal) valor);
+            case FECHA_CREACION -> producto.getFechaCreacion().compareTo((LocalDateTime) valor);
+            default -> 0;
+        };
+        return comparacion != 0 ? comparacion : producto.getIdProducto().compareTo(idProducto);
+    }
+
+    // ========== TOKEN ==========
+
+    public String codificar() {
+        String valorTexto = valor == null ? ""
+                : valor instanceof BigDecimal decimal ? decimal.toPlainString()
+                : valor.toString();
+        String plano = String.join("|", VERSION, orden.getPropiedad(), descendente ? "D" : "A",
+                valorTexto, idProducto == null ? "" : idProducto.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorCatalogo decodificar(String token) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = plano.split("\\|", -1);
+            if (partes.length != 5 || !VERSION.equals(partes[0]) || partes[4].isEmpty()) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            CursorCatalogo inicial = inicial(partes[1], "D".equals(partes[2]));
+            Object valor = switch (inicial.orden) {
+                case PRECIO -> new BigDecimal(partes[3]);
+                case FECHA_CREACION -> LocalDateTime.parse(partes[3]);
+                default -> null;
+            };
+            return new CursorCatalogo(inicial.orden, inicial.descendente, valor, Long.valueOf(partes[4]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
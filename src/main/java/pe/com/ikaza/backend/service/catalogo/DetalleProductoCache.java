@@ -0,0 +1,279 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.response.EstadisticasCacheResponse;
+import pe.com.ikaza.backend.dto.response.ProductoDetalleResponse;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de ProductoDetalleResponse ya construidos (producto, categoría y
+ * los jsonb de producto_detalle mapeados). Las entradas se ordenan por último acceso
+ * y un sketch de frecuencias (TinyLFU) decide la admisión: cuando la caché está llena,
+ * un producto nuevo solo desplaza al menos reciente si se pide más seguido que él,
+ * así que un recorrido de productos poco vistos no vacía los más visitados.
+ * El stock no se guarda como vigente: ProductoService lo superpone en cada lectura.
+ * Se invalida desde las escrituras de ProductoService y con los deltas del catálogo.
+ */
+@Service
+public class DetalleProductoCache implements IndiceCatalogo {
+
+    @Value("${catalogo.detalle-cache.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${catalogo.detalle-cache.capacidad:2000}")
+    private int capacidad;
+
+    /** Vigencia máxima de una entrada en ms (0 = sin vencimiento) */
+    @Value("${catalogo.detalle-cache.ttl:600000}")
+    private long ttl;
+
+    /** Orden de acceso: la primera entrada es la menos reciente. Protegido por this */
+    private final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private SketchFrecuencias frecuencias;
+
+    /** Cambia con cada invalidación: un detalle leído antes de ella no se guarda */
+    private long generacion = 0;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder rechazos = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    private record Entrada(ProductoDetalleResponse detalle, long vence) {
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Detalle en caché o null. El objeto es compartido: no debe modificarse.
+     */
+    public ProductoDetalleResponse obtener(Long idProducto) {
+        if (!habilitado) {
+            return null;
+        }
+        long ahora = System.currentTimeMillis();
+        synchronized (this) {
+            sketch().registrar(idProducto);
+            Entrada entrada = entradas.get(idProducto);
+            if (entrada != null && entrada.vence() <= ahora) {
+                entradas.remove(idProducto);
+                vencidas.increment();
+                entrada = null;
+            }
+            if (entrada == null) {
+                fallos.increment();
+                return null;
+            }
+            aciertos.increment();
+            return entrada.detalle();
+        }
+    }
+
+    /**
+     * Generación vigente; se toma antes de leer de la BD y se pasa a guardar()
+     */
+    public synchronized long generacion() {
+        return generacion;
+    }
+
+    /**
+     * Guarda un detalle leído de la BD, salvo que haya habido una invalidación
+     * desde que se tomó la generación o que la política de admisión lo rechace
+     */
+    public void guardar(Long idProducto, ProductoDetalleResponse detalle, long generacionLeida) {
+        if (!habilitado || capacidad <= 0) {
+            return;
+        }
+        long vence = ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE;
+        synchronized (this) {
+            if (generacionLeida != generacion) {
+                return;
+            }
+            if (!entradas.containsKey(idProducto) && entradas.size() >= capacidad && !hacerLugar(idProducto)) {
+                rechazos.increment();
+                return;
+            }
+            entradas.put(idProducto, new Entrada(detalle, vence));
+        }
+    }
+
+    /**
+     * Quita un producto (escrituras de ProductoService, antes y después del commit)
+     */
+    public synchronized void invalidar(Long idProducto) {
+        generacion++;
+        invalidaciones.increment();
+        entradas.remove(idProducto);
+    }
+
+    /**
+     * Vacía toda la caché
+     */
+    public synchronized void limpiar() {
+        generacion++;
+        invalidaciones.increment();
+        entradas.clear();
+    }
+
+    /**
+     * Métricas acumuladas desde el arranque
+     */
+    public EstadisticasCacheResponse estadisticas() {
+        long hits = aciertos.sum();
+        long misses = fallos.sum();
+        int tamanio;
+        synchronized (this) {
+            tamanio = entradas.size();
+        }
+        return EstadisticasCacheResponse.builder()
+                .habilitada(habilitado)
+                .capacidad(capacidad)
+                .tamanio(tamanio)
+                .ttlMs(ttl)
+                .aciertos(hits)
+                .fallos(misses)
+                .tasaAciertos(hits + misses > 0 ? (double) hits / (hits + misses) : 0.0)
+                .desalojos(desalojos.sum())
+                .rechazos(rechazos.sum())
+                .vencidas(vencidas.sum())
+                .invalidaciones(invalidaciones.sum())
+                .build();
+    }
+
+    // ========== CATÁLOGO (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> productos) {
+        if (habilitado) {
+            limpiar();
+        }
+    }
+
+    @Override
+    public void indexar(ProductoDocumento producto) {
+        if (habilitado) {
+            invalidar(producto.getIdProducto());
+        }
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (habilitado) {
+            invalidar(idProducto);
+        }
+    }
+
+    // actualizarStock: no hace falta, el stock se superpone en cada lectura
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        synchronized (this) {
+            generacion++;
+            invalidaciones.increment();
+            entradas.values().removeIf(e -> idCategoria.equals(e.detalle().getIdCategoria()));
+        }
+    }
+
+    // ========== ADMISIÓN Y DESALOJO ==========
+
+    /**
+     * Con la caché llena: primero descarta una entrada vencida; si no hay, compara
+     * la frecuencia del candidato con la de la entrada menos reciente
+     */
+    private boolean hacerLugar(Long candidato) {
+        long ahora = System.currentTimeMillis();
+        Iterator<Map.Entry<Long, Entrada>> it = entradas.entrySet().iterator();
+        Map.Entry<Long, Entrada> victima = it.next();
+        if (victima.getValue().vence() <= ahora) {
+            it.remove();
+            vencidas.increment();
+            return true;
+        }
+        if (sketch().frecuencia(candidato) <= sketch().frecuencia(victima.getKey())) {
+            return false;
+        }
+        it.remove();
+        desalojos.increment();
+        return true;
+    }
+
+    private SketchFrecuencias sketch() {
+        if (frecuencias == null) {
+            frecuencias = new SketchFrecuencias(Math.max(capacidad, 16));
+        }
+        return frecuencias;
+    }
+
+    /**
+     * Count-min sketch de 4 filas con contadores saturados en 15. Cada 10 × ancho
+     * registros todos los contadores se dividen a la mitad, así la popularidad
+     * antigua pierde peso frente a la reciente.
+     */
+    private static final class SketchFrecuencias {
+        private static final int FILAS = 4;
+        private static final int MAXIMO = 15;
+        private static final long[] SEMILLAS = {
+                0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+        private final byte[][] contadores;
+        private final int mascara;
+        private final int periodo;
+        private int registros = 0;
+
+        private SketchFrecuencias(int capacidad) {
+            int ancho = Integer.highestOneBit(capacidad * 4 - 1) << 1;
+            this.contadores = new byte[FILAS][ancho];
+            this.mascara = ancho - 1;
+            this.periodo = ancho * 10;
+        }
+
+        private void registrar(long clave) {
+            for (int fila = 0; fila < FILAS; fila++) {
+                int i = indice(clave, fila);
+                if (contadores[fila][i] < MAXIMO) {
+                    contadores[fila][i]++;
+                }
+            }
+            if (++registros >= periodo) {
+                envejecer();
+            }
+        }
+
+        private int frecuencia(long clave) {
+            int minimo = MAXIMO;
+            for (int fila = 0; fila < FILAS; fila++) {
+                minimo = Math.min(minimo, contadores[fila][indice(clave, fila)]);
+            }
+            return minimo;
+        }
+
+        private void envejecer() {
+            for (byte[] fila : contadores) {
+                for (int i = 0; i < fila.length; i++) {
+                    fila[i] = (byte) (fila[i] >> 1);
+                }
+            }
+            registros /= 2;
+        }
+
+        private int indice(long clave, int fila) {
+            long h = (clave + SEMILLAS[fila]) * SEMILLAS[(fila + 1) % FILAS];
+            h ^= h >>> 32;
+            return (int) h & mascara;
+        }
+    }
+}
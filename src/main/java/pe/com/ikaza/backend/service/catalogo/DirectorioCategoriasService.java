@@ -0,0 +1,195 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ConteoCategoria;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.response.CategoriaResponse;
+import pe.com.ikaza.backend.entity.Categoria;
+import pe.com.ikaza.backend.repository.CategoriaRepository;
+import pe.com.ikaza.backend.repository.ProductoRepository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Directorio de categorías en memoria para los GET de /api/categorias.
+ * Las categorías se guardan en un diccionario inmutable que se reemplaza entero
+ * cuando alguna cambia (son pocas y cambian poco); la cantidad de productos de
+ * cada una se carga con un solo GROUP BY y luego se mantiene con los deltas del
+ * catálogo (altas, cambios de categoría y bajas de productos).
+ */
+@Service
+@Slf4j
+public class DirectorioCategoriasService implements IndiceCatalogo {
+
+    private static final Comparator<Categoria> POR_NOMBRE = Comparator
+            .comparing(Categoria::getNombreCategoria, String.CASE_INSENSITIVE_ORDER);
+
+    private final CategoriaRepository categoriaRepository;
+    private final ProductoRepository productoRepository;
+
+    @Value("${catalogo.categorias.habilitado:false}")
+    private boolean habilitado;
+
+    private volatile Diccionario diccionario = new Diccionario(Map.of(), List.of());
+    private final Map<Long, AtomicInteger> cantidades = new ConcurrentHashMap<>();
+
+    // Protegido por "this": categoría actual de cada producto, para saber qué restar
+    private final Map<Long, Long> categoriaPorProducto = new HashMap<>();
+
+    private volatile boolean listo = false;
+
+    public DirectorioCategoriasService(CategoriaRepository categoriaRepository,
+            ProductoRepository productoRepository) {
+        this.categoriaRepository = categoriaRepository;
+        this.productoRepository = productoRepository;
+    }
+
+    /**
+     * Indica si el directorio está habilitado y ya fue cargado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Categorías activas ordenadas por nombre
+     */
+    public List<CategoriaResponse> activas() {
+        return listar(Categoria::getActivo);
+    }
+
+    /**
+     * Todas las categorías, incluidas las inactivas
+     */
+    public List<CategoriaResponse> todas() {
+        return listar(c -> true);
+    }
+
+    public Optional<CategoriaResponse> buscarPorId(Long idCategoria) {
+        Categoria categoria = diccionario.porId.get(idCategoria);
+        return categoria != null ? Optional.of(convertir(categoria)) : Optional.empty();
+    }
+
+    /**
+     * Categorías cuyo nombre contiene el texto (sin distinguir mayúsculas)
+     */
+    public List<CategoriaResponse> buscar(String texto) {
+        String buscado = texto.toLowerCase(Locale.ROOT);
+        return listar(c -> c.getNombreCategoria().toLowerCase(Locale.ROOT).contains(buscado));
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public synchronized void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        cargarCategorias();
+        cantidades.clear();
+        for (ConteoCategoria conteo : productoRepository.contarProductosAgrupados()) {
+            cantidades.put(conteo.getIdCategoria(), new AtomicInteger(conteo.getCantidad().intValue()));
+        }
+        categoriaPorProducto.clear();
+        documentos.forEach(d -> categoriaPorProducto.put(d.getIdProducto(), d.getListado().getIdCategoria()));
+        listo = true;
+        log.info("Directorio de categorías cargado: {} categorías", diccionario.porId.size());
+    }
+
+    @Override
+    public synchronized void indexar(ProductoDocumento documento) {
+        if (!habilitado) {
+            return;
+        }
+        Long nueva = documento.getListado().getIdCategoria();
+        Long anterior = categoriaPorProducto.put(documento.getIdProducto(), nueva);
+        if (!nueva.equals(anterior)) {
+            sumar(anterior, -1);
+            sumar(nueva, 1);
+        }
+    }
+
+    @Override
+    public synchronized void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        sumar(categoriaPorProducto.remove(idProducto), -1);
+    }
+
+    /**
+     * CatalogoSincronizador lo llama con cada CategoriaCambiadaEvent (alta, edición,
+     * desactivación o borrado): se recarga el diccionario completo desde la BD
+     */
+    @Override
+    public synchronized void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        cargarCategorias();
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void cargarCategorias() {
+        Map<Long, Categoria> porId = new HashMap<>();
+        List<Categoria> categorias = categoriaRepository.findAll().stream()
+                .map(DirectorioCategoriasService::copiar)
+                .sorted(POR_NOMBRE)
+                .toList();
+        categorias.forEach(c -> porId.put(c.getIdCategoria(), c));
+        diccionario = new Diccionario(Map.copyOf(porId), categorias);
+    }
+
+    private void sumar(Long idCategoria, int delta) {
+        if (idCategoria != null) {
+            cantidades.computeIfAbsent(idCategoria, k -> new AtomicInteger()).addAndGet(delta);
+        }
+    }
+
+    private List<CategoriaResponse> listar(Predicate<Categoria> filtro) {
+        return diccionario.ordenadas.stream()
+                .filter(filtro)
+                .map(this::convertir)
+                .toList();
+    }
+
+    private CategoriaResponse convertir(Categoria categoria) {
+        AtomicInteger cantidad = cantidades.get(categoria.getIdCategoria());
+        return new CategoriaResponse(
+                categoria.getIdCategoria(),
+                categoria.getNombreCategoria(),
+                categoria.getDescripcionCategoria(),
+                categoria.getActivo(),
+                categoria.getFechaCreacion(),
+                cantidad != null ? Math.max(cantidad.get(), 0) : 0);
+    }
+
+    /**
+     * Copia desprendida de la sesión JPA (sin la colección de productos)
+     */
+    private static Categoria copiar(Categoria categoria) {
+        Categoria copia = new Categoria(categoria.getNombreCategoria(), categoria.getDescripcionCategoria());
+        copia.setIdCategoria(categoria.getIdCategoria());
+        copia.setActivo(Boolean.TRUE.equals(categoria.getActivo()));
+        copia.setFechaCreacion(categoria.getFechaCreacion());
+        return copia;
+    }
+
+    /**
+     * Vista inmutable de las categorías: por ID y ordenadas por nombre
+     */
+    private record Diccionario(Map<Long, Categoria> porId, List<Categoria> ordenadas) {
+    }
+}
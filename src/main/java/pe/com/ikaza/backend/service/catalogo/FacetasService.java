@@ -0,0 +1,174 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.dto.response.FacetaResponse;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Filtrado por facetas (marca, categoría, atributos, color/talla y rango de precio)
+ * con conteos por valor, resuelto en memoria sobre bitsets en vez de consultar
+ * las columnas jsonb en cada petición.
+ */
+@Service
+@Slf4j
+public class FacetasService implements IndiceCatalogo {
+
+    @Value("${catalogo.facetas.habilitado:false}")
+    private boolean habilitado;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceFacetas indice = new IndiceFacetas();
+    private volatile boolean listo = false;
+
+    /**
+     * Resultado de un filtrado: la página pedida y los conteos de cada faceta
+     */
+    public record Resultado(Page<ProductoListado> productos, List<FacetaResponse> facetas) {
+    }
+
+    /**
+     * Indica si el índice de facetas está habilitado y ya fue cargado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Filtra con el índice en memoria.
+     * seleccion: faceta -> valores elegidos (marca, categoria, color, talla, precio, atributo.{clave})
+     */
+    public Resultado filtrar(Map<String, ? extends Collection<String>> seleccion, Pageable pageable) {
+        Lock lectura = lock.readLock();
+        lectura.lock();
+        try {
+            return filtrar(indice, seleccion, pageable);
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> productos) {
+        if (!habilitado) {
+            return;
+        }
+        IndiceFacetas nuevo = new IndiceFacetas();
+        productos.forEach(nuevo::indexar);
+        conEscritura(() -> indice = nuevo);
+        listo = true;
+        log.info("Índice de facetas cargado: {} productos", nuevo.tamanio());
+    }
+
+    @Override
+    public void indexar(ProductoDocumento producto) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> indice.indexar(producto));
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> indice.eliminar(idProducto));
+    }
+
+    @Override
+    public void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> {
+            ProductoListado producto = indice.listado(idProducto);
+            if (producto != null) {
+                indice.reemplazarListado(producto.conStock(stock));
+            }
+        });
+    }
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> indice.renombrarCategoria(idCategoria, nombreCategoria));
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static Resultado filtrar(IndiceFacetas indice, Map<String, ? extends Collection<String>> seleccion,
+            Pageable pageable) {
+        Map<String, Set<String>> claves = new HashMap<>();
+        seleccion.forEach((faceta, valores) -> {
+            Set<String> normalizados = new HashSet<>();
+            for (String valor : valores) {
+                String clave = IndiceFacetas.clave(valor);
+                if (!clave.isEmpty()) {
+                    normalizados.add(clave);
+                }
+            }
+            String prefijo = IndiceFacetas.PREFIJO_ATRIBUTO;
+            String nombre = faceta.startsWith(prefijo)
+                    ? prefijo + IndiceFacetas.clave(faceta.substring(prefijo.length()))
+                    : faceta;
+            claves.computeIfAbsent(nombre, k -> new HashSet<>()).addAll(normalizados);
+        });
+
+        int desde = pageable.isPaged() ? (int) pageable.getOffset() : 0;
+        int cantidad = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        IndiceFacetas.Resultado resultado = indice.filtrar(claves, comparador(pageable.getSort()), desde, cantidad);
+
+        Page<ProductoListado> pagina = pageable.isPaged()
+                ? new PageImpl<>(resultado.productos(), pageable, resultado.total())
+                : new PageImpl<>(resultado.productos());
+        List<FacetaResponse> facetas = resultado.facetas().stream()
+                .map(f -> new FacetaResponse(f.nombre(), f.valores().stream()
+                        .map(v -> new FacetaResponse.ValorFaceta(v.clave(), v.texto(), v.cantidad(), v.seleccionado()))
+                        .collect(Collectors.toList())))
+                .collect(Collectors.toList());
+        return new Resultado(pagina, facetas);
+    }
+
+    private static Comparator<ProductoListado> comparador(Sort sort) {
+        if (sort.isUnsorted()) {
+            return OrdenCatalogo.ID_PRODUCTO.getComparador();
+        }
+        Sort.Order order = sort.iterator().next();
+        OrdenCatalogo orden = OrdenCatalogo.desdePropiedad(order.getProperty());
+        Comparator<ProductoListado> comparador = (orden != null ? orden : OrdenCatalogo.ID_PRODUCTO).getComparador();
+        return order.isDescending() ? comparador.reversed() : comparador;
+    }
+
+    private void conEscritura(Runnable operacion) {
+        Lock escritura = lock.writeLock();
+        escritura.lock();
+        try {
+            operacion.run();
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
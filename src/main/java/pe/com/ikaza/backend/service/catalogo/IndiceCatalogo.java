@@ -0,0 +1,40 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+
+import java.util.Collection;
+
+/**
+ * Contrato de las estructuras en memoria que se mantienen a partir del catálogo.
+ * CatalogoSincronizador las reconstruye al arrancar y les aplica los deltas
+ * de escritura después de cada commit.
+ */
+public interface IndiceCatalogo {
+
+    /**
+     * Reemplaza todo el contenido del índice
+     */
+    void reconstruir(Collection<ProductoDocumento> productos);
+
+    /**
+     * Inserta o reemplaza un producto
+     */
+    void indexar(ProductoDocumento producto);
+
+    /**
+     * Quita un producto del índice
+     */
+    void eliminar(Long idProducto);
+
+    /**
+     * Aplica un cambio de stock sin recargar el producto
+     */
+    default void actualizarStock(Long idProducto, int stock) {
+    }
+
+    /**
+     * Aplica el cambio de nombre de una categoría
+     */
+    default void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+    }
+}
@@ -0,0 +1,274 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice de facetas del catálogo: un bitset de documentos por cada valor de
+ * faceta (marca, categoría, atributos, color/talla de variantes y rango de precio).
+ * Los productos tienen números de documento densos (se reutilizan los huecos),
+ * así que cada bitset ocupa como máximo (productos / 8) bytes.
+ * Dentro de una faceta los valores elegidos se combinan con OR y entre facetas
+ * con AND; los conteos de cada faceta ignoran su propio filtro (así el usuario
+ * sigue viendo las demás opciones de la faceta que ya filtró).
+ * No es thread-safe: FacetasService lo protege con un ReadWriteLock.
+ */
+final class IndiceFacetas {
+
+    static final String MARCA = "marca";
+    static final String CATEGORIA = "categoria";
+    static final String COLOR = "color";
+    static final String TALLA = "talla";
+    static final String PRECIO = "precio";
+    static final String PREFIJO_ATRIBUTO = "atributo.";
+
+    /** Límites superiores (exclusivos) de los rangos de precio */
+    private static final int[] LIMITES_PRECIO = {50, 100, 250, 500};
+
+    private static final int MAX_VALORES_POR_FACETA = 50;
+
+    private final Map<String, Map<String, Valor>> facetas = new TreeMap<>();
+    private final List<ProductoListado> listados = new ArrayList<>();
+    private final List<List<String[]>> etiquetas = new ArrayList<>();
+    private final Map<Long, Integer> docPorProducto = new HashMap<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private final BitSet vivos = new BitSet();
+
+    int tamanio() {
+        return docPorProducto.size();
+    }
+
+    /**
+     * Clave con la que se comparan los valores de faceta (sin tildes ni mayúsculas)
+     */
+    static String clave(String valor) {
+        return AnalizadorTexto.normalizar(valor).trim();
+    }
+
+    // ========== ESCRITURAS ==========
+
+    void indexar(ProductoDocumento producto) {
+        eliminar(producto.getIdProducto());
+
+        ProductoListado listado = producto.getListado();
+        int doc = libres.isEmpty() ? listados.size() : libres.pop();
+        List<String[]> etiquetasDoc = new ArrayList<>();
+        if (doc == listados.size()) {
+            listados.add(listado);
+            etiquetas.add(etiquetasDoc);
+        } else {
+            listados.set(doc, listado);
+            etiquetas.set(doc, etiquetasDoc);
+        }
+        docPorProducto.put(listado.getIdProducto(), doc);
+        vivos.set(doc);
+
+        marcar(doc, MARCA, listado.getMarca());
+        if (listado.getIdCategoria() != null) {
+            marcar(doc, CATEGORIA, listado.getIdCategoria().toString(), listado.getNombreCategoria());
+        }
+        marcar(doc, PRECIO, rangoPrecio(listado.getPrecio()));
+        producto.getAtributos().forEach((nombre, valor) -> marcar(doc, PREFIJO_ATRIBUTO + clave(nombre), valor));
+        for (ProductoDetalle.VarianteDto variante : producto.getVariantes()) {
+            marcar(doc, COLOR, variante.getColor());
+            marcar(doc, TALLA, variante.getTalla());
+        }
+    }
+
+    void eliminar(Long idProducto) {
+        Integer doc = docPorProducto.remove(idProducto);
+        if (doc == null) {
+            return;
+        }
+        for (String[] etiqueta : etiquetas.get(doc)) {
+            Map<String, Valor> valores = facetas.get(etiqueta[0]);
+            Valor valor = valores.get(etiqueta[1]);
+            valor.docs.clear(doc);
+            if (valor.docs.isEmpty()) {
+                valores.remove(etiqueta[1]);
+                if (valores.isEmpty()) {
+                    facetas.remove(etiqueta[0]);
+                }
+            }
+        }
+        listados.set(doc, null);
+        etiquetas.set(doc, null);
+        vivos.clear(doc);
+        libres.push(doc);
+    }
+
+    /**
+     * Reemplaza los datos de listado de un producto sin tocar sus facetas
+     */
+    void reemplazarListado(ProductoListado listado) {
+        Integer doc = docPorProducto.get(listado.getIdProducto());
+        if (doc != null) {
+            listados.set(doc, listado);
+        }
+    }
+
+    ProductoListado listado(Long idProducto) {
+        Integer doc = docPorProducto.get(idProducto);
+        return doc != null ? listados.get(doc) : null;
+    }
+
+    void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        Map<String, Valor> categorias = facetas.get(CATEGORIA);
+        Valor valor = categorias != null ? categorias.get(idCategoria.toString()) : null;
+        if (valor == null) {
+            return;
+        }
+        valor.texto = nombreCategoria;
+        for (int doc = valor.docs.nextSetBit(0); doc >= 0; doc = valor.docs.nextSetBit(doc + 1)) {
+            listados.set(doc, listados.get(doc).conNombreCategoria(nombreCategoria));
+        }
+    }
+
+    // ========== CONSULTA ==========
+
+    /**
+     * Productos que cumplen la selección (faceta -> claves de valor) ordenados,
+     * más los conteos de cada faceta
+     */
+    Resultado filtrar(Map<String, Set<String>> seleccion, Comparator<ProductoListado> orden,
+            int desde, int cantidad) {
+        // Bitset por faceta filtrada: OR de los valores elegidos
+        Map<String, BitSet> filtros = new LinkedHashMap<>();
+        seleccion.forEach((faceta, claves) -> {
+            if (claves.isEmpty()) {
+                return;
+            }
+            BitSet union = new BitSet();
+            Map<String, Valor> valores = facetas.getOrDefault(faceta, Map.of());
+            for (String clave : claves) {
+                Valor valor = valores.get(clave);
+                if (valor != null) {
+                    union.or(valor.docs);
+                }
+            }
+            filtros.put(faceta, union);
+        });
+
+        BitSet coincidencias = interseccion(filtros, null);
+        List<ProductoListado> productos = new ArrayList<>(coincidencias.cardinality());
+        for (int doc = coincidencias.nextSetBit(0); doc >= 0; doc = coincidencias.nextSetBit(doc + 1)) {
+            productos.add(listados.get(doc));
+        }
+        productos.sort(orden);
+        List<ProductoListado> pagina = desde < productos.size()
+                ? productos.subList(desde, (int) Math.min((long) desde + cantidad, productos.size()))
+                : List.of();
+
+        List<Faceta> resultadoFacetas = new ArrayList<>();
+        facetas.forEach((faceta, valores) -> {
+            BitSet base = interseccion(filtros, faceta);
+            Set<String> elegidos = seleccion.getOrDefault(faceta, Set.of());
+            List<ValorContado> contados = new ArrayList<>();
+            valores.forEach((clave, valor) -> {
+                int conteo = contar(valor.docs, base);
+                boolean seleccionado = elegidos.contains(clave);
+                if (conteo > 0 || seleccionado) {
+                    contados.add(new ValorContado(clave, valor.texto, conteo, seleccionado));
+                }
+            });
+            contados.sort(Comparator.comparingInt(ValorContado::cantidad).reversed()
+                    .thenComparing(ValorContado::clave));
+            if (!contados.isEmpty()) {
+                resultadoFacetas.add(new Faceta(faceta, contados.size() > MAX_VALORES_POR_FACETA
+                        ? contados.subList(0, MAX_VALORES_POR_FACETA)
+                        : contados));
+            }
+        });
+
+        return new Resultado(pagina, productos.size(), resultadoFacetas);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    static String rangoPrecio(BigDecimal precio) {
+        if (precio == null) {
+            return null;
+        }
+        int anterior = 0;
+        for (int limite : LIMITES_PRECIO) {
+            if (precio.compareTo(BigDecimal.valueOf(limite)) < 0) {
+                return anterior + "-" + limite;
+            }
+            anterior = limite;
+        }
+        return anterior + "+";
+    }
+
+    private void marcar(int doc, String faceta, String valor) {
+        marcar(doc, faceta, clave(valor), valor);
+    }
+
+    private void marcar(int doc, String faceta, String clave, String texto) {
+        if (clave == null || clave.isEmpty()) {
+            return;
+        }
+        Valor valor = facetas.computeIfAbsent(faceta, f -> new TreeMap<>())
+                .computeIfAbsent(clave, c -> new Valor(texto != null ? texto.trim() : clave));
+        if (!valor.docs.get(doc)) {
+            valor.docs.set(doc);
+            etiquetas.get(doc).add(new String[]{faceta, clave});
+        }
+    }
+
+    /**
+     * Productos vivos que cumplen todos los filtros, salvo el de "excluida"
+     */
+    private BitSet interseccion(Map<String, BitSet> filtros, String excluida) {
+        BitSet resultado = (BitSet) vivos.clone();
+        filtros.forEach((faceta, bits) -> {
+            if (!faceta.equals(excluida)) {
+                resultado.and(bits);
+            }
+        });
+        return resultado;
+    }
+
+    private static int contar(BitSet docs, BitSet base) {
+        int conteo = 0;
+        for (int doc = docs.nextSetBit(0); doc >= 0; doc = docs.nextSetBit(doc + 1)) {
+            if (base.get(doc)) {
+                conteo++;
+            }
+        }
+        return conteo;
+    }
+
+    // ========== ESTRUCTURAS ==========
+
+    record Resultado(List<ProductoListado> productos, int total, List<Faceta> facetas) {
+    }
+
+    record Faceta(String nombre, List<ValorContado> valores) {
+    }
+
+    record ValorContado(String clave, String texto, int cantidad, boolean seleccionado) {
+    }
+
+    private static final class Valor {
+        private String texto;
+        private final BitSet docs = new BitSet();
+
+        private Valor(String texto) {
+            this.texto = texto;
+        }
+    }
+}
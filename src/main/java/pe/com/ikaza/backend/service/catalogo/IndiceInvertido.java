@@ -0,0 +1,312 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido del catálogo con ranking BM25.
+ * Cada producto es un documento con número interno; los campos se ponderan
+ * sumando su frecuencia con peso (nombre > marca/modelo > atributos/descripción).
+ * No es thread-safe: BusquedaProductoService lo protege con un ReadWriteLock.
+ */
+final class IndiceInvertido {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_MARCA = 2;
+    private static final int PESO_MODELO = 2;
+    private static final int PESO_ATRIBUTO = 1;
+    private static final int PESO_DESCRIPCION = 1;
+
+    /** Puntaje relativo de un término que solo coincide por prefijo */
+    private static final double FACTOR_PREFIJO = 0.5;
+
+    /**
+     * Términos a los que puede expandirse un prefijo. La consulta cuesta lo que
+     * suman sus postings; un prefijo con más expansiones no se recorta (se
+     * perderían coincidencias): el resultado sale marcado como truncado.
+     */
+    static final int MAX_EXPANSIONES = 200;
+
+    private final NavigableMap<String, Postings> terminos = new TreeMap<>();
+    private final List<Documento> documentos = new ArrayList<>();
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private final Map<Long, Integer> docPorProducto = new HashMap<>();
+    private long longitudTotal = 0;
+
+    int tamanio() {
+        return docPorProducto.size();
+    }
+
+    // ========== ESCRITURAS ==========
+
+    void indexar(ProductoDocumento producto) {
+        eliminar(producto.getIdProducto());
+
+        Map<String, Integer> frecuencias = new LinkedHashMap<>();
+        ProductoListado listado = producto.getListado();
+        int longitud = 0;
+        longitud += agregarCampo(frecuencias, listado.getNombreProducto(), PESO_NOMBRE);
+        longitud += agregarCampo(frecuencias, listado.getMarca(), PESO_MARCA);
+        longitud += agregarCampo(frecuencias, listado.getModelo(), PESO_MODELO);
+        longitud += agregarCampo(frecuencias, listado.getDescripcionProducto(), PESO_DESCRIPCION);
+        for (String valor : producto.getAtributos().values()) {
+            longitud += agregarCampo(frecuencias, valor, PESO_ATRIBUTO);
+        }
+
+        int doc = libres.isEmpty() ? documentos.size() : libres.pop();
+        Documento documento = new Documento(listado, frecuencias.keySet().toArray(new String[0]), longitud);
+        if (doc == documentos.size()) {
+            documentos.add(documento);
+        } else {
+            documentos.set(doc, documento);
+        }
+        docPorProducto.put(listado.getIdProducto(), doc);
+        longitudTotal += longitud;
+
+        frecuencias.forEach((termino, tf) -> terminos.computeIfAbsent(termino, t -> new Postings()).agregar(doc, tf));
+    }
+
+    void eliminar(Long idProducto) {
+        Integer doc = docPorProducto.remove(idProducto);
+        if (doc == null) {
+            return;
+        }
+        Documento documento = documentos.get(doc);
+        for (String termino : documento.terminos) {
+            Postings postings = terminos.get(termino);
+            if (postings != null) {
+                postings.quitar(doc);
+                if (postings.tamanio == 0) {
+                    terminos.remove(termino);
+                }
+            }
+        }
+        longitudTotal -= documento.longitud;
+        documentos.set(doc, null);
+        libres.push(doc);
+    }
+
+    /**
+     * Reemplaza los datos de listado de un producto sin tocar sus términos
+     */
+    void reemplazarListado(ProductoListado listado) {
+        Integer doc = docPorProducto.get(listado.getIdProducto());
+        if (doc != null) {
+            documentos.get(doc).listado = listado;
+        }
+    }
+
+    ProductoListado listado(Long idProducto) {
+        Integer doc = docPorProducto.get(idProducto);
+        return doc != null ? documentos.get(doc).listado : null;
+    }
+
+    List<ProductoListado> listados() {
+        List<ProductoListado> resultado = new ArrayList<>(docPorProducto.size());
+        for (Documento documento : documentos) {
+            if (documento != null) {
+                resultado.add(documento.listado);
+            }
+        }
+        return resultado;
+    }
+
+    // ========== CONSULTA ==========
+
+    /**
+     * Productos que contienen todos los términos de la consulta (exactos o por
+     * prefijo, para palabras a medio escribir), ordenados por relevancia.
+     * Solo recorre los postings de los términos que coinciden, empezando por el
+     * más selectivo. Devuelve null si la consulta no tiene términos indexables,
+     * y un resultado truncado (sin productos) si algún prefijo tiene más de
+     * MAX_EXPANSIONES términos.
+     */
+    Resultado buscar(String consulta, int desde, int cantidad) {
+        Set<String> consultaTerminos = new LinkedHashSet<>(AnalizadorTexto.terminos(consulta));
+        if (consultaTerminos.isEmpty()) {
+            return null;
+        }
+
+        List<List<Coincidencia>> porTermino = new ArrayList<>(consultaTerminos.size());
+        for (String termino : consultaTerminos) {
+            List<Coincidencia> coincidencias = expandir(termino);
+            if (coincidencias == null) {
+                return Resultado.incompleto();
+            }
+            if (coincidencias.isEmpty()) {
+                return new Resultado(List.of(), 0, false);
+            }
+            porTermino.add(coincidencias);
+        }
+        // El término con menos postings define los candidatos; los demás solo los filtran
+        porTermino.sort(Comparator.comparingInt(IndiceInvertido::postingsTotales));
+
+        double longitudMedia = tamanio() > 0 ? (double) longitudTotal / tamanio() : 1.0;
+        Map<Integer, Double> puntajes = null;
+        for (List<Coincidencia> coincidencias : porTermino) {
+            Map<Integer, Double> siguientes = new HashMap<>();
+            for (Coincidencia coincidencia : coincidencias) {
+                Postings postings = coincidencia.postings();
+                double idf = Math.log(1 + (tamanio() - postings.tamanio + 0.5) / (postings.tamanio + 0.5));
+                for (int k = 0; k < postings.tamanio; k++) {
+                    int doc = postings.docs[k];
+                    if (puntajes != null && !puntajes.containsKey(doc)) {
+                        continue;
+                    }
+                    int tf = postings.frecuencias[k];
+                    double normalizacion = K1 * (1 - B + B * documentos.get(doc).longitud / longitudMedia);
+                    siguientes.merge(doc, coincidencia.factor() * idf * (tf * (K1 + 1)) / (tf + normalizacion),
+                            Double::sum);
+                }
+            }
+            if (puntajes != null) {
+                for (Map.Entry<Integer, Double> entrada : siguientes.entrySet()) {
+                    entrada.setValue(entrada.getValue() + puntajes.get(entrada.getKey()));
+                }
+            }
+            puntajes = siguientes;
+            if (puntajes.isEmpty()) {
+                break;
+            }
+        }
+
+        Map<Integer, Double> finales = puntajes;
+        Comparator<Integer> peorPrimero = Comparator.<Integer>comparingDouble(finales::get)
+                .thenComparing(doc -> documentos.get(doc).listado.getIdProducto(), Comparator.reverseOrder());
+        int limite = desde + cantidad;
+        PriorityQueue<Integer> mejores = new PriorityQueue<>(Math.max(1, Math.min(limite, 1024)), peorPrimero);
+        if (limite > 0) {
+            for (Integer doc : finales.keySet()) {
+                if (mejores.size() < limite) {
+                    mejores.add(doc);
+                } else if (peorPrimero.compare(doc, mejores.peek()) > 0) {
+                    mejores.poll();
+                    mejores.add(doc);
+                }
+            }
+        }
+
+        List<ProductoListado> ordenados = new ArrayList<>(mejores.size());
+        while (!mejores.isEmpty()) {
+            ordenados.add(documentos.get(mejores.poll()).listado);
+        }
+        Collections.reverse(ordenados);
+        List<ProductoListado> pagina = desde < ordenados.size()
+                ? ordenados.subList(desde, ordenados.size())
+                : List.of();
+        return new Resultado(pagina, finales.size(), false);
+    }
+
+    /**
+     * Postings del término exacto y de sus expansiones por prefijo, o null si
+     * hay más de MAX_EXPANSIONES expansiones
+     */
+    private List<Coincidencia> expandir(String termino) {
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        Postings exacto = terminos.get(termino);
+        if (exacto != null) {
+            coincidencias.add(new Coincidencia(exacto, 1.0));
+        }
+        int expansiones = 0;
+        for (Postings postings : terminos.subMap(termino, false, termino + Character.MAX_VALUE, false).values()) {
+            if (++expansiones > MAX_EXPANSIONES) {
+                return null;
+            }
+            coincidencias.add(new Coincidencia(postings, FACTOR_PREFIJO));
+        }
+        return coincidencias;
+    }
+
+    private static int postingsTotales(List<Coincidencia> coincidencias) {
+        int total = 0;
+        for (Coincidencia coincidencia : coincidencias) {
+            total += coincidencia.postings().tamanio;
+        }
+        return total;
+    }
+
+    private static int agregarCampo(Map<String, Integer> frecuencias, String texto, int peso) {
+        List<String> terminosCampo = AnalizadorTexto.terminos(texto);
+        for (String termino : terminosCampo) {
+            frecuencias.merge(termino, peso, Integer::sum);
+        }
+        return terminosCampo.size() * peso;
+    }
+
+    // ========== ESTRUCTURAS ==========
+
+    /**
+     * Página de resultados; truncado indica que la consulta no se pudo resolver
+     * completa en el índice (prefijo demasiado corto) y hay que usar otro camino
+     */
+    record Resultado(List<ProductoListado> productos, int total, boolean truncado) {
+
+        static Resultado incompleto() {
+            return new Resultado(List.of(), 0, true);
+        }
+    }
+
+    private record Coincidencia(Postings postings, double factor) {
+    }
+
+    private static final class Documento {
+        private ProductoListado listado;
+        private final String[] terminos;
+        private final int longitud;
+
+        private Documento(ProductoListado listado, String[] terminos, int longitud) {
+            this.listado = listado;
+            this.terminos = terminos;
+            this.longitud = longitud;
+        }
+    }
+
+    /**
+     * Lista de documentos de un término con su frecuencia ponderada (arreglos paralelos)
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] frecuencias = new int[4];
+        private int tamanio = 0;
+
+        private void agregar(int doc, int tf) {
+            if (tamanio == docs.length) {
+                docs = Arrays.copyOf(docs, tamanio * 2);
+                frecuencias = Arrays.copyOf(frecuencias, tamanio * 2);
+            }
+            docs[tamanio] = doc;
+            frecuencias[tamanio] = tf;
+            tamanio++;
+        }
+
+        private void quitar(int doc) {
+            for (int k = 0; k < tamanio; k++) {
+                if (docs[k] == doc) {
+                    tamanio--;
+                    docs[k] = docs[tamanio];
+                    frecuencias[k] = frecuencias[tamanio];
+                    return;
+                }
+            }
+        }
+    }
+}
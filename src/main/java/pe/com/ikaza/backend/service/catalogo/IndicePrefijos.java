@@ -0,0 +1,201 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Índice de prefijos inmutable para el autocompletado.
+ * Es un arreglo de sufijos por palabra: cada entrada apunta a (sugerencia, inicio
+ * de palabra) y las entradas se ordenan por el texto desde ese inicio, sin copiar
+ * cadenas. Un prefijo corresponde a un rango contiguo del arreglo; sobre él un
+ * árbol de segmentos con el índice del mayor peso permite sacar los k mejores
+ * sin recorrer todo el rango.
+ */
+final class IndicePrefijos {
+
+    private static final IndicePrefijos VACIO = construir(List.of());
+
+    private final Sugerencia[] sugerencias;
+    private final int[] entradaSugerencia;
+    private final int[] entradaInicio;
+    private final int[] arbol;
+    private final int hojas;
+
+    private IndicePrefijos(Sugerencia[] sugerencias, int[] entradaSugerencia, int[] entradaInicio) {
+        this.sugerencias = sugerencias;
+        this.entradaSugerencia = entradaSugerencia;
+        this.entradaInicio = entradaInicio;
+
+        int n = entradaSugerencia.length;
+        int h = 1;
+        while (h < n) {
+            h <<= 1;
+        }
+        this.hojas = h;
+        this.arbol = new int[2 * h];
+        Arrays.fill(arbol, -1);
+        for (int i = 0; i < n; i++) {
+            arbol[h + i] = i;
+        }
+        for (int nodo = h - 1; nodo > 0; nodo--) {
+            arbol[nodo] = mejor(arbol[2 * nodo], arbol[2 * nodo + 1]);
+        }
+    }
+
+    static IndicePrefijos vacio() {
+        return VACIO;
+    }
+
+    static IndicePrefijos construir(Collection<Sugerencia> lista) {
+        Sugerencia[] sugerencias = lista.toArray(new Sugerencia[0]);
+        int total = 0;
+        for (Sugerencia sugerencia : sugerencias) {
+            total += sugerencia.getInicios().length;
+        }
+
+        long[] entradas = new long[total];
+        int k = 0;
+        for (int s = 0; s < sugerencias.length; s++) {
+            for (int inicio : sugerencias[s].getInicios()) {
+                entradas[k++] = ((long) s << 32) | inicio;
+            }
+        }
+
+        Long[] ordenadas = Arrays.stream(entradas).boxed().toArray(Long[]::new);
+        Arrays.sort(ordenadas, (a, b) -> compararSufijos(sugerencias, a, b));
+
+        int[] entradaSugerencia = new int[total];
+        int[] entradaInicio = new int[total];
+        for (int i = 0; i < total; i++) {
+            entradaSugerencia[i] = (int) (ordenadas[i] >>> 32);
+            entradaInicio[i] = (int) (ordenadas[i] & 0xFFFFFFFFL);
+        }
+        return new IndicePrefijos(sugerencias, entradaSugerencia, entradaInicio);
+    }
+
+    int tamanio() {
+        return sugerencias.length;
+    }
+
+    /**
+     * Las k sugerencias de mayor peso que tienen una palabra que empieza por
+     * el prefijo (ya normalizado), omitiendo las que cumplan "descartar"
+     */
+    List<Sugerencia> mejores(String prefijo, int k, Predicate<Sugerencia> descartar) {
+        int desde = limite(prefijo, false);
+        int hasta = limite(prefijo, true);
+        List<Sugerencia> resultado = new ArrayList<>(k);
+        if (desde >= hasta || k <= 0) {
+            return resultado;
+        }
+
+        // Cada elemento es {desde, hasta, entrada con mayor peso en el rango}
+        PriorityQueue<int[]> rangos = new PriorityQueue<>(
+                (a, b) -> a[2] == b[2] ? 0 : (mejor(a[2], b[2]) == a[2] ? -1 : 1));
+        rangos.add(new int[]{desde, hasta, maximo(desde, hasta)});
+        Set<Integer> vistas = new HashSet<>();
+        while (!rangos.isEmpty() && resultado.size() < k) {
+            int[] rango = rangos.poll();
+            int entrada = rango[2];
+            int s = entradaSugerencia[entrada];
+            if (vistas.add(s) && !descartar.test(sugerencias[s])) {
+                resultado.add(sugerencias[s]);
+            }
+            if (rango[0] < entrada) {
+                rangos.add(new int[]{rango[0], entrada, maximo(rango[0], entrada)});
+            }
+            if (entrada + 1 < rango[1]) {
+                rangos.add(new int[]{entrada + 1, rango[1], maximo(entrada + 1, rango[1])});
+            }
+        }
+        return resultado;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Primera entrada cuyo sufijo (truncado al largo del prefijo) es >= prefijo,
+     * o > prefijo si "despues" es true
+     */
+    private int limite(String prefijo, boolean despues) {
+        int lo = 0;
+        int hi = entradaSugerencia.length;
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            int comparacion = compararConPrefijo(medio, prefijo);
+            if (comparacion < 0 || (despues && comparacion == 0)) {
+                lo = medio + 1;
+            } else {
+                hi = medio;
+            }
+        }
+        return lo;
+    }
+
+    private int compararConPrefijo(int entrada, String prefijo) {
+        String texto = sugerencias[entradaSugerencia[entrada]].getNormalizado();
+        int inicio = entradaInicio[entrada];
+        int largo = Math.min(texto.length() - inicio, prefijo.length());
+        for (int i = 0; i < largo; i++) {
+            int diferencia = texto.charAt(inicio + i) - prefijo.charAt(i);
+            if (diferencia != 0) {
+                return diferencia;
+            }
+        }
+        return largo == prefijo.length() ? 0 : -1;
+    }
+
+    private static int compararSufijos(Sugerencia[] sugerencias, long a, long b) {
+        String textoA = sugerencias[(int) (a >>> 32)].getNormalizado();
+        String textoB = sugerencias[(int) (b >>> 32)].getNormalizado();
+        int i = (int) (a & 0xFFFFFFFFL);
+        int j = (int) (b & 0xFFFFFFFFL);
+        while (i < textoA.length() && j < textoB.length()) {
+            int diferencia = textoA.charAt(i++) - textoB.charAt(j++);
+            if (diferencia != 0) {
+                return diferencia;
+            }
+        }
+        return (textoA.length() - i) - (textoB.length() - j);
+    }
+
+    /**
+     * Entrada con mayor peso en [desde, hasta)
+     */
+    private int maximo(int desde, int hasta) {
+        int resultado = -1;
+        for (int izq = desde + hojas, der = hasta + hojas; izq < der; izq >>= 1, der >>= 1) {
+            if ((izq & 1) == 1) {
+                resultado = mejor(resultado, arbol[izq++]);
+            }
+            if ((der & 1) == 1) {
+                resultado = mejor(resultado, arbol[--der]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * La entrada de mayor peso (a igual peso, la que va primero en el arreglo)
+     */
+    private int mejor(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        int comparacion = Double.compare(sugerencias[entradaSugerencia[a]].getPeso(),
+                sugerencias[entradaSugerencia[b]].getPeso());
+        if (comparacion != 0) {
+            return comparacion > 0 ? a : b;
+        }
+        return a <= b ? a : b;
+    }
+}
@@ -0,0 +1,234 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Índice de productos parecidos por contenido (MinHash + LSH).
+ * Cada producto se reduce a un conjunto de shingles (términos y pares de
+ * términos consecutivos del nombre y la descripción, marca, atributos y
+ * especificaciones) y ese conjunto a una firma de FIRMA valores mínimos.
+ * La firma se corta en BANDAS bandas de FILAS_POR_BANDA valores; dos productos
+ * son candidatos si coinciden en alguna banda completa, así que una consulta
+ * solo compara contra los productos de sus cubetas y no contra todo el catálogo.
+ * La similitud de Jaccard se estima con la fracción de valores iguales de la firma.
+ * No es thread-safe: SimilaresService lo protege con un ReadWriteLock.
+ */
+final class IndiceSimilitud {
+
+    static final int BANDAS = 32;
+    static final int FILAS_POR_BANDA = 4;
+    static final int FIRMA = BANDAS * FILAS_POR_BANDA;
+
+    /** Cubetas más grandes se ignoran en las consultas (shingles demasiado comunes) */
+    private static final int MAX_CUBETA = 2000;
+
+    private static final long[] SEMILLAS = new long[FIRMA];
+
+    static {
+        long semilla = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < FIRMA; i++) {
+            semilla = mezclar(semilla + 0x9E3779B97F4A7C15L);
+            SEMILLAS[i] = semilla;
+        }
+    }
+
+    private final Map<Long, Entrada> productos = new HashMap<>();
+    private final Map<Long, Set<Long>> cubetas = new HashMap<>();
+
+    /**
+     * Producto con su firma MinHash
+     */
+    record Entrada(ProductoListado listado, long[] firma) {
+    }
+
+    /**
+     * Producto parecido con su similitud estimada (0 a 1)
+     */
+    record Similar(ProductoListado producto, double similitud) {
+    }
+
+    int tamanio() {
+        return productos.size();
+    }
+
+    /**
+     * Firma de un producto; no toca el índice, se puede calcular en paralelo
+     */
+    static Entrada firmar(ProductoDocumento documento) {
+        Set<String> shingles = shingles(documento);
+        long[] firma = new long[FIRMA];
+        Arrays.fill(firma, Long.MAX_VALUE);
+        for (String shingle : shingles) {
+            long base = hash64(shingle);
+            for (int i = 0; i < FIRMA; i++) {
+                long valor = mezclar(base ^ SEMILLAS[i]);
+                if (valor < firma[i]) {
+                    firma[i] = valor;
+                }
+            }
+        }
+        return new Entrada(documento.getListado(), shingles.isEmpty() ? null : firma);
+    }
+
+    void agregar(Entrada entrada) {
+        Long id = entrada.listado().getIdProducto();
+        eliminar(id);
+        productos.put(id, entrada);
+        if (entrada.firma() != null) {
+            for (int banda = 0; banda < BANDAS; banda++) {
+                cubetas.computeIfAbsent(claveBanda(entrada.firma(), banda), k -> new HashSet<>()).add(id);
+            }
+        }
+    }
+
+    void eliminar(Long idProducto) {
+        Entrada anterior = productos.remove(idProducto);
+        if (anterior == null || anterior.firma() == null) {
+            return;
+        }
+        for (int banda = 0; banda < BANDAS; banda++) {
+            long clave = claveBanda(anterior.firma(), banda);
+            Set<Long> cubeta = cubetas.get(clave);
+            if (cubeta != null) {
+                cubeta.remove(idProducto);
+                if (cubeta.isEmpty()) {
+                    cubetas.remove(clave);
+                }
+            }
+        }
+    }
+
+    ProductoListado listado(Long idProducto) {
+        Entrada entrada = productos.get(idProducto);
+        return entrada != null ? entrada.listado() : null;
+    }
+
+    Collection<Entrada> entradas() {
+        return productos.values();
+    }
+
+    void reemplazarListado(ProductoListado listado) {
+        productos.computeIfPresent(listado.getIdProducto(), (id, e) -> new Entrada(listado, e.firma()));
+    }
+
+    /**
+     * Los k productos más parecidos con similitud estimada de al menos minimo
+     */
+    List<Similar> similares(Long idProducto, int k, double minimo) {
+        Entrada entrada = productos.get(idProducto);
+        if (entrada == null || entrada.firma() == null || k <= 0) {
+            return List.of();
+        }
+
+        Set<Long> candidatos = new HashSet<>();
+        for (int banda = 0; banda < BANDAS; banda++) {
+            Set<Long> cubeta = cubetas.get(claveBanda(entrada.firma(), banda));
+            if (cubeta != null && cubeta.size() <= MAX_CUBETA) {
+                candidatos.addAll(cubeta);
+            }
+        }
+        candidatos.remove(idProducto);
+
+        PriorityQueue<Similar> mejores = new PriorityQueue<>(
+                (a, b) -> Double.compare(a.similitud(), b.similitud()));
+        for (Long candidato : candidatos) {
+            Entrada otra = productos.get(candidato);
+            double similitud = estimar(entrada.firma(), otra.firma());
+            if (similitud < minimo) {
+                continue;
+            }
+            if (mejores.size() < k) {
+                mejores.add(new Similar(otra.listado(), similitud));
+            } else if (similitud > mejores.peek().similitud()) {
+                mejores.poll();
+                mejores.add(new Similar(otra.listado(), similitud));
+            }
+        }
+
+        List<Similar> resultado = new ArrayList<>(mejores);
+        resultado.sort((a, b) -> a.similitud() != b.similitud()
+                ? Double.compare(b.similitud(), a.similitud())
+                : Long.compare(a.producto().getIdProducto(), b.producto().getIdProducto()));
+        return resultado;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private static Set<String> shingles(ProductoDocumento documento) {
+        ProductoListado listado = documento.getListado();
+        Set<String> shingles = new HashSet<>();
+        agregarTexto(shingles, listado.getNombreProducto());
+        agregarTexto(shingles, listado.getDescripcionProducto());
+        if (listado.getMarca() != null && !listado.getMarca().isBlank()) {
+            shingles.add("m:" + AnalizadorTexto.normalizar(listado.getMarca().trim()));
+        }
+        documento.getAtributos().forEach((clave, valor) ->
+                shingles.add("a:" + AnalizadorTexto.normalizar(clave) + "=" + AnalizadorTexto.normalizar(valor)));
+        for (ProductoDetalle.EspecificacionDto especificacion : documento.getEspecificaciones()) {
+            shingles.add("e:" + AnalizadorTexto.normalizar(especificacion.getNombre())
+                    + "=" + AnalizadorTexto.normalizar(especificacion.getValor()));
+        }
+        return shingles;
+    }
+
+    /**
+     * Términos sueltos y pares consecutivos (el orden de las palabras también cuenta)
+     */
+    private static void agregarTexto(Set<String> shingles, String texto) {
+        List<String> terminos = AnalizadorTexto.terminos(texto);
+        for (int i = 0; i < terminos.size(); i++) {
+            shingles.add("t:" + terminos.get(i));
+            if (i + 1 < terminos.size()) {
+                shingles.add("t:" + terminos.get(i) + " " + terminos.get(i + 1));
+            }
+        }
+    }
+
+    private static double estimar(long[] a, long[] b) {
+        int iguales = 0;
+        for (int i = 0; i < FIRMA; i++) {
+            if (a[i] == b[i]) {
+                iguales++;
+            }
+        }
+        return (double) iguales / FIRMA;
+    }
+
+    private static long claveBanda(long[] firma, int banda) {
+        long h = banda * 0x9E3779B97F4A7C15L;
+        for (int i = banda * FILAS_POR_BANDA; i < (banda + 1) * FILAS_POR_BANDA; i++) {
+            h = mezclar(h ^ firma[i]);
+        }
+        return h;
+    }
+
+    private static long hash64(String texto) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            h ^= texto.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mezclar(h);
+    }
+
+    /**
+     * Finalizador de SplitMix64
+     */
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,151 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice global SKU -> (producto, variante) sobre las variantes de producto_detalle.
+ * Las lecturas son un get en un ConcurrentHashMap, sin bloqueo; las escrituras
+ * (deltas del catálogo) se serializan para mantener la lista de SKUs de cada producto.
+ * Si dos productos declaran el mismo SKU gana el último indexado.
+ */
+@Service
+@Slf4j
+public class IndiceSkuService implements IndiceCatalogo {
+
+    @Value("${catalogo.sku.habilitado:false}")
+    private boolean habilitado;
+
+    private final Map<String, VarianteUbicada> porSku = new ConcurrentHashMap<>();
+
+    // Protegido por "this"
+    private final Map<Long, List<String>> skusPorProducto = new HashMap<>();
+
+    private volatile boolean listo = false;
+
+    /**
+     * Variante encontrada con los datos de listado de su producto
+     */
+    public record VarianteUbicada(ProductoListado producto, ProductoDetalle.VarianteDto variante) {
+    }
+
+    /**
+     * Indica si el índice está habilitado y ya fue cargado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    public Optional<VarianteUbicada> buscar(String sku) {
+        String clave = normalizar(sku);
+        return clave != null ? Optional.ofNullable(porSku.get(clave)) : Optional.empty();
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public synchronized void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        porSku.clear();
+        skusPorProducto.clear();
+        documentos.forEach(this::agregar);
+        listo = true;
+        log.info("Índice de SKUs cargado: {} variantes", porSku.size());
+    }
+
+    @Override
+    public synchronized void indexar(ProductoDocumento documento) {
+        if (!habilitado) {
+            return;
+        }
+        quitar(documento.getIdProducto());
+        agregar(documento);
+    }
+
+    @Override
+    public synchronized void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        quitar(idProducto);
+    }
+
+    @Override
+    public synchronized void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        for (String sku : skusPorProducto.getOrDefault(idProducto, List.of())) {
+            porSku.computeIfPresent(sku, (k, v) -> idProducto.equals(v.producto().getIdProducto())
+                    ? new VarianteUbicada(v.producto().conStock(stock), v.variante())
+                    : v);
+        }
+    }
+
+    @Override
+    public synchronized void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        porSku.replaceAll((k, v) -> idCategoria.equals(v.producto().getIdCategoria())
+                ? new VarianteUbicada(v.producto().conNombreCategoria(nombreCategoria), v.variante())
+                : v);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Los SKU se comparan tal cual, sin los espacios de los extremos
+     */
+    public static String normalizar(String sku) {
+        if (sku == null) {
+            return null;
+        }
+        String limpio = sku.trim();
+        return limpio.isEmpty() ? null : limpio;
+    }
+
+    private void agregar(ProductoDocumento documento) {
+        List<String> skus = new ArrayList<>();
+        for (ProductoDetalle.VarianteDto variante : documento.getVariantes()) {
+            String clave = normalizar(variante.getSku());
+            if (clave == null) {
+                continue;
+            }
+            VarianteUbicada anterior = porSku.put(clave, new VarianteUbicada(documento.getListado(), variante));
+            if (anterior != null && !anterior.producto().getIdProducto().equals(documento.getIdProducto())) {
+                log.warn("SKU {} duplicado en los productos {} y {}", clave,
+                        anterior.producto().getIdProducto(), documento.getIdProducto());
+            }
+            skus.add(clave);
+        }
+        if (!skus.isEmpty()) {
+            skusPorProducto.put(documento.getIdProducto(), skus);
+        }
+    }
+
+    private void quitar(Long idProducto) {
+        List<String> skus = skusPorProducto.remove(idProducto);
+        if (skus == null) {
+            return;
+        }
+        for (String sku : skus) {
+            // Solo si el SKU sigue apuntando a este producto
+            porSku.computeIfPresent(sku, (k, v) -> idProducto.equals(v.producto().getIdProducto()) ? null : v);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> int con direccionamiento abierto (sondeo lineal) sobre arreglos
+ * primitivos: ni las claves ni los valores se encapsulan en Long/Integer.
+ * Long.MIN_VALUE no puede usarse como clave (marca las celdas vacías).
+ * No es thread-safe.
+ */
+final class MapaLongInt {
+
+    private static final long VACIO = Long.MIN_VALUE;
+    private static final float CARGA_MAXIMA = 0.6f;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamanio;
+
+    /**
+     * Recibe cada par del mapa
+     */
+    @FunctionalInterface
+    interface Visitante {
+        void visitar(long clave, int valor);
+    }
+
+    MapaLongInt() {
+        this(4);
+    }
+
+    MapaLongInt(int esperados) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (esperados / CARGA_MAXIMA)) - 1) << 1;
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        Arrays.fill(claves, VACIO);
+    }
+
+    int size() {
+        return tamanio;
+    }
+
+    /**
+     * Valor de la clave, 0 si no está
+     */
+    int get(long clave) {
+        int i = buscar(clave);
+        return claves[i] == clave ? valores[i] : 0;
+    }
+
+    /**
+     * Suma delta al valor de la clave (que empieza en 0) y devuelve el resultado
+     */
+    int sumar(long clave, int delta) {
+        int i = buscar(clave);
+        if (claves[i] == clave) {
+            valores[i] += delta;
+            return valores[i];
+        }
+        claves[i] = clave;
+        valores[i] = delta;
+        if (++tamanio > claves.length * CARGA_MAXIMA) {
+            redimensionar(claves.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Quita la clave; las siguientes de su racha se corren hacia atrás (sin lápidas)
+     */
+    void quitar(long clave) {
+        int mascara = claves.length - 1;
+        int i = buscar(clave);
+        if (claves[i] != clave) {
+            return;
+        }
+        tamanio--;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            if (claves[j] == VACIO) {
+                break;
+            }
+            int ideal = posicion(claves[j], mascara);
+            // claves[j] puede pasar al hueco i si su posición ideal no está en (i, j]
+            boolean mover = i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j);
+            if (mover) {
+                claves[i] = claves[j];
+                valores[i] = valores[j];
+                i = j;
+            }
+        }
+        claves[i] = VACIO;
+        valores[i] = 0;
+    }
+
+    void recorrer(Visitante visitante) {
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != VACIO) {
+                visitante.visitar(claves[i], valores[i]);
+            }
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Celda donde está la clave o, si no está, la celda vacía donde iría
+     */
+    private int buscar(long clave) {
+        int mascara = claves.length - 1;
+        int i = posicion(clave, mascara);
+        while (claves[i] != VACIO && claves[i] != clave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private static int posicion(long clave, int mascara) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void redimensionar(int capacidad) {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        Arrays.fill(claves, VACIO);
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            if (clavesAnteriores[i] != VACIO) {
+                int j = buscar(clavesAnteriores[i]);
+                claves[j] = clavesAnteriores[i];
+                valores[j] = valoresAnteriores[i];
+            }
+        }
+    }
+}
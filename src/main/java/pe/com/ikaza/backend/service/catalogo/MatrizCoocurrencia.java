@@ -0,0 +1,100 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matriz dispersa de co-ocurrencia: cuántos pedidos contienen a la vez los
+ * productos a y b, más cuántos pedidos contienen cada producto. Cada fila es
+ * un MapaLongInt, así que los pares (la inmensa mayoría de las celdas) no se
+ * encapsulan. Simétrica: el par se guarda en la fila de a y en la de b.
+ * No es thread-safe.
+ */
+final class MatrizCoocurrencia {
+
+    private final Map<Long, MapaLongInt> filas = new HashMap<>();
+    private final MapaLongInt pedidosPorProducto = new MapaLongInt();
+
+    /**
+     * Suma un pedido (sus productos distintos)
+     */
+    void sumarPedido(long[] productos) {
+        long[] distintos = Arrays.stream(productos).distinct().toArray();
+        for (int i = 0; i < distintos.length; i++) {
+            pedidosPorProducto.sumar(distintos[i], 1);
+            for (int j = i + 1; j < distintos.length; j++) {
+                fila(distintos[i]).sumar(distintos[j], 1);
+                fila(distintos[j]).sumar(distintos[i], 1);
+            }
+        }
+    }
+
+    /**
+     * Acumula otra matriz en esta (para unir las parciales de la carga en paralelo)
+     */
+    void combinar(MatrizCoocurrencia otra) {
+        otra.pedidosPorProducto.recorrer(pedidosPorProducto::sumar);
+        otra.filas.forEach((producto, filaOtra) -> {
+            MapaLongInt destino = fila(producto);
+            filaOtra.recorrer(destino::sumar);
+        });
+    }
+
+    Set<Long> productos() {
+        return filas.keySet();
+    }
+
+    /**
+     * Los k productos más comprados junto con el dado, por similitud coseno
+     * (co-ocurrencias / √(pedidos de a × pedidos de b)) para que los productos
+     * que aparecen en casi todos los pedidos no dominen todas las listas.
+     * Solo cuentan los pares vistos en al menos minimoPedidos pedidos.
+     */
+    long[] vecinos(long producto, int k, int minimoPedidos) {
+        MapaLongInt fila = filas.get(producto);
+        if (fila == null || k <= 0) {
+            return new long[0];
+        }
+        double pedidosProducto = pedidosPorProducto.get(producto);
+
+        // Top-k con inserción en arreglos ordenados (k es chico)
+        long[] ids = new long[k];
+        double[] puntajes = new double[k];
+        int[] cantidad = {0};
+        fila.recorrer((otro, juntos) -> {
+            if (juntos < minimoPedidos) {
+                return;
+            }
+            double puntaje = juntos / Math.sqrt(pedidosProducto * pedidosPorProducto.get(otro));
+            int n = cantidad[0];
+            if (n == k && !mejor(puntaje, otro, puntajes[k - 1], ids[k - 1])) {
+                return;
+            }
+            int i = n < k ? n : k - 1;
+            while (i > 0 && mejor(puntaje, otro, puntajes[i - 1], ids[i - 1])) {
+                puntajes[i] = puntajes[i - 1];
+                ids[i] = ids[i - 1];
+                i--;
+            }
+            puntajes[i] = puntaje;
+            ids[i] = otro;
+            if (n < k) {
+                cantidad[0]++;
+            }
+        });
+        return Arrays.copyOf(ids, cantidad[0]);
+    }
+
+    private MapaLongInt fila(long producto) {
+        return filas.computeIfAbsent(producto, p -> new MapaLongInt());
+    }
+
+    /**
+     * Mayor puntaje primero; a igual puntaje, el ID menor (orden estable)
+     */
+    private static boolean mejor(double puntaje, long id, double otroPuntaje, long otroId) {
+        return puntaje > otroPuntaje || (puntaje == otroPuntaje && id < otroId);
+    }
+}
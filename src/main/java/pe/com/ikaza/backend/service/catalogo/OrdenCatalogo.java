@@ -0,0 +1,63 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Criterios de orden que el catálogo en memoria mantiene precalculados.
+ * El ID del producto desempata para que el orden sea total y estable.
+ */
+public enum OrdenCatalogo {
+
+    ID_PRODUCTO("idProducto", Comparator.comparing(ProductoListado::getIdProducto)),
+    NOMBRE("nombreProducto", Comparator.comparing(ProductoListado::getNombreProducto, collatorNombres())),
+    PRECIO("precio", Comparator.comparing(ProductoListado::getPrecio)),
+    FECHA_CREACION("fechaCreacion", Comparator.comparing(ProductoListado::getFechaCreacion));
+
+    private final String propiedad;
+    private final Comparator<ProductoListado> comparador;
+
+    OrdenCatalogo(String propiedad, Comparator<ProductoListado> comparador) {
+        this.propiedad = propiedad;
+        this.comparador = comparador.thenComparing(ProductoListado::getIdProducto);
+    }
+
+    public String getPropiedad() {
+        return propiedad;
+    }
+
+    public Comparator<ProductoListado> getComparador() {
+        return comparador;
+    }
+
+    /**
+     * Orden de nombres como el ORDER BY de PostgreSQL con collation es/en UTF-8:
+     * primero letras sin acento ni mayúsculas (á = a, ñ entre n y o), luego
+     * acentos y por último minúsculas antes que mayúsculas; espacios y guiones
+     * no cuentan en el primer nivel. Diferencia conocida: el Collator ordena otros
+     * signos ('.', '/', paréntesis) antes que las letras y glibc, según la versión,
+     * los ignora; nombres que solo difieren en esos signos pueden quedar en
+     * distinto orden en memoria y en la BD (ver OrdenCatalogoTest).
+     */
+    static Collator collatorNombres() {
+        Collator collator = Collator.getInstance(Locale.forLanguageTag("es-PE"));
+        collator.setStrength(Collator.TERTIARY);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return collator;
+    }
+
+    /**
+     * Busca el orden por nombre de propiedad (el mismo que recibe Sort)
+     */
+    public static OrdenCatalogo desdePropiedad(String propiedad) {
+        for (OrdenCatalogo orden : values()) {
+            if (orden.propiedad.equals(propiedad)) {
+                return orden;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,377 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.entity.PopularidadProducto;
+import pe.com.ikaza.backend.repository.PopularidadProductoRepository;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Popularidad de productos por interacciones: vistas del detalle, apariciones en
+ * resultados de búsqueda y agregados al carrito. Cada interacción solo suma a un
+ * LongAdder del producto (sin contención ni acceso a la BD); cada "vaciado" ms los
+ * contadores se vuelcan con un upsert por lotes, así que si el proceso cae se pierde
+ * como máximo ese intervalo. El puntaje decae exponencialmente (vida media
+ * configurable) y alimenta el ranking de populares y el peso del autocompletado.
+ * Un agregado al carrito se cuenta una vez por cliente y producto en cada ventana,
+ * con un tope de productos por cliente, para que no se pueda inflar repitiendo la llamada.
+ * Los puntajes en memoria son de esta instancia: parten de la tabla al arrancar y
+ * suman solo lo que registra esta instancia; la tabla acumula las de todas, así que
+ * con varias instancias cada una ve el total recién al reiniciar.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PopularidadService implements IndiceCatalogo {
+
+    /** Productos que se guardan en cada tabla */
+    public static final int TOP_N = 50;
+
+    private static final double PESO_VISTA = 1.0;
+    private static final double PESO_IMPRESION = 0.05;
+    private static final double PESO_CARRITO = 5.0;
+
+    /** Vaciados entre dos actualizaciones completas del autocompletado (el decaimiento afecta a todos) */
+    private static final int VACIADOS_POR_ACTUALIZACION_COMPLETA = 360;
+
+    private static final String SQL_UPSERT = "INSERT INTO popularidad_productos "
+            + "(id_producto, vistas, impresiones, agregados_carrito, puntaje, fecha_actualizacion) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (id_producto) DO UPDATE SET "
+            + "vistas = popularidad_productos.vistas + EXCLUDED.vistas, "
+            + "impresiones = popularidad_productos.impresiones + EXCLUDED.impresiones, "
+            + "agregados_carrito = popularidad_productos.agregados_carrito + EXCLUDED.agregados_carrito, "
+            + "puntaje = popularidad_productos.puntaje * EXP(? * GREATEST(0, EXTRACT(EPOCH FROM "
+            + "(EXCLUDED.fecha_actualizacion - popularidad_productos.fecha_actualizacion)))) + EXCLUDED.puntaje, "
+            + "fecha_actualizacion = GREATEST(popularidad_productos.fecha_actualizacion, "
+            + "EXCLUDED.fecha_actualizacion)";
+
+    private final PopularidadProductoRepository popularidadProductoRepository;
+    private final SugerenciasService sugerenciasService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${popularidad.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${popularidad.vida-media-horas:72}")
+    private double vidaMediaHoras;
+
+    @Value("${popularidad.carrito.ventana-minutos:60}")
+    private long ventanaCarritoMinutos;
+
+    @Value("${popularidad.carrito.maximo-por-cliente:20}")
+    private int maximoCarritoPorCliente;
+
+    /** Productos vigentes del catálogo (solo se cuentan interacciones sobre ellos) */
+    private final Map<Long, ProductoListado> productos = new ConcurrentHashMap<>();
+
+    /** Interacciones aún no volcadas a la BD */
+    private final Map<Long, Contadores> pendientes = new ConcurrentHashMap<>();
+
+    /** Productos cuyo agregado al carrito ya se contó, por cliente, en la ventana actual */
+    private final Map<String, Set<Long>> carritoPorCliente = new ConcurrentHashMap<>();
+    private long inicioVentanaCarrito = System.currentTimeMillis();
+
+    /** Puntaje de cada producto a su instante de actualización. Se escribe solo en vaciar/cargar */
+    private final Map<Long, Puntaje> puntajes = new ConcurrentHashMap<>();
+
+    private volatile Tablas tablas = new Tablas(List.of(), Map.of());
+    private volatile boolean cargado = false;
+    private int vaciados = 0;
+
+    /**
+     * Indica si la popularidad está habilitada y ya fue cargada
+     */
+    public boolean isDisponible() {
+        return habilitado && cargado;
+    }
+
+    // ========== INTERACCIONES ==========
+
+    public void registrarVista(Long idProducto) {
+        Contadores contadores = contadores(idProducto);
+        if (contadores != null) {
+            contadores.vistas.increment();
+        }
+    }
+
+    public void registrarImpresiones(Collection<Long> idsProducto) {
+        for (Long idProducto : idsProducto) {
+            Contadores contadores = contadores(idProducto);
+            if (contadores != null) {
+                contadores.impresiones.increment();
+            }
+        }
+    }
+
+    /**
+     * Solo cuenta el primer agregado del producto por el cliente en la ventana,
+     * y hasta maximoCarritoPorCliente productos distintos
+     */
+    public void registrarAgregadoCarrito(String cliente, Long idProducto) {
+        Contadores contadores = contadores(idProducto);
+        if (contadores == null || cliente == null) {
+            return;
+        }
+        Set<Long> contados = carritoPorCliente.computeIfAbsent(cliente, k -> ConcurrentHashMap.newKeySet());
+        if (contados.size() < maximoCarritoPorCliente && contados.add(idProducto)) {
+            contadores.carrito.increment();
+        }
+    }
+
+    /**
+     * Los k más populares (idCategoria null = todo el catálogo), con los datos de listado vigentes
+     */
+    public List<ProductoListado> top(Long idCategoria, int limite) {
+        Tablas actuales = tablas;
+        List<Long> tabla = idCategoria == null
+                ? actuales.global
+                : actuales.porCategoria.getOrDefault(idCategoria, List.of());
+        List<ProductoListado> resultado = new ArrayList<>(Math.min(limite, tabla.size()));
+        for (Long id : tabla) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            ProductoListado producto = productos.get(id);
+            if (producto != null) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    // ========== VOLCADO ==========
+
+    /**
+     * Vuelca a la BD las interacciones acumuladas y recalcula puntajes y tablas
+     */
+    @Scheduled(initialDelayString = "${popularidad.vaciado:10000}",
+            fixedDelayString = "${popularidad.vaciado:10000}")
+    public synchronized void vaciar() {
+        if (!habilitado || !cargado) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        if (ahora - inicioVentanaCarrito >= ventanaCarritoMinutos * 60_000) {
+            carritoPorCliente.clear();
+            inicioVentanaCarrito = ahora;
+        }
+        List<Incremento> incrementos = new ArrayList<>();
+        pendientes.forEach((id, contadores) -> {
+            Incremento incremento = new Incremento(id, contadores.vistas.sumThenReset(),
+                    contadores.impresiones.sumThenReset(), contadores.carrito.sumThenReset());
+            if (incremento.vistas > 0 || incremento.impresiones > 0 || incremento.carrito > 0) {
+                incrementos.add(incremento);
+            }
+        });
+
+        boolean completa = ++vaciados >= VACIADOS_POR_ACTUALIZACION_COMPLETA;
+        if (incrementos.isEmpty() && !completa) {
+            return;
+        }
+
+        if (!incrementos.isEmpty()) {
+            try {
+                Timestamp marca = new Timestamp(ahora);
+                // La BD descuenta por segundos (EXTRACT EPOCH)
+                double decaimientoPorSegundo = -lambda() * 1000;
+                jdbcTemplate.batchUpdate(SQL_UPSERT, incrementos, incrementos.size(), (ps, incremento) -> {
+                    ps.setLong(1, incremento.idProducto);
+                    ps.setLong(2, incremento.vistas);
+                    ps.setLong(3, incremento.impresiones);
+                    ps.setLong(4, incremento.carrito);
+                    ps.setDouble(5, incremento.puntaje());
+                    ps.setTimestamp(6, marca);
+                    ps.setDouble(7, decaimientoPorSegundo);
+                });
+            } catch (Exception e) {
+                // Se devuelven a los contadores para el próximo intento
+                incrementos.forEach(incremento -> {
+                    Contadores contadores = pendientes.get(incremento.idProducto);
+                    if (contadores != null) {
+                        contadores.vistas.add(incremento.vistas);
+                        contadores.impresiones.add(incremento.impresiones);
+                        contadores.carrito.add(incremento.carrito);
+                    }
+                });
+                log.error("Error guardando la popularidad de productos: {}", e.getMessage());
+                return;
+            }
+        }
+
+        Map<Long, Double> cambiados = new HashMap<>();
+        for (Incremento incremento : incrementos) {
+            Puntaje anterior = puntajes.get(incremento.idProducto);
+            double valor = (anterior != null ? anterior.a(ahora, lambda()) : 0) + incremento.puntaje();
+            puntajes.put(incremento.idProducto, new Puntaje(valor, ahora));
+            cambiados.put(incremento.idProducto, valor);
+        }
+        if (completa) {
+            vaciados = 0;
+            puntajes.forEach((id, puntaje) -> cambiados.put(id, puntaje.a(ahora, lambda())));
+        }
+        sugerenciasService.actualizarPopularidad(cambiados);
+        recalcularTablas(ahora);
+    }
+
+    @PreDestroy
+    public void alCerrar() {
+        vaciar();
+    }
+
+    // ========== CATÁLOGO (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        productos.clear();
+        documentos.forEach(d -> productos.put(d.getIdProducto(), d.getListado()));
+        pendientes.keySet().retainAll(productos.keySet());
+        if (!cargado) {
+            cargarDesdeBd();
+        }
+        recalcularTablas(System.currentTimeMillis());
+    }
+
+    @Override
+    public void indexar(ProductoDocumento documento) {
+        if (habilitado) {
+            productos.put(documento.getIdProducto(), documento.getListado());
+        }
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (habilitado) {
+            productos.remove(idProducto);
+            pendientes.remove(idProducto);
+        }
+    }
+
+    @Override
+    public void actualizarStock(Long idProducto, int stock) {
+        if (habilitado) {
+            productos.computeIfPresent(idProducto, (id, p) -> p.conStock(stock));
+        }
+    }
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        productos.replaceAll((id, p) -> idCategoria.equals(p.getIdCategoria())
+                ? p.conNombreCategoria(nombreCategoria)
+                : p);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private Contadores contadores(Long idProducto) {
+        if (!habilitado || idProducto == null || !productos.containsKey(idProducto)) {
+            return null;
+        }
+        return pendientes.computeIfAbsent(idProducto, k -> new Contadores());
+    }
+
+    private synchronized void cargarDesdeBd() {
+        List<PopularidadProducto> filas = popularidadProductoRepository.findAll();
+        Map<Long, Double> iniciales = new HashMap<>();
+        long ahora = System.currentTimeMillis();
+        for (PopularidadProducto fila : filas) {
+            long instante = fila.getFechaActualizacion().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            Puntaje puntaje = new Puntaje(fila.getPuntaje(), instante);
+            puntajes.put(fila.getIdProducto(), puntaje);
+            iniciales.put(fila.getIdProducto(), puntaje.a(ahora, lambda()));
+        }
+        sugerenciasService.actualizarPopularidad(iniciales);
+        cargado = true;
+        log.info("Popularidad de productos cargada: {} productos", filas.size());
+    }
+
+    /**
+     * Ordena por puntaje a hoy y publica los top-N global y por categoría
+     */
+    private void recalcularTablas(long ahora) {
+        double lambda = lambda();
+        List<Map.Entry<Long, Double>> ordenados = new ArrayList<>(puntajes.size());
+        puntajes.forEach((id, puntaje) -> {
+            if (productos.containsKey(id)) {
+                ordenados.add(Map.entry(id, puntaje.a(ahora, lambda)));
+            }
+        });
+        ordenados.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        List<Long> global = new ArrayList<>(TOP_N);
+        Map<Long, List<Long>> porCategoria = new HashMap<>();
+        for (Map.Entry<Long, Double> entrada : ordenados) {
+            ProductoListado producto = productos.get(entrada.getKey());
+            if (producto == null) {
+                continue;
+            }
+            if (global.size() < TOP_N) {
+                global.add(entrada.getKey());
+            }
+            List<Long> categoria = porCategoria.computeIfAbsent(producto.getIdCategoria(), k -> new ArrayList<>());
+            if (categoria.size() < TOP_N) {
+                categoria.add(entrada.getKey());
+            }
+        }
+        porCategoria.replaceAll((id, lista) -> List.copyOf(lista));
+        tablas = new Tablas(List.copyOf(global), Collections.unmodifiableMap(porCategoria));
+    }
+
+    /**
+     * Tasa de decaimiento por ms (el puntaje se multiplica por e^(-lambda·t))
+     */
+    private double lambda() {
+        return Math.log(2) / (vidaMediaHoras * 3_600_000);
+    }
+
+    // ========== ESTRUCTURAS ==========
+
+    private static final class Contadores {
+        private final LongAdder vistas = new LongAdder();
+        private final LongAdder impresiones = new LongAdder();
+        private final LongAdder carrito = new LongAdder();
+    }
+
+    private record Incremento(Long idProducto, long vistas, long impresiones, long carrito) {
+        double puntaje() {
+            return vistas * PESO_VISTA + impresiones * PESO_IMPRESION + carrito * PESO_CARRITO;
+        }
+    }
+
+    /**
+     * Puntaje a un instante (epoch ms)
+     */
+    private record Puntaje(double valor, long instante) {
+        double a(long ahora, double lambda) {
+            return valor * Math.exp(-lambda * Math.max(0, ahora - instante));
+        }
+    }
+
+    private record Tablas(List<Long> global, Map<Long, List<Long>> porCategoria) {
+    }
+}
@@ -0,0 +1,45 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento publicado por los servicios de escritura cuando cambia un producto.
+ * Los índices en memoria lo aplican como delta después del commit.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ProductoCambiadoEvent {
+
+    public enum TipoCambio {
+        GUARDADO,
+        ELIMINADO,
+        STOCK
+    }
+
+    private final Long idProducto;
+    private final TipoCambio tipo;
+    private final Integer stock;
+
+    /**
+     * Producto creado o actualizado
+     */
+    public static ProductoCambiadoEvent guardado(Long idProducto) {
+        return new ProductoCambiadoEvent(idProducto, TipoCambio.GUARDADO, null);
+    }
+
+    /**
+     * Producto eliminado
+     */
+    public static ProductoCambiadoEvent eliminado(Long idProducto) {
+        return new ProductoCambiadoEvent(idProducto, TipoCambio.ELIMINADO, null);
+    }
+
+    /**
+     * Solo cambió el stock (ventas, devoluciones, ajustes)
+     */
+    public static ProductoCambiadoEvent stock(Long idProducto, Integer stock) {
+        return new ProductoCambiadoEvent(idProducto, TipoCambio.STOCK, stock);
+    }
+}
@@ -0,0 +1,17 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Evento publicado por la importación masiva al confirmar cada lote.
+ * Los índices en memoria lo aplican como un solo delta (una consulta por lote).
+ */
+@Getter
+@AllArgsConstructor
+public class ProductosImportadosEvent {
+
+    private final List<Long> idsProducto;
+}
@@ -0,0 +1,367 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.dto.projection.VentaDiaria;
+import pe.com.ikaza.backend.repository.DetallePedidoRepository;
+import pe.com.ikaza.backend.repository.PedidoRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Ranking de productos más vendidos (total, últimos 7 y 30 días; global y por categoría).
+ * Las ventas confirmadas se suman al vuelo en contadores LongAdder (sin contención
+ * entre pagos simultáneos); periódicamente, si hubo ventas, se recalculan las tablas
+ * top-N con un heap acotado y se publican inmutables, así que leerlas cuesta O(k).
+ * Mientras se recarga desde la BD las ventas se retienen y al terminar solo se
+ * aplican las que la lectura no incluyó (ni se pierden ni se cuentan dos veces).
+ */
+@Service
+@Slf4j
+public class RankingVentasService implements IndiceCatalogo {
+
+    /** Productos que se guardan en cada tabla */
+    public static final int TOP_N = 50;
+
+    private static final Comparator<ProductoVendido> POR_UNIDADES = Comparator
+            .comparingLong(ProductoVendido::unidades)
+            .thenComparing(v -> v.producto().getIdProducto(), Comparator.reverseOrder());
+
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final PedidoRepository pedidoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ranking.ventas.habilitado:false}")
+    private boolean habilitado;
+
+    /** Productos vigentes del catálogo (para categoría, stock y para no listar eliminados) */
+    private final Map<Long, ProductoListado> productos = new ConcurrentHashMap<>();
+
+    private volatile Contadores contadores = new Contadores();
+    private final Object retencion = new Object();
+    /** Ventas recibidas durante una recarga (null si no hay recarga); protegido por "retencion" */
+    private List<VentaConfirmadaEvent> retenidas;
+    private volatile Tablas tablas = new Tablas(Map.of(), Map.of());
+    private volatile LocalDate diaTablas;
+    private volatile boolean sucio = false;
+    private volatile boolean recargar = true;
+    private volatile boolean listo = false;
+
+    public RankingVentasService(DetallePedidoRepository detallePedidoRepository,
+            PedidoRepository pedidoRepository, PlatformTransactionManager transactionManager) {
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.pedidoRepository = pedidoRepository;
+        // Las ventas y los pedidos retenidos se leen de la misma foto de la BD
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Producto del ranking con sus unidades vendidas en la ventana
+     */
+    public record ProductoVendido(ProductoListado producto, long unidades) {
+    }
+
+    /**
+     * Indica si el ranking está habilitado y ya fue calculado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Los k más vendidos de la ventana (idCategoria null = todo el catálogo)
+     */
+    public List<ProductoVendido> top(VentanaVentas ventana, Long idCategoria, int limite) {
+        Tablas actuales = tablas;
+        List<ProductoVendido> tabla = idCategoria == null
+                ? actuales.global.getOrDefault(ventana, List.of())
+                : actuales.porCategoria.getOrDefault(ventana, Map.of()).getOrDefault(idCategoria, List.of());
+
+        List<ProductoVendido> resultado = new ArrayList<>(Math.min(limite, tabla.size()));
+        for (ProductoVendido vendido : tabla) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            // Datos de listado vigentes (stock) y sin productos eliminados
+            ProductoListado actual = productos.get(vendido.producto().getIdProducto());
+            if (actual != null) {
+                resultado.add(new ProductoVendido(actual, vendido.unidades()));
+            }
+        }
+        return resultado;
+    }
+
+    // ========== VENTAS ==========
+
+    /**
+     * Suma las unidades de una venta confirmada. Las devoluciones fuerzan una
+     * recarga desde la BD (así se descuentan del día en que se vendieron).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVentaConfirmada(VentaConfirmadaEvent evento) {
+        if (!habilitado) {
+            return;
+        }
+        if (evento.isDevolucion()) {
+            recargar = true;
+            return;
+        }
+        synchronized (retencion) {
+            if (retenidas != null) {
+                retenidas.add(evento);
+                return;
+            }
+            contadores.sumar(LocalDate.now(), evento.getUnidades());
+        }
+        sucio = true;
+    }
+
+    /**
+     * Recalcula las tablas si hubo ventas o cambió el día (las ventanas avanzan)
+     */
+    @Scheduled(initialDelayString = "${ranking.ventas.refresco:10000}",
+            fixedDelayString = "${ranking.ventas.refresco:10000}")
+    public void refrescar() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            if (recargar) {
+                cargarDesdeBd();
+            }
+            if (sucio || !LocalDate.now().equals(diaTablas)) {
+                recalcular();
+            }
+        } catch (Exception e) {
+            log.error("Error actualizando el ranking de ventas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recarga completa periódica: corrige cualquier desvío de los contadores en memoria
+     */
+    @Scheduled(initialDelayString = "${ranking.ventas.recarga:3600000}",
+            fixedDelayString = "${ranking.ventas.recarga:3600000}")
+    public void programarRecarga() {
+        recargar = true;
+    }
+
+    // ========== CATÁLOGO (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        productos.clear();
+        documentos.forEach(d -> productos.put(d.getIdProducto(), d.getListado()));
+        sucio = true;
+        refrescar();
+    }
+
+    @Override
+    public void indexar(ProductoDocumento documento) {
+        if (!habilitado) {
+            return;
+        }
+        ProductoListado anterior = productos.put(documento.getIdProducto(), documento.getListado());
+        if (anterior == null || !anterior.getIdCategoria().equals(documento.getListado().getIdCategoria())) {
+            sucio = true;
+        }
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        if (productos.remove(idProducto) != null) {
+            sucio = true;
+        }
+    }
+
+    @Override
+    public void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        productos.computeIfPresent(idProducto, (id, p) -> p.conStock(stock));
+    }
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        productos.replaceAll((id, p) -> idCategoria.equals(p.getIdCategoria())
+                ? p.conNombreCategoria(nombreCategoria)
+                : p);
+    }
+
+    // ========== CÁLCULO ==========
+
+    /**
+     * Relee las ventas de la BD. Las ventas que llegan mientras tanto se retienen;
+     * al final se consulta, en la misma foto de la BD, cuáles de esos pedidos ya
+     * estaban incluidos y solo se suman los demás.
+     */
+    private synchronized void cargarDesdeBd() {
+        recargar = false;
+        synchronized (retencion) {
+            retenidas = new ArrayList<>();
+        }
+        try {
+            int registros = transactionTemplate.execute(status -> {
+                List<VentaDiaria> ventas = detallePedidoRepository.findVentasDiariasAprobadas();
+                Contadores nuevos = new Contadores();
+                for (VentaDiaria venta : ventas) {
+                    nuevos.sumar(venta.getDia(), Map.of(venta.getIdProducto(), venta.getUnidades().intValue()));
+                }
+                synchronized (retencion) {
+                    aplicarRetenidas(nuevos);
+                }
+                return ventas.size();
+            });
+            sucio = true;
+            log.info("Ranking de ventas cargado: {} registros producto/día", registros);
+        } finally {
+            synchronized (retencion) {
+                if (retenidas != null) {
+                    // La recarga falló: las ventas retenidas se suman a los contadores vigentes
+                    retenidas.forEach(evento -> contadores.sumar(LocalDate.now(), evento.getUnidades()));
+                    retenidas = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Publica los contadores nuevos con las ventas retenidas que la lectura no vio.
+     * Se llama con "retencion" tomado, así que ninguna venta queda entre la consulta y el cambio.
+     */
+    private void aplicarRetenidas(Contadores nuevos) {
+        if (!retenidas.isEmpty()) {
+            Set<Long> incluidos = Set.copyOf(pedidoRepository.findIdsConPagoAprobado(retenidas.stream()
+                    .map(VentaConfirmadaEvent::getIdPedido)
+                    .collect(Collectors.toSet())));
+            for (VentaConfirmadaEvent evento : retenidas) {
+                if (!incluidos.contains(evento.getIdPedido())) {
+                    nuevos.sumar(LocalDate.now(), evento.getUnidades());
+                }
+            }
+        }
+        contadores = nuevos;
+        retenidas = null;
+    }
+
+    private synchronized void recalcular() {
+        sucio = false;
+        LocalDate hoy = LocalDate.now();
+        Contadores actuales = contadores;
+        actuales.descartarAntesDe(hoy.minusDays(VentanaVentas.TREINTA_DIAS.getDias() - 1));
+
+        // Unidades por producto en cada ventana
+        Map<VentanaVentas, Map<Long, Long>> unidades = new EnumMap<>(VentanaVentas.class);
+        Map<Long, Long> total = new HashMap<>();
+        actuales.totales.forEach((id, contador) -> total.put(id, contador.sum()));
+        unidades.put(VentanaVentas.TOTAL, total);
+        for (VentanaVentas ventana : List.of(VentanaVentas.SIETE_DIAS, VentanaVentas.TREINTA_DIAS)) {
+            Map<Long, Long> suma = new HashMap<>();
+            actuales.porDia.tailMap(hoy.minusDays(ventana.getDias() - 1)).values().forEach(dia ->
+                    dia.forEach((id, contador) -> suma.merge(id, contador.sum(), Long::sum)));
+            unidades.put(ventana, suma);
+        }
+
+        // Top-N con heap acotado, global y por categoría
+        Map<VentanaVentas, List<ProductoVendido>> global = new EnumMap<>(VentanaVentas.class);
+        Map<VentanaVentas, Map<Long, List<ProductoVendido>>> porCategoria = new EnumMap<>(VentanaVentas.class);
+        unidades.forEach((ventana, porProducto) -> {
+            PriorityQueue<ProductoVendido> heapGlobal = new PriorityQueue<>(POR_UNIDADES);
+            Map<Long, PriorityQueue<ProductoVendido>> heapsCategoria = new HashMap<>();
+            porProducto.forEach((id, cantidad) -> {
+                ProductoListado producto = productos.get(id);
+                if (producto == null || cantidad <= 0) {
+                    return;
+                }
+                ProductoVendido vendido = new ProductoVendido(producto, cantidad);
+                ofrecer(heapGlobal, vendido);
+                ofrecer(heapsCategoria.computeIfAbsent(producto.getIdCategoria(),
+                        k -> new PriorityQueue<>(POR_UNIDADES)), vendido);
+            });
+            global.put(ventana, ordenar(heapGlobal));
+            Map<Long, List<ProductoVendido>> tablasCategoria = new HashMap<>();
+            heapsCategoria.forEach((idCategoria, heap) -> tablasCategoria.put(idCategoria, ordenar(heap)));
+            porCategoria.put(ventana, Collections.unmodifiableMap(tablasCategoria));
+        });
+
+        tablas = new Tablas(global, porCategoria);
+        diaTablas = hoy;
+        listo = true;
+    }
+
+    private static void ofrecer(PriorityQueue<ProductoVendido> heap, ProductoVendido vendido) {
+        if (heap.size() < TOP_N) {
+            heap.add(vendido);
+        } else if (POR_UNIDADES.compare(vendido, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(vendido);
+        }
+    }
+
+    private static List<ProductoVendido> ordenar(PriorityQueue<ProductoVendido> heap) {
+        List<ProductoVendido> resultado = new ArrayList<>(heap);
+        resultado.sort(POR_UNIDADES.reversed());
+        return Collections.unmodifiableList(resultado);
+    }
+
+    // ========== ESTRUCTURAS ==========
+
+    /**
+     * Unidades vendidas acumuladas: total por producto y por día (últimos 30 días)
+     */
+    private static final class Contadores {
+        private final Map<Long, LongAdder> totales = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<LocalDate, Map<Long, LongAdder>> porDia = new ConcurrentSkipListMap<>();
+
+        private void sumar(LocalDate dia, Map<Long, Integer> unidades) {
+            Map<Long, LongAdder> contadoresDia = porDia.computeIfAbsent(dia, d -> new ConcurrentHashMap<>());
+            unidades.forEach((idProducto, cantidad) -> {
+                totales.computeIfAbsent(idProducto, k -> new LongAdder()).add(cantidad);
+                contadoresDia.computeIfAbsent(idProducto, k -> new LongAdder()).add(cantidad);
+            });
+        }
+
+        private void descartarAntesDe(LocalDate dia) {
+            porDia.headMap(dia).clear();
+        }
+    }
+
+    private record Tablas(Map<VentanaVentas, List<ProductoVendido>> global,
+            Map<VentanaVentas, Map<Long, List<ProductoVendido>>> porCategoria) {
+    }
+}
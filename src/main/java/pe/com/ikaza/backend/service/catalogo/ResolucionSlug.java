@@ -0,0 +1,16 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+/**
+ * Resultado de buscar un producto por slug. Si el slug es uno anterior,
+ * redireccion es true y slug es el vigente (null si el producto ya no tiene slug).
+ */
+public record ResolucionSlug(Long idProducto, String slug, boolean redireccion) {
+
+    public static ResolucionSlug vigente(Long idProducto, String slug) {
+        return new ResolucionSlug(idProducto, slug, false);
+    }
+
+    public static ResolucionSlug anterior(Long idProducto, String slugVigente) {
+        return new ResolucionSlug(idProducto, slugVigente, true);
+    }
+}
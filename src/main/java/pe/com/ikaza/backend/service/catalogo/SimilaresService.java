@@ -0,0 +1,152 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Productos similares" por contenido: nombre, descripción, marca, atributos y
+ * especificaciones, comparados con firmas MinHash y cubetas LSH (IndiceSimilitud).
+ * Las firmas de la carga completa se calculan en paralelo (fork-join) y los
+ * cambios de un producto solo recalculan su firma. El stock no interviene en la
+ * similitud: sus cambios se guardan aparte, sin tomar el lock, y se aplican al responder.
+ */
+@Service
+@Slf4j
+public class SimilaresService implements IndiceCatalogo {
+
+    @Value("${catalogo.similares.habilitado:false}")
+    private boolean habilitado;
+
+    /** Similitud de Jaccard estimada mínima para recomendar un producto */
+    @Value("${catalogo.similares.similitud-minima:0.2}")
+    private double similitudMinima;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private IndiceSimilitud indice = new IndiceSimilitud();
+    /** Stock posterior a la indexación de cada producto */
+    private final Map<Long, Integer> stockVigente = new ConcurrentHashMap<>();
+    private volatile boolean listo = false;
+
+    /**
+     * Indica si el índice está habilitado y ya fue cargado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * Los productos más parecidos al dado, del más al menos similar
+     */
+    public List<ProductoListado> similares(Long idProducto, int limite) {
+        Lock lectura = lock.readLock();
+        lectura.lock();
+        try {
+            return indice.similares(idProducto, limite, similitudMinima).stream()
+                    .map(similar -> conStockVigente(similar.producto()))
+                    .toList();
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public void reconstruir(Collection<ProductoDocumento> productos) {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        List<IndiceSimilitud.Entrada> firmas = productos.parallelStream()
+                .map(IndiceSimilitud::firmar)
+                .toList();
+        IndiceSimilitud nuevo = new IndiceSimilitud();
+        firmas.forEach(nuevo::agregar);
+
+        Lock escritura = lock.writeLock();
+        escritura.lock();
+        try {
+            indice = nuevo;
+            stockVigente.clear();
+        } finally {
+            escritura.unlock();
+        }
+        listo = true;
+        log.info("Índice de similares cargado: {} productos en {} ms", nuevo.tamanio(),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @Override
+    public void indexar(ProductoDocumento producto) {
+        if (!habilitado) {
+            return;
+        }
+        // La firma se calcula fuera del lock
+        IndiceSimilitud.Entrada entrada = IndiceSimilitud.firmar(producto);
+        conEscritura(() -> {
+            indice.agregar(entrada);
+            stockVigente.remove(producto.getIdProducto());
+        });
+    }
+
+    @Override
+    public void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> {
+            indice.eliminar(idProducto);
+            stockVigente.remove(idProducto);
+        });
+    }
+
+    @Override
+    public void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        stockVigente.put(idProducto, stock);
+    }
+
+    @Override
+    public void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        conEscritura(() -> {
+            List<ProductoListado> afectados = indice.entradas().stream()
+                    .map(IndiceSimilitud.Entrada::listado)
+                    .filter(p -> idCategoria.equals(p.getIdCategoria()))
+                    .toList();
+            afectados.forEach(p -> indice.reemplazarListado(p.conNombreCategoria(nombreCategoria)));
+        });
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private ProductoListado conStockVigente(ProductoListado producto) {
+        Integer stock = stockVigente.get(producto.getIdProducto());
+        return stock == null || stock.equals(producto.getStock()) ? producto : producto.conStock(stock);
+    }
+
+    private void conEscritura(Runnable operacion) {
+        Lock escritura = lock.writeLock();
+        escritura.lock();
+        try {
+            operacion.run();
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pe.com.ikaza.backend.dto.projection.SlugDetalle;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+import pe.com.ikaza.backend.repository.ProductoDetalleRepository;
+import pe.com.ikaza.backend.repository.ProductoSlugHistorialRepository;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Lleva seo.slug (normalizado) a la columna única slug de producto_detalle y guarda
+ * el slug reemplazado en producto_slug_historial. Se aplica al crear el detalle de un
+ * producto; actualizarProducto no edita el seo, así que no lo vuelve a aplicar. El seo
+ * editado fuera de la aplicación se aplica con sincronizarTodos (administrador).
+ * Los conflictos se resuelven siempre igual: si quien tiene el slug pedido ya pide
+ * otro, se le aplica primero el suyo; si forman un ciclo (intercambio de slugs) el
+ * primero del ciclo queda sin slug un momento, ya que el índice único admite varios
+ * NULL. Si quien lo tiene lo sigue pidiendo, lo conserva y el otro no cambia.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SlugProductoService {
+
+    private final ProductoDetalleRepository productoDetalleRepository;
+    private final ProductoSlugHistorialRepository productoSlugHistorialRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Aplica el slug del producto dentro de la transacción que lo guarda.
+     * Los demás productos cuyo slug cambió en el camino se reindexan.
+     */
+    @Transactional
+    public void sincronizar(Long idProducto) {
+        productoDetalleRepository.findIdDetalleByProductoId(idProducto).ifPresent(idDetalle -> {
+            Set<Long> cambiados = new HashSet<>();
+            aplicar(idDetalle, new HashSet<>(), cambiados);
+            publicar(cambiados);
+        });
+    }
+
+    /**
+     * Aplica los slugs de todos los productos cuyo seo difiere de la columna
+     * @return cantidad de productos cuyo slug cambió
+     */
+    @Transactional
+    public int sincronizarTodos() {
+        Set<Long> cambiados = new HashSet<>();
+        for (SlugDetalle detalle : productoDetalleRepository.findSlugDetalles()) {
+            if (!Objects.equals(normalizar(detalle.getSeo()), detalle.getSlug())) {
+                aplicar(detalle.getIdProductoDetalle(), new HashSet<>(), cambiados);
+            }
+        }
+        publicar(cambiados);
+        if (!cambiados.isEmpty()) {
+            log.info("Slugs de producto actualizados: {}", cambiados.size());
+        }
+        return cambiados.size();
+    }
+
+    /**
+     * @param enCurso detalles que esperan a que se libere el slug que piden
+     */
+    private void aplicar(Long idDetalle, Set<Long> enCurso, Set<Long> cambiados) {
+        SlugDetalle detalle = productoDetalleRepository.findSlugDetalleById(idDetalle).orElse(null);
+        if (detalle == null) {
+            return;
+        }
+        String nuevo = normalizar(detalle.getSeo());
+        if (Objects.equals(nuevo, detalle.getSlug())) {
+            return;
+        }
+        if (nuevo != null) {
+            Long ocupante = productoDetalleRepository.findIdDetalleBySlug(nuevo).orElse(null);
+            if (ocupante != null) {
+                if (enCurso.contains(ocupante)) {
+                    // Intercambio: el que espera suelta su slug y lo toma al volver
+                    productoDetalleRepository.findSlugDetalleById(ocupante)
+                            .ifPresent(esperando -> asignar(esperando, null, cambiados));
+                } else {
+                    enCurso.add(idDetalle);
+                    aplicar(ocupante, enCurso, cambiados);
+                    enCurso.remove(idDetalle);
+                }
+                if (productoDetalleRepository.findIdDetalleBySlug(nuevo).isPresent()) {
+                    log.warn("El slug '{}' del producto {} ya lo usa otro producto; se mantiene el actual",
+                            nuevo, detalle.getIdProducto());
+                    return;
+                }
+                // Pudo haber soltado su slug en un intercambio
+                detalle = productoDetalleRepository.findSlugDetalleById(idDetalle).orElseThrow();
+            }
+        }
+        asignar(detalle, nuevo, cambiados);
+    }
+
+    private void asignar(SlugDetalle detalle, String slug, Set<Long> cambiados) {
+        if (detalle.getSlug() != null) {
+            productoSlugHistorialRepository.registrar(detalle.getSlug(), detalle.getIdProducto());
+        }
+        productoDetalleRepository.actualizarSlug(detalle.getIdProductoDetalle(), slug);
+        cambiados.add(detalle.getIdProducto());
+    }
+
+    private void publicar(Set<Long> cambiados) {
+        cambiados.forEach(id -> eventPublisher.publishEvent(ProductoCambiadoEvent.guardado(id)));
+    }
+
+    private static String normalizar(ProductoDetalle.SeoDto seo) {
+        if (seo == null || seo.getSlug() == null) {
+            return null;
+        }
+        String slug = seo.getSlug().trim().toLowerCase(Locale.ROOT);
+        return slug.isEmpty() ? null : slug;
+    }
+}
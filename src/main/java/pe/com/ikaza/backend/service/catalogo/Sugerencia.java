@@ -0,0 +1,84 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Entrada del índice de autocompletado. Se puede encontrar por el inicio de
+ * cualquiera de sus palabras ("algo" encuentra "Polo de algodón").
+ */
+@Getter
+public final class Sugerencia {
+
+    public enum Tipo {
+        PRODUCTO, MARCA, CATEGORIA
+    }
+
+    /** Identifica la sugerencia dentro del índice (p. ej. "P:5", "M:samsung", "C:3") */
+    private final String clave;
+    private final Tipo tipo;
+    private final Long id;
+    private final String texto;
+    private final double peso;
+
+    /** Texto normalizado (sin tildes, minúsculas, un espacio entre palabras) */
+    private final String normalizado;
+
+    /** Posiciones de inicio de cada palabra indexable dentro de "normalizado" */
+    private final int[] inicios;
+
+    Sugerencia(String clave, Tipo tipo, Long id, String texto, double peso) {
+        this.clave = clave;
+        this.tipo = tipo;
+        this.id = id;
+        this.texto = texto;
+        this.peso = peso;
+        this.normalizado = normalizar(texto);
+        this.inicios = calcularInicios(normalizado);
+    }
+
+    /**
+     * Normaliza un texto (o un prefijo escrito por el usuario) para compararlo con el índice
+     */
+    static String normalizar(String texto) {
+        return Arrays.stream(AnalizadorTexto.normalizar(texto).split("[^a-z0-9ñ]+"))
+                .filter(palabra -> !palabra.isEmpty())
+                .collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Indica si alguna palabra de la sugerencia empieza por el prefijo normalizado
+     */
+    boolean coincide(String prefijo) {
+        for (int inicio : inicios) {
+            if (normalizado.startsWith(prefijo, inicio)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int[] getInicios() {
+        return inicios;
+    }
+
+    private static int[] calcularInicios(String normalizado) {
+        if (normalizado.isEmpty()) {
+            return new int[0];
+        }
+        String[] palabras = normalizado.split(" ");
+        int[] resultado = new int[palabras.length];
+        int cantidad = 0;
+        int posicion = 0;
+        for (String palabra : palabras) {
+            // La primera palabra siempre se indexa; las demás solo si no son stopwords
+            if (posicion == 0 || !AnalizadorTexto.palabras(palabra).isEmpty()) {
+                resultado[cantidad++] = posicion;
+            }
+            posicion += palabra.length() + 1;
+        }
+        return Arrays.copyOf(resultado, cantidad);
+    }
+}
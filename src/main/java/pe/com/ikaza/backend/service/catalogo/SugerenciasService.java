@@ -0,0 +1,373 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Autocompletado del buscador sobre nombres de producto, marcas y categorías.
+ * Las consultas leen una vista inmutable sin bloqueo: un índice de prefijos base
+ * más un pequeño delta con los cambios posteriores. Cuando el delta crece se
+ * compacta reconstruyendo la base. Cada vista publicada lleva su propia versión
+ * (ETag): los cambios de popularidad reordenan las sugerencias sin tocar el catálogo.
+ * Un nuevo puntaje de popularidad solo reescribe el producto si su peso cambia más
+ * que TOLERANCIA_PESO (y una vez su marca y su categoría por lote), para que los
+ * vaciados periódicos de PopularidadService no llenen el delta y fuercen compactar.
+ * La popularidad es la de esta instancia (ver PopularidadService).
+ */
+@Service
+@Slf4j
+public class SugerenciasService implements IndiceCatalogo {
+
+    private static final int MAX_DELTA = 256;
+
+    /** Cambio relativo de peso por debajo del cual un puntaje de popularidad nuevo no se aplica todavía */
+    private static final double TOLERANCIA_PESO = 0.05;
+
+    private static final Comparator<Sugerencia> POR_PESO = Comparator
+            .comparingDouble(Sugerencia::getPeso).reversed()
+            .thenComparing(Sugerencia::getNormalizado);
+
+    @Value("${catalogo.sugerencias.habilitado:false}")
+    private boolean habilitado;
+
+    // Estado de escritura (protegido por "this")
+    private final Map<Long, ProductoListado> productos = new HashMap<>();
+    private final Map<String, Agregado> marcas = new HashMap<>();
+    private final Map<Long, Agregado> categorias = new HashMap<>();
+    private final Map<String, Sugerencia> vigentes = new HashMap<>();
+    private final Map<String, Sugerencia> cambios = new LinkedHashMap<>();
+    /** Puntaje de popularidad por producto (PopularidadService); se conserva entre recargas */
+    private final Map<Long, Double> popularidad = new HashMap<>();
+    private IndicePrefijos base = IndicePrefijos.vacio();
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private long version;
+
+    private volatile Vista vista = new Vista(IndicePrefijos.vacio(), List.of(), Set.of());
+    private volatile VersionCatalogoService.Validador validador;
+    private volatile boolean listo = false;
+
+    /**
+     * Indica si el autocompletado está habilitado y ya fue cargado
+     */
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    /**
+     * ETag y fecha de la vista publicada (null si no está disponible)
+     */
+    public VersionCatalogoService.Validador validador() {
+        return isDisponible() ? validador : null;
+    }
+
+    /**
+     * Las mejores sugerencias (por peso) para lo que el usuario lleva escrito
+     */
+    public List<Sugerencia> sugerir(String texto, int limite) {
+        String prefijo = Sugerencia.normalizar(texto);
+        if (prefijo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        Vista actual = vista;
+        List<Sugerencia> candidatos = new ArrayList<>(
+                actual.base.mejores(prefijo, limite, s -> actual.anuladas.contains(s.getClave())));
+        for (Sugerencia sugerencia : actual.delta) {
+            if (sugerencia.coincide(prefijo)) {
+                candidatos.add(sugerencia);
+            }
+        }
+        candidatos.sort(POR_PESO);
+        return candidatos.size() > limite ? candidatos.subList(0, limite) : candidatos;
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public synchronized void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        productos.clear();
+        marcas.clear();
+        categorias.clear();
+        vigentes.clear();
+        for (ProductoDocumento documento : documentos) {
+            agregarProducto(documento.getListado());
+        }
+        compactar();
+        listo = true;
+        log.info("Índice de sugerencias cargado: {} entradas", vigentes.size());
+    }
+
+    @Override
+    public synchronized void indexar(ProductoDocumento documento) {
+        if (!habilitado) {
+            return;
+        }
+        quitarProducto(documento.getIdProducto());
+        agregarProducto(documento.getListado());
+        publicar();
+    }
+
+    @Override
+    public synchronized void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        quitarProducto(idProducto);
+        publicar();
+    }
+
+    @Override
+    public synchronized void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        ProductoListado producto = productos.get(idProducto);
+        if (producto != null && (producto.getStock() > 0) != (stock > 0)) {
+            quitarProducto(idProducto);
+            agregarProducto(producto.conStock(stock));
+            publicar();
+        }
+    }
+
+    @Override
+    public synchronized void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        productos.replaceAll((id, p) -> idCategoria.equals(p.getIdCategoria())
+                ? p.conNombreCategoria(nombreCategoria)
+                : p);
+        Agregado categoria = categorias.get(idCategoria);
+        if (categoria != null) {
+            categoria.texto = nombreCategoria;
+            poner(sugerenciaCategoria(idCategoria, categoria));
+            publicar();
+        }
+    }
+
+    /**
+     * Nuevos puntajes de popularidad: se vuelven a pesar los productos cuyo peso
+     * cambia más que la tolerancia. A los demás se les conserva el puntaje con el
+     * que están pesados, así el cambio se acumula hasta superarla.
+     */
+    public synchronized void actualizarPopularidad(Map<Long, Double> puntajes) {
+        if (!habilitado || puntajes.isEmpty()) {
+            return;
+        }
+        Set<String> agregados = new HashSet<>();
+        boolean cambio = false;
+        for (Map.Entry<Long, Double> puntaje : puntajes.entrySet()) {
+            Long idProducto = puntaje.getKey();
+            ProductoListado producto = productos.get(idProducto);
+            if (producto == null) {
+                popularidad.put(idProducto, puntaje.getValue());
+                continue;
+            }
+            double anterior = peso(producto);
+            Double previo = popularidad.put(idProducto, puntaje.getValue());
+            double nuevo = peso(producto);
+            if (Math.abs(nuevo - anterior) <= anterior * TOLERANCIA_PESO) {
+                if (previo != null) {
+                    popularidad.put(idProducto, previo);
+                } else {
+                    popularidad.remove(idProducto);
+                }
+                continue;
+            }
+            poner(new Sugerencia("P:" + idProducto, Sugerencia.Tipo.PRODUCTO, idProducto,
+                    producto.getNombreProducto(), nuevo));
+            String claveMarca = claveMarca(producto);
+            Agregado marca = claveMarca != null ? marcas.get(claveMarca) : null;
+            if (marca != null) {
+                marca.peso += nuevo - anterior;
+                agregados.add(claveMarca);
+            }
+            Agregado categoria = categorias.get(producto.getIdCategoria());
+            if (categoria != null) {
+                categoria.peso += nuevo - anterior;
+                agregados.add("C:" + producto.getIdCategoria());
+            }
+            cambio = true;
+        }
+        // Cada marca o categoría se reescribe una sola vez aunque cambien varios de sus productos
+        for (String clave : agregados) {
+            if (clave.startsWith("M:")) {
+                Agregado marca = marcas.get(clave);
+                poner(new Sugerencia(clave, Sugerencia.Tipo.MARCA, null, marca.texto, marca.peso));
+            } else {
+                Long idCategoria = Long.valueOf(clave.substring(2));
+                poner(sugerenciaCategoria(idCategoria, categorias.get(idCategoria)));
+            }
+        }
+        if (cambio && listo) {
+            publicar();
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Popularidad de un producto: su calificación por sus interacciones recientes
+     * (escala logarítmica), con preferencia por los que tienen stock
+     */
+    private double peso(ProductoListado producto) {
+        BigDecimal calificacion = producto.getCalificacionPromedio();
+        double peso = 1.0 + (calificacion != null ? calificacion.doubleValue() : 0.0);
+        peso *= 1.0 + Math.log1p(popularidad.getOrDefault(producto.getIdProducto(), 0.0));
+        return producto.getStock() != null && producto.getStock() > 0 ? peso : peso / 10;
+    }
+
+    private void agregarProducto(ProductoListado producto) {
+        productos.put(producto.getIdProducto(), producto);
+        double peso = peso(producto);
+        poner(new Sugerencia("P:" + producto.getIdProducto(), Sugerencia.Tipo.PRODUCTO,
+                producto.getIdProducto(), producto.getNombreProducto(), peso));
+
+        String claveMarca = claveMarca(producto);
+        if (claveMarca != null) {
+            Agregado marca = marcas.computeIfAbsent(claveMarca, k -> new Agregado(producto.getMarca().trim()));
+            marca.sumar(peso);
+            poner(new Sugerencia(claveMarca, Sugerencia.Tipo.MARCA, null, marca.texto, marca.peso));
+        }
+
+        if (producto.getIdCategoria() != null) {
+            Agregado categoria = categorias.computeIfAbsent(producto.getIdCategoria(),
+                    k -> new Agregado(producto.getNombreCategoria()));
+            categoria.sumar(peso);
+            poner(sugerenciaCategoria(producto.getIdCategoria(), categoria));
+        }
+    }
+
+    private void quitarProducto(Long idProducto) {
+        ProductoListado producto = productos.remove(idProducto);
+        if (producto == null) {
+            return;
+        }
+        double peso = peso(producto);
+        quitar("P:" + idProducto);
+
+        String claveMarca = claveMarca(producto);
+        Agregado marca = claveMarca != null ? marcas.get(claveMarca) : null;
+        if (marca != null) {
+            if (marca.restar(peso)) {
+                poner(new Sugerencia(claveMarca, Sugerencia.Tipo.MARCA, null, marca.texto, marca.peso));
+            } else {
+                marcas.remove(claveMarca);
+                quitar(claveMarca);
+            }
+        }
+
+        Agregado categoria = categorias.get(producto.getIdCategoria());
+        if (categoria != null) {
+            if (categoria.restar(peso)) {
+                poner(sugerenciaCategoria(producto.getIdCategoria(), categoria));
+            } else {
+                categorias.remove(producto.getIdCategoria());
+                quitar("C:" + producto.getIdCategoria());
+            }
+        }
+    }
+
+    private static String claveMarca(ProductoListado producto) {
+        String marca = producto.getMarca();
+        if (marca == null || marca.isBlank()) {
+            return null;
+        }
+        return "M:" + Sugerencia.normalizar(marca);
+    }
+
+    private static Sugerencia sugerenciaCategoria(Long idCategoria, Agregado categoria) {
+        return new Sugerencia("C:" + idCategoria, Sugerencia.Tipo.CATEGORIA, idCategoria,
+                categoria.texto, categoria.peso);
+    }
+
+    private void poner(Sugerencia sugerencia) {
+        vigentes.put(sugerencia.getClave(), sugerencia);
+        cambios.put(sugerencia.getClave(), sugerencia);
+    }
+
+    private void quitar(String clave) {
+        if (vigentes.remove(clave) != null) {
+            cambios.put(clave, null);
+        }
+    }
+
+    /**
+     * Publica la vista con los cambios pendientes, o compacta si el delta es grande
+     */
+    private void publicar() {
+        if (cambios.size() > MAX_DELTA) {
+            compactar();
+            return;
+        }
+        List<Sugerencia> delta = cambios.values().stream()
+                .filter(Objects::nonNull)
+                .toList();
+        vista = new Vista(base, delta, Set.copyOf(cambios.keySet()));
+        nuevaVersion();
+    }
+
+    private void compactar() {
+        base = IndicePrefijos.construir(vigentes.values());
+        cambios.clear();
+        vista = new Vista(base, List.of(), Set.of());
+        nuevaVersion();
+    }
+
+    private void nuevaVersion() {
+        validador = new VersionCatalogoService.Validador(
+                "\"s-" + arranque + "-" + (++version) + "\"", System.currentTimeMillis());
+    }
+
+    /**
+     * Lo que ven las consultas: la base, las sugerencias nuevas o modificadas
+     * desde la última compactación y las claves de la base que ya no valen
+     */
+    private record Vista(IndicePrefijos base, List<Sugerencia> delta, Set<String> anuladas) {
+    }
+
+    /**
+     * Marca o categoría: nombre visible, cantidad de productos y peso acumulado
+     */
+    private static final class Agregado {
+        private String texto;
+        private int cantidad;
+        private double peso;
+
+        private Agregado(String texto) {
+            this.texto = texto;
+        }
+
+        private void sumar(double pesoProducto) {
+            cantidad++;
+            peso += pesoProducto;
+        }
+
+        /**
+         * Descuenta un producto; devuelve false si ya no quedan productos
+         */
+        private boolean restar(double pesoProducto) {
+            cantidad--;
+            peso -= pesoProducto;
+            return cantidad > 0;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Evento publicado por InventarioService al confirmar una venta (pago aprobado)
+ * o al devolver el stock de un pedido reembolsado.
+ * El ranking de más vendidos lo aplica después del commit.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class VentaConfirmadaEvent {
+
+    private final Long idPedido;
+
+    /** idProducto -> unidades */
+    private final Map<Long, Integer> unidades;
+
+    private final boolean devolucion;
+
+    public static VentaConfirmadaEvent venta(Long idPedido, Map<Long, Integer> unidades) {
+        return new VentaConfirmadaEvent(idPedido, unidades, false);
+    }
+
+    public static VentaConfirmadaEvent devolucion(Long idPedido, Map<Long, Integer> unidades) {
+        return new VentaConfirmadaEvent(idPedido, unidades, true);
+    }
+}
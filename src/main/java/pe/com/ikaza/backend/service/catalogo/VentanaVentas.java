@@ -0,0 +1,45 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+/**
+ * Ventanas de tiempo del ranking de más vendidos
+ */
+public enum VentanaVentas {
+
+    TOTAL(0),
+    SIETE_DIAS(7),
+    TREINTA_DIAS(30);
+
+    private final int dias;
+
+    VentanaVentas(int dias) {
+        this.dias = dias;
+    }
+
+    /**
+     * Días que abarca la ventana (0 = todo el historial)
+     */
+    public int getDias() {
+        return dias;
+    }
+
+    /**
+     * Interpreta el parámetro ?ventana= (total, 7d, 30d); null o vacío = TOTAL
+     */
+    public static VentanaVentas desdeParametro(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return TOTAL;
+        }
+        switch (valor.trim().toLowerCase()) {
+            case "total":
+                return TOTAL;
+            case "7":
+            case "7d":
+                return SIETE_DIAS;
+            case "30":
+            case "30d":
+                return TREINTA_DIAS;
+            default:
+                throw new IllegalArgumentException("Ventana no válida: " + valor + " (usar total, 7d o 30d)");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión del catálogo para las peticiones condicionales (ETag / Last-Modified).
+ * Recibe los mismos deltas que los demás índices y lleva un contador global,
+ * una revisión por producto y otra para el listado de categorías, así que
+ * validar una petición no toca la BD. Un evento de stock solo cambia la versión
+ * si cambia el stock que muestran los listados (los que no lo mueven, como una
+ * reserva, no invalidan nada). El instante de arranque forma parte del
+ * ETag: tras un reinicio los contadores vuelven a empezar y no deben coincidir
+ * con ETags emitidos antes.
+ */
+@Service
+public class VersionCatalogoService implements IndiceCatalogo {
+
+    @Value("${catalogo.etag.habilitado:false}")
+    private boolean habilitado;
+
+    private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong contador = new AtomicLong();
+    private final Map<Long, Marca> productos = new ConcurrentHashMap<>();
+
+    private volatile long versionCatalogo;
+    private volatile long modificadoCatalogo;
+    private volatile long versionCategorias;
+    private volatile long modificadoCategorias;
+    private volatile boolean listo = false;
+
+    /**
+     * ETag y fecha de modificación (epoch ms) de un recurso
+     */
+    public record Validador(String etag, long modificado) {
+    }
+
+    /**
+     * Validador de las lecturas de listado, búsqueda y filtros del catálogo
+     * (null si no está disponible)
+     */
+    public Validador catalogo() {
+        if (!isDisponible()) {
+            return null;
+        }
+        return new Validador("\"c-" + arranque + "-" + versionCatalogo + "\"", modificadoCatalogo);
+    }
+
+    /**
+     * Validador de un producto (null si no está disponible o el producto no existe)
+     */
+    public Validador producto(Long idProducto) {
+        Marca marca = isDisponible() ? productos.get(idProducto) : null;
+        if (marca == null) {
+            return null;
+        }
+        return new Validador("\"p" + idProducto + "-" + arranque + "-" + marca.revision + "\"", marca.modificado);
+    }
+
+    /**
+     * Validador de las lecturas de categorías (incluyen la cantidad de productos)
+     */
+    public Validador categorias() {
+        if (!isDisponible()) {
+            return null;
+        }
+        return new Validador("\"k-" + arranque + "-" + versionCategorias + "\"", modificadoCategorias);
+    }
+
+    public boolean isDisponible() {
+        return habilitado && listo;
+    }
+
+    // ========== ESCRITURAS (IndiceCatalogo) ==========
+
+    @Override
+    public synchronized void reconstruir(Collection<ProductoDocumento> documentos) {
+        if (!habilitado) {
+            return;
+        }
+        long revision = contador.incrementAndGet();
+        productos.clear();
+        for (ProductoDocumento documento : documentos) {
+            ProductoListado listado = documento.getListado();
+            productos.put(listado.getIdProducto(), new Marca(revision,
+                    milisegundos(listado.getFechaActualizacion()), listado.getIdCategoria(), listado.getStock()));
+        }
+        // Tras una recarga no se sabe qué cambió: todo cuenta como modificado ahora
+        long ahora = System.currentTimeMillis();
+        versionCatalogo = revision;
+        modificadoCatalogo = ahora;
+        versionCategorias = revision;
+        modificadoCategorias = ahora;
+        listo = true;
+    }
+
+    @Override
+    public synchronized void indexar(ProductoDocumento documento) {
+        if (!habilitado) {
+            return;
+        }
+        ProductoListado listado = documento.getListado();
+        long revision = contador.incrementAndGet();
+        long ahora = System.currentTimeMillis();
+        Marca anterior = productos.put(listado.getIdProducto(), new Marca(revision,
+                Math.max(ahora, milisegundos(listado.getFechaActualizacion())), listado.getIdCategoria(),
+                listado.getStock()));
+        cambioCatalogo(revision, ahora);
+        if (anterior == null || !Objects.equals(anterior.idCategoria, listado.getIdCategoria())) {
+            cambioCategorias(revision, ahora);
+        }
+    }
+
+    @Override
+    public synchronized void eliminar(Long idProducto) {
+        if (!habilitado) {
+            return;
+        }
+        long revision = contador.incrementAndGet();
+        long ahora = System.currentTimeMillis();
+        if (productos.remove(idProducto) != null) {
+            cambioCategorias(revision, ahora);
+        }
+        cambioCatalogo(revision, ahora);
+    }
+
+    @Override
+    public synchronized void actualizarStock(Long idProducto, int stock) {
+        if (!habilitado) {
+            return;
+        }
+        Marca marca = productos.get(idProducto);
+        if (marca == null || Objects.equals(marca.stock, stock)) {
+            return;
+        }
+        long revision = contador.incrementAndGet();
+        long ahora = System.currentTimeMillis();
+        productos.put(idProducto, new Marca(revision, ahora, marca.idCategoria, stock));
+        cambioCatalogo(revision, ahora);
+    }
+
+    @Override
+    public synchronized void renombrarCategoria(Long idCategoria, String nombreCategoria) {
+        if (!habilitado) {
+            return;
+        }
+        long revision = contador.incrementAndGet();
+        long ahora = System.currentTimeMillis();
+        productos.replaceAll((id, marca) -> idCategoria.equals(marca.idCategoria)
+                ? new Marca(revision, ahora, idCategoria, marca.stock)
+                : marca);
+        cambioCatalogo(revision, ahora);
+        cambioCategorias(revision, ahora);
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private void cambioCatalogo(long revision, long ahora) {
+        versionCatalogo = revision;
+        modificadoCatalogo = ahora;
+    }
+
+    private void cambioCategorias(long revision, long ahora) {
+        versionCategorias = revision;
+        modificadoCategorias = ahora;
+    }
+
+    private static long milisegundos(LocalDateTime fecha) {
+        return fecha != null ? fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    /**
+     * Revisión, última modificación, categoría y stock publicado de un producto
+     */
+    private record Marca(long revision, long modificado, Long idCategoria, Integer stock) {
+    }
+}
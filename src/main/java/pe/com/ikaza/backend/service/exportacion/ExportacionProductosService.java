@@ -0,0 +1,270 @@
+package pe.com.ikaza.backend.service.exportacion;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.com.ikaza.backend.enums.FormatoArchivo;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación completa del catálogo en CSV o NDJSON.
+ * Las filas se leen con un cursor de la BD (fetch size acotado, solo hacia adelante)
+ * y se escriben directamente en la respuesta, así que la memoria usada no depende
+ * del tamaño del catálogo. No pasa por entidades ni por la consulta de detalle por producto.
+ */
+@Service
+@Slf4j
+public class ExportacionProductosService {
+
+    /** Filas que el driver trae por viaje a la BD */
+    private static final int FILAS_POR_FETCH = 1000;
+
+    private static final String COLUMNAS = "p.id_producto, p.id_categoria, c.nombre_categoria, p.nombre_producto, "
+            + "p.descripcion_producto, p.precio, p.stock, p.stock_minimo, p.calificacion_promedio, "
+            + "p.fecha_creacion, p.fecha_actualizacion";
+    private static final String COLUMNAS_DETALLE = ", d.codigo, d.marca, d.modelo, d.garantia, "
+            + "CAST(d.imagenes AS text) AS imagenes, CAST(d.atributos AS text) AS atributos, "
+            + "CAST(d.variantes AS text) AS variantes";
+
+    private static final String[] CABECERA = {"idProducto", "idCategoria", "nombreCategoria", "nombreProducto",
+            "descripcionProducto", "precio", "stock", "stockMinimo", "calificacionPromedio", "fechaCreacion",
+            "fechaActualizacion"};
+    private static final String[] CABECERA_DETALLE = {"codigo", "marca", "modelo", "garantia", "imagenesUrls",
+            "atributos", "variantes"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionProductosService(DataSource dataSource, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FILAS_POR_FETCH);
+        // PostgreSQL solo usa cursor (en vez de traer todo el resultado) dentro de una transacción
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe el catálogo (o una categoría) en la salida, ordenado por idProducto
+     */
+    public void exportar(OutputStream salida, FormatoArchivo formato, Long idCategoria, boolean incluirDetalle) {
+        long inicio = System.nanoTime();
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNAS);
+        if (incluirDetalle) {
+            sql.append(COLUMNAS_DETALLE);
+        }
+        sql.append(" FROM productos p JOIN categorias c ON c.id_categoria = p.id_categoria");
+        if (incluirDetalle) {
+            sql.append(" LEFT JOIN producto_detalle d ON d.id_producto = p.id_producto");
+        }
+        Object[] parametros = idCategoria != null ? new Object[]{idCategoria} : new Object[0];
+        if (idCategoria != null) {
+            sql.append(" WHERE p.id_categoria = ?");
+        }
+        sql.append(" ORDER BY p.id_producto");
+
+        try {
+            Escritor escritor = formato == FormatoArchivo.CSV
+                    ? new EscritorCsv(salida, incluirDetalle)
+                    : new EscritorNdjson(salida, incluirDetalle);
+            long[] filas = {0};
+            transactionTemplate.executeWithoutResult(estado -> jdbcTemplate.query(sql.toString(), rs -> {
+                try {
+                    escritor.escribir(rs);
+                    filas[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, parametros));
+            escritor.terminar();
+            log.info("Exportación de productos ({}): {} filas en {} ms", formato, filas[0],
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo la exportación", e);
+        }
+    }
+
+    // ========== ESCRITORES ==========
+
+    private interface Escritor {
+        void escribir(ResultSet rs) throws SQLException, IOException;
+
+        void terminar() throws IOException;
+    }
+
+    /**
+     * CSV con cabecera; imagenesUrls separadas por | (lo mismo que acepta la importación),
+     * atributos y variantes como JSON
+     */
+    private final class EscritorCsv implements Escritor {
+        private final Writer writer;
+        private final boolean incluirDetalle;
+
+        private EscritorCsv(OutputStream salida, boolean incluirDetalle) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+            this.incluirDetalle = incluirDetalle;
+            List<String> cabecera = new ArrayList<>(List.of(CABECERA));
+            if (incluirDetalle) {
+                cabecera.addAll(List.of(CABECERA_DETALLE));
+            }
+            escribirLinea(cabecera.toArray());
+        }
+
+        @Override
+        public void escribir(ResultSet rs) throws SQLException, IOException {
+            Object[] valores = new Object[CABECERA.length + (incluirDetalle ? CABECERA_DETALLE.length : 0)];
+            int i = 0;
+            valores[i++] = rs.getLong("id_producto");
+            valores[i++] = rs.getLong("id_categoria");
+            valores[i++] = rs.getString("nombre_categoria");
+            valores[i++] = rs.getString("nombre_producto");
+            valores[i++] = rs.getString("descripcion_producto");
+            valores[i++] = texto(rs.getBigDecimal("precio"));
+            valores[i++] = rs.getObject("stock");
+            valores[i++] = rs.getObject("stock_minimo");
+            valores[i++] = texto(rs.getBigDecimal("calificacion_promedio"));
+            valores[i++] = rs.getObject("fecha_creacion", LocalDateTime.class);
+            valores[i++] = rs.getObject("fecha_actualizacion", LocalDateTime.class);
+            if (incluirDetalle) {
+                valores[i++] = rs.getString("codigo");
+                valores[i++] = rs.getString("marca");
+                valores[i++] = rs.getString("modelo");
+                valores[i++] = rs.getString("garantia");
+                valores[i++] = urlsImagenes(rs.getString("imagenes"));
+                valores[i++] = rs.getString("atributos");
+                valores[i] = rs.getString("variantes");
+            }
+            escribirLinea(valores);
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            writer.flush();
+        }
+
+        private void escribirLinea(Object[] valores) throws IOException {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (valores[i] != null) {
+                    writer.write(campoCsv(valores[i].toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    /**
+     * Un objeto JSON por línea; imágenes, atributos y variantes se copian tal cual del jsonb
+     */
+    private final class EscritorNdjson implements Escritor {
+        private final JsonGenerator json;
+        private final boolean incluirDetalle;
+
+        private EscritorNdjson(OutputStream salida, boolean incluirDetalle) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(salida);
+            this.json.setRootValueSeparator(null);
+            this.incluirDetalle = incluirDetalle;
+        }
+
+        @Override
+        public void escribir(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("idProducto", rs.getLong("id_producto"));
+            json.writeNumberField("idCategoria", rs.getLong("id_categoria"));
+            json.writeStringField("nombreCategoria", rs.getString("nombre_categoria"));
+            json.writeStringField("nombreProducto", rs.getString("nombre_producto"));
+            escribirTexto("descripcionProducto", rs.getString("descripcion_producto"));
+            json.writeNumberField("precio", rs.getBigDecimal("precio"));
+            json.writeNumberField("stock", rs.getInt("stock"));
+            json.writeNumberField("stockMinimo", rs.getInt("stock_minimo"));
+            json.writeNumberField("calificacionPromedio", rs.getBigDecimal("calificacion_promedio"));
+            escribirTexto("fechaCreacion", fecha(rs.getObject("fecha_creacion", LocalDateTime.class)));
+            escribirTexto("fechaActualizacion", fecha(rs.getObject("fecha_actualizacion", LocalDateTime.class)));
+            if (incluirDetalle) {
+                escribirTexto("codigo", rs.getString("codigo"));
+                escribirTexto("marca", rs.getString("marca"));
+                escribirTexto("modelo", rs.getString("modelo"));
+                escribirTexto("garantia", rs.getString("garantia"));
+                escribirJson("imagenes", rs.getString("imagenes"));
+                escribirJson("atributos", rs.getString("atributos"));
+                escribirJson("variantes", rs.getString("variantes"));
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            json.flush();
+        }
+
+        private void escribirTexto(String campo, String valor) throws IOException {
+            if (valor != null) {
+                json.writeStringField(campo, valor);
+            }
+        }
+
+        private void escribirJson(String campo, String valor) throws IOException {
+            if (valor != null) {
+                json.writeFieldName(campo);
+                json.writeRawValue(valor);
+            }
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private String urlsImagenes(String imagenes) throws IOException {
+        if (imagenes == null) {
+            return null;
+        }
+        StringBuilder urls = new StringBuilder();
+        for (JsonNode imagen : objectMapper.readTree(imagenes)) {
+            String url = imagen.path("url").asText("");
+            if (!url.isEmpty()) {
+                if (urls.length() > 0) {
+                    urls.append('|');
+                }
+                urls.append(url);
+            }
+        }
+        return urls.toString();
+    }
+
+    static String campoCsv(String valor) {
+        boolean comillas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        return comillas ? '"' + valor.replace("\"", "\"\"") + '"' : valor;
+    }
+
+    private static String texto(BigDecimal valor) {
+        return valor != null ? valor.toPlainString() : null;
+    }
+
+    private static String fecha(LocalDateTime fecha) {
+        return fecha != null ? fecha.toString() : null;
+    }
+}
@@ -0,0 +1,456 @@
+package pe.com.ikaza.backend.service.exportacion;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriUtils;
+import pe.com.ikaza.backend.dto.response.PublicacionCatalogoResponse;
+import pe.com.ikaza.backend.service.catalogo.CategoriaCambiadaEvent;
+
+import javax.sql.DataSource;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Genera en disco el sitemap (índice + fragmentos de hasta 50.000 URLs) y el feed
+ * de productos para comercios (XML con espacio de nombres g: y CSV).
+ * Los productos se leen con un cursor de la BD y se escriben directo a archivo,
+ * así que la memoria no depende del tamaño del catálogo.
+ * Cada fragmento cubre un rango fijo de IDs; en cada corrida se compara la cantidad
+ * de productos y la última fechaActualizacion de cada rango con las guardadas en
+ * el manifiesto, y solo se reescriben los fragmentos que cambiaron.
+ * Los archivos se sirven como recursos estáticos (PublicacionWebConfig); se escriben
+ * primero en temporales/, que no se expone, y se mueven de forma atómica a su lugar.
+ */
+@Service
+@Slf4j
+public class PublicacionCatalogoService {
+
+    /** Máximo de URLs por archivo de sitemap (límite del protocolo) */
+    static final int URLS_POR_FRAGMENTO = 50_000;
+
+    private static final int FILAS_POR_FETCH = 1000;
+
+    public static final String SITEMAP = "sitemap.xml";
+    public static final String DIRECTORIO_SITEMAPS = "sitemaps";
+    public static final String DIRECTORIO_FEEDS = "feeds";
+    private static final String FEED_XML = "productos.xml";
+    private static final String FEED_CSV = "productos.csv";
+    private static final String MANIFIESTO = "publicacion.properties";
+    /** Carpeta hermana de sitemaps/ y feeds/ que no se sirve: ahí se escriben los temporales */
+    private static final String DIRECTORIO_TEMPORALES = "temporales";
+
+    private static final String NS_SITEMAP = "http://www.sitemaps.org/schemas/sitemap/0.9";
+    private static final String NS_GOOGLE = "http://base.google.com/ns/1.0";
+
+    private static final String ULTIMA_ACTUALIZACION =
+            "GREATEST(p.fecha_actualizacion, p.fecha_creacion, d.fecha_actualizacion)";
+
+    private static final String SQL_RESUMEN = "SELECT p.id_producto / ? AS fragmento, COUNT(*) AS productos, "
+            + "MAX(" + ULTIMA_ACTUALIZACION + ") AS ultima "
+            + "FROM productos p LEFT JOIN producto_detalle d ON d.id_producto = p.id_producto "
+            + "GROUP BY 1 ORDER BY 1";
+
+    private static final String SQL_FRAGMENTO = "SELECT p.id_producto, d.slug, "
+            + ULTIMA_ACTUALIZACION + " AS ultima "
+            + "FROM productos p LEFT JOIN producto_detalle d ON d.id_producto = p.id_producto "
+            + "WHERE p.id_producto >= ? AND p.id_producto < ? ORDER BY p.id_producto";
+
+    private static final String SQL_FEED = "SELECT p.id_producto, p.nombre_producto, p.descripcion_producto, "
+            + "p.precio, p.stock, c.nombre_categoria, d.codigo, d.marca, d.imagen_principal, d.slug "
+            + "FROM productos p JOIN categorias c ON c.id_categoria = p.id_categoria "
+            + "LEFT JOIN producto_detalle d ON d.id_producto = p.id_producto ORDER BY p.id_producto";
+
+    private static final String[] CABECERA_FEED = {"id", "title", "description", "link", "image_link",
+            "availability", "price", "brand", "mpn", "product_type", "condition"};
+
+    private static final DateTimeFormatter FORMATO_LASTMOD = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    private static final ZoneId ZONA = ZoneId.of("America/Lima");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    @Value("${publicacion.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${publicacion.directorio:publicacion/}")
+    private String directorio;
+
+    /** URL pública del sitio (los enlaces de productos y del sitemap parten de aquí) */
+    @Value("${publicacion.url-base:${app.frontend.url}}")
+    private String urlBase;
+
+    @Value("${publicacion.ruta-producto:/producto/}")
+    private String rutaProducto;
+
+    @Value("${publicacion.moneda:PEN}")
+    private String moneda;
+
+    /** Un cambio de categoría no toca fechaActualizacion de los productos, pero sí el feed */
+    private volatile boolean categoriasCambiadas = false;
+
+    public PublicacionCatalogoService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FILAS_POR_FETCH);
+        // PostgreSQL solo usa cursor (en vez de traer todo el resultado) dentro de una transacción
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoriaCambiada(CategoriaCambiadaEvent evento) {
+        categoriasCambiadas = true;
+    }
+
+    @Scheduled(initialDelayString = "${publicacion.refresco:900000}",
+            fixedDelayString = "${publicacion.refresco:900000}")
+    public void regenerarProgramado() {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            regenerar(false);
+        } catch (Exception e) {
+            log.error("Error generando el sitemap y el feed de productos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Regenera los fragmentos del sitemap que cambiaron desde la última corrida (o todos
+     * si completo) y, si hubo algún cambio, el índice del sitemap y el feed
+     */
+    public synchronized PublicacionCatalogoResponse regenerar(boolean completo) {
+        long inicio = System.nanoTime();
+        Path raiz = Paths.get(directorio);
+        try {
+            Files.createDirectories(raiz.resolve(DIRECTORIO_SITEMAPS));
+            Files.createDirectories(raiz.resolve(DIRECTORIO_FEEDS));
+            limpiarTemporales(raiz.resolve(DIRECTORIO_TEMPORALES));
+
+            Properties anterior = leerManifiesto(raiz);
+            Properties actual = new Properties();
+            TreeMap<Long, LocalDateTime> fragmentos = new TreeMap<>();
+            long[] productos = {0};
+            jdbcTemplate.query(SQL_RESUMEN, rs -> {
+                long fragmento = rs.getLong("fragmento");
+                LocalDateTime ultima = rs.getObject("ultima", LocalDateTime.class);
+                productos[0] += rs.getLong("productos");
+                fragmentos.put(fragmento, ultima);
+                actual.setProperty(claveFragmento(fragmento), rs.getLong("productos") + "|" + ultima);
+            }, URLS_POR_FRAGMENTO);
+
+            int regenerados = 0;
+            for (Long fragmento : fragmentos.keySet()) {
+                String clave = claveFragmento(fragmento);
+                Path archivo = raiz.resolve(DIRECTORIO_SITEMAPS).resolve(nombreFragmento(fragmento));
+                if (completo || !actual.getProperty(clave).equals(anterior.getProperty(clave))
+                        || !Files.exists(archivo)) {
+                    escribirFragmento(archivo, fragmento);
+                    regenerados++;
+                }
+            }
+            int eliminados = 0;
+            for (String clave : anterior.stringPropertyNames()) {
+                if (clave.startsWith("fragmento.") && actual.getProperty(clave) == null) {
+                    long fragmento = Long.parseLong(clave.substring("fragmento.".length()));
+                    Files.deleteIfExists(raiz.resolve(DIRECTORIO_SITEMAPS).resolve(nombreFragmento(fragmento)));
+                    eliminados++;
+                }
+            }
+
+            boolean cambios = regenerados > 0 || eliminados > 0 || categoriasCambiadas
+                    || !Files.exists(raiz.resolve(SITEMAP))
+                    || !Files.exists(raiz.resolve(DIRECTORIO_FEEDS).resolve(FEED_XML));
+            if (cambios) {
+                categoriasCambiadas = false;
+                escribirIndice(raiz.resolve(SITEMAP), fragmentos);
+                escribirFeed(raiz.resolve(DIRECTORIO_FEEDS));
+                guardarManifiesto(raiz, actual);
+            }
+
+            long duracion = (System.nanoTime() - inicio) / 1_000_000;
+            if (cambios) {
+                log.info("Sitemap y feed generados: {} productos, {} de {} fragmentos regenerados en {} ms",
+                        productos[0], regenerados, fragmentos.size(), duracion);
+            }
+            return PublicacionCatalogoResponse.builder()
+                    .productos(productos[0])
+                    .fragmentos(fragmentos.size())
+                    .fragmentosRegenerados(regenerados)
+                    .fragmentosEliminados(eliminados)
+                    .feedRegenerado(cambios)
+                    .duracionMs(duracion)
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo el sitemap o el feed", e);
+        }
+    }
+
+    // ========== SITEMAP ==========
+
+    private void escribirFragmento(Path archivo, long fragmento) throws IOException {
+        long desde = fragmento * URLS_POR_FRAGMENTO;
+        escribirAtomico(archivo, salida -> {
+            XMLStreamWriter xml = iniciarXml(salida);
+            xml.writeStartElement("urlset");
+            xml.writeDefaultNamespace(NS_SITEMAP);
+            transactionTemplate.executeWithoutResult(estado -> jdbcTemplate.query(SQL_FRAGMENTO, rs -> {
+                try {
+                    xml.writeStartElement("url");
+                    elemento(xml, "loc", urlProducto(rs.getLong("id_producto"), rs.getString("slug")));
+                    elemento(xml, "lastmod", lastmod(rs.getObject("ultima", LocalDateTime.class)));
+                    xml.writeEndElement();
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, desde, desde + URLS_POR_FRAGMENTO));
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        });
+    }
+
+    private void escribirIndice(Path archivo, TreeMap<Long, LocalDateTime> fragmentos) throws IOException {
+        escribirAtomico(archivo, salida -> {
+            XMLStreamWriter xml = iniciarXml(salida);
+            xml.writeStartElement("sitemapindex");
+            xml.writeDefaultNamespace(NS_SITEMAP);
+            for (var fragmento : fragmentos.entrySet()) {
+                xml.writeStartElement("sitemap");
+                elemento(xml, "loc", quitarBarraFinal(urlBase) + "/" + DIRECTORIO_SITEMAPS + "/"
+                        + nombreFragmento(fragmento.getKey()));
+                elemento(xml, "lastmod", lastmod(fragmento.getValue()));
+                xml.writeEndElement();
+            }
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        });
+    }
+
+    // ========== FEED ==========
+
+    /**
+     * Un solo recorrido del catálogo escribe el feed XML y el CSV
+     */
+    private void escribirFeed(Path carpeta) throws IOException {
+        Path temporalXml = crearTemporal(FEED_XML);
+        Path temporalCsv = crearTemporal(FEED_CSV);
+        try (OutputStream salidaXml = new BufferedOutputStream(Files.newOutputStream(temporalXml), 64 * 1024);
+             Writer csv = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(temporalCsv),
+                     StandardCharsets.UTF_8), 64 * 1024)) {
+            XMLStreamWriter xml = iniciarXml(salidaXml);
+            xml.writeStartElement("rss");
+            xml.writeAttribute("version", "2.0");
+            xml.writeNamespace("g", NS_GOOGLE);
+            xml.writeStartElement("channel");
+            elemento(xml, "title", "Productos");
+            elemento(xml, "link", urlBase);
+            elemento(xml, "description", "Catálogo de productos");
+            escribirLineaCsv(csv, CABECERA_FEED);
+
+            transactionTemplate.executeWithoutResult(estado -> jdbcTemplate.query(SQL_FEED, rs -> {
+                try {
+                    String[] valores = valoresFeed(rs);
+                    xml.writeStartElement("item");
+                    for (int i = 0; i < CABECERA_FEED.length; i++) {
+                        if (valores[i] != null) {
+                            xml.writeStartElement("g", CABECERA_FEED[i], NS_GOOGLE);
+                            xml.writeCharacters(valores[i]);
+                            xml.writeEndElement();
+                        }
+                    }
+                    xml.writeEndElement();
+                    escribirLineaCsv(csv, valores);
+                } catch (XMLStreamException e) {
+                    throw new IllegalStateException(e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+
+            xml.writeEndElement();
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close();
+        } catch (XMLStreamException e) {
+            Files.deleteIfExists(temporalXml);
+            Files.deleteIfExists(temporalCsv);
+            throw new IOException(e);
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(temporalXml);
+            Files.deleteIfExists(temporalCsv);
+            throw e;
+        }
+        Files.move(temporalXml, carpeta.resolve(FEED_XML),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(temporalCsv, carpeta.resolve(FEED_CSV),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String[] valoresFeed(ResultSet rs) throws SQLException {
+        BigDecimal precio = rs.getBigDecimal("precio");
+        return new String[]{
+                String.valueOf(rs.getLong("id_producto")),
+                rs.getString("nombre_producto"),
+                rs.getString("descripcion_producto"),
+                urlProducto(rs.getLong("id_producto"), rs.getString("slug")),
+                rs.getString("imagen_principal"),
+                rs.getInt("stock") > 0 ? "in_stock" : "out_of_stock",
+                precio != null ? precio.setScale(2, RoundingMode.HALF_UP).toPlainString() + " " + moneda : null,
+                rs.getString("marca"),
+                rs.getString("codigo"),
+                rs.getString("nombre_categoria"),
+                "new"
+        };
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    @FunctionalInterface
+    private interface Contenido {
+        void escribir(OutputStream salida) throws IOException, XMLStreamException;
+    }
+
+    /**
+     * Escribe en un temporal fuera de las carpetas servidas y lo mueve encima del archivo:
+     * quien lo sirve nunca ve un archivo a medio escribir ni los temporales
+     */
+    private void escribirAtomico(Path archivo, Contenido contenido) throws IOException {
+        Path temporal = crearTemporal(archivo.getFileName().toString());
+        try (OutputStream salida = new BufferedOutputStream(Files.newOutputStream(temporal), 64 * 1024)) {
+            contenido.escribir(salida);
+        } catch (XMLStreamException e) {
+            Files.deleteIfExists(temporal);
+            throw new IOException(e);
+        } catch (RuntimeException | IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Temporal en la misma raíz que los archivos publicados, para que el movimiento
+     * atómico no cruce de sistema de archivos
+     */
+    private Path crearTemporal(String nombre) throws IOException {
+        return Files.createTempFile(Paths.get(directorio).resolve(DIRECTORIO_TEMPORALES), nombre, ".tmp");
+    }
+
+    /**
+     * Borra los temporales que dejó una corrida interrumpida (regenerar es synchronized,
+     * así que aquí no hay ninguno en uso)
+     */
+    private static void limpiarTemporales(Path carpeta) throws IOException {
+        Files.createDirectories(carpeta);
+        try (DirectoryStream<Path> temporales = Files.newDirectoryStream(carpeta, "*.tmp")) {
+            for (Path temporal : temporales) {
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    private XMLStreamWriter iniciarXml(OutputStream salida) throws XMLStreamException {
+        XMLStreamWriter xml = xmlOutputFactory.createXMLStreamWriter(salida, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        return xml;
+    }
+
+    private static void elemento(XMLStreamWriter xml, String nombre, String valor) throws XMLStreamException {
+        if (valor != null) {
+            xml.writeStartElement(nombre);
+            xml.writeCharacters(valor);
+            xml.writeEndElement();
+        }
+    }
+
+    private static void escribirLineaCsv(Writer writer, String[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (valores[i] != null) {
+                writer.write(ExportacionProductosService.campoCsv(valores[i]));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * URL pública del producto: por slug si tiene, si no por ID
+     */
+    private String urlProducto(long idProducto, String slug) {
+        String identificador = slug != null && !slug.isBlank()
+                ? UriUtils.encodePathSegment(slug.trim(), StandardCharsets.UTF_8)
+                : String.valueOf(idProducto);
+        return quitarBarraFinal(urlBase) + rutaProducto + identificador;
+    }
+
+    private static String lastmod(LocalDateTime fecha) {
+        return fecha != null ? fecha.atZone(ZONA).toOffsetDateTime().format(FORMATO_LASTMOD) : null;
+    }
+
+    private static String quitarBarraFinal(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static String claveFragmento(long fragmento) {
+        return "fragmento." + fragmento;
+    }
+
+    private static String nombreFragmento(long fragmento) {
+        return "productos-" + fragmento + ".xml";
+    }
+
+    private static Properties leerManifiesto(Path raiz) throws IOException {
+        Properties manifiesto = new Properties();
+        Path archivo = raiz.resolve(MANIFIESTO);
+        if (Files.exists(archivo)) {
+            try (InputStream entrada = Files.newInputStream(archivo)) {
+                manifiesto.load(entrada);
+            }
+        }
+        return manifiesto;
+    }
+
+    private void guardarManifiesto(Path raiz, Properties manifiesto) throws IOException {
+        Path temporal = crearTemporal(MANIFIESTO);
+        try (OutputStream salida = Files.newOutputStream(temporal)) {
+            manifiesto.store(salida, "Cantidad de productos y última actualización por fragmento del sitemap");
+        }
+        Files.move(temporal, raiz.resolve(MANIFIESTO),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
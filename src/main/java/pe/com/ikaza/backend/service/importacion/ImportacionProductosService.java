@@ -0,0 +1,449 @@
+package pe.com.ikaza.backend.service.importacion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.com.ikaza.backend.dto.request.ProductoImportacionRequest;
+import pe.com.ikaza.backend.dto.response.ImportacionProductosResponse;
+import pe.com.ikaza.backend.entity.Categoria;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+import pe.com.ikaza.backend.enums.FormatoArchivo;
+import pe.com.ikaza.backend.repository.CategoriaRepository;
+import pe.com.ikaza.backend.service.catalogo.AnalizadorTexto;
+import pe.com.ikaza.backend.service.catalogo.ProductosImportadosEvent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de productos desde CSV o NDJSON.
+ * El archivo se lee fila a fila (nunca completo en memoria), las categorías se
+ * resuelven con un mapa precargado y las filas válidas se guardan por lotes con
+ * batches JDBC reales: los IDs de producto se reservan de la secuencia en una sola
+ * consulta, así que productos, inventario y detalle se insertan sin depender de
+ * las claves IDENTITY (que impiden el batch de Hibernate). Cada lote va en su propia
+ * transacción y, al confirmarse, se publica un ProductosImportadosEvent con sus IDs:
+ * los índices en memoria los indexan como delta, sin recargar todo el catálogo.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImportacionProductosService {
+
+    private static final int MAX_ERRORES = 500;
+    private static final String PREFIJO_ATRIBUTO = "atributo.";
+
+    private static final String SQL_IDS = "SELECT nextval(pg_get_serial_sequence('productos', 'id_producto')) "
+            + "FROM generate_series(1, ?)";
+    private static final String SQL_PRODUCTO = "INSERT INTO productos (id_producto, id_categoria, nombre_producto, "
+            + "descripcion_producto, precio, stock, stock_minimo, calificacion_promedio, fecha_creacion, "
+            + "fecha_actualizacion) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+    private static final String SQL_INVENTARIO = "INSERT INTO inventario (id_producto, stock_actual, "
+            + "stock_reservado, fecha_actualizacion) VALUES (?, ?, 0, ?)";
+    private static final String SQL_DETALLE = "INSERT INTO producto_detalle (id_producto, codigo, marca, modelo, "
+            + "garantia, imagenes, imagen_principal, atributos, especificaciones, variantes, fecha_creacion, "
+            + "fecha_actualizacion) VALUES (?, ?, ?, ?, ?, CAST(? AS jsonb), ?, CAST(? AS jsonb), "
+            + "CAST('[]' AS jsonb), CAST('[]' AS jsonb), ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${importacion.productos.lote:1000}")
+    private int tamanioLote;
+
+    /** Zona con la que Hibernate guarda las fechas (las importadas deben quedar igual) */
+    @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}")
+    private String zonaBaseDatos;
+
+    /**
+     * Importa todas las filas del flujo. Las filas inválidas se reportan y se saltan.
+     */
+    public ImportacionProductosResponse importar(InputStream entrada, FormatoArchivo formato) {
+        long inicio = System.nanoTime();
+        Importacion importacion = new Importacion();
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            saltarBom(lector);
+            if (formato == FormatoArchivo.CSV) {
+                leerCsv(lector, importacion);
+            } else {
+                leerNdjson(lector, importacion);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo el archivo de importación", e);
+        } finally {
+            importacion.guardarPendientes();
+        }
+
+        long duracionMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        log.info("Importación de productos: {} filas, {} importadas, {} con error en {} ms",
+                importacion.procesadas, importacion.importadas, importacion.fallidas, duracionMs);
+        return new ImportacionProductosResponse(importacion.procesadas, importacion.importadas,
+                importacion.fallidas, duracionMs, importacion.procesadas * 1000L / duracionMs, importacion.errores);
+    }
+
+    // ========== LECTURA ==========
+
+    private void leerCsv(BufferedReader lector, Importacion importacion) throws IOException {
+        lector.mark(64 * 1024);
+        String primeraLinea = lector.readLine();
+        if (primeraLinea == null) {
+            return;
+        }
+        lector.reset();
+        char separador = primeraLinea.indexOf(';') >= 0 && primeraLinea.indexOf(',') < 0 ? ';' : ',';
+
+        LectorCsv csv = new LectorCsv(lector, separador);
+        List<String> cabecera = csv.leer().stream().map(String::trim).toList();
+        if (!cabecera.contains("nombreProducto")) {
+            throw new IllegalArgumentException("La cabecera del CSV debe incluir al menos nombreProducto, "
+                    + "idCategoria o nombreCategoria, precio y stock");
+        }
+
+        int fila = 0;
+        List<String> campos;
+        while ((campos = csv.leer()) != null) {
+            fila++;
+            try {
+                importacion.agregar(fila, desdeCsv(cabecera, campos));
+            } catch (IllegalArgumentException e) {
+                importacion.error(fila, e.getMessage());
+            }
+        }
+    }
+
+    private void leerNdjson(BufferedReader lector, Importacion importacion) throws IOException {
+        int fila = 0;
+        String linea;
+        while ((linea = lector.readLine()) != null) {
+            fila++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            try {
+                importacion.agregar(fila, objectMapper.readValue(linea, ProductoImportacionRequest.class));
+            } catch (JsonProcessingException e) {
+                importacion.error(fila, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static void saltarBom(BufferedReader lector) throws IOException {
+        lector.mark(1);
+        if (lector.read() != '\uFEFF') {
+            lector.reset();
+        }
+    }
+
+    /**
+     * Columnas: idCategoria | nombreCategoria, nombreProducto, descripcionProducto, precio,
+     * stock, stockMinimo, codigo, marca, modelo, garantia, imagenesUrls (separadas por |)
+     * y atributo.{clave} para cada atributo
+     */
+    private static ProductoImportacionRequest desdeCsv(List<String> cabecera, List<String> campos) {
+        ProductoImportacionRequest producto = new ProductoImportacionRequest();
+        Map<String, String> atributos = new LinkedHashMap<>();
+        for (int i = 0; i < cabecera.size() && i < campos.size(); i++) {
+            String columna = cabecera.get(i);
+            String valor = campos.get(i).trim();
+            if (valor.isEmpty()) {
+                continue;
+            }
+            switch (columna) {
+                case "idCategoria" -> producto.setIdCategoria(numero(columna, valor));
+                case "nombreCategoria" -> producto.setNombreCategoria(valor);
+                case "nombreProducto" -> producto.setNombreProducto(valor);
+                case "descripcionProducto" -> producto.setDescripcionProducto(valor);
+                case "precio" -> producto.setPrecio(decimal(columna, valor));
+                case "stock" -> producto.setStock(numero(columna, valor).intValue());
+                case "stockMinimo" -> producto.setStockMinimo(numero(columna, valor).intValue());
+                case "codigo" -> producto.setCodigo(valor);
+                case "marca" -> producto.setMarca(valor);
+                case "modelo" -> producto.setModelo(valor);
+                case "garantia" -> producto.setGarantia(valor);
+                case "imagenesUrls" -> producto.setImagenesUrls(Arrays.stream(valor.split("\\|"))
+                        .map(String::trim)
+                        .filter(url -> !url.isEmpty())
+                        .toList());
+                default -> {
+                    if (columna.startsWith(PREFIJO_ATRIBUTO) && columna.length() > PREFIJO_ATRIBUTO.length()) {
+                        atributos.put(columna.substring(PREFIJO_ATRIBUTO.length()), valor);
+                    }
+                }
+            }
+        }
+        if (!atributos.isEmpty()) {
+            producto.setAtributos(atributos);
+        }
+        return producto;
+    }
+
+    private static Long numero(String columna, String valor) {
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(columna + " no es un número entero: " + valor);
+        }
+    }
+
+    private static BigDecimal decimal(String columna, String valor) {
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(columna + " no es un número: " + valor);
+        }
+    }
+
+    // ========== ESCRITURA ==========
+
+    /**
+     * Estado de una importación: categorías y códigos conocidos, lote pendiente y resultados.
+     * Los códigos del lote pendiente se pasan a los conocidos solo si el lote se guarda
+     * (si se rechaza, esos códigos siguen libres para las filas siguientes).
+     */
+    private final class Importacion {
+
+        private final Map<Long, Categoria> categoriasPorId = new HashMap<>();
+        private final Map<String, Categoria> categoriasPorNombre = new HashMap<>();
+        private final Set<String> codigos = new HashSet<>();
+        private final Set<String> codigosLote = new HashSet<>();
+        private final List<Fila> lote = new ArrayList<>();
+        private final List<ImportacionProductosResponse.ErrorFila> errores = new ArrayList<>();
+        private int procesadas;
+        private int importadas;
+        private int fallidas;
+
+        private Importacion() {
+            for (Categoria categoria : categoriaRepository.findAll()) {
+                categoriasPorId.put(categoria.getIdCategoria(), categoria);
+                categoriasPorNombre.put(AnalizadorTexto.normalizar(categoria.getNombreCategoria()).trim(), categoria);
+            }
+            codigos.addAll(jdbcTemplate.queryForList(
+                    "SELECT codigo FROM producto_detalle WHERE codigo IS NOT NULL", String.class));
+        }
+
+        private void agregar(int fila, ProductoImportacionRequest producto) {
+            procesadas++;
+            String problema = validar(producto);
+            if (problema != null) {
+                registrarError(fila, problema);
+                return;
+            }
+            if (producto.getCodigo() != null) {
+                codigosLote.add(producto.getCodigo());
+            }
+            lote.add(new Fila(fila, producto));
+            if (lote.size() >= tamanioLote) {
+                guardarPendientes();
+            }
+        }
+
+        private void error(int fila, String mensaje) {
+            procesadas++;
+            registrarError(fila, mensaje);
+        }
+
+        private void registrarError(int fila, String mensaje) {
+            fallidas++;
+            if (errores.size() < MAX_ERRORES) {
+                errores.add(new ImportacionProductosResponse.ErrorFila(fila, mensaje));
+            }
+        }
+
+        /**
+         * Mismas reglas que ProductoRequest; además resuelve la categoría
+         */
+        private String validar(ProductoImportacionRequest producto) {
+            Categoria categoria = producto.getIdCategoria() != null
+                    ? categoriasPorId.get(producto.getIdCategoria())
+                    : producto.getNombreCategoria() != null
+                    ? categoriasPorNombre.get(AnalizadorTexto.normalizar(producto.getNombreCategoria()).trim())
+                    : null;
+            if (producto.getIdCategoria() == null && producto.getNombreCategoria() == null) {
+                return "La categoría es obligatoria";
+            }
+            if (categoria == null) {
+                return "Categoría no encontrada";
+            }
+            producto.setIdCategoria(categoria.getIdCategoria());
+
+            if (producto.getNombreProducto() == null || producto.getNombreProducto().isBlank()) {
+                return "El nombre del producto es obligatorio";
+            }
+            if (producto.getNombreProducto().length() > 200) {
+                return "El nombre no puede exceder 200 caracteres";
+            }
+            if (producto.getDescripcionProducto() != null && producto.getDescripcionProducto().length() > 500) {
+                return "La descripción no puede exceder 500 caracteres";
+            }
+            if (producto.getPrecio() == null) {
+                return "El precio es obligatorio";
+            }
+            if (producto.getPrecio().compareTo(new BigDecimal("0.01")) < 0) {
+                return "El precio debe ser mayor a 0";
+            }
+            if (producto.getStock() == null) {
+                return "El stock es obligatorio";
+            }
+            if (producto.getStock() < 0) {
+                return "El stock no puede ser negativo";
+            }
+            if (producto.getStockMinimo() == null) {
+                producto.setStockMinimo(5);
+            } else if (producto.getStockMinimo() < 1) {
+                return "El stock mínimo debe ser al menos 1";
+            }
+            if (producto.getCodigo() != null
+                    && (codigos.contains(producto.getCodigo()) || codigosLote.contains(producto.getCodigo()))) {
+                return "Ya existe un producto con el código " + producto.getCodigo();
+            }
+            return null;
+        }
+
+        /**
+         * Guarda el lote pendiente; si falla, todas sus filas se reportan con el error
+         */
+        private void guardarPendientes() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            List<Fila> filas = new ArrayList<>(lote);
+            lote.clear();
+            try {
+                transactionTemplate.executeWithoutResult(estado -> {
+                    insertar(filas);
+                    // Se entrega a los índices después del commit del lote
+                    eventPublisher.publishEvent(new ProductosImportadosEvent(
+                            filas.stream().map(f -> f.idProducto).toList()));
+                });
+                importadas += filas.size();
+                codigos.addAll(codigosLote);
+            } catch (RuntimeException e) {
+                log.warn("Lote de importación rechazado (filas {} a {}): {}",
+                        filas.get(0).numero, filas.get(filas.size() - 1).numero, e.getMessage());
+                String mensaje = "Lote rechazado por la base de datos: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                filas.forEach(f -> registrarError(f.numero, mensaje));
+            } finally {
+                codigosLote.clear();
+            }
+        }
+    }
+
+    private void insertar(List<Fila> filas) {
+        List<Long> ids = jdbcTemplate.queryForList(SQL_IDS, Long.class, filas.size());
+        Timestamp ahora = Timestamp.valueOf(zonaBaseDatos.isBlank()
+                ? LocalDateTime.now()
+                : LocalDateTime.now(ZoneId.of(zonaBaseDatos)));
+        List<Fila> conDetalle = new ArrayList<>();
+        for (int i = 0; i < filas.size(); i++) {
+            Fila fila = filas.get(i);
+            fila.idProducto = ids.get(i);
+            if (tieneDetalle(fila.producto)) {
+                conDetalle.add(fila);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_PRODUCTO, filas, filas.size(), (ps, fila) -> {
+            ProductoImportacionRequest p = fila.producto;
+            ps.setLong(1, fila.idProducto);
+            ps.setLong(2, p.getIdCategoria());
+            ps.setString(3, p.getNombreProducto());
+            ps.setString(4, p.getDescripcionProducto());
+            ps.setBigDecimal(5, p.getPrecio());
+            ps.setInt(6, p.getStock());
+            ps.setInt(7, p.getStockMinimo());
+            ps.setTimestamp(8, ahora);
+            ps.setTimestamp(9, ahora);
+        });
+        jdbcTemplate.batchUpdate(SQL_INVENTARIO, filas, filas.size(), (ps, fila) -> {
+            ps.setLong(1, fila.idProducto);
+            ps.setInt(2, fila.producto.getStock());
+            ps.setTimestamp(3, ahora);
+        });
+        if (!conDetalle.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_DETALLE, conDetalle, conDetalle.size(), (ps, fila) -> {
+                ProductoImportacionRequest p = fila.producto;
+                ps.setLong(1, fila.idProducto);
+                ps.setString(2, p.getCodigo());
+                ps.setString(3, p.getMarca());
+                ps.setString(4, p.getModelo());
+                ps.setString(5, p.getGarantia());
+                List<ProductoDetalle.ImagenDto> imagenes = imagenes(p);
+                ProductoDetalle.ImagenDto principal = ProductoDetalle.seleccionarImagenPrincipal(imagenes);
+                ps.setString(6, json(imagenes));
+                ps.setString(7, principal != null ? principal.getUrl() : null);
+                ps.setString(8, json(p.getAtributos() != null ? p.getAtributos() : Map.of()));
+                ps.setTimestamp(9, ahora);
+                ps.setTimestamp(10, ahora);
+            });
+        }
+    }
+
+    /**
+     * Mismo criterio que ProductoService: solo se crea detalle si hay datos extendidos
+     */
+    private static boolean tieneDetalle(ProductoImportacionRequest p) {
+        return p.getCodigo() != null || p.getMarca() != null || p.getModelo() != null || p.getGarantia() != null
+                || (p.getImagenesUrls() != null && !p.getImagenesUrls().isEmpty())
+                || (p.getAtributos() != null && !p.getAtributos().isEmpty());
+    }
+
+    private static List<ProductoDetalle.ImagenDto> imagenes(ProductoImportacionRequest p) {
+        List<ProductoDetalle.ImagenDto> imagenes = new ArrayList<>();
+        if (p.getImagenesUrls() != null) {
+            for (int i = 0; i < p.getImagenesUrls().size(); i++) {
+                imagenes.add(new ProductoDetalle.ImagenDto(p.getImagenesUrls().get(i), p.getNombreProducto(), i == 0, i));
+            }
+        }
+        return imagenes;
+    }
+
+    private String json(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar a JSON", e);
+        }
+    }
+
+    /**
+     * Fila válida pendiente de guardar
+     */
+    private static final class Fila {
+        private final int numero;
+        private final ProductoImportacionRequest producto;
+        private long idProducto;
+
+        private Fila(int numero, ProductoImportacionRequest producto) {
+            this.numero = numero;
+            this.producto = producto;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package pe.com.ikaza.backend.service.importacion;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de CSV (RFC 4180) registro a registro, sin cargar el archivo en memoria.
+ * Admite separador coma o punto y coma, campos entre comillas con comillas dobles
+ * escapadas ("") y saltos de línea dentro de un campo entrecomillado.
+ */
+final class LectorCsv {
+
+    private final Reader lector;
+    private final char separador;
+    private int siguiente = -2;
+
+    LectorCsv(Reader lector, char separador) {
+        this.lector = lector;
+        this.separador = separador;
+    }
+
+    /**
+     * Siguiente registro, o null al final del archivo. Las líneas vacías se saltan.
+     */
+    List<String> leer() throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean hayDatos = false;
+
+        int c;
+        while ((c = leerCaracter()) != -1) {
+            hayDatos = true;
+            if (entreComillas) {
+                if (c == '"') {
+                    if (mirar() == '"') {
+                        leerCaracter();
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && mirar() == '\n') {
+                    leerCaracter();
+                }
+                if (campos.isEmpty() && campo.length() == 0) {
+                    hayDatos = false;
+                    continue;
+                }
+                break;
+            } else {
+                campo.append((char) c);
+            }
+        }
+
+        if (!hayDatos) {
+            return null;
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private int leerCaracter() throws IOException {
+        if (siguiente != -2) {
+            int c = siguiente;
+            siguiente = -2;
+            return c;
+        }
+        return lector.read();
+    }
+
+    private int mirar() throws IOException {
+        if (siguiente == -2) {
+            siguiente = lector.read();
+        }
+        return siguiente;
+    }
+}
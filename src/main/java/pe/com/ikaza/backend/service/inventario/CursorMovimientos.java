@@ -0,0 +1,51 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import pe.com.ikaza.backend.entity.MovimientoInventario;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición dentro del historial de movimientos paginado por cursor (keyset).
+ * El historial va del más reciente al más antiguo; el cursor guarda la fecha e
+ * ID del último movimiento entregado y viaja como token opaco en Base64 URL-safe.
+ */
+public record CursorMovimientos(LocalDateTime fecha, Long idMovimiento) {
+
+    private static final String VERSION = "m1";
+
+    /**
+     * Primera página de un rango que termina (sin incluirlo) en hasta
+     */
+    public static CursorMovimientos inicial(LocalDateTime hasta) {
+        // (fecha < hasta) o (fecha = hasta e id < 0): nada en el límite exacto
+        return new CursorMovimientos(hasta, 0L);
+    }
+
+    /**
+     * Cursor que continúa después del último movimiento de una página
+     */
+    public static CursorMovimientos despuesDe(MovimientoInventario ultimo) {
+        return new CursorMovimientos(ultimo.getFechaMovimiento(), ultimo.getIdMovimiento());
+    }
+
+    public String codificar() {
+        String plano = String.join("|", VERSION, fecha.toString(), idMovimiento.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorMovimientos decodificar(String token) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = plano.split("\\|", -1);
+            if (partes.length != 3 || !VERSION.equals(partes[0])) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorMovimientos(LocalDateTime.parse(partes[1]), Long.valueOf(partes[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
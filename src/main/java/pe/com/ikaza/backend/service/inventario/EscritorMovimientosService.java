@@ -0,0 +1,401 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Escribe los movimientos de inventario fuera de la transacción de negocio.
+ * La operación de stock solo guarda sus movimientos como una fila jsonb en el
+ * outbox (una por operación, sin importar cuántos items tenga); tras el commit
+ * pasan a un buffer circular acotado y un hilo escritor los inserta en
+ * movimientos_inventario por lotes (al juntar LOTE movimientos o al cumplirse
+ * el intervalo desde el primero), borrando en la misma transacción sus filas
+ * del outbox. Si el proceso cae con movimientos en el buffer, la recuperación
+ * periódica los vuelca desde el outbox; borrar la fila decide quién los escribe,
+ * así que nunca se duplican. Cada escritura suma también sus totales al
+ * resumen diario (movimientos_inventario_diario) en la misma transacción; los
+ * ajustes de reservas suman a "reservado" en vez de a "neto".
+ */
+@Service
+@Slf4j
+public class EscritorMovimientosService {
+
+    private static final String SQL_OUTBOX = "INSERT INTO movimientos_inventario_outbox "
+            + "(movimientos, fecha_creacion) VALUES (CAST(? AS jsonb), ?) RETURNING id_outbox";
+    private static final String SQL_OUTBOX_TOMAR = "DELETE FROM movimientos_inventario_outbox "
+            + "WHERE id_outbox = ANY(?) RETURNING id_outbox";
+    private static final String COLUMNAS = "id_usuario, id_producto, tipo_movimiento, cantidad, "
+            + "stock_anterior, stock_nuevo, motivo, fecha_movimiento";
+    private static final String SQL_INSERTAR = "INSERT INTO movimientos_inventario (" + COLUMNAS
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String COLUMNAS_RESUMEN = "(fecha, id_producto, tipo_movimiento, movimientos, "
+            + "unidades, neto, reservado) ";
+    private static final String SUMAR_RESUMEN = "ON CONFLICT (fecha, id_producto, tipo_movimiento) DO UPDATE SET "
+            + "movimientos = movimientos_inventario_diario.movimientos + EXCLUDED.movimientos, "
+            + "unidades = movimientos_inventario_diario.unidades + EXCLUDED.unidades, "
+            + "neto = movimientos_inventario_diario.neto + EXCLUDED.neto, "
+            + "reservado = movimientos_inventario_diario.reservado + EXCLUDED.reservado";
+    private static final String SQL_RESUMEN = "INSERT INTO movimientos_inventario_diario " + COLUMNAS_RESUMEN
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) " + SUMAR_RESUMEN;
+    /** Lo mismo que MovimientoPendiente.esDeReserva en SQL */
+    private static final String ES_RESERVA = MovimientoPendiente.MOTIVOS_RESERVA.stream()
+            .map(motivo -> "motivo LIKE '" + motivo + "%'")
+            .collect(Collectors.joining(" OR ", "tipo_movimiento = 'AJUSTE' AND (", ")"));
+    private static final String SELECT_RESUMEN = "SELECT CAST(fecha_movimiento AS date), id_producto, "
+            + "tipo_movimiento, COUNT(*), SUM(cantidad), "
+            + "SUM(CASE WHEN " + ES_RESERVA + " THEN 0 ELSE stock_nuevo - stock_anterior END), "
+            + "SUM(CASE WHEN " + ES_RESERVA + " THEN stock_nuevo - stock_anterior ELSE 0 END) ";
+    private static final String SQL_RECUPERAR = "WITH tomados AS (DELETE FROM movimientos_inventario_outbox "
+            + "WHERE id_outbox IN (SELECT id_outbox FROM movimientos_inventario_outbox WHERE fecha_creacion < ? "
+            + "ORDER BY id_outbox LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING movimientos), "
+            + "insertados AS (INSERT INTO movimientos_inventario (" + COLUMNAS + ") SELECT " + COLUMNAS
+            + " FROM tomados, jsonb_to_recordset(tomados.movimientos) AS m(id_usuario integer, "
+            + "id_producto bigint, tipo_movimiento varchar, cantidad integer, stock_anterior integer, "
+            + "stock_nuevo integer, motivo varchar, fecha_movimiento timestamp) RETURNING " + COLUMNAS + ") "
+            + "INSERT INTO movimientos_inventario_diario " + COLUMNAS_RESUMEN + SELECT_RESUMEN
+            + "FROM insertados GROUP BY 1, 2, 3 ORDER BY 1, 2, 3 " + SUMAR_RESUMEN;
+    private static final String SQL_RESUMEN_INICIAL = "INSERT INTO movimientos_inventario_diario "
+            + COLUMNAS_RESUMEN + SELECT_RESUMEN + "FROM movimientos_inventario GROUP BY 1, 2, 3";
+
+    /** Filas del outbox por sentencia de recuperación */
+    private static final int RECUPERACION_POR_SENTENCIA = 500;
+
+    /**
+     * Movimientos de una operación y su fila en el outbox (null sin outbox)
+     */
+    record LoteMovimientos(Long idOutbox, List<MovimientoPendiente> movimientos) {
+    }
+
+    private record ClaveResumen(LocalDate fecha, Long idProducto, String tipo) implements Comparable<ClaveResumen> {
+        @Override
+        public int compareTo(ClaveResumen otra) {
+            int comparacion = fecha.compareTo(otra.fecha);
+            if (comparacion == 0) {
+                comparacion = idProducto.compareTo(otra.idProducto);
+            }
+            return comparacion != 0 ? comparacion : tipo.compareTo(otra.tipo);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean outbox;
+    private final int tamanioLote;
+    private final long intervalo;
+    private final long antiguedadRecuperacion;
+
+    /** Buffer circular acotado entre el commit y el escritor */
+    private final BlockingQueue<LoteMovimientos> buffer;
+
+    /** Lotes que se escribieron en el hilo que llama por tener el buffer lleno */
+    private final AtomicLong escriturasEnLinea = new AtomicLong();
+
+    private volatile boolean activo = false;
+    private Thread escritor;
+
+    public EscritorMovimientosService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+            @Value("${inventario.movimientos.outbox:true}") boolean outbox,
+            @Value("${inventario.movimientos.capacidad:10000}") int capacidad,
+            @Value("${inventario.movimientos.lote:500}") int tamanioLote,
+            @Value("${inventario.movimientos.intervalo:1000}") long intervalo,
+            @Value("${inventario.movimientos.recuperacion:60000}") long antiguedadRecuperacion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.outbox = outbox;
+        this.tamanioLote = tamanioLote;
+        this.intervalo = intervalo;
+        this.antiguedadRecuperacion = antiguedadRecuperacion;
+        this.buffer = new ArrayBlockingQueue<>(capacidad);
+    }
+
+    /**
+     * Registra los movimientos de una operación de stock. Dentro de la
+     * transacción de negocio solo cuesta la fila del outbox (si está activo);
+     * la escritura real ocurre después del commit.
+     */
+    public void registrar(List<MovimientoPendiente> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+        Long idOutbox = outbox ? guardarEnOutbox(movimientos) : null;
+        eventPublisher.publishEvent(new LoteMovimientos(idOutbox, List.copyOf(movimientos)));
+    }
+
+    /**
+     * Encola los movimientos una vez confirmada la transacción; con el buffer
+     * lleno se escriben en el hilo que llama (contrapresión en vez de pérdida)
+     * y se cuentan, para saber si la capacidad o el lote se quedan cortos
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMovimientosRegistrados(LoteMovimientos lote) {
+        if (!buffer.offer(lote)) {
+            long total = escriturasEnLinea.incrementAndGet();
+            log.warn("Buffer de movimientos lleno ({} lotes), escribiendo {} movimientos en línea "
+                    + "({} escrituras en línea desde el arranque)", buffer.size(), lote.movimientos().size(), total);
+            escribirSinFallar(List.of(lote));
+        }
+    }
+
+    /**
+     * Lotes escritos en línea por tener el buffer lleno desde el arranque
+     */
+    public long getEscriturasEnLinea() {
+        return escriturasEnLinea.get();
+    }
+
+    // ========== ESCRITOR ==========
+
+    /**
+     * Escribe ya, dentro de la transacción del llamador (ajustes manuales,
+     * que deben verse en el historial en cuanto se confirman)
+     */
+    public void escribirAhora(List<MovimientoPendiente> movimientos) {
+        insertar(movimientos);
+    }
+
+    /**
+     * Arma el resumen diario desde el historial si aún no existe, vuelca el
+     * outbox que dejó el proceso anterior y arranca el hilo escritor
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        inicializarResumen();
+        recuperar();
+        activo = true;
+        escritor = new Thread(this::escribirEnBucle, "escritor-movimientos");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        if (escritor != null) {
+            try {
+                escritor.join(intervalo * 2 + 5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Lo que quedó en el buffer (lo que no alcance a escribirse sigue en el outbox)
+        List<LoteMovimientos> restantes = new ArrayList<>();
+        buffer.drainTo(restantes);
+        escribirSinFallar(restantes);
+    }
+
+    /**
+     * Escribe los movimientos del outbox con más de la antigüedad configurada:
+     * operaciones cuyo proceso cayó antes de que el escritor las tomara
+     */
+    @Scheduled(initialDelayString = "${inventario.movimientos.recuperacion:60000}",
+            fixedDelayString = "${inventario.movimientos.recuperacion:60000}")
+    public void recuperar() {
+        if (!outbox) {
+            return;
+        }
+        try {
+            Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minusNanos(antiguedadRecuperacion * 1_000_000));
+            // Cada sentencia devuelve las filas de resumen tocadas: 0 = outbox vacío
+            int sentencias = 0;
+            while (jdbcTemplate.update(SQL_RECUPERAR, limite, RECUPERACION_POR_SENTENCIA) > 0) {
+                sentencias++;
+            }
+            if (sentencias > 0) {
+                log.info("Movimientos de inventario recuperados del outbox en {} lotes", sentencias);
+            }
+        } catch (Exception e) {
+            log.error("Error recuperando movimientos del outbox: {}", e.getMessage());
+        }
+    }
+
+    private void escribirEnBucle() {
+        List<LoteMovimientos> lotes = new ArrayList<>();
+        while (activo) {
+            try {
+                LoteMovimientos primero = buffer.poll(intervalo, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                // Se junta hasta LOTE movimientos o hasta cumplir el intervalo desde el primero
+                lotes.add(primero);
+                int movimientos = primero.movimientos().size();
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalo);
+                while (movimientos < tamanioLote) {
+                    LoteMovimientos siguiente = buffer.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lotes.add(siguiente);
+                    movimientos += siguiente.movimientos().size();
+                }
+                escribirSinFallar(lotes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lotes.clear();
+            }
+        }
+    }
+
+    private void escribirSinFallar(List<LoteMovimientos> lotes) {
+        if (lotes.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(estado -> escribir(lotes));
+        } catch (Exception e) {
+            // Con outbox siguen guardados y los escribe la recuperación
+            log.error("Error escribiendo {} lotes de movimientos{}: {}", lotes.size(),
+                    outbox ? " (quedan en el outbox)" : "", e.getMessage());
+        }
+    }
+
+    /**
+     * Toma del outbox las filas de los lotes (las que ya escribió la
+     * recuperación no vuelven) e inserta sus movimientos en un solo batch
+     */
+    private void escribir(List<LoteMovimientos> lotes) {
+        Long[] ids = lotes.stream()
+                .map(LoteMovimientos::idOutbox)
+                .filter(id -> id != null)
+                .toArray(Long[]::new);
+        Set<Long> tomados = new HashSet<>();
+        if (ids.length > 0) {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL_OUTBOX_TOMAR);
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                return ps;
+            }, (RowCallbackHandler) rs -> tomados.add(rs.getLong(1)));
+        }
+
+        List<MovimientoPendiente> filas = new ArrayList<>();
+        for (LoteMovimientos lote : lotes) {
+            if (lote.idOutbox() == null || tomados.contains(lote.idOutbox())) {
+                filas.addAll(lote.movimientos());
+            }
+        }
+        insertar(filas);
+    }
+
+    /**
+     * Inserta los movimientos en un solo batch y suma sus totales al resumen diario
+     */
+    private void insertar(List<MovimientoPendiente> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        // Con reWriteBatchedInserts el driver lo envía como INSERT multi-fila
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, filas, filas.size(), (ps, m) -> {
+            if (m.idUsuario() != null) {
+                ps.setInt(1, m.idUsuario());
+            } else {
+                ps.setNull(1, Types.INTEGER);
+            }
+            ps.setLong(2, m.idProducto());
+            ps.setString(3, m.tipo().name());
+            ps.setInt(4, m.cantidad());
+            ps.setInt(5, m.stockAnterior());
+            ps.setInt(6, m.stockNuevo());
+            ps.setString(7, m.motivo());
+            ps.setTimestamp(8, Timestamp.valueOf(m.fecha()));
+        });
+        acumularResumen(filas);
+        log.debug("Movimientos de inventario escritos: {}", filas.size());
+    }
+
+    /**
+     * Upsert de los totales del lote por día, producto y tipo. Las claves van
+     * ordenadas para que dos escritores concurrentes no se bloqueen en ciclo.
+     */
+    private void acumularResumen(List<MovimientoPendiente> filas) {
+        Map<ClaveResumen, long[]> totales = new TreeMap<>();
+        for (MovimientoPendiente m : filas) {
+            long[] total = totales.computeIfAbsent(
+                    new ClaveResumen(m.fecha().toLocalDate(), m.idProducto(), m.tipo().name()), k -> new long[4]);
+            total[0]++;
+            total[1] += m.cantidad();
+            // Las reservas no cambian el stock actual: van aparte del neto
+            total[m.esDeReserva() ? 3 : 2] += m.stockNuevo() - m.stockAnterior();
+        }
+        jdbcTemplate.batchUpdate(SQL_RESUMEN, new ArrayList<>(totales.entrySet()), totales.size(), (ps, t) -> {
+            ps.setDate(1, Date.valueOf(t.getKey().fecha()));
+            ps.setLong(2, t.getKey().idProducto());
+            ps.setString(3, t.getKey().tipo());
+            ps.setLong(4, t.getValue()[0]);
+            ps.setLong(5, t.getValue()[1]);
+            ps.setLong(6, t.getValue()[2]);
+            ps.setLong(7, t.getValue()[3]);
+        });
+    }
+
+    /**
+     * Primera vez con el resumen diario: se arma desde todo el historial. La
+     * tabla se bloquea para que ningún escritor sume antes de la carga.
+     */
+    private void inicializarResumen() {
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                jdbcTemplate.execute("LOCK TABLE movimientos_inventario_diario IN EXCLUSIVE MODE");
+                Boolean vacio = jdbcTemplate.queryForObject(
+                        "SELECT NOT EXISTS (SELECT 1 FROM movimientos_inventario_diario)", Boolean.class);
+                if (Boolean.TRUE.equals(vacio)) {
+                    int filas = jdbcTemplate.update(SQL_RESUMEN_INICIAL);
+                    if (filas > 0) {
+                        log.info("Resumen diario de movimientos armado desde el historial: {} filas", filas);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error armando el resumen diario de movimientos: {}", e.getMessage());
+        }
+    }
+
+    private Long guardarEnOutbox(List<MovimientoPendiente> movimientos) {
+        try {
+            String json = objectMapper.writeValueAsString(movimientos);
+            return jdbcTemplate.queryForObject(SQL_OUTBOX, Long.class, json,
+                    Timestamp.valueOf(LocalDateTime.now()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudieron serializar los movimientos de inventario", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pe.com.ikaza.backend.dto.projection.VencimientoReserva;
+import pe.com.ikaza.backend.repository.ReservaStockRepository;
+import pe.com.ikaza.backend.service.InventarioService;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Libera las reservas de stock de cada pedido en su vencimiento exacto (con
+ * resolución de TICK ms) en lugar de esperar a la limpieza de pedidos.
+ * Los vencimientos viven en una rueda de temporizadores en memoria; cada tick
+ * libera en un solo lote todos los pedidos vencidos. La rueda se reconstruye
+ * desde reservas_stock al arrancar, así que un reinicio no pierde vencimientos.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExpiracionReservasService {
+
+    private static final long TICK = 1000;
+    /** Una vuelta de la rueda = 4096 s (algo más de una hora) */
+    private static final int RANURAS = 4096;
+    /** Espera antes de reintentar pedidos que no se pudieron liberar */
+    private static final long REINTENTO = 30_000;
+
+    private final InventarioService inventarioService;
+    private final ReservaStockRepository reservaStockRepository;
+
+    // Protegida por sí misma
+    private final RuedaTemporizadores<Long> rueda =
+            new RuedaTemporizadores<>(TICK, RANURAS, System.currentTimeMillis());
+
+    /**
+     * Reprograma los vencimientos de las reservas del libro. stock_reservado no se
+     * toca: recalcularlo es un paso explícito (InventarioService.reconciliarReservas).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        List<VencimientoReserva> vencimientos = reservaStockRepository.findVencimientosPorPedido();
+        synchronized (rueda) {
+            vencimientos.forEach(v -> rueda.programar(v.getIdPedido(), milisegundos(v.getFechaExpiracion())));
+        }
+        log.info("Reservas de stock cargadas: {} pedidos", vencimientos.size());
+    }
+
+    /**
+     * Programa el vencimiento de una reserva una vez confirmada la transacción
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReservaCreada(ReservaCreadaEvent evento) {
+        synchronized (rueda) {
+            rueda.programar(evento.getIdPedido(), milisegundos(evento.getFechaExpiracion()));
+        }
+    }
+
+    /**
+     * Libera en un lote las reservas de los pedidos vencidos en este tick.
+     * Los pedidos ya confirmados o cancelados no tienen reservas y no hacen nada.
+     */
+    @Scheduled(fixedDelay = TICK)
+    public void liberarVencidas() {
+        List<Long> pedidos;
+        synchronized (rueda) {
+            pedidos = rueda.avanzar(System.currentTimeMillis());
+        }
+        if (pedidos.isEmpty()) {
+            return;
+        }
+        try {
+            int liberadas = inventarioService.liberarReservasVencidas(pedidos);
+            if (liberadas > 0) {
+                log.info("Reservas vencidas liberadas: {} líneas de {} pedidos", liberadas, pedidos.size());
+            }
+        } catch (Exception e) {
+            log.error("Error liberando reservas vencidas: {}", e.getMessage());
+            long reintento = System.currentTimeMillis() + REINTENTO;
+            synchronized (rueda) {
+                pedidos.forEach(id -> rueda.programar(id, reintento));
+            }
+        }
+    }
+
+    private static long milisegundos(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,38 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import pe.com.ikaza.backend.entity.MovimientoInventario;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Movimiento de inventario aún no escrito en movimientos_inventario.
+ * Los nombres JSON son las columnas de la tabla (el outbox se vuelca con jsonb_to_recordset).
+ */
+public record MovimientoPendiente(
+        @JsonProperty("id_usuario") Integer idUsuario,
+        @JsonProperty("id_producto") Long idProducto,
+        @JsonProperty("tipo_movimiento") MovimientoInventario.TipoMovimiento tipo,
+        @JsonProperty("cantidad") int cantidad,
+        @JsonProperty("stock_anterior") int stockAnterior,
+        @JsonProperty("stock_nuevo") int stockNuevo,
+        @JsonProperty("motivo") String motivo,
+        @JsonProperty("fecha_movimiento") LocalDateTime fecha) {
+
+    /** Motivos de los ajustes de reservas (se completan con el id del pedido) */
+    public static final String MOTIVO_RESERVA = "Reserva de stock para pedido #";
+    public static final String MOTIVO_CANCELACION = "Liberación de stock - Pedido cancelado #";
+    public static final String MOTIVO_VENCIMIENTO = "Reserva vencida - Pedido #";
+
+    static final List<String> MOTIVOS_RESERVA = List.of(MOTIVO_RESERVA, MOTIVO_CANCELACION, MOTIVO_VENCIMIENTO);
+
+    /**
+     * Ajuste de una reserva: stock_anterior y stock_nuevo son unidades
+     * reservadas, no stock actual
+     */
+    public boolean esDeReserva() {
+        return tipo == MovimientoInventario.TipoMovimiento.AJUSTE && motivo != null
+                && MOTIVOS_RESERVA.stream().anyMatch(motivo::startsWith);
+    }
+}
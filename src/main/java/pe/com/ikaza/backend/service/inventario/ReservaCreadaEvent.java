@@ -0,0 +1,18 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado por InventarioService al reservar el stock de un pedido.
+ * ExpiracionReservasService programa su vencimiento después del commit.
+ */
+@Getter
+@AllArgsConstructor
+public class ReservaCreadaEvent {
+
+    private final Long idPedido;
+    private final LocalDateTime fechaExpiracion;
+}
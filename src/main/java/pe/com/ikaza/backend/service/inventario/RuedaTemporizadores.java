@@ -0,0 +1,81 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rueda de temporizadores (hashed timing wheel).
+ * El tiempo se divide en ticks de TICK ms y cada tick cae en una de RANURAS
+ * ranuras (módulo); programar es O(1) y avanzar solo revisa las ranuras de los
+ * ticks transcurridos, así que no hay que recorrer ni ordenar todos los
+ * vencimientos. Un elemento cuyo tick está a más de una vuelta de distancia
+ * comparte ranura con otros y se queda hasta que su tick llegue.
+ * No es thread-safe: ExpiracionReservasService la usa sincronizada.
+ */
+final class RuedaTemporizadores<T> {
+
+    private record Entrada<T>(T valor, long tick) {
+    }
+
+    private final long tick;
+    private final List<List<Entrada<T>>> ranuras;
+
+    /** Próximo tick por procesar */
+    private long siguiente;
+    private int tamanio;
+
+    RuedaTemporizadores(long tick, int ranuras, long ahora) {
+        this.tick = tick;
+        this.ranuras = new ArrayList<>(ranuras);
+        for (int i = 0; i < ranuras; i++) {
+            this.ranuras.add(new ArrayList<>());
+        }
+        this.siguiente = ahora / tick;
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+
+    /**
+     * Programa el valor para el instante dado (ms); si ya pasó, vence en el próximo avance
+     */
+    void programar(T valor, long instante) {
+        long t = Math.max(Math.ceilDiv(instante, tick), siguiente);
+        ranuras.get(ranura(t)).add(new Entrada<>(valor, t));
+        tamanio++;
+    }
+
+    /**
+     * Avanza la rueda hasta el instante dado y devuelve lo que venció
+     */
+    List<T> avanzar(long ahora) {
+        long hasta = ahora / tick;
+        List<T> vencidos = new ArrayList<>();
+        if (hasta < siguiente) {
+            return vencidos;
+        }
+        // Tras una pausa larga basta con una vuelta completa
+        long pasos = Math.min(hasta - siguiente + 1, ranuras.size());
+        for (long t = siguiente; t < siguiente + pasos; t++) {
+            List<Entrada<T>> ranura = ranuras.get(ranura(t));
+            if (ranura.isEmpty()) {
+                continue;
+            }
+            ranura.removeIf(e -> {
+                if (e.tick() <= hasta) {
+                    vencidos.add(e.valor());
+                    return true;
+                }
+                return false;
+            });
+        }
+        siguiente = hasta + 1;
+        tamanio -= vencidos.size();
+        return vencidos;
+    }
+
+    private int ranura(long t) {
+        return (int) Math.floorMod(t, (long) ranuras.size());
+    }
+}
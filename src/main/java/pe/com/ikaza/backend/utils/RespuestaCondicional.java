@@ -0,0 +1,82 @@
+package pe.com.ikaza.backend.utils;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import pe.com.ikaza.backend.service.catalogo.VersionCatalogoService;
+
+import java.util.function.Supplier;
+
+/**
+ * Peticiones condicionales (If-None-Match / If-Modified-Since) para los GET del catálogo.
+ * El ETag sale de VersionCatalogoService antes de armar la respuesta: si el cliente
+ * ya tiene esa versión se responde 304 sin consultar nada; si no, la respuesta
+ * se genera normalmente y se le agregan ETag, Last-Modified y Cache-Control.
+ */
+@Component
+@RequiredArgsConstructor
+public class RespuestaCondicional {
+
+    /** El cliente puede guardar la respuesta pero debe revalidarla en cada uso */
+    private static final CacheControl REVALIDAR = CacheControl.noCache();
+
+    private final VersionCatalogoService versionCatalogoService;
+
+    /**
+     * Listados, búsquedas y filtros de productos
+     */
+    public ResponseEntity<?> catalogo(WebRequest request, Supplier<ResponseEntity<?>> respuesta) {
+        return responder(request, versionCatalogoService.catalogo(), respuesta);
+    }
+
+    /**
+     * Lecturas de un solo producto
+     */
+    public ResponseEntity<?> producto(WebRequest request, Long idProducto,
+            Supplier<ResponseEntity<?>> respuesta) {
+        return responder(request, versionCatalogoService.producto(idProducto), respuesta);
+    }
+
+    /**
+     * Lecturas de categorías
+     */
+    public ResponseEntity<?> categorias(WebRequest request, Supplier<ResponseEntity<?>> respuesta) {
+        return responder(request, versionCatalogoService.categorias(), respuesta);
+    }
+
+    /**
+     * Recursos con validador propio (por ejemplo las colecciones de inicio)
+     */
+    public ResponseEntity<?> validada(WebRequest request, VersionCatalogoService.Validador validador,
+            Supplier<ResponseEntity<?>> respuesta) {
+        return responder(request, validador, respuesta);
+    }
+
+    private static ResponseEntity<?> responder(WebRequest request, VersionCatalogoService.Validador validador,
+            Supplier<ResponseEntity<?>> respuesta) {
+        if (validador == null) {
+            return respuesta.get();
+        }
+        if (request.checkNotModified(validador.etag(), validador.modificado())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(validador.etag())
+                    .lastModified(validador.modificado())
+                    .cacheControl(REVALIDAR)
+                    .build();
+        }
+
+        ResponseEntity<?> generada = respuesta.get();
+        if (!generada.getStatusCode().is2xxSuccessful()) {
+            return generada;
+        }
+        return ResponseEntity.status(generada.getStatusCode())
+                .headers(generada.getHeaders())
+                .eTag(validador.etag())
+                .lastModified(validador.modificado())
+                .cacheControl(REVALIDAR)
+                .body(generada.getBody());
+    }
+}
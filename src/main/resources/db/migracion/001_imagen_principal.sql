@@ -0,0 +1,18 @@
+-- Rellena producto_detalle.imagen_principal a partir del jsonb imagenes.
+-- Se ejecuta una sola vez tras desplegar la columna (ddl-auto la crea vacía);
+-- después la mantienen ProductoDetalle (@PrePersist/@PreUpdate) y la importación masiva.
+-- Compara contra el jsonb, así que también corrige valores desactualizados y
+-- volver a ejecutarla no cambia ninguna fila.
+UPDATE producto_detalle d
+SET imagen_principal = CASE
+        WHEN jsonb_typeof(d.imagenes) = 'array' AND jsonb_array_length(d.imagenes) > 0 THEN COALESCE(
+            (SELECT i ->> 'url' FROM jsonb_array_elements(d.imagenes) i
+             WHERE i ->> 'esPrincipal' = 'true' LIMIT 1),
+            d.imagenes -> 0 ->> 'url')
+    END
+WHERE d.imagen_principal IS DISTINCT FROM CASE
+        WHEN jsonb_typeof(d.imagenes) = 'array' AND jsonb_array_length(d.imagenes) > 0 THEN COALESCE(
+            (SELECT i ->> 'url' FROM jsonb_array_elements(d.imagenes) i
+             WHERE i ->> 'esPrincipal' = 'true' LIMIT 1),
+            d.imagenes -> 0 ->> 'url')
+    END;
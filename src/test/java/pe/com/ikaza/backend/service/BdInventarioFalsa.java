@@ -0,0 +1,304 @@
+package pe.com.ikaza.backend.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tablas inventario, reservas_stock y productos.stock en memoria. Cada sentencia
+ * de InventarioService se reconoce por su comienzo y se aplica con su condición
+ * WHERE, así que un UPDATE condicional que no se cumple devuelve 0 filas como en la BD.
+ */
+class BdInventarioFalsa extends JdbcTemplate {
+
+    /** Línea de reservas_stock */
+    static final class Reserva {
+        final long idPedido;
+        final long idProducto;
+        int cantidad;
+        LocalDateTime expiracion;
+
+        Reserva(long idPedido, long idProducto, int cantidad, LocalDateTime expiracion) {
+            this.idPedido = idPedido;
+            this.idProducto = idProducto;
+            this.cantidad = cantidad;
+            this.expiracion = expiracion;
+        }
+    }
+
+    /** id_producto -> {stock_actual, stock_reservado} */
+    final Map<Long, int[]> inventario = new TreeMap<>();
+    final Map<Long, Integer> stockProductos = new TreeMap<>();
+    final List<Reserva> reservas = new ArrayList<>();
+    /** Ids bloqueados por cada SELECT ... FOR UPDATE, en orden */
+    final List<List<Long>> bloqueos = new ArrayList<>();
+
+    /** Se ejecuta después de cada bloqueo (simula una escritura que no respetó el bloqueo) */
+    Runnable trasBloquear = () -> { };
+
+    void inventario(long idProducto, int actual, int reservado) {
+        inventario.put(idProducto, new int[]{actual, reservado});
+        stockProductos.put(idProducto, actual);
+    }
+
+    int actual(long idProducto) {
+        return inventario.get(idProducto)[0];
+    }
+
+    int reservado(long idProducto) {
+        return inventario.get(idProducto)[1];
+    }
+
+    /** Unidades del libro de reservas de un producto */
+    int enLibro(long idProducto) {
+        return reservas.stream().filter(r -> r.idProducto == idProducto).mapToInt(r -> r.cantidad).sum();
+    }
+
+    @Override
+    public void query(PreparedStatementCreator creador, RowCallbackHandler filas) {
+        Map<Integer, Object> parametros = new HashMap<>();
+        String sql;
+        try {
+            Connection con = conexion(parametros);
+            creador.createPreparedStatement(con);
+            sql = ultimoSql;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+
+        List<Object[]> resultado = new ArrayList<>();
+        if (sql.startsWith("SELECT id_producto, stock_actual, stock_reservado FROM inventario")) {
+            List<Long> ids = new ArrayList<>(new TreeSet<>(ids(parametros.get(1))));
+            List<Long> bloqueados = new ArrayList<>();
+            for (Long id : ids) {
+                int[] fila = inventario.get(id);
+                if (fila != null) {
+                    bloqueados.add(id);
+                    resultado.add(new Object[]{id, fila[0], fila[1]});
+                }
+            }
+            bloqueos.add(bloqueados);
+            trasBloquear.run();
+        } else if (sql.startsWith("SELECT DISTINCT id_producto FROM reservas_stock")) {
+            Set<Long> pedidos = ids(parametros.get(1));
+            reservas.stream()
+                    .filter(r -> pedidos.contains(r.idPedido))
+                    .map(r -> r.idProducto)
+                    .distinct()
+                    .forEach(id -> resultado.add(new Object[]{id}));
+        } else if (sql.startsWith("DELETE FROM reservas_stock WHERE id_pedido = ? ")) {
+            long pedido = (Long) parametros.get(1);
+            Set<Long> productos = ids(parametros.get(2));
+            borrar(r -> r.idPedido == pedido && productos.contains(r.idProducto), resultado);
+        } else if (sql.startsWith("DELETE FROM reservas_stock WHERE id_pedido = ANY(?) AND id_producto = ANY(?)")) {
+            Set<Long> pedidos = ids(parametros.get(1));
+            Set<Long> productos = ids(parametros.get(2));
+            LocalDateTime vencidasA = parametros.get(3) != null
+                    ? ((Timestamp) parametros.get(3)).toLocalDateTime()
+                    : null;
+            borrar(r -> pedidos.contains(r.idPedido) && productos.contains(r.idProducto)
+                    && (vencidasA == null || !r.expiracion.isAfter(vencidasA)), resultado);
+        } else if (!sql.startsWith("SELECT id_producto FROM inventario ORDER BY id_producto FOR UPDATE")) {
+            throw new IllegalArgumentException("Consulta no esperada: " + sql);
+        }
+
+        try {
+            for (Object[] fila : resultado) {
+                filas.processRow(fila(fila));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> lote, int tamanio,
+            ParameterizedPreparedStatementSetter<T> setter) {
+        int[] afectadas = new int[lote.size()];
+        int i = 0;
+        for (T elemento : lote) {
+            Map<Integer, Object> p = new HashMap<>();
+            try {
+                setter.setValues(sentencia(p), elemento);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            afectadas[i++] = aplicar(sql, p);
+        }
+        return new int[][]{afectadas};
+    }
+
+    @Override
+    public int update(String sql, Object... args) {
+        if (sql.startsWith("UPDATE inventario SET stock_actual = ?, ")) {
+            int[] fila = inventario.get((Long) args[2]);
+            if (fila == null || fila[1] > (Integer) args[3]) {
+                return 0;
+            }
+            fila[0] = (Integer) args[0];
+            return 1;
+        }
+        if (sql.startsWith("UPDATE inventario i SET stock_reservado = r.total")) {
+            int corregidos = 0;
+            for (Map.Entry<Long, int[]> fila : inventario.entrySet()) {
+                int total = enLibro(fila.getKey());
+                if (fila.getValue()[1] != total) {
+                    fila.getValue()[1] = total;
+                    corregidos++;
+                }
+            }
+            return corregidos;
+        }
+        throw new IllegalArgumentException("Sentencia no esperada: " + sql);
+    }
+
+    private int aplicar(String sql, Map<Integer, Object> p) {
+        if (sql.startsWith("INSERT INTO reservas_stock")) {
+            long pedido = (Long) p.get(1);
+            long producto = (Long) p.get(2);
+            LocalDateTime expiracion = ((Timestamp) p.get(4)).toLocalDateTime();
+            for (Reserva r : reservas) {
+                if (r.idPedido == pedido && r.idProducto == producto) {
+                    r.cantidad += (Integer) p.get(3);
+                    r.expiracion = expiracion;
+                    return 1;
+                }
+            }
+            reservas.add(new Reserva(pedido, producto, (Integer) p.get(3), expiracion));
+            return 1;
+        }
+        if (sql.startsWith("UPDATE productos SET stock = ?")) {
+            stockProductos.put((Long) p.get(2), (Integer) p.get(1));
+            return 1;
+        }
+
+        int[] fila;
+        if (sql.startsWith("UPDATE inventario SET stock_reservado = stock_reservado + ?")) {
+            // AND stock_actual - stock_reservado >= ?
+            fila = inventario.get((Long) p.get(3));
+            if (fila == null || fila[0] - fila[1] < (Integer) p.get(4)) {
+                return 0;
+            }
+            fila[1] += (Integer) p.get(1);
+        } else if (sql.startsWith("UPDATE inventario SET stock_actual = stock_actual - ?")) {
+            // AND stock_reservado >= ? AND stock_actual - ? >= stock_reservado - ?
+            fila = inventario.get((Long) p.get(4));
+            if (fila == null || fila[1] < (Integer) p.get(5)
+                    || fila[0] - (Integer) p.get(6) < fila[1] - (Integer) p.get(7)) {
+                return 0;
+            }
+            fila[0] -= (Integer) p.get(1);
+            fila[1] -= (Integer) p.get(2);
+        } else if (sql.startsWith("UPDATE inventario SET stock_reservado = stock_reservado - ?")) {
+            // AND stock_reservado >= ?
+            fila = inventario.get((Long) p.get(3));
+            if (fila == null || fila[1] < (Integer) p.get(4)) {
+                return 0;
+            }
+            fila[1] -= (Integer) p.get(1);
+        } else if (sql.startsWith("UPDATE inventario SET stock_actual = stock_actual + ?")) {
+            fila = inventario.get((Long) p.get(3));
+            if (fila == null) {
+                return 0;
+            }
+            fila[0] += (Integer) p.get(1);
+        } else {
+            throw new IllegalArgumentException("Sentencia no esperada: " + sql);
+        }
+        return 1;
+    }
+
+    private void borrar(Predicate<Reserva> condicion, List<Object[]> resultado) {
+        Iterator<Reserva> it = reservas.iterator();
+        while (it.hasNext()) {
+            Reserva r = it.next();
+            if (condicion.test(r)) {
+                resultado.add(new Object[]{r.idPedido, r.idProducto, r.cantidad});
+                it.remove();
+            }
+        }
+    }
+
+    // ========== JDBC SIMULADO ==========
+
+    private String ultimoSql;
+
+    private Connection conexion(Map<Integer, Object> parametros) throws SQLException {
+        Connection con = mock(Connection.class);
+        when(con.prepareStatement(anyString())).thenAnswer(i -> {
+            ultimoSql = i.getArgument(0);
+            return sentencia(parametros);
+        });
+        when(con.createArrayOf(anyString(), any()))
+                .thenAnswer(i -> {
+                    Array array = mock(Array.class);
+                    Object[] elementos = i.getArgument(1);
+                    when(array.getArray()).thenReturn(elementos);
+                    return array;
+                });
+        return con;
+    }
+
+    /** PreparedStatement que anota cada set* por índice */
+    private static PreparedStatement sentencia(Map<Integer, Object> parametros) {
+        return mock(PreparedStatement.class, invocacion -> {
+            String metodo = invocacion.getMethod().getName();
+            if (metodo.equals("setNull")) {
+                parametros.put(invocacion.getArgument(0), null);
+            } else if (metodo.startsWith("set") && invocacion.getArguments().length == 2) {
+                parametros.put(invocacion.getArgument(0), invocacion.getArgument(1));
+            }
+            return null;
+        });
+    }
+
+    private static ResultSet fila(Object[] valores) {
+        return mock(ResultSet.class, invocacion -> {
+            String metodo = invocacion.getMethod().getName();
+            if (invocacion.getArguments().length != 1) {
+                return null;
+            }
+            Object valor = valores[invocacion.<Integer>getArgument(0) - 1];
+            return switch (metodo) {
+                case "getLong" -> ((Number) valor).longValue();
+                case "getInt" -> ((Number) valor).intValue();
+                default -> throw new UnsupportedOperationException(metodo);
+            };
+        });
+    }
+
+    private static Set<Long> ids(Object array) {
+        try {
+            Set<Long> ids = new TreeSet<>();
+            Arrays.stream((Object[]) ((Array) array).getArray()).forEach(id -> ids.add((Long) id));
+            return ids;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
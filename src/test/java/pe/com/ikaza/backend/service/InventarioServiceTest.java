@@ -0,0 +1,324 @@
+package pe.com.ikaza.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.request.AjusteStockRequest;
+import pe.com.ikaza.backend.dto.request.ItemPedidoRequest;
+import pe.com.ikaza.backend.entity.Inventario;
+import pe.com.ikaza.backend.entity.MovimientoInventario;
+import pe.com.ikaza.backend.entity.Producto;
+import pe.com.ikaza.backend.repository.ClienteRepository;
+import pe.com.ikaza.backend.repository.InventarioRepository;
+import pe.com.ikaza.backend.repository.MovimientoInventarioDiarioRepository;
+import pe.com.ikaza.backend.repository.MovimientoInventarioRepository;
+import pe.com.ikaza.backend.repository.ProductoRepository;
+import pe.com.ikaza.backend.repository.UsuarioRepository;
+import pe.com.ikaza.backend.service.catalogo.ProductoCambiadoEvent;
+import pe.com.ikaza.backend.service.catalogo.VentaConfirmadaEvent;
+import pe.com.ikaza.backend.service.inventario.EscritorMovimientosService;
+import pe.com.ikaza.backend.service.inventario.MovimientoPendiente;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventarioServiceTest {
+
+    private final BdInventarioFalsa bd = new BdInventarioFalsa();
+    private final List<Object> eventos = new ArrayList<>();
+    private final InventarioRepository inventarioRepository = mock(InventarioRepository.class);
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final EscritorMovimientosService escritorMovimientos = mock(EscritorMovimientosService.class);
+    private InventarioService servicio;
+    private InventarioAdminService adminService;
+
+    @BeforeEach
+    void configurar() {
+        servicio = new InventarioService(inventarioRepository, escritorMovimientos, productoRepository,
+                eventos::add, bd);
+        ReflectionTestUtils.setField(servicio, "minutosReserva", 60);
+        adminService = new InventarioAdminService(inventarioRepository, mock(MovimientoInventarioRepository.class),
+                mock(MovimientoInventarioDiarioRepository.class), escritorMovimientos, productoRepository,
+                mock(UsuarioRepository.class), mock(ClienteRepository.class), eventos::add, servicio);
+
+        when(productoRepository.findById(anyLong())).thenAnswer(i -> Optional.of(producto(i.getArgument(0))));
+        // La entidad se lee después del UPDATE, con lo que dejó la BD
+        when(inventarioRepository.findByProductoIdProducto(anyLong())).thenAnswer(i -> {
+            Long id = i.getArgument(0);
+            Inventario inventario = new Inventario();
+            inventario.setProducto(producto(id));
+            inventario.setStockActual(bd.actual(id));
+            inventario.setStockReservado(bd.reservado(id));
+            return Optional.of(inventario);
+        });
+        bd.inventario(1L, 10, 0);
+    }
+
+    // ========== RESERVAS, VENTAS Y DEVOLUCIONES ==========
+
+    @Test
+    void laReservaVaAlLibroYLaVentaLaConsume() {
+        servicio.reservarStock(List.of(item(1L, 3)), 50L, null);
+
+        assertEquals(3, bd.reservado(1L));
+        assertEquals(3, bd.enLibro(1L));
+
+        servicio.confirmarVenta(List.of(item(1L, 3)), 50L, null);
+
+        assertEquals(7, bd.actual(1L));
+        assertEquals(0, bd.reservado(1L));
+        assertEquals(0, bd.enLibro(1L));
+        assertEquals(7, bd.stockProductos.get(1L));
+    }
+
+    @Test
+    void sinStockSuficienteNoSeReservaNingunItem() {
+        bd.inventario(2L, 1, 0);
+
+        assertThrows(InventarioService.StockInsuficienteException.class,
+                () -> servicio.reservarStock(List.of(item(1L, 3), item(2L, 2)), 50L, null));
+
+        assertEquals(0, bd.reservado(1L));
+        assertEquals(0, bd.reservado(2L));
+        assertEquals(0, bd.reservas.size());
+    }
+
+    @Test
+    void unaReservaQueNoAfectaFilasFallaEnVezDeSobrevender() {
+        // Otra escritura toma el disponible después del bloqueo: el UPDATE condicional no afecta filas
+        bd.trasBloquear = () -> bd.inventario.get(1L)[1] = 9;
+
+        assertThrows(IllegalStateException.class,
+                () -> servicio.reservarStock(List.of(item(1L, 3)), 50L, null));
+        assertEquals(9, bd.reservado(1L));
+        assertEquals(0, bd.enLibro(1L));
+    }
+
+    @Test
+    void unaVentaQueNoAfectaFilasFalla() {
+        servicio.reservarStock(List.of(item(1L, 3)), 50L, null);
+        bd.trasBloquear = () -> bd.inventario.get(1L)[0] = 2;
+
+        assertThrows(IllegalStateException.class,
+                () -> servicio.confirmarVenta(List.of(item(1L, 3)), 50L, null));
+        assertEquals(2, bd.actual(1L));
+        assertEquals(3, bd.reservado(1L));
+    }
+
+    @Test
+    void conLaReservaVencidaLaVentaTomaDelDisponible() {
+        servicio.reservarStock(List.of(item(1L, 3)), 50L, null);
+        vencer(50L);
+        assertEquals(1, servicio.liberarReservasVencidas(List.of(50L)));
+
+        servicio.confirmarVenta(List.of(item(1L, 3)), 50L, null);
+
+        assertEquals(7, bd.actual(1L));
+        assertEquals(0, bd.reservado(1L));
+    }
+
+    @Test
+    void laDevolucionSumaAlStockYAvisaComoDevolucion() {
+        servicio.reservarStock(List.of(item(1L, 4)), 50L, null);
+        servicio.confirmarVenta(List.of(item(1L, 4)), 50L, null);
+        eventos.clear();
+
+        servicio.devolverStock(List.of(item(1L, 4)), 50L, null);
+
+        assertEquals(10, bd.actual(1L));
+        assertEquals(10, bd.stockProductos.get(1L));
+        assertEquals(List.of(10), stockPublicado());
+        VentaConfirmadaEvent devolucion = (VentaConfirmadaEvent) eventos.get(eventos.size() - 1);
+        assertTrue(devolucion.isDevolucion());
+        assertEquals(Map.of(1L, 4), devolucion.getUnidades());
+    }
+
+    // ========== EVENTOS DE STOCK ==========
+
+    @Test
+    void reservarYLiberarSoloAvisanCuandoElDisponibleCruzaCero() {
+        servicio.reservarStock(List.of(item(1L, 4)), 50L, null);
+        assertEquals(List.of(), stockPublicado());
+
+        // 6 -> 0: se agota
+        servicio.reservarStock(List.of(item(1L, 6)), 51L, null);
+        assertEquals(List.of(10), stockPublicado());
+
+        // 0 -> 4: vuelve a haber
+        servicio.liberarStockReservado(50L, null);
+        assertEquals(List.of(10, 10), stockPublicado());
+
+        // 4 -> 10: ya había disponible
+        servicio.liberarStockReservado(51L, null);
+        assertEquals(List.of(10, 10), stockPublicado());
+        assertEquals(0, bd.reservado(1L));
+    }
+
+    @Test
+    void laVentaSiempreAvisaElNuevoStock() {
+        servicio.reservarStock(List.of(item(1L, 2)), 50L, null);
+
+        servicio.confirmarVenta(List.of(item(1L, 2)), 50L, null);
+
+        assertEquals(List.of(8), stockPublicado());
+        VentaConfirmadaEvent venta = (VentaConfirmadaEvent) eventos.get(eventos.size() - 1);
+        assertEquals(50L, venta.getIdPedido());
+        assertEquals(Map.of(1L, 2), venta.getUnidades());
+    }
+
+    // ========== LIBERACIÓN ==========
+
+    @Test
+    void soloSeLiberanLasLineasDeProductosBloqueados() {
+        bd.inventario(2L, 5, 0);
+        servicio.reservarStock(List.of(item(1L, 2)), 50L, null);
+        // Una reserva del pedido para otro producto llega entre la lectura del libro y el bloqueo
+        bd.trasBloquear = () -> {
+            bd.reservas.add(new BdInventarioFalsa.Reserva(50L, 2L, 1, LocalDateTime.now().plusMinutes(60)));
+            bd.inventario.get(2L)[1] += 1;
+            bd.trasBloquear = () -> { };
+        };
+
+        servicio.liberarStockReservado(50L, null);
+
+        assertEquals(List.of(1L), bd.bloqueos.get(bd.bloqueos.size() - 1));
+        assertEquals(0, bd.reservado(1L));
+        assertEquals(0, bd.enLibro(1L));
+        // La línea nueva y su reservado siguen cuadrando
+        assertEquals(1, bd.reservado(2L));
+        assertEquals(1, bd.enLibro(2L));
+    }
+
+    @Test
+    void laLiberacionDeVencidasDejaLasVigentes() {
+        servicio.reservarStock(List.of(item(1L, 2)), 50L, null);
+        servicio.reservarStock(List.of(item(1L, 3)), 51L, null);
+        vencer(50L);
+
+        assertEquals(1, servicio.liberarReservasVencidas(List.of(50L, 51L)));
+
+        assertEquals(3, bd.reservado(1L));
+        assertEquals(3, bd.enLibro(1L));
+        verify(escritorMovimientos).registrar(argThat(movimientos -> movimientos.size() == 1
+                && movimientos.get(0).motivo().equals(MovimientoPendiente.MOTIVO_VENCIMIENTO + 50L)
+                && movimientos.get(0).stockAnterior() == 5 && movimientos.get(0).stockNuevo() == 3));
+    }
+
+    @Test
+    void liberarUnPedidoSinReservasNoBloqueaNada() {
+        assertEquals(0, servicio.liberarReservasVencidas(List.of(99L)));
+
+        assertTrue(bd.bloqueos.isEmpty());
+    }
+
+    // ========== AJUSTES CON RESERVAS VIGENTES ==========
+
+    @Test
+    void unAjusteConUnaReservaVigenteSoloEscribeElStockActual() {
+        servicio.reservarStock(List.of(item(1L, 3)), 50L, null);
+
+        adminService.ajustarStock(1L, ajuste(MovimientoInventario.TipoMovimiento.AJUSTE, 8), null);
+
+        assertEquals(8, bd.actual(1L));
+        assertEquals(3, bd.reservado(1L));
+        assertEquals(bd.enLibro(1L), bd.reservado(1L));
+        verify(productoRepository).save(argThat(p -> p.getStock() == 8));
+        verify(inventarioRepository, never()).save(any());
+
+        // La reserva se sigue pudiendo confirmar
+        servicio.confirmarVenta(List.of(item(1L, 3)), 50L, null);
+        assertEquals(5, bd.actual(1L));
+        assertEquals(0, bd.reservado(1L));
+    }
+
+    @Test
+    void unAjustePorDebajoDeLoReservadoSeRechaza() {
+        servicio.reservarStock(List.of(item(1L, 6)), 50L, null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> adminService.ajustarStock(1L, ajuste(MovimientoInventario.TipoMovimiento.AJUSTE, 5), null));
+        // Una salida solo puede tomar lo disponible
+        assertThrows(IllegalArgumentException.class,
+                () -> adminService.ajustarStock(1L, ajuste(MovimientoInventario.TipoMovimiento.SALIDA, 5), null));
+
+        assertEquals(10, bd.actual(1L));
+        assertEquals(6, bd.reservado(1L));
+    }
+
+    @Test
+    void unaReservaQueSeColoTrasElBloqueoHaceFallarElAjusteEnVezDePisarla() {
+        servicio.reservarStock(List.of(item(1L, 2)), 50L, null);
+        // Sin el bloqueo, otra reserva confirmaría entre la lectura y la escritura
+        bd.trasBloquear = () -> bd.inventario.get(1L)[1] = 7;
+
+        assertThrows(IllegalStateException.class,
+                () -> adminService.ajustarStock(1L, ajuste(MovimientoInventario.TipoMovimiento.AJUSTE, 4), null));
+        assertEquals(10, bd.actual(1L));
+        assertEquals(7, bd.reservado(1L));
+    }
+
+    @Test
+    void entradaYSalidaPartenDelStockBloqueado() {
+        servicio.reservarStock(List.of(item(1L, 4)), 50L, null);
+
+        adminService.ajustarStock(1L, ajuste(MovimientoInventario.TipoMovimiento.ENTRADA, 5), null);
+        adminService.ajustarStock(1L, ajuste(MovimientoInventario.TipoMovimiento.SALIDA, 11), null);
+
+        assertEquals(4, bd.actual(1L));
+        assertEquals(4, bd.reservado(1L));
+        ProductoCambiadoEvent ultimo = (ProductoCambiadoEvent) eventos.get(eventos.size() - 1);
+        assertEquals(4, ultimo.getStock());
+    }
+
+    // ========== AUXILIARES ==========
+
+    /** Stock de los ProductoCambiadoEvent publicados, en orden */
+    private List<Integer> stockPublicado() {
+        return eventos.stream()
+                .filter(ProductoCambiadoEvent.class::isInstance)
+                .map(e -> ((ProductoCambiadoEvent) e).getStock())
+                .toList();
+    }
+
+    private void vencer(Long idPedido) {
+        bd.reservas.stream()
+                .filter(r -> r.idPedido == idPedido)
+                .forEach(r -> r.expiracion = LocalDateTime.now().minusMinutes(1));
+    }
+
+    private static ItemPedidoRequest item(Long idProducto, int cantidad) {
+        ItemPedidoRequest item = new ItemPedidoRequest();
+        item.setIdProducto(idProducto);
+        item.setCantidad(cantidad);
+        return item;
+    }
+
+    private static AjusteStockRequest ajuste(MovimientoInventario.TipoMovimiento tipo, int cantidad) {
+        AjusteStockRequest request = new AjusteStockRequest();
+        request.setTipo(tipo);
+        request.setCantidad(cantidad);
+        request.setMotivo("Conteo");
+        return request;
+    }
+
+    private static Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setIdProducto(id);
+        producto.setNombreProducto("Producto " + id);
+        return producto;
+    }
+}
@@ -0,0 +1,97 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.repository.ProductoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogoSincronizadorTest {
+
+    private static final LocalDateTime V1 = LocalDateTime.of(2025, 3, 1, 10, 0);
+
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    /** Versiones (fecha_actualizacion) que recibió el índice en indexar, en orden */
+    private final List<LocalDateTime> indexadas = new ArrayList<>();
+    private CatalogoSincronizador sincronizador;
+
+    @BeforeEach
+    void configurar() {
+        IndiceCatalogo indice = new IndiceCatalogo() {
+            @Override
+            public void reconstruir(Collection<ProductoDocumento> productos) {
+            }
+
+            @Override
+            public void indexar(ProductoDocumento producto) {
+                indexadas.add(producto.getListado().getFechaActualizacion());
+            }
+
+            @Override
+            public void eliminar(Long idProducto) {
+            }
+        };
+        sincronizador = new CatalogoSincronizador(productoRepository, List.of(indice));
+        when(productoRepository.findDocumentos()).thenReturn(List.of(documento(1L, V1)));
+        when(productoRepository.count()).thenReturn(1L);
+        sincronizador.cargarAlIniciar();
+    }
+
+    @Test
+    void laMarcaSeConsultaInclusiveYLoYaIndexadoNoSeRelee() {
+        when(productoRepository.findDocumentosActualizadosDesde(V1)).thenReturn(List.of(documento(1L, V1)));
+
+        sincronizador.reconciliar();
+        sincronizador.reconciliar();
+
+        verify(productoRepository, never()).findDocumentosByIds(anyCollection());
+        assertEquals(List.of(), indexadas);
+    }
+
+    @Test
+    void unaLecturaMasViejaQueElIndiceNoLoPisa() {
+        // Un evento ya indexó la versión 3; la reconciliación leyó la 2
+        when(productoRepository.findDocumentoById(1L)).thenReturn(Optional.of(documento(1L, V1.plusMinutes(3))));
+        sincronizador.onProductoCambiado(ProductoCambiadoEvent.guardado(1L));
+        when(productoRepository.findDocumentosActualizadosDesde(any()))
+                .thenReturn(List.of(documento(1L, V1.plusMinutes(2))));
+
+        sincronizador.reconciliar();
+
+        assertEquals(List.of(V1.plusMinutes(3)), indexadas);
+        verify(productoRepository, never()).findDocumentosByIds(anyCollection());
+    }
+
+    @Test
+    void unaEdicionExternaSeReleeAlAplicarla() {
+        when(productoRepository.findDocumentosActualizadosDesde(V1))
+                .thenReturn(List.of(documento(1L, V1.plusMinutes(2))));
+        // Al aplicar el delta la BD ya tiene la versión 4
+        when(productoRepository.findDocumentosByIds(List.of(1L)))
+                .thenReturn(List.of(documento(1L, V1.plusMinutes(4))));
+
+        sincronizador.reconciliar();
+
+        assertEquals(List.of(V1.plusMinutes(4)), indexadas);
+    }
+
+    private static ProductoDocumento documento(Long id, LocalDateTime fechaActualizacion) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, 10, 0, null,
+                1L, "Polos", LocalDateTime.of(2025, 1, 1, 0, 0), fechaActualizacion, null, null,
+                null, null, null, null);
+    }
+}
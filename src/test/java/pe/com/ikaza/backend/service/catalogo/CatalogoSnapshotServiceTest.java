@@ -0,0 +1,71 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CatalogoSnapshotServiceTest {
+
+    private final CatalogoSnapshotService servicio = new CatalogoSnapshotService();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        // 1: con stock, 2, 3 y 4: por agotarse (3 y 4 empatan), 5: casi agotado
+        servicio.reconstruir(List.of(documento(1L, 50), documento(2L, 9), documento(3L, 6),
+                documento(4L, 6), documento(5L, 2)));
+    }
+
+    @Test
+    void laVistaSeOrdenaPorStockYLuegoPorId() {
+        assertEquals(List.of("3:6", "4:6", "2:9"), resumen(servicio.porAgotarse(10)));
+        assertEquals(List.of("3:6", "4:6"), resumen(servicio.porAgotarse(2)));
+    }
+
+    @Test
+    void losCambiosDeStockMuevenLaVista() {
+        // 1 entra, 3 sale por abajo, 2 cambia de lugar y 5 sigue fuera
+        servicio.actualizarStock(1L, 10);
+        servicio.actualizarStock(3L, 4);
+        servicio.actualizarStock(2L, 5);
+        servicio.actualizarStock(5L, 3);
+
+        assertEquals(List.of("2:5", "4:6", "1:10"), resumen(servicio.porAgotarse(10)));
+    }
+
+    @Test
+    void indexarYEliminarActualizanLaVista() {
+        servicio.actualizarStock(2L, 7);
+        // Reindexar trae el stock de la BD y descarta el vigente anterior
+        servicio.indexar(documento(2L, 20));
+        servicio.indexar(documento(6L, 8));
+        servicio.eliminar(4L);
+
+        assertEquals(List.of("3:6", "6:8"), resumen(servicio.porAgotarse(10)));
+    }
+
+    @Test
+    void unStockDeUnProductoQueNoEstaSeIgnora() {
+        servicio.actualizarStock(99L, 7);
+
+        assertEquals(List.of("3:6", "4:6", "2:9"), resumen(servicio.porAgotarse(10)));
+    }
+
+    private static List<String> resumen(List<ProductoListado> productos) {
+        return productos.stream().map(p -> p.getIdProducto() + ":" + p.getStock()).toList();
+    }
+
+    private static ProductoDocumento documento(Long id, int stock) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, stock, 0, null,
+                1L, "Polos", LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null, null,
+                null, null, null);
+    }
+}
@@ -0,0 +1,112 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.response.InicioResponse;
+import pe.com.ikaza.backend.dto.response.ProductoResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ColeccionesInicioServiceTest {
+
+    private final AtomicInteger armadas = new AtomicInteger();
+    private final List<ProductoResponse> porAgotarse = new ArrayList<>();
+    private ColeccionesInicioService servicio;
+
+    @BeforeEach
+    void configurar() {
+        servicio = new ColeccionesInicioService(new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        ReflectionTestUtils.setField(servicio, "limite", 2);
+        // 1: con stock, 2 y 3: por agotarse (en la lista), 4: por agotarse (fuera), 5: agotado
+        servicio.reconstruir(List.of(documento(1L, 50), documento(2L, 5), documento(3L, 7),
+                documento(4L, 9), documento(5L, 0)));
+        porAgotarse.add(listado(2L, 5));
+        porAgotarse.add(listado(3L, 7));
+        obtener();
+    }
+
+    @Test
+    void unCambioDeStockSinCruzarUmbralesNoDescarta() {
+        servicio.actualizarStock(1L, 40);
+        servicio.actualizarStock(4L, 8);
+
+        assertNotNull(servicio.vigentes(null));
+        assertEquals(1, armadas.get());
+    }
+
+    @Test
+    void agotarseOVolverATenerStockDescarta() {
+        servicio.actualizarStock(1L, 0);
+        assertNull(servicio.vigentes(null));
+
+        obtener();
+        servicio.actualizarStock(5L, 3);
+        assertNull(servicio.vigentes(null));
+    }
+
+    @Test
+    void moverseDentroDePorAgotarseSoloDescartaSiCambiaLaLista() {
+        // Un producto de la lista cambia su orden
+        servicio.actualizarStock(3L, 6);
+        assertNull(servicio.vigentes(null));
+
+        // Uno de fuera de la lista que pasa a estar antes que el último
+        obtener();
+        servicio.actualizarStock(4L, 6);
+        assertNull(servicio.vigentes(null));
+
+        // Entrar al rango también cambia la lista
+        obtener();
+        servicio.actualizarStock(1L, 10);
+        assertNull(servicio.vigentes(null));
+    }
+
+    @Test
+    void elEtagDependeDelContenido() {
+        String etag = servicio.vigentes(null).validador().etag();
+
+        servicio.indexar(documento(1L, 50));
+        assertEquals(etag, obtener().validador().etag());
+
+        porAgotarse.set(1, listado(3L, 6));
+        servicio.indexar(documento(3L, 6));
+        assertNotEquals(etag, obtener().validador().etag());
+    }
+
+    private ColeccionesInicioService.Colecciones obtener() {
+        return servicio.obtener(null, () -> {
+            armadas.incrementAndGet();
+            return InicioResponse.builder()
+                    .masBaratos(List.of())
+                    .masRecientes(List.of())
+                    .porAgotarse(List.copyOf(porAgotarse))
+                    .build();
+        });
+    }
+
+    private static ProductoResponse listado(Long id, int stock) {
+        ProductoResponse producto = new ProductoResponse();
+        producto.setIdProducto(id);
+        producto.setStock(stock);
+        return producto;
+    }
+
+    private static ProductoDocumento documento(Long id, int stock) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, stock, 0, null,
+                1L, "Polos", LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null, null,
+                null, null, null);
+    }
+}
@@ -0,0 +1,155 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.dto.projection.ProductoPedido;
+import pe.com.ikaza.backend.repository.DetallePedidoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CompraConjuntaServiceTest {
+
+    private final DetallePedidoRepository detallePedidoRepository = mock(DetallePedidoRepository.class);
+    /** Filas (pedido, producto) de pedidos aprobados, ordenadas por pedido como la consulta */
+    private final List<ProductoPedido> filasBd = new ArrayList<>();
+    private CompraConjuntaService servicio;
+
+    @BeforeEach
+    void configurar() {
+        servicio = new CompraConjuntaService(detallePedidoRepository);
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        ReflectionTestUtils.setField(servicio, "vecinosPorProducto", 12);
+        ReflectionTestUtils.setField(servicio, "minimoPedidos", 2);
+        when(detallePedidoRepository.findProductosDePedidosAprobados()).thenAnswer(i -> List.copyOf(filasBd));
+        servicio.reconstruir(List.of(documento(1L), documento(2L), documento(3L), documento(4L), documento(5L)));
+    }
+
+    @Test
+    void losVecinosSeOrdenanPorAfinidad() {
+        // 1 y 5 en 3 pedidos, 1 y 3 en 2: 5 va primero aunque su ID sea mayor
+        pedido(1L, 1L, 5L);
+        pedido(2L, 1L, 5L);
+        pedido(3L, 1L, 5L);
+        pedido(4L, 1L, 3L);
+        pedido(5L, 1L, 3L);
+
+        servicio.refrescar();
+
+        assertEquals(List.of(5L, 3L), ids(servicio.relacionados(1L, 10)));
+        assertEquals(List.of(5L), ids(servicio.relacionados(1L, 1)));
+        assertEquals(List.of(1L), ids(servicio.relacionados(3L, 10)));
+    }
+
+    @Test
+    void aIgualAfinidadVaPrimeroElIdMenorYLosParesRarosNoCuentan() {
+        pedido(1L, 1L, 3L);
+        pedido(2L, 1L, 3L);
+        pedido(3L, 1L, 2L);
+        pedido(4L, 1L, 2L);
+        // Un solo pedido en común: por debajo del mínimo
+        pedido(5L, 1L, 4L);
+
+        servicio.refrescar();
+
+        assertEquals(List.of(2L, 3L), ids(servicio.relacionados(1L, 10)));
+        assertEquals(List.of(), ids(servicio.relacionados(4L, 10)));
+    }
+
+    @Test
+    void unaVentaNuevaSePublicaEnElSiguienteRefresco() {
+        pedido(1L, 1L, 2L);
+        servicio.refrescar();
+        assertEquals(List.of(), ids(servicio.relacionados(1L, 10)));
+
+        servicio.onVentaConfirmada(VentaConfirmadaEvent.venta(2L, unidades(1L, 2L)));
+        assertEquals(List.of(), ids(servicio.relacionados(1L, 10)));
+
+        servicio.refrescar();
+        assertEquals(List.of(2L), ids(servicio.relacionados(1L, 10)));
+        assertEquals(List.of(1L), ids(servicio.relacionados(2L, 10)));
+        verify(detallePedidoRepository, times(1)).findProductosDePedidosAprobados();
+    }
+
+    @Test
+    void lasVentasRetenidasDuranteLaRecargaSoloSeSumanSiLaLecturaNoLasTrajo() {
+        pedido(1L, 1L, 2L);
+        pedido(5L, 1L, 4L);
+        when(detallePedidoRepository.findProductosDePedidosAprobados()).thenAnswer(i -> {
+            // El pedido 1 ya está en la lectura; el 9 se confirmó después
+            servicio.onVentaConfirmada(VentaConfirmadaEvent.venta(1L, unidades(1L, 2L)));
+            servicio.onVentaConfirmada(VentaConfirmadaEvent.venta(9L, unidades(1L, 4L)));
+            return List.copyOf(filasBd);
+        });
+
+        servicio.refrescar();
+        servicio.refrescar();
+
+        // 1-4: pedidos 5 y 9; 1-2: solo el pedido 1 (no se cuenta dos veces)
+        assertEquals(List.of(4L), ids(servicio.relacionados(1L, 10)));
+    }
+
+    @Test
+    void unaDevolucionRecargaDesdeLaBd() {
+        pedido(1L, 1L, 2L);
+        pedido(2L, 1L, 2L);
+        servicio.refrescar();
+        assertEquals(List.of(2L), ids(servicio.relacionados(1L, 10)));
+
+        // El pedido 2 se reembolsó: deja de estar aprobado
+        filasBd.removeIf(f -> f.getIdPedido() == 2L);
+        servicio.onVentaConfirmada(VentaConfirmadaEvent.devolucion(2L, unidades(1L, 2L)));
+        servicio.refrescar();
+
+        assertEquals(List.of(), ids(servicio.relacionados(1L, 10)));
+        verify(detallePedidoRepository, times(2)).findProductosDePedidosAprobados();
+    }
+
+    @Test
+    void unProductoEliminadoNoSeRecomienda() {
+        pedido(1L, 1L, 2L, 3L);
+        pedido(2L, 1L, 2L, 3L);
+        servicio.refrescar();
+
+        servicio.eliminar(2L);
+
+        assertEquals(List.of(3L), ids(servicio.relacionados(1L, 10)));
+    }
+
+    private void pedido(Long idPedido, Long... productos) {
+        for (Long idProducto : productos) {
+            filasBd.add(new ProductoPedido(idPedido, idProducto));
+        }
+    }
+
+    private static Map<Long, Integer> unidades(Long... productos) {
+        Map<Long, Integer> unidades = new LinkedHashMap<>();
+        for (Long idProducto : productos) {
+            unidades.put(idProducto, 1);
+        }
+        return unidades;
+    }
+
+    private static List<Long> ids(List<ProductoListado> productos) {
+        return productos.stream().map(ProductoListado::getIdProducto).toList();
+    }
+
+    private static ProductoDocumento documento(Long id) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, 10, 0, null,
+                1L, "Polos", LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null,
+                null, null, null, null);
+    }
+}
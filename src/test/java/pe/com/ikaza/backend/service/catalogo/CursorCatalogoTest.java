@@ -0,0 +1,127 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorCatalogoTest {
+
+    @Test
+    void codificarYDecodificarConservanLaPosicion() {
+        ProductoListado ultimo = producto(42L, "19.90", LocalDateTime.of(2025, 3, 1, 10, 30, 15));
+
+        for (String propiedad : List.of("idProducto", "precio", "fechaCreacion")) {
+            for (boolean descendente : List.of(false, true)) {
+                CursorCatalogo cursor = CursorCatalogo.inicial(propiedad, descendente).siguiente(ultimo);
+
+                CursorCatalogo leido = CursorCatalogo.decodificar(cursor.codificar());
+
+                assertEquals(cursor.getOrden(), leido.getOrden());
+                assertEquals(descendente, leido.isDescendente());
+                assertEquals(cursor.getValor(), leido.getValor());
+                assertEquals(42L, leido.getIdProducto());
+                assertFalse(leido.esInicial());
+                assertEquals(0, leido.comparar(ultimo));
+            }
+        }
+    }
+
+    @Test
+    void elPrecioNoPierdeEscalaAlCodificar() {
+        CursorCatalogo cursor = CursorCatalogo.inicial("precio", false)
+                .siguiente(producto(1L, "10.50", LocalDateTime.now()));
+
+        assertEquals(new BigDecimal("10.50"), CursorCatalogo.decodificar(cursor.codificar()).getValor());
+    }
+
+    @Test
+    void tokensInvalidosSeRechazan() {
+        String sinId = Base64.getUrlEncoder().withoutPadding().encodeToString("c1|precio|A|10|".getBytes());
+        String otraVersion = Base64.getUrlEncoder().withoutPadding().encodeToString("c0|precio|A|10|1".getBytes());
+        String valorRoto = Base64.getUrlEncoder().withoutPadding().encodeToString("c1|precio|A|diez|1".getBytes());
+        String porNombre = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("c1|nombreProducto|A||1".getBytes());
+
+        for (String token : List.of("%%%", sinId, otraVersion, valorRoto, porNombre)) {
+            assertThrows(IllegalArgumentException.class, () -> CursorCatalogo.decodificar(token));
+        }
+        assertThrows(IllegalArgumentException.class, () -> CursorCatalogo.inicial("nombreProducto", false));
+    }
+
+    @Test
+    void aIgualValorDesempataPorId() {
+        CursorCatalogo cursor = CursorCatalogo.inicial("precio", false)
+                .siguiente(producto(5L, "10.00", LocalDateTime.now()));
+
+        assertTrue(cursor.comparar(producto(4L, "10.00", LocalDateTime.now())) < 0);
+        assertTrue(cursor.comparar(producto(6L, "10.00", LocalDateTime.now())) > 0);
+        assertTrue(cursor.comparar(producto(1L, "10.01", LocalDateTime.now())) > 0);
+        // La escala no importa: 10.0 y 10.00 son el mismo precio
+        assertTrue(cursor.comparar(producto(6L, "10.0", LocalDateTime.now())) > 0);
+    }
+
+    @Test
+    void recorrerConPreciosRepetidosEntregaCadaProductoUnaVez() {
+        List<ProductoListado> productos = new ArrayList<>();
+        for (long id = 1; id <= 23; id++) {
+            productos.add(producto(id, id % 3 == 0 ? "5.00" : "7.50", LocalDateTime.now()));
+        }
+        productos.sort(OrdenCatalogo.PRECIO.getComparador());
+
+        for (boolean descendente : List.of(false, true)) {
+            List<Long> vistos = new ArrayList<>();
+            CursorCatalogo cursor = CursorCatalogo.inicial("precio", descendente);
+            while (true) {
+                List<ProductoListado> pagina = pagina(productos, cursor, 4);
+                pagina.forEach(p -> vistos.add(p.getIdProducto()));
+                if (pagina.size() < 4) {
+                    break;
+                }
+                // El token viaja al cliente y vuelve
+                cursor = CursorCatalogo.decodificar(cursor.siguiente(pagina.get(pagina.size() - 1)).codificar());
+            }
+
+            List<Long> esperados = new ArrayList<>(productos.stream().map(ProductoListado::getIdProducto).toList());
+            if (descendente) {
+                Collections.reverse(esperados);
+            }
+            assertEquals(esperados, vistos);
+        }
+    }
+
+    /**
+     * Página keyset sobre una lista ya ordenada ascendente (lo que hacen la vista
+     * en memoria y la consulta con (valor, id) en BD)
+     */
+    private static List<ProductoListado> pagina(List<ProductoListado> ordenados, CursorCatalogo cursor, int tamanio) {
+        List<ProductoListado> recorrido = new ArrayList<>(ordenados);
+        if (cursor.isDescendente()) {
+            Collections.reverse(recorrido);
+        }
+        List<ProductoListado> resultado = new ArrayList<>();
+        for (ProductoListado producto : recorrido) {
+            boolean despues = cursor.esInicial()
+                    || (cursor.isDescendente() ? cursor.comparar(producto) < 0 : cursor.comparar(producto) > 0);
+            if (despues && resultado.size() < tamanio) {
+                resultado.add(producto);
+            }
+        }
+        return resultado;
+    }
+
+    private static ProductoListado producto(Long id, String precio, LocalDateTime fechaCreacion) {
+        return new ProductoListado(id, "Producto " + id, null, new BigDecimal(precio), 1, 0, null, 1L, "General",
+                fechaCreacion, null, null, null, null);
+    }
+}
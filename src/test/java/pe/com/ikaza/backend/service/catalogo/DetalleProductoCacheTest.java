@@ -0,0 +1,113 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.response.ProductoDetalleResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class DetalleProductoCacheTest {
+
+    @Test
+    void unProductoPocoPedidoNoDesplazaAUnoFrecuente() {
+        DetalleProductoCache cache = crear(2);
+        cargar(cache, 1L, 3);
+        cargar(cache, 2L, 3);
+
+        // 3 se pidió una vez: la entrada menos reciente (1) se pidió más
+        cargar(cache, 3L, 1);
+
+        assertEquals(1L, cache.estadisticas().getRechazos());
+        assertEquals(0L, cache.estadisticas().getDesalojos());
+        assertNotNull(cache.obtener(1L));
+
+        // 4 se pide más seguido que la menos reciente (ahora 2): entra
+        cargar(cache, 4L, 5);
+
+        assertEquals(1L, cache.estadisticas().getDesalojos());
+        assertNotNull(cache.obtener(4L));
+        assertNotNull(cache.obtener(1L));
+        assertNull(cache.obtener(2L));
+    }
+
+    @Test
+    void conElEnvejecimientoLaPopularidadAntiguaPierdePeso() {
+        // Capacidad 1: ancho 64, el sketch envejece cada 640 registros
+        DetalleProductoCache cache = crear(1);
+        cargar(cache, 1L, 15);
+        cargar(cache, 2L, 15);
+        // Ambos saturados en 15: el candidato no supera a la entrada
+        assertEquals(1L, cache.estadisticas().getRechazos());
+
+        for (int i = 30; i < 640; i++) {
+            cache.obtener(1L);
+        }
+        // Tras dividir a la mitad (7 y 7) un pedido más de 2 ya alcanza
+        cargar(cache, 2L, 1);
+
+        assertEquals(1L, cache.estadisticas().getRechazos());
+        assertNotNull(cache.obtener(2L));
+        assertNull(cache.obtener(1L));
+    }
+
+    @Test
+    void seDesalojaLaEntradaMenosRecienteYNoLaMasAntigua() {
+        DetalleProductoCache cache = crear(3);
+        cargar(cache, 1L, 2);
+        cargar(cache, 2L, 2);
+        cargar(cache, 3L, 2);
+        // 1 se leyó último: pasa al final del orden de acceso
+        cache.obtener(1L);
+
+        cargar(cache, 4L, 5);
+        assertNull(cache.obtener(2L));
+
+        cargar(cache, 5L, 5);
+        assertNull(cache.obtener(3L));
+
+        assertNotNull(cache.obtener(1L));
+        assertEquals(2L, cache.estadisticas().getDesalojos());
+    }
+
+    @Test
+    void unDetalleLeidoAntesDeUnaInvalidacionNoSeGuarda() {
+        DetalleProductoCache cache = crear(10);
+        long generacion = cache.generacion();
+        ProductoDetalleResponse leido = detalle(1L);
+
+        // Una escritura invalida mientras el detalle viejo se leía de la BD
+        cache.invalidar(1L);
+        cache.guardar(1L, leido, generacion);
+
+        assertNull(cache.obtener(1L));
+
+        ProductoDetalleResponse nuevo = detalle(1L);
+        cache.guardar(1L, nuevo, cache.generacion());
+        assertSame(nuevo, cache.obtener(1L));
+    }
+
+    private static DetalleProductoCache crear(int capacidad) {
+        DetalleProductoCache cache = new DetalleProductoCache();
+        ReflectionTestUtils.setField(cache, "habilitado", true);
+        ReflectionTestUtils.setField(cache, "capacidad", capacidad);
+        ReflectionTestUtils.setField(cache, "ttl", 0L);
+        return cache;
+    }
+
+    /** Pide el producto la cantidad de veces dada (cuenta en el sketch) y guarda lo "leído" */
+    private static void cargar(DetalleProductoCache cache, Long idProducto, int pedidos) {
+        for (int i = 0; i < pedidos; i++) {
+            cache.obtener(idProducto);
+        }
+        cache.guardar(idProducto, detalle(idProducto), cache.generacion());
+    }
+
+    private static ProductoDetalleResponse detalle(Long idProducto) {
+        ProductoDetalleResponse detalle = new ProductoDetalleResponse();
+        detalle.setIdProducto(idProducto);
+        return detalle;
+    }
+}
@@ -0,0 +1,102 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.projection.ConteoCategoria;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.response.CategoriaResponse;
+import pe.com.ikaza.backend.entity.Categoria;
+import pe.com.ikaza.backend.repository.CategoriaRepository;
+import pe.com.ikaza.backend.repository.ProductoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DirectorioCategoriasServiceTest {
+
+    private final CategoriaRepository categoriaRepository = mock(CategoriaRepository.class);
+    private final ProductoRepository productoRepository = mock(ProductoRepository.class);
+    private final List<Categoria> categoriasBd = new ArrayList<>();
+    private DirectorioCategoriasService servicio;
+
+    @BeforeEach
+    void configurar() {
+        servicio = new DirectorioCategoriasService(categoriaRepository, productoRepository);
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        when(categoriaRepository.findAll()).thenAnswer(i -> List.copyOf(categoriasBd));
+        categoriasBd.add(categoria(1L, "polos", true));
+        categoriasBd.add(categoria(2L, "Casacas", true));
+        categoriasBd.add(categoria(3L, "Accesorios", false));
+        // Un GROUP BY: 2 productos en Polos, 1 en Casacas
+        when(productoRepository.contarProductosAgrupados()).thenReturn(List.of(
+                new ConteoCategoria(1L, 2L), new ConteoCategoria(2L, 1L)));
+        servicio.reconstruir(List.of(documento(10L, 1L), documento(11L, 1L), documento(12L, 2L)));
+    }
+
+    @Test
+    void lasCantidadesSalenDelConteoAgrupado() {
+        assertEquals(List.of("Accesorios:0", "Casacas:1", "polos:2"), resumen(servicio.todas()));
+        assertEquals(List.of("Casacas:1", "polos:2"), resumen(servicio.activas()));
+    }
+
+    @Test
+    void losDeltasMantienenLasCantidades() {
+        // Alta en Casacas, cambio de Polos a Accesorios y baja en Polos
+        servicio.indexar(documento(13L, 2L));
+        servicio.indexar(documento(10L, 3L));
+        servicio.eliminar(11L);
+
+        assertEquals(List.of("Accesorios:1", "Casacas:2", "polos:0"), resumen(servicio.todas()));
+    }
+
+    @Test
+    void reindexarSinCambiarDeCategoriaNoSumaDosVeces() {
+        servicio.indexar(documento(10L, 1L));
+        servicio.indexar(documento(10L, 1L));
+
+        assertEquals(2, servicio.buscarPorId(1L).orElseThrow().getCantidadProductos());
+    }
+
+    @Test
+    void eliminarUnProductoDesconocidoNoRestaNada() {
+        servicio.eliminar(99L);
+
+        assertEquals(List.of("Accesorios:0", "Casacas:1", "polos:2"), resumen(servicio.todas()));
+    }
+
+    @Test
+    void unCambioDeCategoriaRecargaElDiccionario() {
+        categoriasBd.set(1, categoria(2L, "Abrigos", true));
+
+        servicio.renombrarCategoria(2L, "Abrigos");
+
+        assertEquals(List.of("Abrigos:1", "Accesorios:0", "polos:2"), resumen(servicio.todas()));
+        assertEquals(List.of("Abrigos:1"), resumen(servicio.buscar("ABRI")));
+        assertTrue(servicio.buscarPorId(4L).isEmpty());
+    }
+
+    private static List<String> resumen(List<CategoriaResponse> categorias) {
+        return categorias.stream().map(c -> c.getNombreCategoria() + ":" + c.getCantidadProductos()).toList();
+    }
+
+    private static Categoria categoria(Long id, String nombre, boolean activa) {
+        Categoria categoria = new Categoria(nombre, null);
+        categoria.setIdCategoria(id);
+        categoria.setActivo(activa);
+        return categoria;
+    }
+
+    private static ProductoDocumento documento(Long id, Long idCategoria) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, 10, 0, null,
+                idCategoria, null, LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null,
+                null, null, null, null);
+    }
+}
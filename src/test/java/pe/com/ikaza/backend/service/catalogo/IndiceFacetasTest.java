@@ -0,0 +1,151 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceFacetasTest {
+
+    private static final Comparator<ProductoListado> POR_ID = OrdenCatalogo.ID_PRODUCTO.getComparador();
+
+    @Test
+    void orDentroDeUnaFacetaYAndEntreFacetas() {
+        IndiceFacetas indice = catalogo();
+
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(
+                IndiceFacetas.MARCA, Set.of("nike", "adidas"),
+                IndiceFacetas.COLOR, Set.of("rojo")), POR_ID, 0, 10);
+
+        assertEquals(List.of(1L, 3L), ids(resultado));
+        assertEquals(2, resultado.total());
+    }
+
+    @Test
+    void losConteosDeUnaFacetaIgnoranSuPropioFiltro() {
+        IndiceFacetas indice = catalogo();
+
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(
+                IndiceFacetas.MARCA, Set.of("nike")), POR_ID, 0, 10);
+
+        // La marca elegida no oculta a las demás marcas
+        assertEquals(2, conteo(resultado, IndiceFacetas.MARCA, "nike"));
+        assertEquals(1, conteo(resultado, IndiceFacetas.MARCA, "adidas"));
+        assertEquals(1, conteo(resultado, IndiceFacetas.MARCA, "puma"));
+        // Las demás facetas sí se cuentan sobre los productos Nike
+        assertEquals(1, conteo(resultado, IndiceFacetas.COLOR, "rojo"));
+        assertEquals(1, conteo(resultado, IndiceFacetas.COLOR, "azul"));
+        assertNull(valor(resultado, IndiceFacetas.COLOR, "verde"));
+    }
+
+    @Test
+    void agrupaPorRangoDePrecioYAtributos() {
+        IndiceFacetas indice = catalogo();
+
+        assertEquals("0-50", IndiceFacetas.rangoPrecio(new BigDecimal("49.99")));
+        assertEquals("50-100", IndiceFacetas.rangoPrecio(BigDecimal.valueOf(50)));
+        assertEquals("500+", IndiceFacetas.rangoPrecio(BigDecimal.valueOf(900)));
+
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(
+                IndiceFacetas.PRECIO, Set.of("50-100"),
+                IndiceFacetas.PREFIJO_ATRIBUTO + "material", Set.of("algodon")), POR_ID, 0, 10);
+
+        assertEquals(List.of(2L), ids(resultado));
+    }
+
+    @Test
+    void eliminarReutilizaElDocumentoYQuitaSusValores() {
+        IndiceFacetas indice = catalogo();
+
+        indice.eliminar(4L);
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(), POR_ID, 0, 10);
+        assertEquals(List.of(1L, 2L, 3L), ids(resultado));
+        assertNull(valor(resultado, IndiceFacetas.MARCA, "puma"));
+
+        indice.indexar(documento(5L, "Puma", 30, Map.of(), "verde"));
+        assertEquals(4, indice.tamanio());
+        assertEquals(1, conteo(indice.filtrar(Map.of(), POR_ID, 0, 10), IndiceFacetas.MARCA, "puma"));
+        assertEquals(List.of(5L), ids(indice.filtrar(Map.of(
+                IndiceFacetas.MARCA, Set.of("puma")), POR_ID, 0, 10)));
+    }
+
+    @Test
+    void valorDesconocidoNoDevuelveProductos() {
+        IndiceFacetas indice = catalogo();
+
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(
+                IndiceFacetas.MARCA, Set.of("reebok")), POR_ID, 0, 10);
+
+        assertEquals(0, resultado.total());
+        assertTrue(resultado.productos().isEmpty());
+    }
+
+    @Test
+    void paginaSobreElResultadoOrdenado() {
+        IndiceFacetas indice = catalogo();
+
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(), POR_ID.reversed(), 1, 2);
+
+        assertEquals(4, resultado.total());
+        assertEquals(List.of(3L, 2L), ids(resultado));
+        assertTrue(indice.filtrar(Map.of(), POR_ID, 8, 2).productos().isEmpty());
+    }
+
+    @Test
+    void renombrarCategoriaActualizaTextoYListados() {
+        IndiceFacetas indice = catalogo();
+
+        indice.renombrarCategoria(1L, "Calzado");
+
+        IndiceFacetas.Resultado resultado = indice.filtrar(Map.of(), POR_ID, 0, 10);
+        assertEquals("Calzado", valor(resultado, IndiceFacetas.CATEGORIA, "1").texto());
+        assertEquals("Calzado", indice.listado(2L).getNombreCategoria());
+    }
+
+    private static IndiceFacetas catalogo() {
+        IndiceFacetas indice = new IndiceFacetas();
+        indice.indexar(documento(1L, "Nike", 40, Map.of(), "Rojo"));
+        indice.indexar(documento(2L, "Nike", 80, Map.of("Material", "Algodón"), "Azul"));
+        indice.indexar(documento(3L, "Adidas", 120, Map.of("Material", "Algodón"), "rojo"));
+        indice.indexar(documento(4L, "Puma", 600, Map.of(), "Verde"));
+        return indice;
+    }
+
+    private static List<Long> ids(IndiceFacetas.Resultado resultado) {
+        return resultado.productos().stream().map(ProductoListado::getIdProducto).toList();
+    }
+
+    private static IndiceFacetas.ValorContado valor(IndiceFacetas.Resultado resultado, String faceta, String clave) {
+        return resultado.facetas().stream()
+                .filter(f -> f.nombre().equals(faceta))
+                .flatMap(f -> f.valores().stream())
+                .filter(v -> v.clave().equals(clave))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static int conteo(IndiceFacetas.Resultado resultado, String faceta, String clave) {
+        IndiceFacetas.ValorContado valor = valor(resultado, faceta, clave);
+        return valor != null ? valor.cantidad() : 0;
+    }
+
+    private static ProductoDocumento documento(Long id, String marca, int precio, Map<String, String> atributos,
+            String color) {
+        List<ProductoDetalle.VarianteDto> variantes = List.of(
+                new ProductoDetalle.VarianteDto("SKU-" + id, color, "M", null, 0, null));
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.valueOf(precio), 5, 0, null,
+                1L, "Zapatillas", LocalDateTime.of(2025, 1, 1, 0, 0), null, marca, null, null,
+                atributos, variantes, null);
+    }
+}
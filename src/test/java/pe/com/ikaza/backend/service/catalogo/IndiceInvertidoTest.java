@@ -0,0 +1,109 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceInvertidoTest {
+
+    @Test
+    void exigeTodosLosTerminosYOrdenaPorRelevancia() {
+        IndiceInvertido indice = new IndiceInvertido();
+        indice.indexar(documento(1L, "Polo de algodón", "Polo básico para el verano"));
+        indice.indexar(documento(2L, "Camisa de algodón", "Camisa manga larga"));
+        indice.indexar(documento(3L, "Polo deportivo", "Tela de poliéster"));
+
+        IndiceInvertido.Resultado resultado = indice.buscar("polos algodon", 0, 10);
+
+        assertFalse(resultado.truncado());
+        assertEquals(1, resultado.total());
+        assertEquals(List.of(1L), ids(resultado));
+
+        assertEquals(2, indice.buscar("polo", 0, 10).total());
+    }
+
+    @Test
+    void elNombrePesaMasQueLaDescripcion() {
+        IndiceInvertido indice = new IndiceInvertido();
+        indice.indexar(documento(1L, "Gorra", "Combina con tu polo favorito"));
+        indice.indexar(documento(2L, "Polo", "Prenda ideal para combinar"));
+
+        assertEquals(List.of(2L, 1L), ids(indice.buscar("polo", 0, 10)));
+    }
+
+    @Test
+    void coincidePorPrefijoYPagina() {
+        IndiceInvertido indice = new IndiceInvertido();
+        indice.indexar(documento(1L, "Zapatilla urbana", null));
+        indice.indexar(documento(2L, "Zapato de cuero", null));
+        indice.indexar(documento(3L, "Sandalia", null));
+
+        IndiceInvertido.Resultado resultado = indice.buscar("zap", 0, 1);
+
+        assertEquals(2, resultado.total());
+        assertEquals(1, resultado.productos().size());
+        assertEquals(1, indice.buscar("zap", 1, 1).productos().size());
+        assertEquals(0, indice.buscar("zap", 2, 1).productos().size());
+    }
+
+    @Test
+    void sinTerminosIndexablesDevuelveNull() {
+        IndiceInvertido indice = new IndiceInvertido();
+        indice.indexar(documento(1L, "Polo", null));
+
+        assertNull(indice.buscar("de la y", 0, 10));
+    }
+
+    @Test
+    void prefijoConDemasiadasExpansionesSeMarcaTruncado() {
+        IndiceInvertido indice = new IndiceInvertido();
+        for (long id = 1; id <= IndiceInvertido.MAX_EXPANSIONES + 1; id++) {
+            indice.indexar(documento(id, "prod" + id + "x", null));
+        }
+
+        IndiceInvertido.Resultado resultado = indice.buscar("prod", 0, 10);
+
+        assertTrue(resultado.truncado());
+        assertTrue(resultado.productos().isEmpty());
+        // Un prefijo más largo sí se resuelve completo
+        assertEquals(1, indice.buscar("prod7x", 0, 10).total());
+    }
+
+    @Test
+    void eliminarYReindexarActualizanLosPostings() {
+        IndiceInvertido indice = new IndiceInvertido();
+        indice.indexar(documento(1L, "Mochila escolar", null));
+        indice.indexar(documento(2L, "Mochila de viaje", null));
+
+        indice.eliminar(1L);
+        assertEquals(List.of(2L), ids(indice.buscar("mochila", 0, 10)));
+
+        indice.indexar(documento(2L, "Maleta de viaje", null));
+        assertEquals(0, indice.buscar("mochila", 0, 10).total());
+        assertEquals(List.of(2L), ids(indice.buscar("maleta", 0, 10)));
+
+        // El número de documento libre se reutiliza
+        indice.indexar(documento(3L, "Mochila urbana", null));
+        assertEquals(List.of(3L), ids(indice.buscar("mochila", 0, 10)));
+        assertEquals(2, indice.tamanio());
+    }
+
+    private static List<Long> ids(IndiceInvertido.Resultado resultado) {
+        return resultado.productos().stream().map(ProductoListado::getIdProducto).toList();
+    }
+
+    private static ProductoDocumento documento(Long id, String nombre, String descripcion) {
+        return new ProductoDocumento(id, nombre, descripcion, BigDecimal.TEN, 1, 0, null, 1L, "General",
+                LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null, null, Map.of(), null, null);
+    }
+}
@@ -0,0 +1,73 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicePrefijosTest {
+
+    private final IndicePrefijos indice = IndicePrefijos.construir(List.of(
+            new Sugerencia("P:1", Sugerencia.Tipo.PRODUCTO, 1L, "Polo de algodón", 5),
+            new Sugerencia("P:2", Sugerencia.Tipo.PRODUCTO, 2L, "Polera algodón orgánico", 9),
+            new Sugerencia("P:3", Sugerencia.Tipo.PRODUCTO, 3L, "Camisa de lino", 7),
+            new Sugerencia("M:samsung", Sugerencia.Tipo.MARCA, null, "Samsung", 3),
+            new Sugerencia("C:4", Sugerencia.Tipo.CATEGORIA, 4L, "Polos y camisetas", 1)));
+
+    @Test
+    void encuentraPorElInicioDeCualquierPalabraOrdenadoPorPeso() {
+        assertEquals(List.of("P:2", "P:1", "C:4"), claves(indice.mejores("pol", 10, s -> false)));
+        // "algo" está en medio del nombre; la tilde no cuenta
+        assertEquals(List.of("P:2", "P:1"), claves(indice.mejores("algo", 10, s -> false)));
+        assertEquals(List.of("M:samsung"), claves(indice.mejores("sam", 10, s -> false)));
+    }
+
+    @Test
+    void noEncuentraPorLaMitadDeUnaPalabraNiPorStopwords() {
+        assertTrue(indice.mejores("lera", 10, s -> false).isEmpty());
+        assertTrue(indice.mejores("de", 10, s -> false).isEmpty());
+        assertTrue(indice.mejores("zzz", 10, s -> false).isEmpty());
+    }
+
+    @Test
+    void prefijoConVariasPalabras() {
+        assertEquals(List.of("P:1"), claves(indice.mejores("polo de a", 10, s -> false)));
+    }
+
+    @Test
+    void respetaElLimiteYLosDescartes() {
+        assertEquals(List.of("P:2"), claves(indice.mejores("pol", 1, s -> false)));
+        assertEquals(List.of("P:1", "C:4"),
+                claves(indice.mejores("pol", 10, s -> "P:2".equals(s.getClave()))));
+        assertTrue(indice.mejores("pol", 0, s -> false).isEmpty());
+    }
+
+    @Test
+    void unaSugerenciaConVariasPalabrasCoincidentesSaleUnaVez() {
+        IndicePrefijos repetidas = IndicePrefijos.construir(List.of(
+                new Sugerencia("P:1", Sugerencia.Tipo.PRODUCTO, 1L, "Polo polo polo", 1),
+                new Sugerencia("P:2", Sugerencia.Tipo.PRODUCTO, 2L, "Polo", 2)));
+
+        assertEquals(List.of("P:2", "P:1"), claves(repetidas.mejores("polo", 10, s -> false)));
+    }
+
+    @Test
+    void elMejorEntreMuchasLoEncuentraElArbolDeSegmentos() {
+        List<Sugerencia> lista = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lista.add(new Sugerencia("P:" + i, Sugerencia.Tipo.PRODUCTO, (long) i, "Producto " + i, (i * 37) % 1000));
+        }
+        IndicePrefijos grande = IndicePrefijos.construir(lista);
+
+        // Pesos 999, 998 y 997 corresponden a i = 27, 54 y 81
+        assertEquals(List.of("P:27", "P:54", "P:81"), claves(grande.mejores("produc", 3, s -> false)));
+        assertEquals(1000, grande.tamanio());
+    }
+
+    private static List<String> claves(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::getClave).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceSimilitudTest {
+
+    @Test
+    void laFirmaEsDeterminista() {
+        ProductoDocumento documento = documento(1L, "Polo algodón pima cuello redondo", "Marca A");
+
+        assertArrayEquals(IndiceSimilitud.firmar(documento).firma(), IndiceSimilitud.firmar(documento).firma());
+    }
+
+    @Test
+    void documentosIgualesCaenEnLasMismasCubetas() {
+        IndiceSimilitud indice = new IndiceSimilitud();
+        indice.agregar(IndiceSimilitud.firmar(documento(1L, "Polo algodón pima cuello redondo", "Marca A")));
+        indice.agregar(IndiceSimilitud.firmar(documento(2L, "Polo algodón pima cuello redondo", "Marca A")));
+
+        List<IndiceSimilitud.Similar> similares = indice.similares(1L, 5, 0.0);
+
+        assertEquals(1, similares.size());
+        assertEquals(2L, similares.get(0).producto().getIdProducto());
+        assertEquals(1.0, similares.get(0).similitud());
+    }
+
+    @Test
+    void documentosSinNadaEnComunNoSonCandidatos() {
+        IndiceSimilitud indice = new IndiceSimilitud();
+        indice.agregar(IndiceSimilitud.firmar(documento(1L, "Polo algodón pima cuello redondo", "Marca A")));
+        indice.agregar(IndiceSimilitud.firmar(documento(2L, "Taladro percutor inalámbrico", "Marca B")));
+
+        // Con mínimo 0 todo candidato entraría: ninguno comparte una banda
+        assertTrue(indice.similares(1L, 5, 0.0).isEmpty());
+        assertTrue(indice.similares(2L, 5, 0.0).isEmpty());
+    }
+
+    @Test
+    void losMasParecidosVanPrimero() {
+        IndiceSimilitud indice = new IndiceSimilitud();
+        indice.agregar(IndiceSimilitud.firmar(documento(1L, "Polo algodón pima cuello redondo manga corta", "Marca A")));
+        indice.agregar(IndiceSimilitud.firmar(documento(2L, "Polo algodón pima cuello redondo manga corta", "Marca A")));
+        indice.agregar(IndiceSimilitud.firmar(documento(3L, "Polo algodón pima cuello redondo manga larga", "Marca A")));
+
+        List<IndiceSimilitud.Similar> similares = indice.similares(1L, 5, 0.0);
+
+        assertEquals(List.of(2L, 3L), similares.stream().map(s -> s.producto().getIdProducto()).toList());
+        assertTrue(similares.get(1).similitud() < 1.0);
+        // Con k = 1 queda solo el idéntico
+        assertEquals(1, indice.similares(1L, 1, 0.0).size());
+    }
+
+    @Test
+    void unProductoEliminadoSaleDeSusCubetas() {
+        IndiceSimilitud indice = new IndiceSimilitud();
+        indice.agregar(IndiceSimilitud.firmar(documento(1L, "Polo algodón pima cuello redondo", "Marca A")));
+        indice.agregar(IndiceSimilitud.firmar(documento(2L, "Polo algodón pima cuello redondo", "Marca A")));
+
+        indice.eliminar(2L);
+
+        assertTrue(indice.similares(1L, 5, 0.0).isEmpty());
+        assertNull(indice.listado(2L));
+        assertEquals(1, indice.tamanio());
+    }
+
+    @Test
+    void unProductoSinTextoNoTieneFirma() {
+        IndiceSimilitud indice = new IndiceSimilitud();
+        IndiceSimilitud.Entrada vacia = IndiceSimilitud.firmar(documento(1L, "", null));
+        indice.agregar(vacia);
+
+        assertNull(vacia.firma());
+        assertTrue(indice.similares(1L, 5, 0.0).isEmpty());
+    }
+
+    static ProductoDocumento documento(Long id, String nombre, String marca) {
+        return new ProductoDocumento(id, nombre, null, BigDecimal.TEN, 10, 0, null,
+                1L, "Polos", LocalDateTime.of(2025, 1, 1, 0, 0), null, marca, null, null,
+                Map.of(), null, null);
+    }
+}
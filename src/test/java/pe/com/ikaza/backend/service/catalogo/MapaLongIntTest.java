@@ -0,0 +1,81 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MapaLongIntTest {
+
+    @Test
+    void sumaYLeeValores() {
+        MapaLongInt mapa = new MapaLongInt();
+
+        assertEquals(3, mapa.sumar(10L, 3));
+        assertEquals(5, mapa.sumar(10L, 2));
+        assertEquals(-1, mapa.sumar(-7L, -1));
+
+        assertEquals(5, mapa.get(10L));
+        assertEquals(-1, mapa.get(-7L));
+        assertEquals(0, mapa.get(99L));
+        assertEquals(2, mapa.size());
+    }
+
+    @Test
+    void creceConservandoLosPares() {
+        MapaLongInt mapa = new MapaLongInt();
+        for (long clave = 0; clave < 10_000; clave++) {
+            mapa.sumar(clave * 31, (int) clave);
+        }
+
+        assertEquals(10_000, mapa.size());
+        for (long clave = 0; clave < 10_000; clave++) {
+            assertEquals((int) clave, mapa.get(clave * 31));
+        }
+    }
+
+    @Test
+    void quitarCorreLaRachaSinPerderClaves() {
+        // Capacidad chica: muchas colisiones y rachas que dan la vuelta al arreglo
+        MapaLongInt mapa = new MapaLongInt(4);
+        for (long clave = 1; clave <= 5; clave++) {
+            mapa.sumar(clave, (int) clave * 10);
+        }
+
+        mapa.quitar(2L);
+        mapa.quitar(42L);
+
+        assertEquals(4, mapa.size());
+        assertEquals(0, mapa.get(2L));
+        for (long clave : new long[]{1L, 3L, 4L, 5L}) {
+            assertEquals((int) clave * 10, mapa.get(clave));
+        }
+    }
+
+    @Test
+    void coincideConHashMapEnOperacionesAleatorias() {
+        Random random = new Random(7);
+        MapaLongInt mapa = new MapaLongInt();
+        Map<Long, Integer> esperado = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // Rango reducido para que se repitan claves y se quiten las que existen
+            long clave = random.nextInt(2_000) - 1_000L;
+            if (random.nextInt(3) == 0) {
+                mapa.quitar(clave);
+                esperado.remove(clave);
+            } else {
+                int delta = random.nextInt(5) + 1;
+                assertEquals(esperado.merge(clave, delta, Integer::sum), mapa.sumar(clave, delta));
+            }
+        }
+
+        assertEquals(esperado.size(), mapa.size());
+        Map<Long, Integer> recorrido = new HashMap<>();
+        mapa.recorrer(recorrido::put);
+        assertEquals(esperado, recorrido);
+    }
+}
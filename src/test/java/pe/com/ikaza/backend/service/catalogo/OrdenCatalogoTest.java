@@ -0,0 +1,64 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrdenCatalogoTest {
+
+    @Test
+    void nombreOrdenaComoLaCollationDeLaBd() {
+        List<ProductoListado> productos = new ArrayList<>(List.of(
+                producto(1L, "casa"), producto(2L, "Banana"), producto(3L, "Árbol"),
+                producto(4L, "Ñandú"), producto(5L, "nube"), producto(6L, "oso"),
+                producto(7L, "arbol"), producto(8L, "Casa")));
+
+        productos.sort(OrdenCatalogo.NOMBRE.getComparador());
+
+        // Sin acento antes que con acento, minúscula antes que mayúscula, ñ entre n y o
+        assertEquals(List.of("arbol", "Árbol", "Banana", "casa", "Casa", "nube", "Ñandú", "oso"),
+                productos.stream().map(ProductoListado::getNombreProducto).toList());
+    }
+
+    @Test
+    void nombresIgualesSeDesempatanPorId() {
+        List<ProductoListado> productos = new ArrayList<>(List.of(
+                producto(9L, "Mesa"), producto(3L, "Mesa"), producto(5L, "Mesa")));
+
+        productos.sort(OrdenCatalogo.NOMBRE.getComparador());
+
+        assertEquals(List.of(3L, 5L, 9L), productos.stream().map(ProductoListado::getIdProducto).toList());
+    }
+
+    @Test
+    void espaciosYGuionesNoCuentanEnElPrimerNivel() {
+        List<ProductoListado> productos = new ArrayList<>(List.of(
+                producto(1L, "ab d"), producto(2L, "a-d"), producto(3L, "abc")));
+
+        productos.sort(OrdenCatalogo.NOMBRE.getComparador());
+
+        assertEquals(List.of("abc", "ab d", "a-d"),
+                productos.stream().map(ProductoListado::getNombreProducto).toList());
+    }
+
+    @Test
+    void diferenciaConocidaOtrosSignosVanAntesQueLasLetras() {
+        // En la BD (glibc) el punto puede ignorarse y "abc" quedaría primero
+        List<ProductoListado> productos = new ArrayList<>(List.of(producto(1L, "abc"), producto(2L, "a.d")));
+
+        productos.sort(OrdenCatalogo.NOMBRE.getComparador());
+
+        assertEquals(List.of("a.d", "abc"), productos.stream().map(ProductoListado::getNombreProducto).toList());
+    }
+
+    private static ProductoListado producto(Long id, String nombre) {
+        return new ProductoListado(id, nombre, null, BigDecimal.TEN, 1, 0, null, 1L, "General",
+                LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null, null);
+    }
+}
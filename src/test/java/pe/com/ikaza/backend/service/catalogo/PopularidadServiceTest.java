@@ -0,0 +1,188 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+import pe.com.ikaza.backend.entity.PopularidadProducto;
+import pe.com.ikaza.backend.repository.PopularidadProductoRepository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PopularidadServiceTest {
+
+    private final PopularidadProductoRepository popularidadProductoRepository =
+            mock(PopularidadProductoRepository.class);
+    private final SugerenciasService sugerenciasService = mock(SugerenciasService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    /** Filas de cada batch de upsert: id -> {vistas, impresiones, carrito} */
+    private final List<Map<Long, List<Long>>> lotes = new ArrayList<>();
+    private PopularidadService servicio;
+
+    @BeforeEach
+    void configurar() {
+        servicio = new PopularidadService(popularidadProductoRepository, sugerenciasService, jdbcTemplate);
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        ReflectionTestUtils.setField(servicio, "vidaMediaHoras", 72.0);
+        ReflectionTestUtils.setField(servicio, "ventanaCarritoMinutos", 60L);
+        ReflectionTestUtils.setField(servicio, "maximoCarritoPorCliente", 2);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(i -> {
+            lotes.add(filas(i.getArgument(1), i.getArgument(3)));
+            return new int[0][];
+        });
+    }
+
+    @Test
+    void lasInteraccionesSeVuelcanEnUnSoloLote() {
+        cargar();
+        servicio.registrarVista(1L);
+        servicio.registrarVista(1L);
+        servicio.registrarImpresiones(List.of(1L, 2L, 2L));
+        servicio.registrarAgregadoCarrito("c1", 2L);
+
+        servicio.vaciar();
+
+        assertEquals(1, lotes.size());
+        assertEquals(Map.of(1L, List.of(2L, 1L, 0L), 2L, List.of(0L, 2L, 1L)), lotes.get(0));
+    }
+
+    @Test
+    void sinInteraccionesNoSeEscribeNada() {
+        cargar();
+
+        servicio.vaciar();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void losContadoresSeReinicianTrasCadaVolcado() {
+        cargar();
+        servicio.registrarVista(1L);
+        servicio.vaciar();
+        servicio.registrarVista(1L);
+        servicio.registrarVista(1L);
+        servicio.vaciar();
+
+        assertEquals(List.of(Map.of(1L, List.of(1L, 0L, 0L)), Map.of(1L, List.of(2L, 0L, 0L))), lotes);
+    }
+
+    @Test
+    void unVolcadoFallidoDevuelveLosContadores() {
+        cargar();
+        doThrow(new IllegalStateException("sin conexión"))
+                .doAnswer(i -> {
+                    lotes.add(filas(i.getArgument(1), i.getArgument(3)));
+                    return new int[0][];
+                })
+                .when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        servicio.registrarVista(1L);
+        servicio.vaciar();
+        servicio.registrarVista(1L);
+
+        servicio.vaciar();
+
+        assertEquals(List.of(Map.of(1L, List.of(2L, 0L, 0L))), lotes);
+    }
+
+    @Test
+    void elCarritoCuentaUnaVezPorClienteYConTope() {
+        cargar();
+        servicio.registrarAgregadoCarrito("c1", 1L);
+        servicio.registrarAgregadoCarrito("c1", 1L);
+        servicio.registrarAgregadoCarrito("c1", 2L);
+        // Tope de 2 productos por cliente
+        servicio.registrarAgregadoCarrito("c1", 3L);
+        servicio.registrarAgregadoCarrito("c2", 1L);
+
+        servicio.vaciar();
+
+        assertEquals(Map.of(1L, List.of(0L, 0L, 2L), 2L, List.of(0L, 0L, 1L)), lotes.get(0));
+    }
+
+    @Test
+    void soloSeCuentanProductosDelCatalogo() {
+        cargar();
+        servicio.registrarVista(99L);
+        servicio.registrarImpresiones(List.of(99L));
+
+        servicio.vaciar();
+
+        assertTrue(lotes.isEmpty());
+    }
+
+    @Test
+    void elTopOrdenaPorPuntajeYDesempataPorId() {
+        // El 4 parte de la tabla con un puntaje alto
+        PopularidadProducto guardado = new PopularidadProducto(4L, 0L, 0L, 0L, 100.0, LocalDateTime.now());
+        when(popularidadProductoRepository.findAll()).thenReturn(List.of(guardado));
+        cargar();
+        servicio.registrarAgregadoCarrito("c1", 3L);
+        servicio.registrarVista(1L);
+        servicio.registrarVista(2L);
+
+        servicio.vaciar();
+
+        assertEquals(List.of(4L, 3L, 1L, 2L), ids(servicio.top(null, 10)));
+        assertEquals(List.of(3L, 1L), ids(servicio.top(10L, 10)));
+        assertEquals(List.of(4L), ids(servicio.top(null, 1)));
+        verify(sugerenciasService).actualizarPopularidad(argThat(cambiados -> cambiados.size() == 3));
+    }
+
+    private void cargar() {
+        servicio.reconstruir(List.of(documento(1L, 10L), documento(2L, 20L), documento(3L, 10L),
+                documento(4L, 20L)));
+    }
+
+    /** Aplica el setter del batch a cada incremento y anota vistas, impresiones y carrito */
+    private static Map<Long, List<Long>> filas(Collection<Object> incrementos,
+            ParameterizedPreparedStatementSetter<Object> setter) throws Exception {
+        Map<Long, List<Long>> filas = new TreeMap<>();
+        for (Object incremento : incrementos) {
+            Map<Integer, Object> parametros = new TreeMap<>();
+            PreparedStatement ps = mock(PreparedStatement.class, invocacion -> {
+                if (invocacion.getMethod().getName().startsWith("set")) {
+                    parametros.put(invocacion.getArgument(0), invocacion.getArgument(1));
+                }
+                return null;
+            });
+            setter.setValues(ps, incremento);
+            filas.put((Long) parametros.get(1),
+                    List.of((Long) parametros.get(2), (Long) parametros.get(3), (Long) parametros.get(4)));
+        }
+        return filas;
+    }
+
+    private static List<Long> ids(List<ProductoListado> productos) {
+        return productos.stream().map(ProductoListado::getIdProducto).toList();
+    }
+
+    private static ProductoDocumento documento(Long id, Long idCategoria) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, 10, 0, null,
+                idCategoria, "Categoría " + idCategoria, LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null,
+                null, null, null, null);
+    }
+}
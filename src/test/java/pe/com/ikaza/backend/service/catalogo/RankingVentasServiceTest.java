@@ -0,0 +1,151 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import pe.com.ikaza.backend.dto.projection.ProductoDocumento;
+import pe.com.ikaza.backend.dto.projection.VentaDiaria;
+import pe.com.ikaza.backend.repository.DetallePedidoRepository;
+import pe.com.ikaza.backend.repository.PedidoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RankingVentasServiceTest {
+
+    private final DetallePedidoRepository detallePedidoRepository = mock(DetallePedidoRepository.class);
+    private final PedidoRepository pedidoRepository = mock(PedidoRepository.class);
+    /** Filas de ventas por producto y día que devuelve la "BD" */
+    private final List<VentaDiaria> ventasBd = new ArrayList<>();
+    private RankingVentasService servicio;
+
+    @BeforeEach
+    void configurar() {
+        servicio = new RankingVentasService(detallePedidoRepository, pedidoRepository,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        when(detallePedidoRepository.findVentasDiariasAprobadas()).thenAnswer(i -> List.copyOf(ventasBd));
+    }
+
+    @Test
+    void elTopOrdenaPorUnidadesYDesempataPorId() {
+        LocalDate hoy = LocalDate.now();
+        venta(1L, hoy, 5);
+        venta(2L, hoy, 8);
+        venta(3L, hoy, 5);
+        venta(4L, hoy, 1);
+
+        cargar();
+
+        assertEquals(List.of(2L, 1L, 3L, 4L), ids(servicio.top(VentanaVentas.TOTAL, null, 10)));
+        assertEquals(List.of(2L, 1L), ids(servicio.top(VentanaVentas.TOTAL, null, 2)));
+        assertEquals(8L, servicio.top(VentanaVentas.TOTAL, null, 1).get(0).unidades());
+        // 1 y 2 son de la categoría 10; 3 y 4 de la 20
+        assertEquals(List.of(2L, 1L), ids(servicio.top(VentanaVentas.TOTAL, 10L, 10)));
+        assertEquals(List.of(3L, 4L), ids(servicio.top(VentanaVentas.TOTAL, 20L, 10)));
+    }
+
+    @Test
+    void cadaVentanaSoloSumaSusDias() {
+        LocalDate hoy = LocalDate.now();
+        venta(1L, hoy, 2);
+        venta(2L, hoy.minusDays(10), 5);
+        venta(3L, hoy.minusDays(40), 9);
+
+        cargar();
+
+        assertEquals(List.of(3L, 2L, 1L), ids(servicio.top(VentanaVentas.TOTAL, null, 10)));
+        assertEquals(List.of(2L, 1L), ids(servicio.top(VentanaVentas.TREINTA_DIAS, null, 10)));
+        assertEquals(List.of(1L), ids(servicio.top(VentanaVentas.SIETE_DIAS, null, 10)));
+    }
+
+    @Test
+    void lasVentasConfirmadasSeSumanAlRefrescar() {
+        venta(1L, LocalDate.now(), 3);
+        cargar();
+
+        servicio.onVentaConfirmada(VentaConfirmadaEvent.venta(100L, Map.of(2L, 4)));
+        servicio.refrescar();
+
+        assertEquals(List.of(2L, 1L), ids(servicio.top(VentanaVentas.SIETE_DIAS, null, 10)));
+        verify(detallePedidoRepository, times(1)).findVentasDiariasAprobadas();
+    }
+
+    @Test
+    void lasVentasRetenidasDuranteLaRecargaSeSumanSoloSiLaLecturaNoLasVio() {
+        LocalDate hoy = LocalDate.now();
+        venta(1L, hoy, 5);
+        // El pedido 100 ya está en la lectura (6 del producto 3); el 101 se confirma después
+        venta(3L, hoy, 6);
+        when(detallePedidoRepository.findVentasDiariasAprobadas()).thenAnswer(i -> {
+            servicio.onVentaConfirmada(VentaConfirmadaEvent.venta(100L, Map.of(3L, 6)));
+            servicio.onVentaConfirmada(VentaConfirmadaEvent.venta(101L, Map.of(1L, 2)));
+            return List.copyOf(ventasBd);
+        });
+        when(pedidoRepository.findIdsConPagoAprobado(anyCollection())).thenReturn(List.of(100L));
+
+        cargar();
+
+        List<RankingVentasService.ProductoVendido> top = servicio.top(VentanaVentas.TOTAL, null, 10);
+        assertEquals(List.of(1L, 3L), ids(top));
+        assertEquals(7L, top.get(0).unidades());
+        assertEquals(6L, top.get(1).unidades());
+    }
+
+    @Test
+    void unaDevolucionRecargaDesdeLaBd() {
+        venta(1L, LocalDate.now(), 5);
+        venta(2L, LocalDate.now(), 4);
+        cargar();
+
+        ventasBd.remove(0);
+        ventasBd.add(new VentaDiaria(1L, LocalDate.now(), 3L));
+        servicio.onVentaConfirmada(VentaConfirmadaEvent.devolucion(100L, Map.of(1L, 2)));
+        servicio.refrescar();
+
+        assertEquals(List.of(2L, 1L), ids(servicio.top(VentanaVentas.TOTAL, null, 10)));
+        verify(detallePedidoRepository, times(2)).findVentasDiariasAprobadas();
+    }
+
+    @Test
+    void unProductoEliminadoNoSeLista() {
+        venta(1L, LocalDate.now(), 5);
+        venta(2L, LocalDate.now(), 4);
+        cargar();
+
+        servicio.eliminar(1L);
+
+        assertEquals(List.of(2L), ids(servicio.top(VentanaVentas.TOTAL, null, 10)));
+    }
+
+    private void cargar() {
+        servicio.reconstruir(List.of(documento(1L, 10L), documento(2L, 10L), documento(3L, 20L),
+                documento(4L, 20L)));
+    }
+
+    private void venta(Long idProducto, LocalDate dia, long unidades) {
+        ventasBd.add(new VentaDiaria(idProducto, dia, unidades));
+    }
+
+    private static List<Long> ids(List<RankingVentasService.ProductoVendido> vendidos) {
+        return vendidos.stream().map(v -> v.producto().getIdProducto()).toList();
+    }
+
+    private static ProductoDocumento documento(Long id, Long idCategoria) {
+        return new ProductoDocumento(id, "Producto " + id, null, BigDecimal.TEN, 10, 0, null,
+                idCategoria, "Categoría " + idCategoria, LocalDateTime.of(2025, 1, 1, 0, 0), null, null, null,
+                null, null, null, null);
+    }
+}
@@ -0,0 +1,78 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.com.ikaza.backend.dto.projection.ProductoListado;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static pe.com.ikaza.backend.service.catalogo.IndiceSimilitudTest.documento;
+
+class SimilaresServiceTest {
+
+    private final SimilaresService servicio = new SimilaresService();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(servicio, "habilitado", true);
+        ReflectionTestUtils.setField(servicio, "similitudMinima", 0.2);
+        servicio.reconstruir(List.of(
+                documento(1L, "Polo algodón pima cuello redondo", "Marca A"),
+                documento(2L, "Polo algodón pima cuello redondo", "Marca A"),
+                documento(3L, "Taladro percutor inalámbrico", "Marca B")));
+    }
+
+    @Test
+    void recomiendaSoloLosParecidos() {
+        assertEquals(List.of(2L), ids(servicio.similares(1L, 5)));
+        assertEquals(List.of(), ids(servicio.similares(3L, 5)));
+    }
+
+    @Test
+    void elStockSeActualizaSinElLockDeEscritura() throws Exception {
+        ReadWriteLock lock = (ReadWriteLock) ReflectionTestUtils.getField(servicio, "lock");
+        CountDownLatch tomado = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        Thread escritor = new Thread(() -> {
+            Lock escritura = lock.writeLock();
+            escritura.lock();
+            try {
+                tomado.countDown();
+                soltar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                escritura.unlock();
+            }
+        });
+        escritor.start();
+        tomado.await();
+
+        // Con el lock de escritura tomado por otro hilo, tomarlo aquí esperaría para siempre
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> servicio.actualizarStock(2L, 3));
+
+        soltar.countDown();
+        escritor.join();
+        assertEquals(3, servicio.similares(1L, 5).get(0).getStock());
+    }
+
+    @Test
+    void reindexarDescartaElStockAnterior() {
+        servicio.actualizarStock(2L, 3);
+
+        servicio.indexar(documento(2L, "Polo algodón pima cuello redondo", "Marca A"));
+
+        assertEquals(10, servicio.similares(1L, 5).get(0).getStock());
+    }
+
+    private static List<Long> ids(List<ProductoListado> productos) {
+        return productos.stream().map(ProductoListado::getIdProducto).toList();
+    }
+}
@@ -0,0 +1,143 @@
+package pe.com.ikaza.backend.service.catalogo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.dto.projection.SlugDetalle;
+import pe.com.ikaza.backend.entity.ProductoDetalle;
+import pe.com.ikaza.backend.repository.ProductoDetalleRepository;
+import pe.com.ikaza.backend.repository.ProductoSlugHistorialRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlugProductoServiceTest {
+
+    /** idDetalle -> slug vigente y seo.slug; el idProducto es idDetalle + 100 */
+    private final Map<Long, String> slugs = new TreeMap<>();
+    private final Map<Long, String> pedidos = new HashMap<>();
+    private final Map<String, Long> historial = new HashMap<>();
+    private final List<Long> reindexados = new ArrayList<>();
+    private SlugProductoService servicio;
+
+    @BeforeEach
+    void configurar() {
+        ProductoDetalleRepository detalles = mock(ProductoDetalleRepository.class);
+        when(detalles.findSlugDetalleById(anyLong())).thenAnswer(i -> Optional.ofNullable(fila(i.getArgument(0))));
+        when(detalles.findIdDetalleByProductoId(anyLong()))
+                .thenAnswer(i -> Optional.of(i.<Long>getArgument(0) - 100));
+        when(detalles.findIdDetalleBySlug(anyString())).thenAnswer(i -> slugs.entrySet().stream()
+                .filter(e -> Objects.equals(e.getValue(), i.getArgument(0)))
+                .map(Map.Entry::getKey)
+                .findFirst());
+        when(detalles.findSlugDetalles()).thenAnswer(i -> slugs.keySet().stream().map(this::fila).toList());
+        when(detalles.actualizarSlug(anyLong(), any())).thenAnswer(i -> {
+            String slug = i.getArgument(1);
+            // El índice único de la columna slug
+            if (slug != null && slugs.containsValue(slug)) {
+                throw new IllegalStateException("duplicate key value: " + slug);
+            }
+            slugs.put(i.getArgument(0), slug);
+            return 1;
+        });
+        when(detalles.actualizarSlug(anyLong(), isNull())).thenAnswer(i -> {
+            slugs.put(i.getArgument(0), null);
+            return 1;
+        });
+
+        ProductoSlugHistorialRepository historialRepository = mock(ProductoSlugHistorialRepository.class);
+        doAnswer(i -> historial.put(i.getArgument(0), i.getArgument(1)))
+                .when(historialRepository).registrar(anyString(), anyLong());
+
+        servicio = new SlugProductoService(detalles, historialRepository,
+                evento -> reindexados.add(((ProductoCambiadoEvent) evento).getIdProducto()));
+    }
+
+    @Test
+    void aplicaElSlugNormalizadoYGuardaElAnterior() {
+        detalle(1L, "polo-azul", " Polo-Azul-M ");
+
+        servicio.sincronizar(101L);
+
+        assertEquals("polo-azul-m", slugs.get(1L));
+        assertEquals(101L, historial.get("polo-azul"));
+        assertEquals(List.of(101L), reindexados);
+    }
+
+    @Test
+    void intercambiaSlugsEntreDosProductos() {
+        detalle(1L, "a", "b");
+        detalle(2L, "b", "a");
+
+        servicio.sincronizar(101L);
+
+        assertEquals("b", slugs.get(1L));
+        assertEquals("a", slugs.get(2L));
+        assertEquals(101L, historial.get("a"));
+        assertEquals(102L, historial.get("b"));
+        assertEquals(2, reindexados.size());
+    }
+
+    @Test
+    void rotaSlugsEnUnCicloDeTres() {
+        detalle(1L, "a", "b");
+        detalle(2L, "b", "c");
+        detalle(3L, "c", "a");
+
+        assertEquals(3, servicio.sincronizarTodos());
+
+        assertEquals("b", slugs.get(1L));
+        assertEquals("c", slugs.get(2L));
+        assertEquals("a", slugs.get(3L));
+    }
+
+    @Test
+    void quienTieneElSlugYLoSiguePidiendoLoConserva() {
+        detalle(1L, "a", "a");
+        detalle(2L, "b", "a");
+
+        assertEquals(0, servicio.sincronizarTodos());
+
+        assertEquals("a", slugs.get(1L));
+        assertEquals("b", slugs.get(2L));
+        assertNull(historial.get("b"));
+    }
+
+    @Test
+    void seoSinSlugLiberaLaColumna() {
+        detalle(1L, "a", "  ");
+        detalle(2L, null, "a");
+
+        servicio.sincronizarTodos();
+
+        assertNull(slugs.get(1L));
+        assertEquals("a", slugs.get(2L));
+    }
+
+    private void detalle(Long id, String slug, String pedido) {
+        slugs.put(id, slug);
+        pedidos.put(id, pedido);
+    }
+
+    private SlugDetalle fila(Long id) {
+        if (!slugs.containsKey(id)) {
+            return null;
+        }
+        ProductoDetalle.SeoDto seo = new ProductoDetalle.SeoDto(pedidos.get(id), null, null, List.of());
+        return new SlugDetalle(id, id + 100, slugs.get(id), seo);
+    }
+}
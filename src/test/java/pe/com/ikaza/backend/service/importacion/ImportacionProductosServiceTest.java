@@ -0,0 +1,206 @@
+package pe.com.ikaza.backend.service.importacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.com.ikaza.backend.dto.response.ImportacionProductosResponse;
+import pe.com.ikaza.backend.entity.Categoria;
+import pe.com.ikaza.backend.enums.FormatoArchivo;
+import pe.com.ikaza.backend.repository.CategoriaRepository;
+import pe.com.ikaza.backend.service.catalogo.ProductosImportadosEvent;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImportacionProductosServiceTest {
+
+    private static final String RECHAZADO = "Rechazado";
+
+    private final JdbcFalso jdbcTemplate = new JdbcFalso();
+    private final List<Object> eventos = new ArrayList<>();
+    private ImportacionProductosService servicio;
+
+    @BeforeEach
+    void configurar() {
+        Categoria polos = new Categoria();
+        polos.setIdCategoria(1L);
+        polos.setNombreCategoria("Polos");
+        CategoriaRepository categoriaRepository = mock(CategoriaRepository.class);
+        when(categoriaRepository.findAll()).thenReturn(List.of(polos));
+
+        servicio = new ImportacionProductosService(jdbcTemplate, new TransaccionDirecta(), categoriaRepository,
+                eventos::add, new ObjectMapper());
+        ReflectionTestUtils.setField(servicio, "tamanioLote", 2);
+        ReflectionTestUtils.setField(servicio, "zonaBaseDatos", "");
+    }
+
+    @Test
+    void importaCsvConBomComillasYSaltosDeLinea() {
+        ImportacionProductosResponse respuesta = importar(FormatoArchivo.CSV,
+                "\uFEFFnombreProducto,nombreCategoria,precio,stock,descripcionProducto\r\n"
+                        + "\"Polo, azul\",polos,19.90,5,\"Algodón\r\nmanga corta\"\r\n"
+                        + "Gorra,POLOS,9.90,3,\r\n");
+
+        assertEquals(2, respuesta.getProcesadas());
+        assertEquals(2, respuesta.getImportadas());
+        assertEquals(0, respuesta.getFallidas());
+        assertEquals(List.of("Polo, azul", "Gorra"), jdbcTemplate.guardados);
+        assertEquals(List.of(List.of(101L, 102L)), idsPublicados());
+    }
+
+    @Test
+    void reportaCadaFilaInvalidaConSuNumero() {
+        ImportacionProductosResponse respuesta = importar(FormatoArchivo.CSV,
+                "nombreProducto;idCategoria;precio;stock;codigo\n"
+                        + "Polo;1;10;5;A1\n"
+                        + ";1;10;5;\n"
+                        + "Polo;9;10;5;\n"
+                        + "Polo;1;abc;5;\n"
+                        + "Polo;1;10;5;EXISTENTE\n"
+                        + "Polo;1;10;5;A1\n");
+
+        assertEquals(6, respuesta.getProcesadas());
+        assertEquals(1, respuesta.getImportadas());
+        assertEquals(5, respuesta.getFallidas());
+        assertEquals(List.of(2, 3, 4, 5, 6), respuesta.getErrores().stream()
+                .map(ImportacionProductosResponse.ErrorFila::getFila)
+                .toList());
+        assertEquals("El nombre del producto es obligatorio", respuesta.getErrores().get(0).getMensaje());
+        assertEquals("Categoría no encontrada", respuesta.getErrores().get(1).getMensaje());
+        assertEquals("precio no es un número: abc", respuesta.getErrores().get(2).getMensaje());
+        // Repetido contra la BD y contra el lote pendiente
+        assertTrue(respuesta.getErrores().get(3).getMensaje().contains("EXISTENTE"));
+        assertTrue(respuesta.getErrores().get(4).getMensaje().contains("A1"));
+    }
+
+    @Test
+    void unLoteRechazadoReportaSusFilasYLiberaSusCodigos() {
+        ImportacionProductosResponse respuesta = importar(FormatoArchivo.CSV,
+                "nombreProducto,idCategoria,precio,stock,codigo\n"
+                        + "Polo,1,10,5,A1\n"
+                        + RECHAZADO + ",1,10,5,B1\n"
+                        + "Gorra,1,10,5,A1\n"
+                        + "Casaca,1,10,5,B1\n");
+
+        assertEquals(4, respuesta.getProcesadas());
+        assertEquals(2, respuesta.getImportadas());
+        assertEquals(2, respuesta.getFallidas());
+        assertEquals(List.of(1, 2), respuesta.getErrores().stream()
+                .map(ImportacionProductosResponse.ErrorFila::getFila)
+                .toList());
+        assertTrue(respuesta.getErrores().get(0).getMensaje().startsWith("Lote rechazado por la base de datos"));
+        // Los códigos del lote rechazado quedan libres para las filas siguientes
+        assertEquals(List.of("Gorra", "Casaca"), jdbcTemplate.guardados);
+        // Solo el lote confirmado llega a los índices
+        assertEquals(List.of(List.of(103L, 104L)), idsPublicados());
+    }
+
+    @Test
+    void ndjsonConLineaInvalida() {
+        ImportacionProductosResponse respuesta = importar(FormatoArchivo.NDJSON,
+                "{\"nombreProducto\":\"Polo\",\"idCategoria\":1,\"precio\":10,\"stock\":5}\n"
+                        + "{no es json\n"
+                        + "\n"
+                        + "{\"nombreProducto\":\"Gorra\",\"nombreCategoria\":\"Polos\",\"precio\":5,\"stock\":1}\n");
+
+        assertEquals(3, respuesta.getProcesadas());
+        assertEquals(2, respuesta.getImportadas());
+        assertEquals(1, respuesta.getErrores().size());
+        assertEquals(2, respuesta.getErrores().get(0).getFila());
+        assertTrue(respuesta.getErrores().get(0).getMensaje().startsWith("JSON inválido"));
+    }
+
+    @Test
+    void cabeceraSinNombreProductoSeRechaza() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importar(FormatoArchivo.CSV, "nombre,precio,stock\nPolo,10,5\n"));
+        assertTrue(eventos.isEmpty());
+    }
+
+    private ImportacionProductosResponse importar(FormatoArchivo formato, String contenido) {
+        return servicio.importar(new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), formato);
+    }
+
+    private List<List<Long>> idsPublicados() {
+        return eventos.stream()
+                .map(evento -> ((ProductosImportadosEvent) evento).getIdsProducto())
+                .toList();
+    }
+
+    /**
+     * Registra los nombres insertados en productos; un lote que incluye RECHAZADO falla como en la BD
+     */
+    private static final class JdbcFalso extends JdbcTemplate {
+        private final List<String> guardados = new ArrayList<>();
+        private long secuencia = 100;
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> tipo) {
+            return List.of(tipo.cast("EXISTENTE"));
+        }
+
+        @Override
+        public <T> List<T> queryForList(String sql, Class<T> tipo, Object... args) {
+            List<T> ids = new ArrayList<>();
+            for (int i = 0; i < (Integer) args[0]; i++) {
+                ids.add(tipo.cast(++secuencia));
+            }
+            return ids;
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> filas, int tamanio,
+                ParameterizedPreparedStatementSetter<T> setter) {
+            if (!sql.startsWith("INSERT INTO productos ")) {
+                return new int[0][];
+            }
+            List<String> nombres = new ArrayList<>();
+            PreparedStatement ps = mock(PreparedStatement.class, invocacion -> {
+                if (invocacion.getMethod().getName().equals("setString")
+                        && invocacion.<Integer>getArgument(0) == 3) {
+                    nombres.add(invocacion.getArgument(1));
+                }
+                return null;
+            });
+            try {
+                for (T fila : filas) {
+                    setter.setValues(ps, fila);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            if (nombres.contains(RECHAZADO)) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            guardados.addAll(nombres);
+            return new int[0][];
+        }
+    }
+
+    /**
+     * Ejecuta el lote sin transacción real
+     */
+    private static final class TransaccionDirecta extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> accion) {
+            return accion.doInTransaction(null);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package pe.com.ikaza.backend.service.importacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LectorCsvTest {
+
+    @Test
+    void separaCamposSimples() throws IOException {
+        assertEquals(List.of(List.of("a", "b", "c"), List.of("1", "2", "3")),
+                leerTodo("a,b,c\n1,2,3\n", ','));
+    }
+
+    @Test
+    void respetaComillasYComillasEscapadas() throws IOException {
+        List<List<String>> registros = leerTodo("\"Polo, azul\",\"Dice \"\"hola\"\"\",\"\"\n", ',');
+
+        assertEquals(List.of(List.of("Polo, azul", "Dice \"hola\"", "")), registros);
+    }
+
+    @Test
+    void admiteSaltosDeLineaDentroDeUnCampoEntrecomillado() throws IOException {
+        List<List<String>> registros = leerTodo("id,descripcion\r\n1,\"Línea 1\r\nLínea 2\nLínea 3\"\r\n2,fin", ',');
+
+        assertEquals(3, registros.size());
+        assertEquals(List.of("1", "Línea 1\r\nLínea 2\nLínea 3"), registros.get(1));
+        // El último registro no necesita salto de línea final
+        assertEquals(List.of("2", "fin"), registros.get(2));
+    }
+
+    @Test
+    void saltaLineasVaciasYConservaCamposVacios() throws IOException {
+        List<List<String>> registros = leerTodo("\n\na;;c;\r\n\r\nd;e;f;g\n", ';');
+
+        assertEquals(List.of(List.of("a", "", "c", ""), List.of("d", "e", "f", "g")), registros);
+    }
+
+    @Test
+    void archivoVacioNoTieneRegistros() throws IOException {
+        assertEquals(List.of(), leerTodo("", ','));
+        assertEquals(List.of(), leerTodo("\r\n\n", ','));
+    }
+
+    private static List<List<String>> leerTodo(String texto, char separador) throws IOException {
+        LectorCsv lector = new LectorCsv(new StringReader(texto), separador);
+        List<List<String>> registros = new ArrayList<>();
+        List<String> registro;
+        while ((registro = lector.leer()) != null) {
+            registros.add(registro);
+        }
+        return registros;
+    }
+}
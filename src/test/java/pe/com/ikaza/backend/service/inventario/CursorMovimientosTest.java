@@ -0,0 +1,65 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import org.junit.jupiter.api.Test;
+import pe.com.ikaza.backend.entity.MovimientoInventario;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorMovimientosTest {
+
+    @Test
+    void codificarYDecodificarConservanLaPosicion() {
+        for (LocalDateTime fecha : List.of(
+                LocalDateTime.of(2025, 3, 1, 10, 30, 15, 123_456_789),
+                LocalDateTime.of(2025, 3, 1, 10, 30, 15, 500_000_000),
+                // Sin segundos LocalDateTime.toString los omite
+                LocalDateTime.of(2025, 3, 1, 0, 0))) {
+            MovimientoInventario ultimo = new MovimientoInventario();
+            ultimo.setIdMovimiento(987_654_321L);
+            ultimo.setFechaMovimiento(fecha);
+            CursorMovimientos cursor = CursorMovimientos.despuesDe(ultimo);
+
+            assertEquals(cursor, CursorMovimientos.decodificar(cursor.codificar()));
+        }
+    }
+
+    @Test
+    void elCursorInicialTambienSeLeeDeVuelta() {
+        CursorMovimientos inicial = CursorMovimientos.inicial(LocalDateTime.of(2025, 3, 2, 0, 0));
+
+        CursorMovimientos leido = CursorMovimientos.decodificar(inicial.codificar());
+
+        assertEquals(LocalDateTime.of(2025, 3, 2, 0, 0), leido.fecha());
+        assertEquals(0L, leido.idMovimiento());
+    }
+
+    @Test
+    void elTokenEsSeguroParaUrls() {
+        String token = new CursorMovimientos(LocalDateTime.of(2025, 12, 31, 23, 59, 59, 999_999_999),
+                Long.MAX_VALUE).codificar();
+
+        assertFalse(token.contains("+") || token.contains("/") || token.contains("="), token);
+    }
+
+    @Test
+    void tokensInvalidosSeRechazan() {
+        String sinId = codificar("m1|2025-03-01T10:30");
+        String otraVersion = codificar("m0|2025-03-01T10:30|1");
+        String fechaRota = codificar("m1|ayer|1");
+        String idRoto = codificar("m1|2025-03-01T10:30|uno");
+
+        for (String token : List.of("%%%", "", sinId, otraVersion, fechaRota, idRoto)) {
+            assertThrows(IllegalArgumentException.class, () -> CursorMovimientos.decodificar(token));
+        }
+    }
+
+    private static String codificar(String plano) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes());
+    }
+}
@@ -0,0 +1,134 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import pe.com.ikaza.backend.entity.MovimientoInventario;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EscritorMovimientosServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    /** Filas de cada batch a movimientos_inventario, en orden */
+    private final List<List<MovimientoPendiente>> insertados = Collections.synchronizedList(new ArrayList<>());
+    private EscritorMovimientosService escritor;
+
+    @AfterEach
+    void detener() {
+        if (escritor != null) {
+            escritor.detener();
+        }
+    }
+
+    @Test
+    void elEscritorJuntaLosLotesHastaElTamanioConfigurado() {
+        escritor = crear(false, 10, 3);
+        for (long id = 1; id <= 4; id++) {
+            escritor.onMovimientosRegistrados(lote(null, id));
+        }
+
+        escritor.iniciar();
+
+        verify(jdbcTemplate, timeout(5000).times(2))
+                .batchUpdate(startsWith("INSERT INTO movimientos_inventario ("), anyCollection(), anyInt(), any());
+        assertEquals(List.of(3, 1), insertados.stream().map(List::size).toList());
+        assertEquals(0, escritor.getEscriturasEnLinea());
+    }
+
+    @Test
+    void conElBufferLlenoEscribeEnLineaYLoCuenta() {
+        escritor = crear(false, 1, 500);
+        escritor.onMovimientosRegistrados(lote(null, 1L));
+        assertEquals(0, insertados.size());
+
+        escritor.onMovimientosRegistrados(lote(null, 2L));
+        escritor.onMovimientosRegistrados(lote(null, 3L));
+
+        assertEquals(2, escritor.getEscriturasEnLinea());
+        assertEquals(List.of(2L, 3L), insertados.stream().map(filas -> filas.get(0).idProducto()).toList());
+    }
+
+    @Test
+    void soloEscribeLosLotesQueTomoDelOutbox() throws Exception {
+        escritor = crear(true, 10, 500);
+        // La recuperación ya escribió la fila 2 del outbox
+        ResultSet filaTomada = mock(ResultSet.class);
+        when(filaTomada.getLong(1)).thenReturn(1L);
+        doAnswer(i -> {
+            i.<RowCallbackHandler>getArgument(1).processRow(filaTomada);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        escritor.onMovimientosRegistrados(lote(1L, 10L));
+        escritor.onMovimientosRegistrados(lote(2L, 20L));
+
+        escritor.detener();
+
+        assertEquals(1, insertados.size());
+        assertEquals(List.of(10L), insertados.get(0).stream().map(MovimientoPendiente::idProducto).toList());
+    }
+
+    @Test
+    void lasReservasSumanAReservadoYNoAlNeto() {
+        List<long[]> resumen = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO movimientos_inventario_diario"), anyCollection(),
+                anyInt(), any())).thenAnswer(i -> {
+                    i.<Collection<Map.Entry<?, long[]>>>getArgument(1).forEach(e -> resumen.add(e.getValue()));
+                    return new int[0][];
+                });
+        escritor = crear(false, 10, 500);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        escritor.escribirAhora(List.of(
+                new MovimientoPendiente(null, 1L, MovimientoInventario.TipoMovimiento.AJUSTE, 3, 0, 3,
+                        MovimientoPendiente.MOTIVO_RESERVA + 7, ahora),
+                new MovimientoPendiente(null, 1L, MovimientoInventario.TipoMovimiento.AJUSTE, 1, 3, 2,
+                        MovimientoPendiente.MOTIVO_VENCIMIENTO + 7, ahora),
+                new MovimientoPendiente(7, 1L, MovimientoInventario.TipoMovimiento.AJUSTE, 5, 10, 15,
+                        "Conteo físico", ahora)));
+
+        // movimientos, unidades, neto, reservado
+        assertEquals(1, resumen.size());
+        assertArrayEquals(new long[]{3, 9, 5, 2}, resumen.get(0));
+    }
+
+    private EscritorMovimientosService crear(boolean outbox, int capacidad, int tamanioLote) {
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO movimientos_inventario ("), anyCollection(),
+                anyInt(), any())).thenAnswer(i -> {
+                    insertados.add(new ArrayList<>(i.<Collection<MovimientoPendiente>>getArgument(1)));
+                    return new int[0][];
+                });
+        return new EscritorMovimientosService(jdbcTemplate, mock(PlatformTransactionManager.class),
+                new ObjectMapper().findAndRegisterModules(), mock(ApplicationEventPublisher.class),
+                outbox, capacidad, tamanioLote, 200, 60000);
+    }
+
+    private static EscritorMovimientosService.LoteMovimientos lote(Long idOutbox, Long idProducto) {
+        MovimientoPendiente movimiento = new MovimientoPendiente(null, idProducto,
+                MovimientoInventario.TipoMovimiento.SALIDA, 1, 5, 4, "Venta", LocalDateTime.now());
+        return new EscritorMovimientosService.LoteMovimientos(idOutbox, List.of(movimiento));
+    }
+}
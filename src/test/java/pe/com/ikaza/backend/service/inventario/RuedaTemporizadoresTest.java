@@ -0,0 +1,103 @@
+package pe.com.ikaza.backend.service.inventario;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuedaTemporizadoresTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void venceEnSuTickYNoAntes() {
+        RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>(TICK, 8, 0);
+        rueda.programar("a", 2500);
+
+        assertTrue(rueda.avanzar(2999).isEmpty());
+        assertEquals(List.of("a"), rueda.avanzar(3000));
+        assertEquals(0, rueda.tamanio());
+    }
+
+    @Test
+    void unInstanteYaPasadoVenceEnElProximoAvance() {
+        RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>(TICK, 8, 5000);
+        rueda.avanzar(6000);
+        rueda.programar("tarde", 1000);
+
+        assertEquals(List.of("tarde"), rueda.avanzar(7000));
+    }
+
+    @Test
+    void unaVueltaDespuesCompartiendoRanuraEsperaSuTick() {
+        RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>(TICK, 8, 0);
+        // Ticks 3 y 11: la misma ranura con 8 ranuras
+        rueda.programar("cerca", 3000);
+        rueda.programar("lejos", 11000);
+
+        assertEquals(List.of("cerca"), rueda.avanzar(3000));
+        assertEquals(1, rueda.tamanio());
+        // La ranura vuelve a pasar por el tick 3 + 8 = 11 recién al llegar a ese tick
+        assertTrue(rueda.avanzar(10999).isEmpty());
+        assertEquals(List.of("lejos"), rueda.avanzar(11000));
+    }
+
+    @Test
+    void trasUnaPausaDeVariasVueltasDevuelveTodoLoVencido() {
+        RuedaTemporizadores<Integer> rueda = new RuedaTemporizadores<>(TICK, 8, 0);
+        for (int i = 1; i <= 40; i++) {
+            rueda.programar(i, i * TICK);
+        }
+
+        List<Integer> vencidos = new ArrayList<>(rueda.avanzar(30_000));
+        vencidos.sort(null);
+
+        assertEquals(30, vencidos.size());
+        assertEquals(1, vencidos.get(0));
+        assertEquals(30, vencidos.get(29));
+        assertEquals(10, rueda.tamanio());
+        assertEquals(10, rueda.avanzar(40_000).size());
+    }
+
+    @Test
+    void elTiempoQueRetrocedeNoVenceNada() {
+        RuedaTemporizadores<String> rueda = new RuedaTemporizadores<>(TICK, 8, 10_000);
+        rueda.programar("a", 12_000);
+
+        assertTrue(rueda.avanzar(9_000).isEmpty());
+        assertEquals(List.of("a"), rueda.avanzar(12_000));
+    }
+
+    @Test
+    void coincideConUnaColaOrdenadaEnAvancesAleatorios() {
+        Random random = new Random(11);
+        RuedaTemporizadores<Integer> rueda = new RuedaTemporizadores<>(TICK, 16, 0);
+        TreeMap<Long, List<Integer>> esperado = new TreeMap<>();
+        long ahora = 0;
+        int siguienteValor = 0;
+
+        for (int paso = 0; paso < 2_000; paso++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                // Hasta unas cinco vueltas hacia adelante
+                long instante = ahora + random.nextInt(80) * TICK + random.nextInt((int) TICK);
+                rueda.programar(siguienteValor, instante);
+                esperado.computeIfAbsent(Math.ceilDiv(instante, TICK), k -> new ArrayList<>()).add(siguienteValor++);
+            }
+            ahora += random.nextInt(3) == 0 ? (1 + random.nextInt(40)) * TICK : TICK;
+
+            List<Integer> vencidos = new ArrayList<>(rueda.avanzar(ahora));
+            List<Integer> debian = new ArrayList<>();
+            esperado.headMap(ahora / TICK, true).values().forEach(debian::addAll);
+            esperado.headMap(ahora / TICK, true).clear();
+            vencidos.sort(null);
+            debian.sort(null);
+            assertEquals(debian, vencidos);
+        }
+        assertEquals(esperado.values().stream().mapToInt(List::size).sum(), rueda.tamanio());
+    }
+}